@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * Translates the synthetic flat lines into patients (and back) one line at a time, using a shared context (see NaaccrXmlUtils.lineToPatient() and patientToLine()).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class NaaccrContextBenchmark {
+
+    private NaaccrContext _context;
+
+    // one patient (with a single tumor) per line
+    private List<Patient> _patients;
+
+    @Setup
+    public void setup(SyntheticFlatData data) throws NaaccrIOException {
+        _context = new NaaccrContext(data.getFormat());
+        _patients = new ArrayList<>();
+        for (String line : data.getFlatLines())
+            _patients.add(NaaccrXmlUtils.lineToPatient(line, _context));
+    }
+
+    @Benchmark
+    public void lineToPatient(SyntheticFlatData data, ThroughputCounters counters, Blackhole bh) throws NaaccrIOException {
+        long numBytes = 0;
+        for (String line : data.getFlatLines()) {
+            bh.consume(NaaccrXmlUtils.lineToPatient(line, _context));
+            numBytes += line.length() + 1;
+        }
+        counters.record(data.getFlatLines().size(), numBytes);
+    }
+
+    @Benchmark
+    public void patientToLine(ThroughputCounters counters, Blackhole bh) throws NaaccrIOException {
+        long numBytes = 0;
+        for (Patient patient : _patients) {
+            String line = NaaccrXmlUtils.patientToLine(patient, _context);
+            bh.consume(line);
+            numBytes += line.length() + 1;
+        }
+        counters.record(_patients.size(), numBytes);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads the synthetic flat file (see SyntheticFlatData).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PatientFlatReaderBenchmark {
+
+    @Benchmark
+    public int read(SyntheticFlatData data, ThroughputCounters counters) throws IOException {
+        int count = 0;
+        try (PatientFlatReader reader = new PatientFlatReader(NaaccrXmlUtils.createReader(data.getFlatFile()))) {
+            while (reader.readPatient() != null)
+                count++;
+        }
+        counters.record(count, data.getFlatFile().length());
+        return count;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * Writes the synthetic patients as flat lines; the output is discarded so only the writing itself is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PatientFlatWriterBenchmark {
+
+    @Benchmark
+    public int write(SyntheticFlatData data, ThroughputCounters counters) throws IOException {
+        int count = 0;
+        try (PatientFlatWriter writer = new PatientFlatWriter(new BufferedWriter(Writer.nullWriter()), data.getRootData())) {
+            for (Patient patient : data.getPatients()) {
+                writer.writePatient(patient);
+                count++;
+            }
+        }
+        counters.record(count, data.getFlatFile().length());
+        return count;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+/**
+ * Reads the synthetic XML file with each reading engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PatientXmlReaderBenchmark {
+
+    @Param({NaaccrStreamConfiguration.READING_ENGINE_XSTREAM, NaaccrStreamConfiguration.READING_ENGINE_PULL_PARSER})
+    public String engine;
+
+    private NaaccrStreamConfiguration _configuration;
+
+    @Setup
+    public void setup() {
+        _configuration = new NaaccrStreamConfiguration();
+        _configuration.setReadingEngine(engine);
+    }
+
+    @Benchmark
+    public int read(SyntheticData data, ThroughputCounters counters) throws IOException {
+        int count = 0;
+        try (PatientXmlReader reader = new PatientXmlReader(NaaccrXmlUtils.createReader(data.getXmlFile()), null, (List<NaaccrDictionary>)null, _configuration)) {
+            while (reader.readPatient() != null)
+                count++;
+        }
+        counters.record(count, data.getXmlFile().length());
+        return count;
+    }
+}
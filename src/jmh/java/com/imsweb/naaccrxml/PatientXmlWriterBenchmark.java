@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+/**
+ * Writes the synthetic patients as XML with each writing engine; the output is discarded so only the writing itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PatientXmlWriterBenchmark {
+
+    @Param({NaaccrStreamConfiguration.WRITING_ENGINE_XSTREAM, NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT})
+    public String engine;
+
+    private NaaccrStreamConfiguration _configuration;
+
+    @Setup
+    public void setup() {
+        _configuration = new NaaccrStreamConfiguration();
+        _configuration.setWritingEngine(engine);
+    }
+
+    @Benchmark
+    public int write(SyntheticData data, ThroughputCounters counters) throws IOException {
+        int count = 0;
+        try (PatientXmlWriter writer = new PatientXmlWriter(new BufferedWriter(Writer.nullWriter()), data.getRootData(), null, (List<NaaccrDictionary>)null, _configuration)) {
+            for (Patient patient : data.getPatients()) {
+                writer.writePatient(patient);
+                count++;
+            }
+        }
+        counters.record(count, data.getXmlFile().length());
+        return count;
+    }
+}
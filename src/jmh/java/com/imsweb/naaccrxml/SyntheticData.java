@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.imsweb.naaccrxml.entity.AbstractEntity;
+import com.imsweb.naaccrxml.entity.Item;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
+
+/**
+ * Synthetic data shared by the benchmarks; the data is generated from the base dictionary of the requested version and record type, and written
+ * to a temporary XML file (see SyntheticFlatData for the flat files, which are only supported by some versions).
+ * <br/><br/>
+ * About half of the items applicable to the record type are populated, with random values compatible with their data type and length; the
+ * generation is seeded so the data is always the same for a given set of parameters.
+ */
+@State(Scope.Benchmark)
+public class SyntheticData {
+
+    @Param({"140", "150", "160", "180", "210", "220", "230", "240", "250", "260"})
+    public String version;
+
+    @Param({"A", "M", "C", "I"})
+    public String recordType;
+
+    @Param({"1000"})
+    public int numPatients;
+
+    @Param({"2"})
+    public int numTumorsPerPatient;
+
+    private File _directory;
+
+    private NaaccrData _rootData;
+
+    private File _xmlFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        _directory = Files.createTempDirectory("naaccr-xml-jmh").toFile();
+
+        _rootData = createData(version, recordType, numPatients, numTumorsPerPatient);
+
+        _xmlFile = new File(_directory, "synthetic-data.xml");
+        NaaccrXmlUtils.writeXmlFile(_rootData, _xmlFile, null, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(_directory);
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    public NaaccrData getRootData() {
+        return _rootData;
+    }
+
+    public List<Patient> getPatients() {
+        return _rootData.getPatients();
+    }
+
+    public File getXmlFile() {
+        return _xmlFile;
+    }
+
+    /**
+     * Creates the synthetic data.
+     * @param version NAACCR version
+     * @param recordType record type
+     * @param numPatients number of patients
+     * @param numTumorsPerPatient number of tumors for each patient
+     * @return the data, with its patients
+     */
+    public static NaaccrData createData(String version, String recordType, int numPatients, int numTumorsPerPatient) {
+        List<NaaccrDictionaryItem> patientItems = new ArrayList<>();
+        List<NaaccrDictionaryItem> tumorItems = new ArrayList<>();
+        for (NaaccrDictionaryItem item : NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(version).getItems()) {
+            if (item.getRecordTypes() != null && !item.getRecordTypes().contains(recordType))
+                continue;
+            if ("patientIdNumber".equals(item.getNaaccrId()) || "recordType".equals(item.getNaaccrId()) || "naaccrRecordVersion".equals(item.getNaaccrId()))
+                continue;
+            if (NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT.equals(item.getParentXmlElement()))
+                patientItems.add(item);
+            else if (NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR.equals(item.getParentXmlElement()))
+                tumorItems.add(item);
+        }
+
+        Random random = new Random(version.hashCode() * 31L + recordType.hashCode());
+        NaaccrData data = new NaaccrData(NaaccrFormat.getInstance(version, recordType).toString());
+        for (int i = 1; i <= numPatients; i++) {
+            Patient patient = new Patient();
+            patient.addItem(new Item("patientIdNumber", String.format("%08d", i)));
+            addItems(patient, patientItems, random);
+            for (int j = 0; j < numTumorsPerPatient; j++) {
+                Tumor tumor = new Tumor();
+                addItems(tumor, tumorItems, random);
+                patient.addTumor(tumor);
+            }
+            data.addPatient(patient);
+        }
+
+        return data;
+    }
+
+    private static void addItems(AbstractEntity entity, List<NaaccrDictionaryItem> definitions, Random random) {
+        for (NaaccrDictionaryItem def : definitions)
+            if (random.nextBoolean())
+                entity.addItem(new Item(def.getNaaccrId(), createValue(def, random)));
+    }
+
+    private static String createValue(NaaccrDictionaryItem def, Random random) {
+        if (NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DATE.equals(def.getDataType()))
+            return ("2024" + String.format("%02d%02d", 1 + random.nextInt(12), 1 + random.nextInt(28))).substring(0, Math.min(8, def.getLength()));
+
+        // text fields can be very long, we don't want those to dominate the data
+        int length = NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_TEXT.equals(def.getDataType()) ? Math.min(def.getLength(), 40) : def.getLength();
+        StringBuilder buf = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            if (NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_ALPHA.equals(def.getDataType()))
+                buf.append((char)('A' + random.nextInt(26)));
+            else if (NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_MIXED.equals(def.getDataType()) || NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_TEXT.equals(def.getDataType()))
+                buf.append(random.nextInt(3) == 0 ? (char)('A' + random.nextInt(26)) : (char)('0' + random.nextInt(10)));
+            else
+                buf.append((char)('0' + random.nextInt(10)));
+        }
+        return buf.toString();
+    }
+}
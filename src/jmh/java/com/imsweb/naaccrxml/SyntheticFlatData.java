@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * Synthetic data written to a temporary flat file; flat files are only supported up to version 18, so only those versions are available.
+ * <br/><br/>
+ * The data is generated the same way as for the XML benchmarks (see SyntheticData).
+ */
+@State(Scope.Benchmark)
+public class SyntheticFlatData {
+
+    @Param({"140", "150", "160", "180"})
+    public String version;
+
+    @Param({"A", "M", "C", "I"})
+    public String recordType;
+
+    @Param({"1000"})
+    public int numPatients;
+
+    @Param({"2"})
+    public int numTumorsPerPatient;
+
+    private File _directory;
+
+    private NaaccrData _rootData;
+
+    private File _flatFile;
+
+    private List<String> _flatLines;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        _directory = Files.createTempDirectory("naaccr-xml-jmh").toFile();
+
+        _rootData = SyntheticData.createData(version, recordType, numPatients, numTumorsPerPatient);
+
+        _flatFile = new File(_directory, "synthetic-data.txt");
+        NaaccrXmlUtils.writeFlatFile(_rootData, _flatFile, null, null, null);
+        _flatLines = Files.readAllLines(_flatFile.toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(_directory);
+    }
+
+    public String getFormat() {
+        return NaaccrFormat.getInstance(version, recordType).toString();
+    }
+
+    public NaaccrData getRootData() {
+        return _rootData;
+    }
+
+    public List<Patient> getPatients() {
+        return _rootData.getPatients();
+    }
+
+    public File getFlatFile() {
+        return _flatFile;
+    }
+
+    public List<String> getFlatLines() {
+        return _flatLines;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counters reported by JMH as rates, in addition to the primary score of the benchmarks (so the results include the number of patients and megabytes per second).
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+
+    public long patients;
+
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        patients = 0;
+        megabytes = 0;
+    }
+
+    /**
+     * Records the processing of some data.
+     * @param numPatients number of processed patients
+     * @param numBytes number of processed bytes
+     */
+    public void record(long numPatients, long numBytes) {
+        patients += numPatients;
+        megabytes += numBytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the item value sanitizer with the regular expressions it replaced, on typical item values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemValueSanitizerBenchmark {
+
+    private static final Pattern _CARRIAGE_RETURN_PATTERN = Pattern.compile("\r\n|\r(?!\n)|(?<!\r)\n");
+
+    private static final Pattern _CONTROL_CHARACTERS_PATTERN = Pattern.compile("[\\x00-\\x08\\x0B\\x0C\\x0E-\\x1F\\x7F]");
+
+    private static final Pattern _NEW_LINES_PATTERN = Pattern.compile("(\r\n|\n|\r)");
+
+    @Param({"code", "text", "text-with-new-lines"})
+    public String _valueType;
+
+    private String[] _values;
+
+    @Setup
+    public void setup() {
+        _values = switch (_valueType) {
+            case "code" -> new String[] {"C504", "8500", "3", "20240115", "00000123", "1", "09", "999"};
+            case "text" -> new String[] {"Patient presented with a palpable mass in the upper outer quadrant of the left breast, biopsy confirmed."};
+            case "text-with-new-lines" -> new String[] {"Patient presented with a palpable mass\r\nin the upper outer quadrant\r\nof the left breast,\rbiopsy confirmed.\n"};
+            default -> throw new IllegalStateException("Unknown value type: " + _valueType);
+        };
+    }
+
+    @Benchmark
+    public void xmlPatterns(Blackhole bh) {
+        for (String value : _values) {
+            String result = _CARRIAGE_RETURN_PATTERN.matcher(value).replaceAll("\n");
+            Matcher matcher = _CONTROL_CHARACTERS_PATTERN.matcher(result);
+            if (matcher.find())
+                result = matcher.replaceAll("");
+            bh.consume(result);
+        }
+    }
+
+    @Benchmark
+    public void xmlSanitizer(Blackhole bh) {
+        for (String value : _values)
+            bh.consume(ItemValueSanitizer.sanitize(value, '\n', ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE));
+    }
+
+    @Benchmark
+    public void flatPattern(Blackhole bh) {
+        for (String value : _values)
+            bh.consume(_NEW_LINES_PATTERN.matcher(value).replaceAll(" "));
+    }
+
+    @Benchmark
+    public void flatSanitizer(Blackhole bh) {
+        for (String value : _values)
+            bh.consume(ItemValueSanitizer.sanitize(value, ' ', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.sas;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.naaccrxml.SyntheticData;
+import com.imsweb.naaccrxml.ThroughputCounters;
+
+/**
+ * Converts the synthetic XML file to CSV and back, using the SAS converters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SasConvertersBenchmark {
+
+    private File _csvFile;
+
+    private File _xmlFile;
+
+    @Setup
+    public void setup(SyntheticData data) throws IOException {
+        _csvFile = new File(data.getDirectory(), "sas-data.csv");
+        _xmlFile = new File(data.getDirectory(), "sas-data.xml");
+        new SasXmlToCsv(data.getXmlFile().getPath(), _csvFile.getPath(), data.version, data.recordType).convert();
+    }
+
+    @Benchmark
+    public void xmlToCsv(SyntheticData data, ThroughputCounters counters) throws IOException {
+        File csvFile = new File(data.getDirectory(), "sas-output.csv");
+        new SasXmlToCsv(data.getXmlFile().getPath(), csvFile.getPath(), data.version, data.recordType).convert();
+        counters.record(data.numPatients, data.getXmlFile().length());
+    }
+
+    @Benchmark
+    public void csvToXml(SyntheticData data, ThroughputCounters counters) throws IOException {
+        new SasCsvToXml(_csvFile.getPath(), _xmlFile.getPath(), data.version, data.recordType).convert();
+        counters.record(data.numPatients, _csvFile.length());
+    }
+}
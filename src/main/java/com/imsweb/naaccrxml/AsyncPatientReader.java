@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * A patient reader reading ahead the patients of another reader, using a background thread.
+ * <br/><br/>
+ * The background thread reads the patients from the wrapped reader and stores them in a bounded queue (the queue size is the maximum number of
+ * patients kept in memory); this allows reading the data (disk access, decompression and parsing) while the calling thread is processing or
+ * writing the previous patients. The patients are returned in the same order as the wrapped reader returns them, and an exception thrown by the
+ * wrapped reader is thrown by this reader once all the patients that were read before it have been returned.
+ * <br/><br/>
+ * The background thread is started on the first call to readPatient(); closing this reader stops it and closes the wrapped reader. The background
+ * thread is never interrupted (interrupting a thread can close the file channel it reads from); it checks a flag instead, so stopping this reader
+ * waits for the patient being read to be done. Interrupting the calling thread while it is waiting for a patient makes this reader throw an exception,
+ * with the interrupted status of the thread preserved.
+ * <br/><br/>
+ * This class is not thread-safe; like any other patient reader, it should be used by a single thread.
+ */
+public class AsyncPatientReader implements PatientReader {
+
+    // the default size of the queue
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // how long to wait for the background thread before draining the queue again, when stopping this reader
+    private static final long _STOP_POLLING_MILLIS = 10;
+
+    // marker for the end of the data
+    private static final Object _END_OF_DATA = new Object();
+
+    // the wrapped reader
+    protected PatientReader _reader;
+
+    // the patients read ahead by the background thread (and the end-of-data marker or a failure once it's done)
+    protected BlockingQueue<Object> _queue;
+
+    // whether the background thread should be a virtual thread
+    protected boolean _useVirtualThread;
+
+    // the background thread (null until the first patient is requested)
+    protected Thread _thread;
+
+    // whether this reader has been closed (or the background thread has been stopped for another reason)
+    protected volatile boolean _stopped;
+
+    // set once the end of the data is reached
+    protected boolean _endReached;
+
+    // the failure returned by the background thread, thrown again on any subsequent call
+    protected Throwable _failure;
+
+    /**
+     * Constructor.
+     * @param reader required wrapped reader
+     */
+    public AsyncPatientReader(PatientReader reader) {
+        this(reader, DEFAULT_QUEUE_SIZE, false);
+    }
+
+    /**
+     * Constructor.
+     * @param reader required wrapped reader
+     * @param queueSize maximum number of patients read ahead, must be at least 1
+     * @param useVirtualThread whether the patients should be read by a virtual thread instead of a platform thread
+     */
+    public AsyncPatientReader(PatientReader reader, int queueSize, boolean useVirtualThread) {
+        if (reader == null)
+            throw new IllegalStateException("Reader is required");
+        if (queueSize < 1)
+            throw new IllegalStateException("Queue size must be at least 1");
+        _reader = reader;
+        _queue = new ArrayBlockingQueue<>(queueSize);
+        _useVirtualThread = useVirtualThread;
+    }
+
+    @Override
+    public Patient readPatient() throws NaaccrIOException {
+        if (_failure != null)
+            rethrow(_failure);
+        if (_endReached)
+            return null;
+        if (_stopped)
+            throw new NaaccrIOException("Reader has been closed");
+
+        if (_thread == null)
+            _thread = startThread();
+
+        Object next;
+        try {
+            next = _queue.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NaaccrIOException("Interrupted while waiting for the next patient");
+        }
+
+        if (next == _END_OF_DATA) {
+            _endReached = true;
+            return null;
+        }
+        if (next instanceof Failure failure) {
+            _failure = failure._exception;
+            rethrow(_failure);
+        }
+
+        return (Patient)next;
+    }
+
+    @Override
+    public NaaccrData getRootData() {
+        return _reader.getRootData();
+    }
+
+    @Override
+    public NaaccrErrorCollector getErrorCollector() {
+        return _reader.getErrorCollector();
+    }
+
+    @Override
+    public void closeAndKeepAlive() {
+        stop();
+        _reader.closeAndKeepAlive();
+    }
+
+    @Override
+    public void close() throws NaaccrIOException {
+        stop();
+        try {
+            _reader.close();
+        }
+        catch (NaaccrIOException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the background thread and waits for it to be done, without closing the wrapped reader; the patients that were read ahead but not
+     * returned yet are discarded, and this reader can't be used anymore. This preserves the interrupted status of the calling thread.
+     */
+    public void stop() {
+        _stopped = true;
+        if (_thread == null)
+            return;
+
+        // the background thread sees the flag once it's done with the current patient; the queue is drained in case it's waiting for room
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (_thread.isAlive()) {
+                _queue.clear();
+                try {
+                    _thread.join(_STOP_POLLING_MILLIS);
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        _queue.clear();
+    }
+
+    /**
+     * Reads the patients and stores them in the queue; this is executed by the background thread.
+     */
+    private void readPatients() {
+        try {
+            try {
+                Patient patient = _reader.readPatient();
+                while (patient != null && !_stopped) {
+                    _queue.put(patient);
+                    patient = _reader.readPatient();
+                }
+                if (!_stopped)
+                    _queue.put(_END_OF_DATA);
+            }
+            catch (NaaccrIOException | RuntimeException | Error e) {
+                if (!_stopped)
+                    _queue.put(new Failure(e));
+            }
+        }
+        catch (InterruptedException e) {
+            // the background thread is never interrupted by this class, nothing else to do
+        }
+    }
+
+    private Thread startThread() {
+        String name = "naaccr-xml-read-ahead-" + _THREAD_COUNTER.incrementAndGet();
+        if (_useVirtualThread)
+            return Thread.ofVirtual().name(name).start(this::readPatients);
+        Thread thread = new Thread(this::readPatients, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Throws the exception of the wrapped reader as-is, so the caller gets the same message and line number as if it was using that reader directly.
+     */
+    private static void rethrow(Throwable t) throws NaaccrIOException {
+        if (t instanceof NaaccrIOException e)
+            throw e;
+        if (t instanceof RuntimeException e)
+            throw e;
+        if (t instanceof Error e)
+            throw e;
+        throw new NaaccrIOException(t.getMessage());
+    }
+
+    // a failure of the background thread
+    private static final class Failure {
+
+        private final Throwable _exception;
+
+        private Failure(Throwable exception) {
+            _exception = exception;
+        }
+    }
+}
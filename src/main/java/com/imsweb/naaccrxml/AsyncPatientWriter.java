@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * A patient writer handing the patients to another writer running on a background thread.
+ * <br/><br/>
+ * The patients are stored in a bounded queue (the queue size is the maximum number of patients waiting to be written) and written by the background
+ * thread, in the same order as they were provided; this allows the serialization and compression of the data to happen while the calling thread
+ * is reading or processing the next patients. The patients must not be modified once they have been handed to this writer.
+ * <br/><br/>
+ * A failure of the wrapped writer is thrown by the next call to writePatient(), flushPatients(), closeAndKeepAlive() or close(), and by any
+ * subsequent call to writePatient(); the patients handed to this writer after the failure are discarded.
+ * <br/><br/>
+ * If an observer is provided, it is notified by the background thread once each patient has actually been written by the wrapped writer; an
+ * exception thrown by the observer is reported like a failure of the wrapped writer.
+ * <br/><br/>
+ * This class is not thread-safe; like any other patient writer, it should be used by a single thread.
+ */
+public class AsyncPatientWriter implements PatientWriter {
+
+    // the default size of the queue
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // marker for the end of the patients
+    private static final Patient _END_OF_DATA = new Patient();
+
+    // the wrapped writer
+    protected PatientWriter _writer;
+
+    // the patients waiting to be written (and the end-of-data marker when the background thread needs to stop)
+    protected BlockingQueue<Patient> _queue;
+
+    // whether the background thread should be a virtual thread
+    protected boolean _useVirtualThread;
+
+    // the optional observer, notified by the background thread
+    protected NaaccrObserver _observer;
+
+    // the background thread (null if no patient is being written)
+    protected Thread _thread;
+
+    // the failure of the wrapped writer
+    protected volatile Throwable _failure;
+
+    // whether the failure has been reported to the caller
+    protected boolean _failureReported;
+
+    // whether this writer has been closed
+    protected boolean _closed;
+
+    /**
+     * Constructor.
+     * @param writer required wrapped writer
+     */
+    public AsyncPatientWriter(PatientWriter writer) {
+        this(writer, DEFAULT_QUEUE_SIZE, false);
+    }
+
+    /**
+     * Constructor.
+     * @param writer required wrapped writer
+     * @param queueSize maximum number of patients waiting to be written, must be at least 1
+     * @param useVirtualThread whether the patients should be written by a virtual thread instead of a platform thread
+     */
+    public AsyncPatientWriter(PatientWriter writer, int queueSize, boolean useVirtualThread) {
+        this(writer, queueSize, useVirtualThread, null);
+    }
+
+    /**
+     * Constructor.
+     * @param writer required wrapped writer
+     * @param queueSize maximum number of patients waiting to be written, must be at least 1
+     * @param useVirtualThread whether the patients should be written by a virtual thread instead of a platform thread
+     * @param observer optional observer, notified (by the background thread) once each patient has been written
+     */
+    public AsyncPatientWriter(PatientWriter writer, int queueSize, boolean useVirtualThread, NaaccrObserver observer) {
+        if (writer == null)
+            throw new IllegalStateException("Writer is required");
+        if (queueSize < 1)
+            throw new IllegalStateException("Queue size must be at least 1");
+        _writer = writer;
+        _queue = new ArrayBlockingQueue<>(queueSize);
+        _useVirtualThread = useVirtualThread;
+        _observer = observer;
+    }
+
+    @Override
+    public void writePatient(Patient patient) throws NaaccrIOException {
+        if (_closed)
+            throw new NaaccrIOException("Writer has been closed");
+        if (_failure != null) {
+            _failureReported = true;
+            rethrow(_failure);
+        }
+
+        if (_thread == null)
+            _thread = startThread();
+
+        try {
+            _queue.put(patient);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NaaccrIOException("Interrupted while waiting to write the patient");
+        }
+    }
+
+    /**
+     * Waits for all the patients handed to this writer to be written by the wrapped writer, and stops the background thread (it will be started again
+     * if more patients are written). This preserves the interrupted status of the calling thread.
+     * @throws NaaccrIOException if the wrapped writer failed and the failure hasn't been reported yet
+     */
+    public void flushPatients() throws NaaccrIOException {
+        stop();
+        if (_failure != null && !_failureReported) {
+            _failureReported = true;
+            rethrow(_failure);
+        }
+    }
+
+    /**
+     * Waits for all the patients handed to this writer to be written by the wrapped writer, and stops the background thread; unlike flushPatients(),
+     * this method doesn't report the failure of the wrapped writer, which makes it suitable for cleaning up.
+     */
+    public void stop() {
+        if (_thread == null)
+            return;
+
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    _queue.put(_END_OF_DATA);
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            while (_thread.isAlive()) {
+                try {
+                    _thread.join();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        _thread = null;
+        _queue.clear();
+    }
+
+    @Override
+    public void closeAndKeepAlive() throws NaaccrIOException {
+        flushPatients();
+        _writer.closeAndKeepAlive();
+    }
+
+    @Override
+    public void close() throws NaaccrIOException {
+        if (_closed)
+            return;
+        _closed = true;
+        try {
+            flushPatients();
+        }
+        finally {
+            try {
+                _writer.close();
+            }
+            catch (NaaccrIOException e) {
+                throw e;
+            }
+            catch (IOException e) {
+                throw new NaaccrIOException(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the patients from the queue; this is executed by the background thread.
+     */
+    private void writePatients() {
+        try {
+            Patient patient = _queue.take();
+            while (patient != _END_OF_DATA) {
+                // once the wrapped writer failed, the remaining patients are discarded
+                if (_failure == null) {
+                    try {
+                        _writer.writePatient(patient);
+                        if (_observer != null)
+                            _observer.patientWritten(patient);
+                    }
+                    catch (NaaccrIOException | RuntimeException | Error e) {
+                        _failure = e;
+                    }
+                }
+                patient = _queue.take();
+            }
+        }
+        catch (InterruptedException e) {
+            // the background thread is never interrupted by this class, nothing else to do
+        }
+    }
+
+    private Thread startThread() {
+        String name = "naaccr-xml-write-behind-" + _THREAD_COUNTER.incrementAndGet();
+        if (_useVirtualThread)
+            return Thread.ofVirtual().name(name).start(this::writePatients);
+        Thread thread = new Thread(this::writePatients, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Throws the exception of the wrapped writer as-is, so the caller gets the same exception as if it was using that writer directly.
+     */
+    private static void rethrow(Throwable t) throws NaaccrIOException {
+        if (t instanceof NaaccrIOException e)
+            throw e;
+        if (t instanceof RuntimeException e)
+            throw e;
+        if (t instanceof Error e)
+            throw e;
+        throw new NaaccrIOException(t.getMessage());
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -49,9 +50,14 @@ public final class BatchProcessor {
     // file name exclusion regex (optional)
     private static final String _OPTION_INPUT_REGEX_EXCLUDE = "input.regex-exclude";
 
-    // processing mode: flat-to-xml or xml-to-flat (required)
+    // processing mode: flat-to-xml, xml-to-flat or validate (required); validate only reports the errors of the input files and doesn't create any data file
     private static final String _OPTION_PROCESSING_MODE = "processing.mode";
 
+    // the possible processing modes
+    private static final String _MODE_FLAT_TO_XML = "flat-to-xml";
+    private static final String _MODE_XML_TO_FLAT = "xml-to-flat";
+    private static final String _MODE_VALIDATE = "validate";
+
     // the list of error codes (comma separated) to process (optional, if not provided, all codes are processed)
     private static final String _OPTION_PROCESSING_ERROR_CODES = "processing.error-codes";
 
@@ -61,6 +67,12 @@ public final class BatchProcessor {
     // compression for the created data files; gz, xz, none, as-input (optional, defaults to as-input)
     private static final String _OPTION_PROCESSING_COMPRESSION = "processing.compression";
 
+    // the number of threads used to compress each created gz file (optional, defaults to 1, which creates standard single-member files; 0 means the number of processors)
+    private static final String _OPTION_PROCESSING_COMPRESSION_THREADS = "processing.compression-threads";
+
+    // the compression level (0-9) of the created gz files (optional, defaults to -1, which means the default level)
+    private static final String _OPTION_PROCESSING_COMPRESSION_LEVEL = "processing.compression-level";
+
     // full path to the folder where the files should be created (required)
     private static final String _OPTION_OUTPUT_FOLDER = "output.folder";
 
@@ -98,8 +110,8 @@ public final class BatchProcessor {
         String mode = opt.getProperty(_OPTION_PROCESSING_MODE);
         if (mode == null)
             throw new IllegalStateException("Option " + _OPTION_PROCESSING_MODE + " is required.");
-        if (!"flat-to-xml".equals(mode) && !"xml-to-flat".equals(mode))
-            throw new IllegalStateException("Invalid mode (must be flat-to-xml or xml-to-flat).");
+        if (!_MODE_FLAT_TO_XML.equals(mode) && !_MODE_XML_TO_FLAT.equals(mode) && !_MODE_VALIDATE.equals(mode))
+            throw new IllegalStateException("Invalid mode (must be flat-to-xml, xml-to-flat or validate).");
         String rawErrorCodes = opt.getProperty(_OPTION_PROCESSING_ERROR_CODES);
         List<String> errorCodes = null;
         if (rawErrorCodes != null && !rawErrorCodes.isEmpty()) {
@@ -115,6 +127,16 @@ public final class BatchProcessor {
         String compression = opt.getProperty(_OPTION_PROCESSING_COMPRESSION);
         if (compression != null && !compression.equals("gz") && !compression.equals("xz") && !compression.equals("none") && !compression.equals("as-input"))
             throw new IllegalStateException("Invalid compression (must be gz, xz, none, or as-input).");
+        int compressionThreads = 1;
+        if (opt.getProperty(_OPTION_PROCESSING_COMPRESSION_THREADS) != null && !opt.getProperty(_OPTION_PROCESSING_COMPRESSION_THREADS).isEmpty())
+            compressionThreads = Integer.parseInt(opt.getProperty(_OPTION_PROCESSING_COMPRESSION_THREADS));
+        if (compressionThreads < 0)
+            throw new IllegalStateException("Invalid compression threads (must be 0 or more).");
+        int compressionLevel = -1;
+        if (opt.getProperty(_OPTION_PROCESSING_COMPRESSION_LEVEL) != null && !opt.getProperty(_OPTION_PROCESSING_COMPRESSION_LEVEL).isEmpty())
+            compressionLevel = Integer.parseInt(opt.getProperty(_OPTION_PROCESSING_COMPRESSION_LEVEL));
+        if (compressionLevel < -1 || compressionLevel > 9)
+            throw new IllegalStateException("Invalid compression level (must be between 0 and 9, or -1).");
         File outputDir = new File(opt.getProperty(_OPTION_OUTPUT_FOLDER));
         if (!outputDir.exists())
             throw new IllegalStateException("Invalid outupt folder.");
@@ -144,24 +166,29 @@ public final class BatchProcessor {
 
         // we will report the information in this collection
         Map<String, List<String>> reportData = new TreeMap<>();
-        Map<String, AtomicInteger> globalCounts = new HashMap<>();
-        Map<String, Set<String>> globalDetails = new HashMap<>();
+
+        // the global counts are updated by the threads processing the files
+        Map<String, AtomicInteger> globalCounts = new ConcurrentHashMap<>();
+        Map<String, Set<String>> globalDetails = new ConcurrentHashMap<>();
         AtomicInteger globalTumorCount = new AtomicInteger();
 
         // create the work
         long start = System.currentTimeMillis();
         try (ExecutorService executor = Executors.newFixedThreadPool(numThreads)) {
             for (File inputFile : toProcess) {
-                String outputFilename = invertFilename(inputFile, compression);
-                @SuppressWarnings("ConstantConditions")
-                File outputFile = new File(outputDir, outputFilename);
-                if (inputFile.equals(outputFile))
-                    throw new IllegalStateException("Was about to write output file into the input file, this can't be good!");
-                if (cleanCreatedFiles)
-                    outputFile.deleteOnExit();
+                File outputFile = null;
+                if (!_MODE_VALIDATE.equals(mode)) {
+                    String outputFilename = invertFilename(inputFile, compression);
+                    outputFile = new File(outputDir, outputFilename);
+                    if (inputFile.equals(outputFile))
+                        throw new IllegalStateException("Was about to write output file into the input file, this can't be good!");
+                    if (cleanCreatedFiles)
+                        outputFile.deleteOnExit();
+                }
                 List<String> data = new ArrayList<>();
                 reportData.put(inputFile.getName(), data);
-                executor.execute(new FileProcessor(inputFile, outputFile, data, cleanCreatedFiles, "flat-to-xml".equals(mode), globalCounts, globalDetails, globalTumorCount, errorCodes));
+                executor.execute(new FileProcessor(inputFile, outputFile, data, cleanCreatedFiles, mode, globalCounts, globalDetails, globalTumorCount, errorCodes,
+                        compressionThreads, compressionLevel));
             }
             executor.shutdown();
 
@@ -227,6 +254,13 @@ public final class BatchProcessor {
         return opt;
     }
 
+    private static boolean isXmlFile(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".gz") || name.endsWith(".xz"))
+            name = name.substring(0, name.length() - 3);
+        return name.endsWith(".xml");
+    }
+
     private static String invertFilename(File file, String compression) {
         // first invert the filename
         String[] name = StringUtils.split(file.getName(), '.');
@@ -276,22 +310,27 @@ public final class BatchProcessor {
         private final File _outputFile;
         private final List<String> _reportData;
         private final boolean _deleteOutputFiles;
-        private final boolean _flatToXml;
+        private final String _mode;
         private final Map<String, AtomicInteger> _globalCounts;
         private final Map<String, Set<String>> _globalDetails;
         private final AtomicInteger _globalTumorCount;
         private final List<String> _errorCodes;
+        private final int _compressionThreads;
+        private final int _compressionLevel;
 
-        public FileProcessor(File inputFile, File outputFile, List<String> reportData, boolean deleteOutputFiles, boolean flatToXml, Map<String, AtomicInteger> globalCounts, Map<String, Set<String>> globalDetails, AtomicInteger globalTumorCount, List<String> errorCodes) {
+        public FileProcessor(File inputFile, File outputFile, List<String> reportData, boolean deleteOutputFiles, String mode, Map<String, AtomicInteger> globalCounts, Map<String, Set<String>> globalDetails, AtomicInteger globalTumorCount, List<String> errorCodes,
+                int compressionThreads, int compressionLevel) {
             _inputFile = inputFile;
             _outputFile = outputFile;
             _reportData = reportData;
             _deleteOutputFiles = deleteOutputFiles;
-            _flatToXml = flatToXml;
+            _mode = mode;
             _globalCounts = globalCounts;
             _globalDetails = globalDetails;
             _globalTumorCount = globalTumorCount;
             _errorCodes = errorCodes;
+            _compressionThreads = compressionThreads;
+            _compressionLevel = compressionLevel;
         }
 
         @Override
@@ -303,18 +342,29 @@ public final class BatchProcessor {
 
             NaaccrOptions options = new NaaccrOptions();
             options.setReportLevelMismatch(true);
+            options.setGzipCompressionThreads(_compressionThreads);
+            options.setGzipCompressionLevel(_compressionLevel);
             NaaccrObserver observer = new FileObserver(warningCounts, warningDetails, tumorCount, _globalCounts, _globalDetails, _globalTumorCount);
 
             try {
                 long start = System.currentTimeMillis();
 
-                if (_flatToXml)
+                if (_MODE_VALIDATE.equals(_mode)) {
+                    NaaccrValidationSummary summary;
+                    if (isXmlFile(_inputFile))
+                        summary = NaaccrXmlUtils.validateXmlFile(_inputFile, options, null, null);
+                    else
+                        summary = NaaccrXmlUtils.validateFlatFile(_inputFile, options, null, null);
+                    handleSummary(summary, warningCounts, warningDetails, tumorCount);
+                }
+                else if (_MODE_FLAT_TO_XML.equals(_mode))
                     NaaccrXmlUtils.flatToXml(_inputFile, _outputFile, options, null, observer);
                 else
                     NaaccrXmlUtils.xmlToFlat(_inputFile, _outputFile, options, null, observer);
 
                 _reportData.add("   original size: " + formatFileSize(_inputFile.length()));
-                _reportData.add("   created size: " + formatFileSize(_outputFile.length()));
+                if (_outputFile != null)
+                    _reportData.add("   created size: " + formatFileSize(_outputFile.length()));
                 _reportData.add("   processing time: " + formatTime(System.currentTimeMillis() - start));
                 _reportData.add("   number of processed tumors: " + formatNumber(tumorCount.get()));
                 _reportData.add("   warnings:");
@@ -341,10 +391,30 @@ public final class BatchProcessor {
                 _reportData.add("   processing error: " + e.getMessage());
             }
 
-            if (_deleteOutputFiles)
+            if (_deleteOutputFiles && _outputFile != null)
                 if (!_outputFile.delete())
                     _reportData.add("Unable to delete " + _outputFile.getPath());
         }
+
+        private void handleSummary(NaaccrValidationSummary summary, Map<String, AtomicInteger> warningCounts, Map<String, Set<String>> warningDetails, AtomicInteger tumorCount) {
+            for (Entry<String, Long> entry : summary.getErrorCounts().entrySet()) {
+                String code = entry.getKey();
+                int count = entry.getValue().intValue();
+                Set<String> naaccrIds = summary.getItemErrorCounts(code).keySet();
+
+                // file counts and properties
+                warningCounts.computeIfAbsent(code, k -> new AtomicInteger()).addAndGet(count);
+                if (!naaccrIds.isEmpty())
+                    warningDetails.computeIfAbsent(code, k -> new HashSet<>()).addAll(naaccrIds);
+
+                // global counts and properties (several files are validated at the same time)
+                _globalCounts.computeIfAbsent(code, k -> new AtomicInteger()).addAndGet(count);
+                if (!naaccrIds.isEmpty())
+                    _globalDetails.computeIfAbsent(code, k -> ConcurrentHashMap.newKeySet()).addAll(naaccrIds);
+            }
+            tumorCount.addAndGet((int)summary.getNumTumors());
+            _globalTumorCount.addAndGet((int)summary.getNumTumors());
+        }
     }
 
     private static final class FileObserver implements NaaccrObserver {
@@ -378,6 +448,9 @@ public final class BatchProcessor {
         }
 
         private void handlePatient(Patient patient) {
+            if (!patient.hasAnyValidationErrors())
+                return;
+
             for (NaaccrValidationError error : patient.getAllValidationErrors()) {
 
                 // file count
@@ -388,11 +461,7 @@ public final class BatchProcessor {
                     count.incrementAndGet();
 
                 // global count
-                AtomicInteger globalCount = _globalCounts.get(error.getCode());
-                if (globalCount == null)
-                    _globalCounts.put(error.getCode(), new AtomicInteger(1));
-                else
-                    globalCount.incrementAndGet();
+                _globalCounts.computeIfAbsent(error.getCode(), k -> new AtomicInteger()).incrementAndGet();
 
                 if (error.getNaaccrId() != null) {
 
@@ -400,7 +469,7 @@ public final class BatchProcessor {
                     _warningDetails.computeIfAbsent(error.getCode(), k -> new HashSet<>()).add(error.getNaaccrId());
 
                     // global properties
-                    _globalDetails.computeIfAbsent(error.getCode(), k -> new HashSet<>()).add(error.getNaaccrId());
+                    _globalDetails.computeIfAbsent(error.getCode(), k -> ConcurrentHashMap.newKeySet()).add(error.getNaaccrId());
                 }
             }
         }
@@ -7,7 +7,8 @@ import java.util.List;
 
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
-import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.RuntimeFlatCodec;
+import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryCache;
 
 /**
  * A NaaccrContext is used in NaaccrXmlUtils when translating a single line into a patient and vice-versa.
@@ -15,6 +16,9 @@ import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionary;
  * Those operations require a context because unlike the translation of entire files, the single line translation is
  * expected to happen in loops. But some of the context required for the translation is expensive to create (mainly the
  * runtime dictionary), and so this class is used to cache that expensive data.
+ * <br/><br/>
+ * The context also caches a flat codec compiled from the runtime dictionary and the options; the options shouldn't be modified once the context
+ * is created. A context is thread-safe and can be shared by several threads.
  */
 public class NaaccrContext {
 
@@ -30,6 +34,9 @@ public class NaaccrContext {
     // the cached stream configuration
     private NaaccrStreamConfiguration _streamConfiguration;
 
+    // the cached codec used to translate the lines and patients
+    private RuntimeFlatCodec _flatCodec;
+
     /**
      * Constructor
      * @param format NAACCR format, required; see NaaccrFormat
@@ -66,11 +73,14 @@ public class NaaccrContext {
         NaaccrFormat nf = NaaccrFormat.getInstance(format);
         NaaccrDictionary baseDictionary = NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(nf.getNaaccrVersion());
         try {
-            _streamConfiguration.setCachedDictionary(new RuntimeNaaccrDictionary(nf.getRecordType(), baseDictionary, userDictionaries));
+            _streamConfiguration.setCachedDictionary(RuntimeNaaccrDictionaryCache.getRuntimeDictionary(nf.getRecordType(), baseDictionary, userDictionaries));
         }
         catch (NaaccrIOException e) {
             throw new IllegalStateException(e);
         }
+
+        // ...and compile the codec from that dictionary
+        _flatCodec = new RuntimeFlatCodec(nf, _streamConfiguration.getCachedDictionary(), options);
     }
 
     public String getFormat() {
@@ -88,4 +98,8 @@ public class NaaccrContext {
     public NaaccrStreamConfiguration getStreamConfiguration() {
         return _streamConfiguration;
     }
+
+    public RuntimeFlatCodec getFlatCodec() {
+        return _flatCodec;
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.imsweb.naaccrxml.entity.AbstractEntity;
+
+/**
+ * Counts the validation errors reported by a reader, and decides which ones are attached to the entities.
+ * <br/><br/>
+ * The options define how many errors can be retained per entity, per file and per error code (see NaaccrOptions.setMaxValidationErrorsPerEntity(),
+ * setMaxValidationErrorsPerFile() and setMaxValidationErrorsPerCode()); the errors beyond those limits are not attached to the entities (and not
+ * even created), but they are still counted.
+ * <br/><br/>
+ * This class is thread-safe and doesn't use any lock; the readers using several threads share a single collector, in which case the errors that
+ * are retained when a limit is reached depend on the order in which the threads report them.
+ */
+public class NaaccrErrorCollector {
+
+    // the maximum number of errors that can be retained per entity, per file and per code (negative means no limit)
+    private final int _maxPerEntity;
+    private final int _maxPerFile;
+    private final int _maxPerCode;
+
+    // the number of errors retained for the file
+    private final AtomicInteger _numRetained;
+
+    // the counters of each error code
+    private final Map<String, CodeCounters> _counters;
+
+    /**
+     * Constructor.
+     * @param options options defining the limits, if null the default options are used (no limit)
+     */
+    public NaaccrErrorCollector(NaaccrOptions options) {
+        if (options == null)
+            options = NaaccrOptions.getDefault();
+        _maxPerEntity = options.getMaxValidationErrorsPerEntity() == null ? -1 : options.getMaxValidationErrorsPerEntity();
+        _maxPerFile = options.getMaxValidationErrorsPerFile() == null ? -1 : options.getMaxValidationErrorsPerFile();
+        _maxPerCode = options.getMaxValidationErrorsPerCode() == null ? -1 : options.getMaxValidationErrorsPerCode();
+        _numRetained = new AtomicInteger();
+
+        // the counters of the known codes are created right away so they can be accessed without any locking
+        _counters = new ConcurrentHashMap<>();
+        for (String code : NaaccrErrorUtils.getAllValidationErrors().keySet())
+            _counters.put(code, new CodeCounters());
+    }
+
+    /**
+     * Counts an error for the given code, and returns whether that error should be attached to the entity.
+     * @param entity the entity the error (or the item of the error) belongs to, can be null
+     * @param code error code, cannot be null
+     * @return true if the error should be created and attached to the entity, false if it should be dropped
+     */
+    public boolean retain(AbstractEntity entity, String code) {
+        return retain(entity == null ? -1 : entity.getNumValidationErrors(), code);
+    }
+
+    /**
+     * Counts an error for the given code, and returns whether that error would be attached to its entity; this is used when the entities are
+     * validated without being created (see PatientFlatReader.validatePatient()).
+     * @param numEntityErrors the number of errors already retained for the entity the error belongs to, negative if the error doesn't belong to an entity
+     * @param code error code, cannot be null
+     * @return true if the error should be retained, false if it should be dropped
+     */
+    public boolean retain(int numEntityErrors, String code) {
+        CodeCounters counters = _counters.get(code);
+        if (counters == null)
+            counters = _counters.computeIfAbsent(code, k -> new CodeCounters());
+        counters._numReported.increment();
+
+        boolean retained = (_maxPerEntity < 0 || numEntityErrors < 0 || numEntityErrors < _maxPerEntity) && increment(counters._numRetained, _maxPerCode);
+        if (retained && !increment(_numRetained, _maxPerFile)) {
+            counters._numRetained.decrementAndGet();
+            retained = false;
+        }
+
+        if (!retained)
+            counters._numDropped.increment();
+
+        return retained;
+    }
+
+    /**
+     * Returns the total number of reported errors (retained or not).
+     * @return number of reported errors
+     */
+    public long getNumErrors() {
+        long result = 0;
+        for (CodeCounters counters : _counters.values())
+            result += counters._numReported.sum();
+        return result;
+    }
+
+    /**
+     * Returns the number of errors that were dropped because of the limits.
+     * @return number of dropped errors
+     */
+    public long getNumDroppedErrors() {
+        long result = 0;
+        for (CodeCounters counters : _counters.values())
+            result += counters._numDropped.sum();
+        return result;
+    }
+
+    /**
+     * Returns the number of reported errors (retained or not) per error code; only the codes that were reported are included.
+     * @return the counts, sorted by code, never null
+     */
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        _counters.forEach((code, counters) -> {
+            long count = counters._numReported.sum();
+            if (count > 0)
+                result.put(code, count);
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the number of errors that were dropped because of the limits, per error code; only the codes that had dropped errors are included.
+     * @return the counts, sorted by code, never null
+     */
+    public Map<String, Long> getDroppedErrorCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        _counters.forEach((code, counters) -> {
+            long count = counters._numDropped.sum();
+            if (count > 0)
+                result.put(code, count);
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    // increments the counter unless it already reached the limit (a negative limit means no limit); returns true if the counter was incremented
+    private static boolean increment(AtomicInteger counter, int limit) {
+        if (limit < 0) {
+            counter.incrementAndGet();
+            return true;
+        }
+        int value = counter.get();
+        while (value < limit) {
+            if (counter.compareAndSet(value, value + 1))
+                return true;
+            value = counter.get();
+        }
+        return false;
+    }
+
+    private static final class CodeCounters {
+
+        // the number of reported errors (retained or not) and dropped errors
+        private final LongAdder _numReported = new LongAdder();
+        private final LongAdder _numDropped = new LongAdder();
+
+        // the number of retained errors (used to enforce the limit per code)
+        private final AtomicInteger _numRetained = new AtomicInteger();
+    }
+}
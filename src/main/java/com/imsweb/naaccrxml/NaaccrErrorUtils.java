@@ -24,6 +24,7 @@ public final class NaaccrErrorUtils {
     public static final String CODE_VAL_TOO_LONG = "Value too long";
     public static final String CODE_VAL_TOO_SHORT = "Value too short";
     public static final String CODE_VAL_DATA_TYPE = "Value invalid for data type";
+    public static final String CODE_VAL_REGEX = "Value invalid for regular expression";
     public static final String CODE_VAL_START_SPACE = "Value starts with a space";
     public static final String CODE_VAL_END_SPACE = "Value ends with a space";
     public static final String CODE_VAL_PAT_VS_TUM = "Patient value not consistent among tumors";
@@ -41,6 +42,7 @@ public final class NaaccrErrorUtils {
         _MESSAGES.put(CODE_VAL_TOO_LONG, "value too long, expected at most ${0} character(s) but got ${1}");
         _MESSAGES.put(CODE_VAL_TOO_SHORT, "value too short, expected exactly ${0} character(s) but got ${1}");
         _MESSAGES.put(CODE_VAL_DATA_TYPE, "invalid value according to data type '${0}'");
+        _MESSAGES.put(CODE_VAL_REGEX, "invalid value according to regular expression '${0}'");
         _MESSAGES.put(CODE_VAL_START_SPACE, "value starts with one or several spaces");
         _MESSAGES.put(CODE_VAL_END_SPACE, "value ends with one or several spaces");
         _MESSAGES.put(CODE_VAL_PAT_VS_TUM, "item '${0}' is a patient-level and should have the same value for all the records of the patient");
@@ -55,9 +57,7 @@ public final class NaaccrErrorUtils {
      * @return the corresponding error message, never null (will throw an runtime exception if unknown code)
      */
     public static String getValidationError(String code, Object... msgValues) {
-        if (!_MESSAGES.containsKey(code))
-            throw new IllegalStateException("Unknown code: " + code);
-        return fillMessage(_MESSAGES.get(code), msgValues);
+        return fillMessage(getMessageTemplate(code), msgValues);
     }
 
     /**
@@ -68,12 +68,55 @@ public final class NaaccrErrorUtils {
         return Collections.unmodifiableMap(_MESSAGES);
     }
 
-    private static String fillMessage(String msg, Object... values) {
-        String result = msg;
-        if (values != null)
-            for (int i = 0; i < values.length; i++)
-                result = result.replace("${" + i + "}", values[i] == null ? "{blank}" : values[i].toString());
-        return result;
+    /**
+     * Returns the message (with its "${n}" placeholders) of the given error code.
+     * @param code error code
+     * @return the corresponding message, never null (will throw an runtime exception if unknown code)
+     */
+    static String getMessageTemplate(String code) {
+        String msg = _MESSAGES.get(code);
+        if (msg == null)
+            throw new IllegalStateException("Unknown code: " + code);
+        return msg;
+    }
 
+    /**
+     * Plugs the values into the placeholders of the message; this is done in a single pass, placeholders without a corresponding value are left as-is.
+     * @param msg message
+     * @param values values to plug into the message, can be null
+     * @return the resulting message
+     */
+    static String fillMessage(String msg, Object... values) {
+        if (values == null || values.length == 0)
+            return msg;
+
+        StringBuilder buf = new StringBuilder(msg.length() + 16 * values.length);
+        int start = 0;
+        int idx = msg.indexOf("${");
+        while (idx != -1) {
+            int end = msg.indexOf('}', idx + 2);
+            if (end == -1)
+                break;
+            int valueIdx = parsePlaceholderIndex(msg, idx + 2, end);
+            if (valueIdx >= 0 && valueIdx < values.length) {
+                buf.append(msg, start, idx).append(values[valueIdx] == null ? "{blank}" : values[valueIdx]);
+                start = end + 1;
+            }
+            idx = msg.indexOf("${", end);
+        }
+        return buf.append(msg, start, msg.length()).toString();
+    }
+
+    private static int parsePlaceholderIndex(String msg, int start, int end) {
+        if (start == end || end - start > 3)
+            return -1;
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = msg.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
     }
 }
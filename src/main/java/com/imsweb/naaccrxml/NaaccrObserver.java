@@ -18,6 +18,9 @@ public interface NaaccrObserver {
 
     /**
      * A patient has been written.
+     * <br/><br/>
+     * When the patients are written by a background thread (see AsyncPatientWriter and NaaccrOptions.setWriteBehindQueueSize()), this method is called
+     * by that thread once the patient has actually been written, so it might not be called by the thread that called patientRead().
      * @param patient the written patient
      */
     void patientWritten(Patient patient);
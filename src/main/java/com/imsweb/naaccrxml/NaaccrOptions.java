@@ -31,6 +31,12 @@ public class NaaccrOptions {
      */
     private Boolean _validateReadValues;
 
+    /**
+     * When reading data, if set to true, the values will also be validated against the regular expression of their dictionary item (regexValidation attribute),
+     * and the values that don't match it will be reported as CODE_VAL_REGEX errors. This applies only if validateReadValues is true. Defaults to false.
+     */
+    private Boolean _enforceRegexValidation;
+
     /**
      * When reading/writing XML data, how to handle unknown items (items with an ID that is not defined in the dictionary). See the handling constants. Defaults to ITEM_HANDLING_ERROR.
      */
@@ -118,11 +124,75 @@ public class NaaccrOptions {
      */
     private Boolean _allowMissingDictionary;
 
+    /**
+     * When reading data, whether the patients and tumors should store their items in a compact way (only the values are stored, the Item objects
+     * are created only when they are requested). This greatly reduces the memory used by the patients that are kept in memory. Defaults to false.
+     */
+    private Boolean _useCompactItemStorage;
+
     /**
      * The specification version to use when writing XML data. Defaults to the "current" specification version defined in NaaccrXmlUtils.
      */
     private String _specificationVersionWritten;
 
+    /**
+     * When translating data files (see NaaccrXmlUtils.xmlToXml(), flatToXml() and xmlToFlat()), the maximum number of patients read ahead by a
+     * background thread while the previous patients are processed and written (see AsyncPatientReader). Defaults to 0, which means the patients
+     * are read by the calling thread.
+     */
+    private Integer _readAheadQueueSize;
+
+    /**
+     * When translating an uncompressed flat data file (see NaaccrXmlUtils.flatToXml()), the number of threads used to read the patients of the file
+     * (see ParallelPatientFlatReader). Defaults to 0, which means the patients are read by the calling thread; compressed files are always read by
+     * the calling thread.
+     */
+    private Integer _flatReadingThreads;
+
+    /**
+     * When translating data files (see NaaccrXmlUtils.xmlToXml(), flatToXml() and xmlToFlat()), the maximum number of patients waiting to be
+     * written by a background thread while the next patients are read and processed (see AsyncPatientWriter). Defaults to 0, which means the
+     * patients are written by the calling thread.
+     */
+    private Integer _writeBehindQueueSize;
+
+    /**
+     * When translating data files (see NaaccrXmlUtils.xmlToXml(), flatToXml() and xmlToFlat()), whether the bytes of the target file should be
+     * compressed and written by a background thread (see DoubleBufferedOutputStream). Defaults to false.
+     */
+    private Boolean _compressInBackground;
+
+    /**
+     * The number of threads used to compress the GZIP data files created by the translation methods of NaaccrXmlUtils (see ParallelGzipOutputStream).
+     * Defaults to 1, which means the data is compressed by the calling thread, as a single GZIP member; 0 means the number of available processors.
+     * Using several threads creates a file made of several GZIP members, which is valid but not supported by every tool.
+     */
+    private Integer _gzipCompressionThreads;
+
+    /**
+     * The compression level (0-9) used for the GZIP data files created by the translation methods of NaaccrXmlUtils. Defaults to -1, which means
+     * the default level of the JDK deflater.
+     */
+    private Integer _gzipCompressionLevel;
+
+    /**
+     * When reading data, the maximum number of validation errors retained per entity (patient, tumor or root data, including the errors of their items);
+     * the errors beyond that limit are only counted (see NaaccrErrorCollector). Defaults to -1, which means no limit.
+     */
+    private Integer _maxValidationErrorsPerEntity;
+
+    /**
+     * When reading data, the maximum number of validation errors retained for the entire file; the errors beyond that limit are only counted
+     * (see NaaccrErrorCollector). Defaults to -1, which means no limit.
+     */
+    private Integer _maxValidationErrorsPerFile;
+
+    /**
+     * When reading data, the maximum number of validation errors retained for each error code, for the entire file; the errors beyond that limit are only
+     * counted (see NaaccrErrorCollector). Defaults to -1, which means no limit.
+     */
+    private Integer _maxValidationErrorsPerCode;
+
     /**
      * Convenience method to make the code look nicer, but it really just calls the default constructor!
      * @return an instance of the options with all default values.
@@ -131,11 +201,51 @@ public class NaaccrOptions {
         return new NaaccrOptions();
     }
 
+    /**
+     * Returns a copy of these options; the lists and maps are shared by the two instances.
+     * @return a new instance of the options with the same values
+     */
+    public NaaccrOptions copy() {
+        NaaccrOptions copy = new NaaccrOptions();
+        copy._validateReadValues = _validateReadValues;
+        copy._enforceRegexValidation = _enforceRegexValidation;
+        copy._unknownItemHandling = _unknownItemHandling;
+        copy._itemsToInclude = _itemsToInclude;
+        copy._itemsToExclude = _itemsToExclude;
+        copy._tumorGroupingItems = _tumorGroupingItems;
+        copy._reportLevelMismatch = _reportLevelMismatch;
+        copy._writeItemNumber = _writeItemNumber;
+        copy._writeItemsInAlphabeticalOrder = _writeItemsInAlphabeticalOrder;
+        copy._applyZeroPaddingRules = _applyZeroPaddingRules;
+        copy._reportValuesTooLong = _reportValuesTooLong;
+        copy._useStrictNamespaces = _useStrictNamespaces;
+        copy._ignoreControlCharacters = _ignoreControlCharacters;
+        copy._newLine = _newLine;
+        copy._ignoreExtensions = _ignoreExtensions;
+        copy._translateRenamedStandardItemIds = _translateRenamedStandardItemIds;
+        copy._itemIdsToTranslate = _itemIdsToTranslate;
+        copy._dictionaryIdsToTranslate = _dictionaryIdsToTranslate;
+        copy._allowMissingDictionary = _allowMissingDictionary;
+        copy._useCompactItemStorage = _useCompactItemStorage;
+        copy._specificationVersionWritten = _specificationVersionWritten;
+        copy._readAheadQueueSize = _readAheadQueueSize;
+        copy._flatReadingThreads = _flatReadingThreads;
+        copy._writeBehindQueueSize = _writeBehindQueueSize;
+        copy._compressInBackground = _compressInBackground;
+        copy._gzipCompressionThreads = _gzipCompressionThreads;
+        copy._gzipCompressionLevel = _gzipCompressionLevel;
+        copy._maxValidationErrorsPerEntity = _maxValidationErrorsPerEntity;
+        copy._maxValidationErrorsPerFile = _maxValidationErrorsPerFile;
+        copy._maxValidationErrorsPerCode = _maxValidationErrorsPerCode;
+        return copy;
+    }
+
     /**
      * Default constructor.
      */
     public NaaccrOptions() {
         _validateReadValues = true;
+        _enforceRegexValidation = false;
         _unknownItemHandling = ITEM_HANDLING_ERROR;
         _tumorGroupingItems = new ArrayList<>();
         _tumorGroupingItems.add(NaaccrXmlUtils.DEFAULT_TUMOR_GROUPING_ITEM);
@@ -153,6 +263,16 @@ public class NaaccrOptions {
         _newLine = NEW_LINE_OS;
         _allowMissingDictionary = true;
         _specificationVersionWritten = NaaccrXmlUtils.CURRENT_SPECIFICATION_VERSION;
+        _useCompactItemStorage = false;
+        _readAheadQueueSize = 0;
+        _flatReadingThreads = 0;
+        _writeBehindQueueSize = 0;
+        _compressInBackground = false;
+        _gzipCompressionThreads = 1;
+        _gzipCompressionLevel = -1;
+        _maxValidationErrorsPerEntity = -1;
+        _maxValidationErrorsPerFile = -1;
+        _maxValidationErrorsPerCode = -1;
     }
 
     public Boolean getValidateReadValues() {
@@ -163,6 +283,14 @@ public class NaaccrOptions {
         _validateReadValues = validateReadValues;
     }
 
+    public Boolean getEnforceRegexValidation() {
+        return _enforceRegexValidation;
+    }
+
+    public void setEnforceRegexValidation(Boolean enforceRegexValidation) {
+        _enforceRegexValidation = enforceRegexValidation;
+    }
+
     public String getUnknownItemHandling() {
         return _unknownItemHandling;
     }
@@ -309,6 +437,86 @@ public class NaaccrOptions {
         _specificationVersionWritten = specificationVersionWritten;
     }
 
+    public Boolean getUseCompactItemStorage() {
+        return _useCompactItemStorage;
+    }
+
+    public void setUseCompactItemStorage(Boolean useCompactItemStorage) {
+        _useCompactItemStorage = useCompactItemStorage;
+    }
+
+    public Integer getReadAheadQueueSize() {
+        return _readAheadQueueSize;
+    }
+
+    public void setReadAheadQueueSize(Integer readAheadQueueSize) {
+        _readAheadQueueSize = readAheadQueueSize;
+    }
+
+    public Integer getFlatReadingThreads() {
+        return _flatReadingThreads;
+    }
+
+    public void setFlatReadingThreads(Integer flatReadingThreads) {
+        _flatReadingThreads = flatReadingThreads;
+    }
+
+    public Integer getWriteBehindQueueSize() {
+        return _writeBehindQueueSize;
+    }
+
+    public void setWriteBehindQueueSize(Integer writeBehindQueueSize) {
+        _writeBehindQueueSize = writeBehindQueueSize;
+    }
+
+    public Boolean getCompressInBackground() {
+        return _compressInBackground;
+    }
+
+    public void setCompressInBackground(Boolean compressInBackground) {
+        _compressInBackground = compressInBackground;
+    }
+
+    public Integer getGzipCompressionThreads() {
+        return _gzipCompressionThreads;
+    }
+
+    public void setGzipCompressionThreads(Integer gzipCompressionThreads) {
+        _gzipCompressionThreads = gzipCompressionThreads;
+    }
+
+    public Integer getGzipCompressionLevel() {
+        return _gzipCompressionLevel;
+    }
+
+    public void setGzipCompressionLevel(Integer gzipCompressionLevel) {
+        _gzipCompressionLevel = gzipCompressionLevel;
+    }
+
+    public Integer getMaxValidationErrorsPerEntity() {
+        return _maxValidationErrorsPerEntity;
+    }
+
+    public void setMaxValidationErrorsPerEntity(Integer maxValidationErrorsPerEntity) {
+        _maxValidationErrorsPerEntity = maxValidationErrorsPerEntity;
+    }
+
+    public Integer getMaxValidationErrorsPerFile() {
+        return _maxValidationErrorsPerFile;
+    }
+
+    public void setMaxValidationErrorsPerFile(Integer maxValidationErrorsPerFile) {
+        _maxValidationErrorsPerFile = maxValidationErrorsPerFile;
+    }
+
+    public Integer getMaxValidationErrorsPerCode() {
+        return _maxValidationErrorsPerCode;
+    }
+
+    public void setMaxValidationErrorsPerCode(Integer maxValidationErrorsPerCode) {
+        _maxValidationErrorsPerCode = maxValidationErrorsPerCode;
+    }
+
     /**
      * Convenience method that computes if a given item needs to be ignored, based on the include/exclude lists.
      * @param naaccrId NAACCR ID
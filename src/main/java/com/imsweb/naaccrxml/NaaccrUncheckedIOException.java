@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.UncheckedIOException;
+
+/**
+ * This exception class wraps a NaaccrIOException where a checked exception can't be thrown, like in the streams of patients returned by
+ * NaaccrXmlUtils.streamXmlFile() and streamFlatFile().
+ */
+public class NaaccrUncheckedIOException extends UncheckedIOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     * @param cause the wrapped exception, cannot be null
+     */
+    public NaaccrUncheckedIOException(NaaccrIOException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized NaaccrIOException getCause() {
+        return (NaaccrIOException)super.getCause();
+    }
+
+    /**
+     * Returns the line number of the wrapped exception.
+     * @return the line number, null if it's not known
+     */
+    public Integer getLineNumber() {
+        return getCause().getLineNumber();
+    }
+}
@@ -3,15 +3,32 @@
  */
 package com.imsweb.naaccrxml;
 
+/**
+ * A validation error reported when reading or writing data.
+ * <br/><br/>
+ * The message and the path of the error are only computed the first time they are requested; the reading engines only record the values of the
+ * message and the structural location of the error (data level, tumor index and item index) so that data files with lots of errors don't spend
+ * their time formatting strings that nobody looks at.
+ */
 public class NaaccrValidationError {
     
     protected String _code;
 
     protected String _message;
 
+    // the values to plug into the message (the message is computed from them when it's requested)
+    protected Object[] _msgValues;
+
     protected Integer _lineNumber;
 
     protected String _path;
+
+    // the data level of the error (NaaccrData, Patient or Tumor), the 1-based index of the tumor within its patient and of the item within its parent tag
+    protected String _level;
+
+    protected Integer _tumorIndex;
+
+    protected Integer _itemIndex;
     
     protected String _naaccrId;
     
@@ -20,8 +37,9 @@ public class NaaccrValidationError {
     protected String _value;
     
     public NaaccrValidationError(String code, Object... msgValues) {
+        NaaccrErrorUtils.getMessageTemplate(code); // fail right away for an unknown code
         _code = code;
-        _message = NaaccrErrorUtils.getValidationError(code, msgValues);
+        _msgValues = msgValues;
     }
 
     public String getCode() {
@@ -29,6 +47,8 @@ public class NaaccrValidationError {
     }
 
     public String getMessage() {
+        if (_message == null)
+            _message = NaaccrErrorUtils.fillMessage(NaaccrErrorUtils.getMessageTemplate(_code), _msgValues);
         return _message;
     }
 
@@ -40,7 +60,13 @@ public class NaaccrValidationError {
         _lineNumber = lineNumber;
     }
 
+    /**
+     * Returns the path of the error (like "/Patient/Tumor[2]/Item[15]"); if no path was explicitly set, it's computed from the level, tumor index and item index.
+     * @return the path of the error, maybe null
+     */
     public String getPath() {
+        if (_path == null && _level != null)
+            _path = computePath();
         return _path;
     }
 
@@ -48,6 +74,30 @@ public class NaaccrValidationError {
         _path = path;
     }
 
+    public String getLevel() {
+        return _level;
+    }
+
+    public void setLevel(String level) {
+        _level = level;
+    }
+
+    public Integer getTumorIndex() {
+        return _tumorIndex;
+    }
+
+    public void setTumorIndex(Integer tumorIndex) {
+        _tumorIndex = tumorIndex;
+    }
+
+    public Integer getItemIndex() {
+        return _itemIndex;
+    }
+
+    public void setItemIndex(Integer itemIndex) {
+        _itemIndex = itemIndex;
+    }
+
     public String getNaaccrId() {
         return _naaccrId;
     }
@@ -71,4 +121,21 @@ public class NaaccrValidationError {
     public void setValue(String value) {
         _value = value;
     }
+
+    private String computePath() {
+        StringBuilder buf = new StringBuilder();
+        if (NaaccrXmlUtils.NAACCR_XML_TAG_ROOT.equals(_level))
+            buf.append("/").append(NaaccrXmlUtils.NAACCR_XML_TAG_ROOT);
+        else {
+            buf.append("/").append(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT);
+            if (NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR.equals(_level)) {
+                buf.append("/").append(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR);
+                if (_tumorIndex != null)
+                    buf.append("[").append(_tumorIndex).append("]");
+            }
+        }
+        if (_itemIndex != null)
+            buf.append("/").append(NaaccrXmlUtils.NAACCR_XML_TAG_ITEM).append("[").append(_itemIndex).append("]");
+        return buf.toString();
+    }
 }
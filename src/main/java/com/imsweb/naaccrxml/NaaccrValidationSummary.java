@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.imsweb.naaccrxml.entity.Item;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * The result of validating a data file (see NaaccrXmlUtils.validateXmlFile() and validateFlatFile()).
+ * <br/><br/>
+ * The summary only keeps the number of patients, tumors and validation errors (per error code and NAACCR ID); the validated patients are not retained.
+ * <br/><br/>
+ * This class is not thread-safe; summaries built by different threads can be combined using merge().
+ */
+public class NaaccrValidationSummary {
+
+    // the number of validated patients and tumors
+    private long _numPatients;
+    private long _numTumors;
+
+    // the number of errors per error code
+    private final Map<String, Long> _errorCounts;
+
+    // the number of errors per error code and NAACCR ID (errors that are not attached to an item are not included)
+    private final Map<String, Map<String, Long>> _itemErrorCounts;
+
+    /**
+     * Constructor.
+     */
+    public NaaccrValidationSummary() {
+        _errorCounts = new HashMap<>();
+        _itemErrorCounts = new HashMap<>();
+    }
+
+    /**
+     * Adds the errors of the given root data (but not the ones of its patients).
+     * @param rootData root data, cannot be null
+     */
+    public void addRootData(NaaccrData rootData) {
+        for (NaaccrValidationError error : rootData.getValidationErrors())
+            addError(error);
+        for (Item item : rootData.getItems())
+            if (item.getValidationError() != null)
+                addError(item.getValidationError());
+    }
+
+    /**
+     * Adds the given patient (and its tumors and errors).
+     * @param patient patient, cannot be null
+     */
+    public void addPatient(Patient patient) {
+        _numPatients++;
+        _numTumors += patient.getTumors().size();
+        if (patient.hasAnyValidationErrors())
+            for (NaaccrValidationError error : patient.getAllValidationErrors())
+                addError(error);
+    }
+
+    /**
+     * Adds a patient that was validated without being created (see PatientFlatReader.validatePatient()); its errors are added separately.
+     * @param numTumors number of tumors of the patient
+     */
+    void addPatient(int numTumors) {
+        _numPatients++;
+        _numTumors += numTumors;
+    }
+
+    /**
+     * Adds the errors that were counted but not retained by a reader (see NaaccrErrorCollector.getDroppedErrorCounts()); those errors are not
+     * included in the counts per NAACCR ID.
+     * @param droppedErrorCounts the number of dropped errors per error code, cannot be null
+     */
+    public void addDroppedErrors(Map<String, Long> droppedErrorCounts) {
+        droppedErrorCounts.forEach((code, count) -> _errorCounts.merge(code, count, Long::sum));
+    }
+
+    /**
+     * Adds the given error.
+     * @param error error, cannot be null
+     */
+    public void addError(NaaccrValidationError error) {
+        addError(error.getCode(), error.getNaaccrId());
+    }
+
+    /**
+     * Adds an error that was validated without being created (see PatientFlatReader.validatePatient()).
+     * @param code error code, cannot be null
+     * @param naaccrId NAACCR ID of the item the error is attached to, null if the error is not attached to an item
+     */
+    void addError(String code, String naaccrId) {
+        _errorCounts.merge(code, 1L, Long::sum);
+        if (naaccrId != null)
+            _itemErrorCounts.computeIfAbsent(code, k -> new HashMap<>()).merge(naaccrId, 1L, Long::sum);
+    }
+
+    /**
+     * Adds all the counts of the given summary to this one.
+     * @param other other summary, cannot be null
+     */
+    public void merge(NaaccrValidationSummary other) {
+        _numPatients += other._numPatients;
+        _numTumors += other._numTumors;
+        other._errorCounts.forEach((code, count) -> _errorCounts.merge(code, count, Long::sum));
+        other._itemErrorCounts.forEach((code, counts) -> {
+            Map<String, Long> itemCounts = _itemErrorCounts.computeIfAbsent(code, k -> new HashMap<>());
+            counts.forEach((naaccrId, count) -> itemCounts.merge(naaccrId, count, Long::sum));
+        });
+    }
+
+    public long getNumPatients() {
+        return _numPatients;
+    }
+
+    public long getNumTumors() {
+        return _numTumors;
+    }
+
+    /**
+     * Returns the total number of errors.
+     * @return total number of errors
+     */
+    public long getNumErrors() {
+        long result = 0;
+        for (Long count : _errorCounts.values())
+            result += count;
+        return result;
+    }
+
+    /**
+     * Returns the number of errors for the given error code.
+     * @param code error code (see NaaccrErrorUtils)
+     * @return number of errors, 0 if there is no such error
+     */
+    public long getNumErrors(String code) {
+        return _errorCounts.getOrDefault(code, 0L);
+    }
+
+    /**
+     * Returns the number of errors for each error code.
+     * @return the number of errors keyed by error code (sorted by code), maybe empty but never null
+     */
+    public Map<String, Long> getErrorCounts() {
+        return Collections.unmodifiableMap(new TreeMap<>(_errorCounts));
+    }
+
+    /**
+     * Returns the number of errors of the given error code for each NAACCR ID.
+     * @param code error code (see NaaccrErrorUtils)
+     * @return the number of errors keyed by NAACCR ID (sorted by ID), maybe empty but never null
+     */
+    public Map<String, Long> getItemErrorCounts(String code) {
+        Map<String, Long> counts = _itemErrorCounts.get(code);
+        return counts == null ? Collections.emptyMap() : Collections.unmodifiableMap(new TreeMap<>(counts));
+    }
+}
@@ -176,6 +176,8 @@ public final class NaaccrXmlDictionaryUtils {
 
     /**
      * Returns the pattern for the provided data type, null if not found.
+     * <br/><br/>
+     * The readers don't use those patterns; they use the equivalent (and faster) validators from DataTypeValidators.
      * @param dataType requested data type
      * @return corresponding pattern, maybe null
      */
@@ -254,7 +256,9 @@ public final class NaaccrXmlDictionaryUtils {
             String resName = "naaccr-dictionary-" + naaccrVersion + ".xml";
             try (Reader reader = new InputStreamReader(Thread.currentThread().getContextClassLoader().getResource(resName).openStream(), StandardCharsets.UTF_8)) {
                 result = readDictionary(reader);
-                _INTERNAL_DICTIONARIES.put("base_" + naaccrVersion, result);
+                NaaccrDictionary existing = _INTERNAL_DICTIONARIES.putIfAbsent("base_" + naaccrVersion, result);
+                if (existing != null)
+                    result = existing; // another thread loaded it first, make sure everyone uses the same shared instance
             }
             catch (IOException e) {
                 throw new IllegalStateException("Unable to load base dictionary for version " + naaccrVersion, e);
@@ -295,7 +299,9 @@ public final class NaaccrXmlDictionaryUtils {
             String resName = "user-defined-naaccr-dictionary-" + naaccrVersion + ".xml";
             try (Reader reader = new InputStreamReader(Thread.currentThread().getContextClassLoader().getResource(resName).openStream(), StandardCharsets.UTF_8)) {
                 result = readDictionary(reader);
-                _INTERNAL_DICTIONARIES.put("user_" + naaccrVersion, result);
+                NaaccrDictionary existing = _INTERNAL_DICTIONARIES.putIfAbsent("user_" + naaccrVersion, result);
+                if (existing != null)
+                    result = existing; // another thread loaded it first, make sure everyone uses the same shared instance
             }
             catch (IOException e) {
                 throw new IllegalStateException("Unable to get base dictionary for version " + naaccrVersion, e);
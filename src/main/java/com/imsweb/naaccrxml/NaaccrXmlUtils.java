@@ -13,10 +13,11 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
@@ -27,7 +28,9 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.lang3.StringUtils;
@@ -37,6 +40,10 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.imsweb.naaccrxml.entity.NaaccrData;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.internal.DoubleBufferedOutputStream;
+import com.imsweb.naaccrxml.internal.MappedUtf8Reader;
+import com.imsweb.naaccrxml.internal.ParallelGzipInputStream;
+import com.imsweb.naaccrxml.internal.ParallelGzipOutputStream;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
 
 /**
@@ -103,17 +110,45 @@ public final class NaaccrXmlUtils {
 
         // create the reader and writer and let them do all the work!
         try (PatientXmlReader reader = new PatientXmlReader(createReader(xmlSource), options, userDictionaries)) {
-            try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlTarget), reader.getRootData(), options, userDictionaries)) {
-                Patient patient = reader.readPatient();
-                while (patient != null && !Thread.currentThread().isInterrupted()) {
-                    if (observer != null)
-                        observer.patientRead(patient);
-                    processor.processPatient(patient);
-                    writer.writePatient(patient);
-                    if (observer != null)
-                        observer.patientWritten(patient);
-                    patient = reader.readPatient();
-                }
+            try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlTarget, options), reader.getRootData(), options, userDictionaries)) {
+                translatePatients(reader, writer, processor, observer, options);
+            }
+        }
+    }
+
+    /**
+     * Writes all the patients from the source file into the target file after applying a given "processing" to each of them, using several threads.
+     * <br/><br/>
+     * One thread reads the patients, the requested number of threads process them, and the calling thread writes them, in the same order as they
+     * appear in the source file. This is useful when the processing is expensive; the processor must be thread-safe. The observer is notified of the
+     * read patients from the reading thread, and of the written patients from the calling thread. Interrupting the calling thread cancels the processing.
+     * <br/><br/>
+     * The read-ahead and write-behind options (see NaaccrOptions) are honored the same way as for the single-threaded translation.
+     * @param xmlSource source XML data file, must exists
+     * @param xmlTarget target XML data file, parent file must exists
+     * @param processor defines the logic to apply to each patient, cannot be null
+     * @param options optional validating options
+     * @param userDictionaries optional user-defined dictionaries (will be merged with the base dictionary)
+     * @param observer an optional observer, useful to keep track of the progress
+     * @param numProcessingThreads number of threads used to process the patients, must be at least 1
+     * @throws NaaccrIOException if there is problem reading/writing the file
+     */
+    public static void xmlToXml(File xmlSource, File xmlTarget, NaaccrPatientProcessor processor, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, NaaccrObserver observer,
+            int numProcessingThreads) throws NaaccrIOException {
+        if (xmlSource == null)
+            throw new NaaccrIOException("Source XML file is required");
+        if (!xmlSource.exists())
+            throw new NaaccrIOException("Source XML file must exist");
+        if (!xmlTarget.getParentFile().exists())
+            throw new NaaccrIOException("Target folder must exist");
+        if (processor == null)
+            throw new NaaccrIOException("A processor must be provided");
+        if (numProcessingThreads < 1)
+            throw new NaaccrIOException("Number of processing threads must be at least 1");
+
+        try (PatientXmlReader reader = new PatientXmlReader(createReader(xmlSource), options, userDictionaries)) {
+            try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlTarget, options), reader.getRootData(), options, userDictionaries)) {
+                new PatientProcessingPipeline(reader, writer, processor, observer, options, numProcessingThreads).run();
             }
         }
     }
@@ -136,19 +171,17 @@ public final class NaaccrXmlUtils {
             throw new NaaccrIOException("Target folder must exist");
 
         // create the reader and writer and let them do all the work!
-        try (PatientFlatReader reader = new PatientFlatReader(createReader(flatFile), options, userDictionaries)) {
-            try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlFile), reader.getRootData(), options, userDictionaries)) {
-                Patient patient = reader.readPatient();
-                while (patient != null && !Thread.currentThread().isInterrupted()) {
-                    if (observer != null)
-                        observer.patientRead(patient);
-                    writer.writePatient(patient);
-                    if (observer != null)
-                        observer.patientWritten(patient);
-                    patient = reader.readPatient();
-                }
+        try (PatientReader reader = createFlatReader(flatFile, options, userDictionaries)) {
+            try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlFile, options), reader.getRootData(), options, userDictionaries)) {
+                translatePatients(reader, writer, null, observer, options);
             }
         }
+        catch (NaaccrIOException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
     }
 
     /**
@@ -170,20 +203,181 @@ public final class NaaccrXmlUtils {
 
         // create the reader and writer and let them do all the work!
         try (PatientXmlReader reader = new PatientXmlReader(createReader(xmlFile), options, userDictionaries)) {
-            try (PatientFlatWriter writer = new PatientFlatWriter(createWriter(flatFile), reader.getRootData(), options, userDictionaries)) {
-                Patient patient = reader.readPatient();
-                while (patient != null && !Thread.currentThread().isInterrupted()) {
-                    if (observer != null)
-                        observer.patientRead(patient);
-                    writer.writePatient(patient);
-                    if (observer != null)
-                        observer.patientWritten(patient);
-                    patient = reader.readPatient();
-                }
+            try (PatientFlatWriter writer = new PatientFlatWriter(createWriter(flatFile, options), reader.getRootData(), options, userDictionaries)) {
+                translatePatients(reader, writer, null, observer, options);
             }
         }
     }
 
+    /**
+     * Validates an XML data file and returns the number of validation errors found in it; the patients are not retained and no file is written.
+     * <br/><br/>
+     * The same checks are executed as when reading the file (see the validation options of NaaccrOptions); uncompressed files are memory-mapped.
+     * The patients are only used to count their errors, so their items are stored in a compact way and their extensions are ignored.
+     * @param xmlFile source XML data file, must exists
+     * @param options optional validating options
+     * @param userDictionaries optional user-defined dictionaries (will be merged with the base dictionary)
+     * @param observer an optional observer, useful to keep track of the progress (only notified of the read patients)
+     * @return the validation summary, never null
+     * @throws NaaccrIOException if there is problem reading the file
+     */
+    public static NaaccrValidationSummary validateXmlFile(File xmlFile, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, NaaccrObserver observer) throws NaaccrIOException {
+        if (xmlFile == null)
+            throw new NaaccrIOException("Source XML file is required");
+        if (!xmlFile.exists())
+            throw new NaaccrIOException("Source XML file must exist");
+
+        NaaccrOptions validationOptions = createValidationOptions(options);
+        // the file reader is also closed here in case the patient reader can't be created
+        try (Reader fileReader = createMappedReader(xmlFile); PatientXmlReader reader = new PatientXmlReader(fileReader, validationOptions, userDictionaries)) {
+            return validatePatients(reader, observer, validationOptions);
+        }
+        catch (NaaccrIOException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Validates a flat data file and returns the number of validation errors found in it; the patients are not retained and no file is written.
+     * <br/><br/>
+     * The same checks are executed as when reading the file (see the validation options of NaaccrOptions); uncompressed files are memory-mapped.
+     * Unless an observer is provided (it needs the patients), the lines are validated without creating any patient, tumor or item.
+     * @param flatFile source flat data file, must exists
+     * @param options optional validating options
+     * @param userDictionaries optional user-defined dictionaries (will be merged with the base dictionary)
+     * @param observer an optional observer, useful to keep track of the progress (only notified of the read patients)
+     * @return the validation summary, never null
+     * @throws NaaccrIOException if there is problem reading the file
+     */
+    public static NaaccrValidationSummary validateFlatFile(File flatFile, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, NaaccrObserver observer) throws NaaccrIOException {
+        if (flatFile == null)
+            throw new NaaccrIOException("Source flat file is required");
+        if (!flatFile.exists())
+            throw new NaaccrIOException("Source flat file must exist");
+
+        NaaccrOptions validationOptions = createValidationOptions(options);
+        // the file reader is also closed here in case the patient reader can't be created
+        try (Reader fileReader = createMappedReader(flatFile); PatientFlatReader reader = new PatientFlatReader(fileReader, validationOptions, userDictionaries)) {
+            if (observer != null)
+                return validatePatients(reader, observer, validationOptions);
+
+            NaaccrValidationSummary summary = new NaaccrValidationSummary();
+            summary.addRootData(reader.getRootData());
+            boolean validated = reader.validatePatient(summary);
+            while (validated && !Thread.currentThread().isInterrupted())
+                validated = reader.validatePatient(summary);
+            summary.addDroppedErrors(reader.getErrorCollector().getDroppedErrorCounts());
+            return summary;
+        }
+        catch (NaaccrIOException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the options used to validate a data file; the patients are only used to count their errors, so their items are stored in a compact
+     * way and their extensions are ignored.
+     */
+    private static NaaccrOptions createValidationOptions(NaaccrOptions options) {
+        NaaccrOptions result = options == null ? NaaccrOptions.getDefault() : options.copy();
+        result.setUseCompactItemStorage(true);
+        result.setIgnoreExtensions(true);
+        return result;
+    }
+
+    /**
+     * Reads all the patients from the reader and adds their errors to a validation summary; each patient is released as soon as its errors are counted.
+     */
+    private static NaaccrValidationSummary validatePatients(PatientReader reader, NaaccrObserver observer, NaaccrOptions options) throws NaaccrIOException {
+        NaaccrValidationSummary summary = new NaaccrValidationSummary();
+        summary.addRootData(reader.getRootData());
+
+        AsyncPatientReader readAheadReader = null;
+        if (options != null && options.getReadAheadQueueSize() != null && options.getReadAheadQueueSize() > 0)
+            readAheadReader = new AsyncPatientReader(reader, options.getReadAheadQueueSize(), false);
+        PatientReader source = readAheadReader == null ? reader : readAheadReader;
+
+        try {
+            Patient patient = source.readPatient();
+            while (patient != null && !Thread.currentThread().isInterrupted()) {
+                if (observer != null)
+                    observer.patientRead(patient);
+                summary.addPatient(patient);
+                patient = source.readPatient();
+            }
+        }
+        finally {
+            if (readAheadReader != null)
+                readAheadReader.stop();
+        }
+
+        // the errors that were not retained because of the limits of the options still need to be counted
+        if (reader.getErrorCollector() != null)
+            summary.addDroppedErrors(reader.getErrorCollector().getDroppedErrorCounts());
+
+        return summary;
+    }
+
+    /**
+     * Reads all the patients from the reader, applies the processor (if any) and writes the patients.
+     * <br/><br/>
+     * If the options request it (see NaaccrOptions.setReadAheadQueueSize() and setWriteBehindQueueSize()), the patients are read ahead and/or
+     * written behind by background threads; those threads are always stopped before this method returns, so the reader and writer can safely be closed.
+     */
+    private static void translatePatients(PatientReader reader, PatientWriter writer, NaaccrPatientProcessor processor, NaaccrObserver observer, NaaccrOptions options)
+            throws NaaccrIOException {
+        AsyncPatientReader readAheadReader = null;
+        if (options != null && options.getReadAheadQueueSize() != null && options.getReadAheadQueueSize() > 0)
+            readAheadReader = new AsyncPatientReader(reader, options.getReadAheadQueueSize(), false);
+        PatientReader source = readAheadReader == null ? reader : readAheadReader;
+
+        AsyncPatientWriter writeBehindWriter = null;
+        if (options != null && options.getWriteBehindQueueSize() != null && options.getWriteBehindQueueSize() > 0)
+            writeBehindWriter = new AsyncPatientWriter(writer, options.getWriteBehindQueueSize(), false, observer);
+        PatientWriter target = writeBehindWriter == null ? writer : writeBehindWriter;
+
+        try {
+            Patient patient = source.readPatient();
+            while (patient != null && !Thread.currentThread().isInterrupted()) {
+                if (observer != null)
+                    observer.patientRead(patient);
+                if (processor != null)
+                    processor.processPatient(patient);
+                target.writePatient(patient);
+                // when writing behind, the background thread notifies the observer once the patient has actually been written
+                if (observer != null && writeBehindWriter == null)
+                    observer.patientWritten(patient);
+                patient = source.readPatient();
+            }
+            if (writeBehindWriter != null)
+                writeBehindWriter.flushPatients();
+        }
+        finally {
+            if (readAheadReader != null)
+                readAheadReader.stop();
+            if (writeBehindWriter != null)
+                writeBehindWriter.stop();
+        }
+    }
+
+    /**
+     * Creates the reader used to translate the given flat data file.
+     * <br/><br/>
+     * If the options request it (see NaaccrOptions.setFlatReadingThreads()) and the file is not compressed, the patients are read by several
+     * threads (see ParallelPatientFlatReader); otherwise they are read by the calling thread.
+     */
+    private static PatientReader createFlatReader(File flatFile, NaaccrOptions options, List<NaaccrDictionary> userDictionaries) throws NaaccrIOException {
+        if (options != null && options.getFlatReadingThreads() != null && options.getFlatReadingThreads() > 0 && !flatFile.getName().endsWith(".gz"))
+            return new ParallelPatientFlatReader(flatFile, options, userDictionaries, options.getFlatReadingThreads());
+        return new PatientFlatReader(createReader(flatFile), options, userDictionaries);
+    }
+
     /**
      * Reads an NAACCR XML data file and returns the corresponding data.
      * <br/>
@@ -230,7 +424,7 @@ public final class NaaccrXmlUtils {
         if (!xmlFile.getParentFile().exists())
             throw new NaaccrIOException("Target folder must exist");
 
-        try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlFile), data, options, userDictionaries)) {
+        try (PatientXmlWriter writer = new PatientXmlWriter(createWriter(xmlFile, options), data, options, userDictionaries)) {
             for (Patient patient : data.getPatients()) {
                 writer.writePatient(patient);
                 if (observer != null)
@@ -287,7 +481,7 @@ public final class NaaccrXmlUtils {
         if (!flatFile.getParentFile().exists())
             throw new NaaccrIOException("Target folder must exist");
 
-        try (PatientFlatWriter writer = new PatientFlatWriter(createWriter(flatFile), data, options, userDictionaries)) {
+        try (PatientFlatWriter writer = new PatientFlatWriter(createWriter(flatFile, options), data, options, userDictionaries)) {
             for (Patient patient : data.getPatients()) {
                 writer.writePatient(patient);
                 if (observer != null)
@@ -298,12 +492,108 @@ public final class NaaccrXmlUtils {
         }
     }
 
+    /**
+     * Returns a stream of the patients of an NAACCR XML data file; the patients are read as the stream is consumed.
+     * <br/><br/>
+     * The returned stream must be closed to close the file (use a try-with-resources statement). The stream supports parallel processing: the
+     * patients are read in batches by a single thread and the batches are processed by the other threads (see PatientSpliterator).
+     * <br/><br/>
+     * A problem reading the file is thrown as a NaaccrUncheckedIOException wrapping the NaaccrIOException (and its line number).
+     * @param xmlFile source XML data file, must exists
+     * @param options optional validating options
+     * @param userDictionaries optional user-defined dictionaries (will be merged with the base dictionary)
+     * @return the stream of patients, never null
+     * @throws NaaccrIOException if there is problem opening the file
+     */
+    public static Stream<Patient> streamXmlFile(File xmlFile, NaaccrOptions options, List<NaaccrDictionary> userDictionaries) throws NaaccrIOException {
+        if (xmlFile == null)
+            throw new NaaccrIOException("Source XML file is required");
+        if (!xmlFile.exists())
+            throw new NaaccrIOException("Source XML file must exist");
+
+        // the stream closes the patient reader, but the file reader needs to be closed here if the patient reader can't be created
+        Reader reader = createReader(xmlFile);
+        PatientXmlReader patientReader;
+        try {
+            patientReader = new PatientXmlReader(reader, options, userDictionaries);
+        }
+        catch (NaaccrIOException | RuntimeException e) {
+            try {
+                reader.close();
+            }
+            catch (IOException e1) {
+                // give up
+            }
+            throw e;
+        }
+        return streamPatients(patientReader);
+    }
+
+    /**
+     * Returns a stream of the patients of an NAACCR flat data file; the patients are read as the stream is consumed.
+     * <br/><br/>
+     * The returned stream must be closed to close the file (use a try-with-resources statement). The stream supports parallel processing: the
+     * patients are read in batches by a single thread and the batches are processed by the other threads (see PatientSpliterator).
+     * <br/><br/>
+     * A problem reading the file is thrown as a NaaccrUncheckedIOException wrapping the NaaccrIOException (and its line number).
+     * @param flatFile source flat data file, must exists
+     * @param options optional validating options
+     * @param userDictionaries optional user-defined dictionaries (will be merged with the base dictionary)
+     * @return the stream of patients, never null
+     * @throws NaaccrIOException if there is problem opening the file
+     */
+    public static Stream<Patient> streamFlatFile(File flatFile, NaaccrOptions options, List<NaaccrDictionary> userDictionaries) throws NaaccrIOException {
+        if (flatFile == null)
+            throw new NaaccrIOException("Source flat file is required");
+        if (!flatFile.exists())
+            throw new NaaccrIOException("Source flat file must exist");
+
+        // the stream closes the patient reader, but the file reader needs to be closed here if the patient reader can't be created
+        Reader reader = createReader(flatFile);
+        PatientFlatReader patientReader;
+        try {
+            patientReader = new PatientFlatReader(reader, options, userDictionaries);
+        }
+        catch (NaaccrIOException | RuntimeException e) {
+            try {
+                reader.close();
+            }
+            catch (IOException e1) {
+                // give up
+            }
+            throw e;
+        }
+        return streamPatients(patientReader);
+    }
+
+    /**
+     * Returns a stream of the patients of the given reader; closing the stream closes the reader.
+     * <br/><br/>
+     * A problem reading or closing the reader is thrown as a NaaccrUncheckedIOException wrapping the NaaccrIOException (and its line number).
+     * @param reader required reader
+     * @return the stream of patients, never null
+     */
+    public static Stream<Patient> streamPatients(PatientReader reader) {
+        return StreamSupport.stream(new PatientSpliterator(reader), false).onClose(() -> {
+            try {
+                reader.close();
+            }
+            catch (NaaccrIOException e) {
+                throw new NaaccrUncheckedIOException(e);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     /**
      * Translates a single line representing a flat file line into a patient object. The resulting patient will have 0 or 1 tumor.
      * <br/><br/>
-     * Unlike the methods dealing with files, this method takes a context as a parameter. The reason for that difference is that this method uses a stream to convert
-     * the line, and so the stream needs to be re-created every time the method is invoked on a given line. This is very inefficient and would be too slow if this
-     * method was used in a loop (which is the common use-case). Having a shared context that is created once outside the loop avoids that inefficiency.
+     * Unlike the methods dealing with files, this method takes a context as a parameter. The reason for that difference is that this method uses a codec compiled from
+     * the runtime dictionary to convert the line, and creating that codec every time the method is invoked on a given line would be too slow if this method was used
+     * in a loop (which is the common use-case). Having a shared context that is created once outside the loop avoids that inefficiency; the context can also be shared
+     * by several threads.
      * <br/><br/>
      * It is very important to not re-create the context when this method is called in a loop:
      * <br><br/>
@@ -329,30 +619,16 @@ public final class NaaccrXmlUtils {
         if (context == null)
             throw new NaaccrIOException("Context is required");
 
-        NaaccrFormat format = NaaccrFormat.getInstance(context.getFormat());
-        if (line.length() != format.getLineLength())
-            throw new NaaccrIOException("Expected line length to be " + format.getLineLength() + " but was " + line.length());
-
-        boolean updateType = !format.getRecordType().equals(line.substring(0, 1).trim());
-        boolean updateVersion = !format.getNaaccrVersion().equals(line.substring(16, 19).trim());
-        if (updateType || updateVersion) {
-            StringBuilder buf = new StringBuilder(line);
-            buf.replace(0, 1, format.getRecordType());
-            buf.replace(16, 19, format.getNaaccrVersion());
-            line = buf.toString();
-        }
-
-        try (PatientFlatReader reader = new PatientFlatReader(new StringReader(line), context.getOptions(), context.getUserDictionaries(), context.getStreamConfiguration())) {
-            return reader.readPatient();
-        }
+        return context.getFlatCodec().lineToPatient(line);
     }
 
     /**
      * Translates a single patient into a line representing a flat file line. This method expects a patient with 0 or 1 tumor. An exception will be raised if it has more.
      * <br/><br/>
-     * Unlike the methods dealing with files, this method takes a context as a parameter. The reason for that difference is that this method uses a stream to convert
-     * the patient, and so the stream needs to be re-created every time the method is invoked on a given patient. This is very inefficient and would be too slow if this
-     * method was used in a loop (which is the common use-case). Having a shared context that is created once outside the loop avoids that inefficiency.
+     * Unlike the methods dealing with files, this method takes a context as a parameter. The reason for that difference is that this method uses a codec compiled from
+     * the runtime dictionary to convert the patient, and creating that codec every time the method is invoked on a given patient would be too slow if this method was used
+     * in a loop (which is the common use-case). Having a shared context that is created once outside the loop avoids that inefficiency; the context can also be shared
+     * by several threads.
      * <br/><br/>
      * It is very important to not re-create the context when this method is called in a loop:
      * <br><br/>
@@ -378,15 +654,7 @@ public final class NaaccrXmlUtils {
         if (context == null)
             throw new NaaccrIOException("Context is required");
 
-        // it wouldn't be very hard to support more than one tumor, but will do it only if needed
-        if (patient.getTumors().size() > 1)
-            throw new NaaccrIOException("This method requires a patient with 0 or 1 tumor.");
-
-        StringWriter buf = new StringWriter();
-        try (PatientFlatWriter writer = new PatientFlatWriter(buf, new NaaccrData(context.getFormat()), context.getOptions(), context.getUserDictionaries(), context.getStreamConfiguration())) {
-            writer.writePatient(patient);
-            return buf.toString();
-        }
+        return context.getFlatCodec().patientToLine(patient);
     }
 
     /**
@@ -520,6 +788,8 @@ public final class NaaccrXmlUtils {
 
     /**
      * Returns a generic reader for the provided file, taking care of the optional GZ compression.
+     * <br/><br/>
+     * GZ files are decompressed by background threads, in parallel if they were created with several members (see ParallelGzipInputStream).
      * @param file file to create the reader from, cannot be null
      * @return a generic reader to the file, never null
      * @throws NaaccrIOException if the reader cannot be created
@@ -530,7 +800,7 @@ public final class NaaccrXmlUtils {
             is = new FileInputStream(file);
 
             if (file.getName().endsWith(".gz"))
-                is = new GZIPInputStream(is);
+                is = new ParallelGzipInputStream(is);
 
             return new InputStreamReader(is, StandardCharsets.UTF_8);
         }
@@ -547,19 +817,111 @@ public final class NaaccrXmlUtils {
         }
     }
 
+    /**
+     * Returns a generic reader for the provided file; uncompressed files are memory-mapped and their UTF-8 content is decoded directly from the mapped bytes
+     * (which is faster than going through an input stream and a charset decoder), GZ compressed files are handled the same way as in createReader().
+     * <br/><br/>
+     * The returned reader can be used with any patient reader (like PatientXmlReader); note that on some systems, a memory-mapped file cannot be deleted
+     * until the mapped memory is released (which happens when the reader is garbage collected).
+     * @param file file to create the reader from, cannot be null
+     * @return a generic reader to the file, never null
+     * @throws NaaccrIOException if the reader cannot be created
+     */
+    public static Reader createMappedReader(File file) throws NaaccrIOException {
+        if (file.getName().endsWith(".gz"))
+            return createReader(file);
+
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            return new MappedUtf8Reader(channel);
+        }
+        catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                }
+                catch (IOException e1) {
+                    // give up
+                }
+            }
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
     /**
      * Returns a generic writer for the provided file, taking care of the optional GZ compression.
+     * <br/><br/>
+     * GZ files are compressed by the calling thread, as a single GZIP member; use the method taking some options to compress them using several
+     * threads (see NaaccrOptions.setGzipCompressionThreads()).
      * @param file file to create the writer from, cannot be null
      * @return a generic writer to the file, never null
      * @throws NaaccrIOException if the writer cannot be created
      */
     public static Writer createWriter(File file) throws NaaccrIOException {
+        return createWriter(file, false, 1, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Returns a generic writer for the provided file, taking care of the optional GZ compression.
+     * <br/><br/>
+     * If requested, the bytes are compressed (if needed) and written to the file by a background thread, while the calling thread keeps writing
+     * into a second buffer (see DoubleBufferedOutputStream); a failure to write the file is then reported by the next call to the writer.
+     * @param file file to create the writer from, cannot be null
+     * @param writeInBackground whether the bytes should be compressed and written by a background thread
+     * @return a generic writer to the file, never null
+     * @throws NaaccrIOException if the writer cannot be created
+     */
+    public static Writer createWriter(File file, boolean writeInBackground) throws NaaccrIOException {
+        return createWriter(file, writeInBackground, 1, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Returns a generic writer for the provided file, taking care of the optional GZ compression, using the compression options (see
+     * NaaccrOptions.setCompressInBackground(), setGzipCompressionThreads() and setGzipCompressionLevel()).
+     * @param file file to create the writer from, cannot be null
+     * @param options optional options
+     * @return a generic writer to the file, never null
+     * @throws NaaccrIOException if the writer cannot be created
+     */
+    public static Writer createWriter(File file, NaaccrOptions options) throws NaaccrIOException {
+        if (options == null)
+            return createWriter(file);
+        boolean writeInBackground = Boolean.TRUE.equals(options.getCompressInBackground());
+        int numThreads = options.getGzipCompressionThreads() == null ? 1 : options.getGzipCompressionThreads();
+        int level = options.getGzipCompressionLevel() == null ? Deflater.DEFAULT_COMPRESSION : options.getGzipCompressionLevel();
+        return createWriter(file, writeInBackground, numThreads, level);
+    }
+
+    private static Writer createWriter(File file, boolean writeInBackground, int numCompressionThreads, int compressionLevel) throws NaaccrIOException {
+        if (numCompressionThreads < 0)
+            throw new NaaccrIOException("Number of compression threads can't be negative");
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION))
+            throw new NaaccrIOException("Invalid compression level: " + compressionLevel);
+        if (numCompressionThreads == 0)
+            numCompressionThreads = Runtime.getRuntime().availableProcessors();
+
         OutputStream os = null;
         try {
             os = new FileOutputStream(file);
 
-            if (file.getName().endsWith(".gz"))
-                os = new GZIPOutputStream(os);
+            if (file.getName().endsWith(".gz")) {
+                if (numCompressionThreads > 1)
+                    os = new ParallelGzipOutputStream(os, numCompressionThreads, compressionLevel);
+                else if (compressionLevel == Deflater.DEFAULT_COMPRESSION)
+                    os = new GZIPOutputStream(os);
+                else {
+                    // the JDK stream doesn't expose the level of its deflater, but nothing has been compressed yet so it can still be changed
+                    os = new GZIPOutputStream(os) {
+                        {
+                            def.setLevel(compressionLevel);
+                        }
+                    };
+                }
+            }
+
+            if (writeInBackground)
+                os = new DoubleBufferedOutputStream(os);
 
             return new OutputStreamWriter(os, StandardCharsets.UTF_8);
         }
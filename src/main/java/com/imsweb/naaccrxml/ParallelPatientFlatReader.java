@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+
+/**
+ * This class can be used to read a NAACCR flat file using several threads.
+ * <br/><br/>
+ * The file is memory-mapped and split into ranges of lines; the ranges always start on a new patient (according to the tumor grouping items of the
+ * options), and are parsed by worker threads. The patients are returned in the same order as they appear in the file. The lines usually all have
+ * the length of the format, and so their offsets are computed arithmetically; lines that don't have the expected length (or that contain non-ASCII
+ * characters) are found by scanning for the next new line instead.
+ * <br/><br/>
+ * The returned entities (including their line numbers and validation errors) are the same as the ones returned by the regular PatientFlatReader.
+ */
+public class ParallelPatientFlatReader implements PatientReader {
+
+    /**
+     * Default minimum size (in bytes) of the ranges of lines handed to the worker threads.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // size of the mapped window used to find the boundaries of the ranges
+    private static final int _WINDOW_SIZE = 1024 * 1024;
+
+    // the underlined file channel
+    protected FileChannel _channel;
+
+    // the size of the file
+    protected long _fileSize;
+
+    // the minimum size of the ranges
+    protected int _chunkSize;
+
+    // the regular reader, created on the first line of the file; it provides the root data and parses the lines into patients
+    protected PatientFlatReader _lineParser;
+
+    // the expected line length (from the format of the first line)
+    protected int _lineLength;
+
+    // the worker threads
+    protected ExecutorService _executor;
+
+    // the ranges currently being processed, in the order of the file
+    protected Deque<CompletableFuture<RangeResult>> _pendingRanges;
+
+    // maximum number of ranges being processed at the same time (this is what limits the memory used by the reader)
+    protected int _maxPendingRanges;
+
+    // the start of the next range to submit, the line number of the first line of that range (computed by the workers as they count the lines)
+    protected long _nextRangeStart;
+    protected CompletableFuture<Integer> _nextRangeStartLine;
+
+    // a mapped window of the file used to find the boundaries of the ranges
+    protected ByteBuffer _window;
+    protected long _windowStart;
+
+    // the current range result, and the index of the next patient to return from it
+    protected RangeResult _currentResult;
+    protected int _currentIndex;
+
+    /**
+     * Constructor.
+     * @param file required file (uncompressed, UTF-8 encoded NAACCR flat file)
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @param numThreads number of worker threads
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public ParallelPatientFlatReader(File file, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, int numThreads) throws NaaccrIOException {
+        this(file, options, userDictionaries, numThreads, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param file required file (uncompressed, UTF-8 encoded NAACCR flat file)
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @param numThreads number of worker threads
+     * @param chunkSize minimum size (in bytes) of the ranges of lines handed to the worker threads
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public ParallelPatientFlatReader(File file, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, int numThreads, int chunkSize) throws NaaccrIOException {
+        if (numThreads < 1)
+            throw new IllegalStateException("Number of threads must be at least 1");
+        if (chunkSize < 1)
+            throw new IllegalStateException("Chunk size must be at least 1");
+        if (file.getName().endsWith(".gz"))
+            throw new NaaccrIOException("compressed files cannot be memory-mapped");
+
+        try {
+            _channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            _fileSize = _channel.size();
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+        _chunkSize = chunkSize;
+
+        // the regular reader validates the first line and reads the root data from it
+        try {
+            long firstLineEnd = findLineEnd(0);
+            _lineParser = new PatientFlatReader(new StringReader(readString(0, firstLineEnd)), options, userDictionaries);
+        }
+        catch (NaaccrIOException e) {
+            close();
+            throw e;
+        }
+        _lineLength = _lineParser._format.getLineLength();
+
+        _executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "naaccr-flat-reader-" + _THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        _pendingRanges = new ArrayDeque<>();
+        _maxPendingRanges = numThreads + 1;
+        _nextRangeStartLine = CompletableFuture.completedFuture(1);
+    }
+
+    @Override
+    public Patient readPatient() throws NaaccrIOException {
+        while (_currentResult == null || _currentIndex >= _currentResult._patients.size()) {
+            submitRanges();
+            CompletableFuture<RangeResult> future = _pendingRanges.poll();
+            if (future == null)
+                return null;
+
+            try {
+                _currentResult = future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NaaccrIOException("reading operation has been interrupted");
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+                throw cause instanceof NaaccrIOException ? (NaaccrIOException)cause : new NaaccrIOException(cause == null ? e.getMessage() : cause.getMessage());
+            }
+            _currentIndex = 0;
+        }
+
+        return _currentResult._patients.get(_currentIndex++);
+    }
+
+    @Override
+    public NaaccrData getRootData() {
+        return _lineParser.getRootData();
+    }
+
+    @Override
+    public NaaccrErrorCollector getErrorCollector() {
+        return _lineParser.getErrorCollector();
+    }
+
+    @Override
+    public void closeAndKeepAlive() {
+        if (_executor != null)
+            _executor.shutdownNow();
+        if (_pendingRanges != null)
+            _pendingRanges.clear();
+    }
+
+    @Override
+    public void close() {
+        closeAndKeepAlive();
+        try {
+            _channel.close();
+        }
+        catch (IOException e) {
+            // ignored
+        }
+    }
+
+    /**
+     * Finds the boundaries of the next ranges, and hands them to the worker threads.
+     * <br/><br/>
+     * Each range is first counted by a worker (which is very fast); the line number of the first line of a range is known once the previous ranges
+     * have been counted, and the range is then parsed.
+     */
+    private void submitRanges() throws NaaccrIOException {
+        while (_pendingRanges.size() < _maxPendingRanges && _nextRangeStart < _fileSize) {
+            long start = _nextRangeStart;
+            long end = findRangeEnd(start);
+            if (end - start > Integer.MAX_VALUE)
+                throw new NaaccrIOException("patient starting at offset " + start + " is too large to be mapped");
+            _nextRangeStart = end;
+
+            CompletableFuture<ByteBuffer> mapped = CompletableFuture.supplyAsync(() -> map(start, end - start), _executor);
+            CompletableFuture<Integer> numLines = mapped.thenApply(ParallelPatientFlatReader::countLines);
+            CompletableFuture<Integer> startLine = _nextRangeStartLine;
+            _nextRangeStartLine = startLine.thenCombine(numLines, Integer::sum);
+            _pendingRanges.add(mapped.thenCombineAsync(startLine, this::readRange, _executor));
+        }
+    }
+
+    /**
+     * Reads the patients of the given range; this is executed by the worker threads.
+     */
+    private RangeResult readRange(ByteBuffer buffer, int startLine) {
+        List<Patient> patients = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        String firstLine = null;
+        boolean hasGroupingValues = false;
+        int[] groupingValueStarts = new int[_lineParser._groupingItems.size()];
+        int[] groupingValueEnds = new int[_lineParser._groupingItems.size()];
+
+        byte[] bytes = new byte[Math.max(_lineLength, 0)];
+        int pos = 0;
+        int lineNumber = startLine;
+        int limit = buffer.limit();
+        while (pos < limit) {
+            String line = null;
+            int next = -1;
+
+            // most lines have the expected length and contain only ASCII characters, no need to look for the new line character(s)
+            if (_lineLength > 0 && pos + _lineLength <= limit) {
+                buffer.get(pos, bytes, 0, _lineLength);
+                boolean ascii = true;
+                for (int i = 0; i < _lineLength && ascii; i++)
+                    ascii = bytes[i] >= 0 && bytes[i] != '\n' && bytes[i] != '\r';
+                int end = pos + _lineLength;
+                if (ascii) {
+                    if (end == limit)
+                        next = end;
+                    else if (buffer.get(end) == '\n')
+                        next = end + 1;
+                    else if (buffer.get(end) == '\r')
+                        next = end + 1 < limit && buffer.get(end + 1) == '\n' ? end + 2 : end + 1;
+                    if (next != -1)
+                        line = new String(bytes, 0, _lineLength, StandardCharsets.ISO_8859_1);
+                }
+            }
+
+            // otherwise, scan the line
+            if (line == null) {
+                int end = pos;
+                while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r')
+                    end++;
+                byte[] lineBytes = new byte[end - pos];
+                buffer.get(pos, lineBytes);
+                line = new String(lineBytes, StandardCharsets.UTF_8);
+                next = end == limit ? end : buffer.get(end) == '\r' && end + 1 < limit && buffer.get(end + 1) == '\n' ? end + 2 : end + 1;
+            }
+
+            // group the lines the same way the regular reader does
+            if (firstLine == null || !hasGroupingValues || !_lineParser.hasSameGroupingValues(firstLine, groupingValueStarts, groupingValueEnds, line)) {
+                if (!lines.isEmpty())
+                    patients.add(_lineParser.createPatientFromLines(lines, lineNumbers));
+                lines = new ArrayList<>();
+                lineNumbers = new ArrayList<>();
+                firstLine = line;
+                hasGroupingValues = _lineParser.locateGroupingValues(line, groupingValueStarts, groupingValueEnds);
+            }
+            lines.add(line);
+            lineNumbers.add(lineNumber);
+
+            pos = next;
+            lineNumber++;
+        }
+        if (!lines.isEmpty())
+            patients.add(_lineParser.createPatientFromLines(lines, lineNumbers));
+
+        return new RangeResult(patients);
+    }
+
+    /**
+     * Returns the number of lines in the given buffer (the last line might not be terminated).
+     */
+    private static int countLines(ByteBuffer buffer) {
+        int count = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || (b == '\r' && (i + 1 == limit || buffer.get(i + 1) != '\n')))
+                count++;
+        }
+        if (limit > 0 && buffer.get(limit - 1) != '\n' && buffer.get(limit - 1) != '\r')
+            count++;
+        return count;
+    }
+
+    /**
+     * Returns the end (exclusive) of the range starting at the given offset; the range ends on a line that starts a new patient.
+     */
+    private long findRangeEnd(long start) throws NaaccrIOException {
+        if (_fileSize - start <= _chunkSize)
+            return _fileSize;
+
+        // the target is usually in the middle of a line, the range ends after that line
+        long end = findNextLineStart(start + _chunkSize - 1);
+
+        // if the line belongs to the same patient as the previous one, keep moving forward
+        if (!_lineParser._groupingItems.isEmpty()) {
+            int[] valueStarts = new int[_lineParser._groupingItems.size()];
+            int[] valueEnds = new int[_lineParser._groupingItems.size()];
+            long previousStart = findPreviousLineStart(end);
+            String previousLine = readString(previousStart, findLineEnd(previousStart));
+            if (_lineParser.locateGroupingValues(previousLine, valueStarts, valueEnds))
+                while (end < _fileSize && _lineParser.hasSameGroupingValues(previousLine, valueStarts, valueEnds, readString(end, findLineEnd(end))))
+                    end = findNextLineStart(end);
+        }
+
+        return end;
+    }
+
+    // returns the offset of the start of the line following the one containing the given offset (the file size if there is none)
+    private long findNextLineStart(long offset) throws NaaccrIOException {
+        long end = findLineEnd(offset);
+        if (end >= _fileSize)
+            return _fileSize;
+        return byteAt(end) == '\r' && end + 1 < _fileSize && byteAt(end + 1) == '\n' ? end + 2 : end + 1;
+    }
+
+    // returns the offset of the start of the line preceding the one starting at the given offset
+    private long findPreviousLineStart(long lineStart) throws NaaccrIOException {
+        long offset = lineStart - 1;
+        if (offset > 0 && byteAt(offset) == '\n' && byteAt(offset - 1) == '\r')
+            offset--;
+        while (offset > 0 && byteAt(offset - 1) != '\n' && byteAt(offset - 1) != '\r')
+            offset--;
+        return Math.max(offset, 0);
+    }
+
+    // returns the offset of the new line character(s) ending the line containing the given offset (the file size if there is none)
+    private long findLineEnd(long offset) throws NaaccrIOException {
+        while (offset < _fileSize && byteAt(offset) != '\n' && byteAt(offset) != '\r')
+            offset++;
+        return offset;
+    }
+
+    private String readString(long start, long end) throws NaaccrIOException {
+        byte[] bytes = new byte[(int)(end - start)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = byteAt(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte byteAt(long offset) throws NaaccrIOException {
+        if (_window == null || offset < _windowStart || offset >= _windowStart + _window.limit()) {
+            // the window is centered on the offset since the lines are sometimes scanned backward
+            _windowStart = Math.max(0, offset - _WINDOW_SIZE / 2);
+            try {
+                _window = _channel.map(FileChannel.MapMode.READ_ONLY, _windowStart, Math.min(_fileSize - _windowStart, _WINDOW_SIZE));
+            }
+            catch (IOException e) {
+                throw new NaaccrIOException(e.getMessage());
+            }
+        }
+        return _window.get((int)(offset - _windowStart));
+    }
+
+    private ByteBuffer map(long start, long length) {
+        try {
+            return _channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+        catch (IOException e) {
+            throw new CompletionException(new NaaccrIOException(e.getMessage()));
+        }
+    }
+
+    /**
+     * The patients read from a given range.
+     */
+    protected static final class RangeResult {
+
+        private final List<Patient> _patients;
+
+        private RangeResult(List<Patient> patients) {
+            _patients = patients == null ? Collections.emptyList() : patients;
+        }
+    }
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.xmlpull.v1.XmlPullParser;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.internal.LineOffsetXmlPullParser;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+/**
+ * This class can be used to read a NAACCR XML data file using several threads.
+ * <br/><br/>
+ * The (UTF-8) data is scanned for the boundaries of the Patient tags; the patients are grouped into chunks that are parsed by worker threads, and
+ * then returned in the same order as they appear in the data. The root attributes, items and extensions are parsed only once, at creation.
+ * <br/><br/>
+ * The returned entities (including their line numbers and validation errors) are the same as the ones returned by the regular PatientXmlReader.
+ * Since each worker thread uses its own stream configuration, the extensions (if any) must be registered through a configuration initializer.
+ */
+public class ParallelPatientXmlReader implements PatientReader {
+
+    /**
+     * Default minimum size (in bytes) of the chunks of patients handed to the worker threads.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // the root data
+    protected NaaccrData _rootData;
+
+    // the options and dictionaries used by each worker
+    protected NaaccrOptions _options;
+    protected List<NaaccrDictionary> _userDictionaries;
+
+    // the error collector shared by all the workers
+    protected NaaccrErrorCollector _errorCollector;
+
+    // optional initializer for the configuration of each worker
+    protected Consumer<NaaccrStreamConfiguration> _confInitializer;
+
+    // the configuration used by each worker thread (those are not thread safe)
+    protected ThreadLocal<NaaccrStreamConfiguration> _workerConfiguration;
+
+    // the worker threads
+    protected ExecutorService _executor;
+
+    // the chunks currently being processed, in the order of the data
+    protected Deque<Future<ChunkResult>> _pendingChunks;
+
+    // maximum number of chunks being processed at the same time (this is what limits the memory used by the reader)
+    protected int _maxPendingChunks;
+
+    // scanner responsible for finding the boundaries of the patients in the data
+    protected PatientBoundaryScanner _scanner;
+
+    // the current chunk result, and the index of the next patient to return from it
+    protected ChunkResult _currentResult;
+    protected int _currentIndex;
+
+    /**
+     * Constructor.
+     * @param input required input (UTF-8 encoded NAACCR XML data)
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @param numThreads number of worker threads
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public ParallelPatientXmlReader(InputStream input, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, int numThreads) throws NaaccrIOException {
+        this(input, options, userDictionaries, null, numThreads, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param input required input (UTF-8 encoded NAACCR XML data)
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @param confInitializer optional initializer called on every stream configuration created by this reader (to register extensions)
+     * @param numThreads number of worker threads
+     * @param chunkSize minimum size (in bytes) of the chunks of patients handed to the worker threads
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public ParallelPatientXmlReader(InputStream input, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, Consumer<NaaccrStreamConfiguration> confInitializer, int numThreads,
+            int chunkSize) throws NaaccrIOException {
+        if (numThreads < 1)
+            throw new IllegalStateException("Number of threads must be at least 1");
+
+        _options = options == null ? NaaccrOptions.getDefault() : options;
+        _userDictionaries = userDictionaries == null ? Collections.emptyList() : userDictionaries;
+        _confInitializer = confInitializer;
+        _errorCollector = new NaaccrErrorCollector(_options);
+        _scanner = new PatientBoundaryScanner(input, chunkSize);
+
+        // parse the root attributes, items and extensions once (the line numbers are correct since that portion starts at the beginning of the data)
+        byte[] prologue = _scanner.scanPrologue();
+        try (PatientXmlReader reader = new PatientXmlReader(new InputStreamReader(new ByteArrayInputStream(prologue), StandardCharsets.UTF_8), _options, _userDictionaries, createConfiguration(),
+                _errorCollector)) {
+            _rootData = reader.getRootData();
+        }
+
+        _workerConfiguration = ThreadLocal.withInitial(this::createConfiguration);
+        _executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "naaccr-xml-reader-" + _THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        _pendingChunks = new ArrayDeque<>();
+        _maxPendingChunks = numThreads * 2;
+    }
+
+    @Override
+    public Patient readPatient() throws NaaccrIOException {
+        while (_currentResult == null || _currentIndex >= _currentResult._patients.size()) {
+            if (_currentResult != null && _currentResult._exception != null)
+                throw _currentResult._exception;
+
+            submitChunks();
+            Future<ChunkResult> future = _pendingChunks.poll();
+            if (future == null)
+                return null;
+
+            try {
+                _currentResult = future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NaaccrIOException("reading operation has been interrupted");
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof NaaccrIOException)
+                    throw (NaaccrIOException)e.getCause();
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                throw new NaaccrIOException(cause.getMessage(), cause);
+            }
+            _currentIndex = 0;
+        }
+
+        return _currentResult._patients.get(_currentIndex++);
+    }
+
+    @Override
+    public NaaccrData getRootData() {
+        return _rootData;
+    }
+
+    @Override
+    public NaaccrErrorCollector getErrorCollector() {
+        return _errorCollector;
+    }
+
+    @Override
+    public void closeAndKeepAlive() {
+        _executor.shutdownNow();
+        _pendingChunks.clear();
+    }
+
+    @Override
+    public void close() {
+        closeAndKeepAlive();
+        _scanner.close();
+    }
+
+    /**
+     * Creates a stream configuration that reports the line numbers relatively to the full data (the offset is set before each chunk is parsed).
+     * @return a new stream configuration, never null
+     */
+    protected NaaccrStreamConfiguration createConfiguration() {
+        return createLineOffsetConfiguration(_confInitializer);
+    }
+
+    /**
+     * Creates a stream configuration that reports the line numbers relatively to the full data (see readPatients()).
+     * @param confInitializer optional initializer called on the created configuration
+     * @return a new stream configuration, never null
+     */
+    static NaaccrStreamConfiguration createLineOffsetConfiguration(Consumer<NaaccrStreamConfiguration> confInitializer) {
+        NaaccrStreamConfiguration conf = new NaaccrStreamConfiguration() {
+            @Override
+            protected XmlPullParser createParser() {
+                return new LineOffsetXmlPullParser(super.createParser());
+            }
+        };
+        if (confInitializer != null)
+            confInitializer.accept(conf);
+        return conf;
+    }
+
+    /**
+     * Reads the patients of a portion of the data (one or several consecutive patients), wrapped into the root tag.
+     * @param data the bytes of the patients
+     * @param startLine the line number (in the full data) of the first byte of the patients
+     * @param rootStartTag the start tag of the root (on a single line)
+     * @param rootEndTag the end tag of the root, null if the root tag shouldn't be closed after the patients
+     * @param options options
+     * @param userDictionaries user-defined dictionaries
+     * @param conf configuration created by createLineOffsetConfiguration()
+     * @param errorCollector the collector of the validation errors (shared by all the portions of the data)
+     * @param patients the list receiving the patients (the patients read before a failure are added to it)
+     * @throws NaaccrIOException if the patients can't be read
+     */
+    static void readPatients(byte[] data, int startLine, byte[] rootStartTag, byte[] rootEndTag, NaaccrOptions options, List<NaaccrDictionary> userDictionaries,
+            NaaccrStreamConfiguration conf, NaaccrErrorCollector errorCollector, List<Patient> patients) throws NaaccrIOException {
+        ((LineOffsetXmlPullParser)conf.getParser()).setLineOffset(startLine - 1);
+
+        InputStream is = new SequenceInputStream(Collections.enumeration(Arrays.asList(new ByteArrayInputStream(rootStartTag), new ByteArrayInputStream(data),
+                new ByteArrayInputStream(rootEndTag == null ? new byte[0] : rootEndTag))));
+        try (PatientXmlReader reader = new PatientXmlReader(new InputStreamReader(is, StandardCharsets.UTF_8), options, userDictionaries, conf, errorCollector)) {
+            Patient patient = reader.readPatient();
+            while (patient != null) {
+                patients.add(patient);
+                patient = reader.readPatient();
+            }
+        }
+    }
+
+    /**
+     * Scans the data for the next chunks of patients, and hands them to the worker threads.
+     */
+    private void submitChunks() {
+        while (_pendingChunks.size() < _maxPendingChunks && !_scanner.isDone()) {
+            try {
+                Chunk chunk = _scanner.scanChunk();
+                if (chunk != null)
+                    _pendingChunks.add(_executor.submit(() -> readChunk(chunk)));
+            }
+            catch (NaaccrIOException e) {
+                _pendingChunks.add(CompletableFuture.completedFuture(new ChunkResult(Collections.emptyList(), e)));
+            }
+        }
+    }
+
+    /**
+     * Reads the patients of the given chunk; this is executed by the worker threads.
+     */
+    private ChunkResult readChunk(Chunk chunk) {
+        List<Patient> patients = new ArrayList<>();
+        try {
+            readPatients(chunk._data, chunk._startLine, _scanner.getRootStartTag(), chunk._closeRoot ? _scanner.getRootEndTag() : null, _options, _userDictionaries,
+                    _workerConfiguration.get(), _errorCollector, patients);
+        }
+        catch (NaaccrIOException e) {
+            return new ChunkResult(patients, e);
+        }
+        return new ChunkResult(patients, null);
+    }
+
+    /**
+     * A portion of the data containing one or several consecutive patients.
+     */
+    protected static final class Chunk {
+
+        // the bytes of the patients
+        final byte[] _data;
+
+        // the line number (in the full data) of the first byte of the chunk
+        final int _startLine;
+
+        // whether the root tag needs to be closed after the chunk
+        final boolean _closeRoot;
+
+        // the offset (in the full data) of the first byte of the chunk
+        final long _offset;
+
+        // the boundaries of the patients (indexes of their first byte and of the byte following their end tag, -1 if the end tag wasn't found) and their line numbers
+        final int[] _patientStarts;
+        final int[] _patientEnds;
+        final int[] _patientLines;
+
+        private Chunk(byte[] data, int startLine, boolean closeRoot, long offset, int[] patientStarts, int[] patientEnds, int[] patientLines) {
+            _data = data;
+            _startLine = startLine;
+            _closeRoot = closeRoot;
+            _offset = offset;
+            _patientStarts = patientStarts;
+            _patientEnds = patientEnds;
+            _patientLines = patientLines;
+        }
+    }
+
+    /**
+     * The patients read from a given chunk, and the exception that interrupted the reading (if any).
+     */
+    protected static final class ChunkResult {
+
+        private final List<Patient> _patients;
+
+        private final NaaccrIOException _exception;
+
+        private ChunkResult(List<Patient> patients, NaaccrIOException exception) {
+            _patients = patients;
+            _exception = exception;
+        }
+    }
+
+    /**
+     * A very simple scanner that reads UTF-8 XML data, keeping track of the depth of the tags, and splitting the data on the top-level Patient tags.
+     * <br/><br/>
+     * The scanner doesn't validate the XML syntax; it only needs to be correct for valid data since any syntax error will be reported by the parser.
+     */
+    protected static final class PatientBoundaryScanner {
+
+        private static final byte[] _COMMENT_END = "-->".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] _CDATA_END = "]]>".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] _INSTRUCTION_END = "?>".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] _TAG_END = ">".getBytes(StandardCharsets.US_ASCII);
+
+        private final InputStream _input;
+
+        private final int _chunkSize;
+
+        private final byte[] _buffer = new byte[64 * 1024];
+        private int _bufferPos;
+        private int _bufferLimit;
+
+        // the bytes read since the beginning of the current chunk
+        private byte[] _data = new byte[64 * 1024];
+        private int _dataSize;
+
+        // current line number, current depth
+        private int _line = 1;
+        private int _depth;
+
+        // start tag of the root (on a single line) and corresponding end tag
+        private byte[] _rootStartTag;
+        private byte[] _rootEndTag;
+
+        // index (in the data) of the end of the last top-level element
+        private int _lastElementEnd;
+
+        // index (in the data) and line number of the last Patient tag found by the scanner
+        private int _patientIndex;
+        private int _patientLine;
+
+        // line number and offset (in the full data) of the first byte of the current chunk
+        private int _chunkLine;
+        private long _chunkOffset;
+
+        // the boundaries of the top-level Patient tags found in the current chunk (see Chunk)
+        private int[] _patientStarts = new int[64];
+        private int[] _patientEnds = new int[64];
+        private int[] _patientLines = new int[64];
+        private int _numPatients;
+
+        private boolean _rootClosed;
+
+        private boolean _done;
+
+        PatientBoundaryScanner(InputStream input, int chunkSize) {
+            _input = input;
+            _chunkSize = chunkSize;
+        }
+
+        /**
+         * Scans the data until the first Patient tag and returns a valid XML document corresponding to everything that was read before that tag.
+         */
+        byte[] scanPrologue() throws NaaccrIOException {
+            if (!scanToNextPatient()) {
+                _done = true;
+                return Arrays.copyOf(_data, _dataSize);
+            }
+
+            byte[] prologue = new byte[_patientIndex + _rootEndTag.length];
+            System.arraycopy(_data, 0, prologue, 0, _patientIndex);
+            System.arraycopy(_rootEndTag, 0, prologue, _patientIndex, _rootEndTag.length);
+            startNewChunk();
+            return prologue;
+        }
+
+        /**
+         * Scans the data for the next chunk of patients; returns null if there is no more patient.
+         */
+        Chunk scanChunk() throws NaaccrIOException {
+            if (_done)
+                return null;
+
+            while (scanToNextPatient()) {
+                if (_patientIndex >= _chunkSize) {
+                    // the last patient that was found is the first one of the next chunk
+                    Chunk chunk = createChunk(_patientIndex, true, _numPatients - 1);
+                    startNewChunk();
+                    return chunk;
+                }
+            }
+
+            // if the root tag is not properly closed, let the parser report the error
+            _done = true;
+            if (!_rootClosed)
+                return createChunk(_dataSize, false, _numPatients);
+            return _lastElementEnd == 0 ? null : createChunk(_lastElementEnd, true, _numPatients);
+        }
+
+        boolean isDone() {
+            return _done;
+        }
+
+        byte[] getRootStartTag() {
+            return _rootStartTag;
+        }
+
+        byte[] getRootEndTag() {
+            return _rootEndTag;
+        }
+
+        void close() {
+            try {
+                _input.close();
+            }
+            catch (IOException e) {
+                // ignored
+            }
+        }
+
+        private Chunk createChunk(int size, boolean closeRoot, int numPatients) {
+            return new Chunk(Arrays.copyOf(_data, size), _chunkLine, closeRoot, _chunkOffset, Arrays.copyOf(_patientStarts, numPatients), Arrays.copyOf(_patientEnds, numPatients),
+                    Arrays.copyOf(_patientLines, numPatients));
+        }
+
+        // the last Patient tag that was found becomes the beginning of the new chunk
+        private void startNewChunk() {
+            _dataSize -= _patientIndex;
+            System.arraycopy(_data, _patientIndex, _data, 0, _dataSize);
+            _chunkLine = _patientLine;
+            _chunkOffset += _patientIndex;
+            _lastElementEnd = 0;
+            _patientStarts[0] = 0;
+            _patientEnds[0] = _patientEnds[_numPatients - 1] == -1 ? -1 : _patientEnds[_numPatients - 1] - _patientIndex;
+            _patientLines[0] = _patientLine;
+            _numPatients = 1;
+        }
+
+        private void addPatient(int index, int line) {
+            if (_numPatients == _patientStarts.length) {
+                _patientStarts = Arrays.copyOf(_patientStarts, _numPatients * 2);
+                _patientEnds = Arrays.copyOf(_patientEnds, _numPatients * 2);
+                _patientLines = Arrays.copyOf(_patientLines, _numPatients * 2);
+            }
+            _patientStarts[_numPatients] = index;
+            _patientEnds[_numPatients] = -1;
+            _patientLines[_numPatients] = line;
+            _numPatients++;
+        }
+
+        // scans the data until the next top-level Patient tag (returns true) or the end of the data/root tag (returns false)
+        private boolean scanToNextPatient() throws NaaccrIOException {
+            try {
+                int b = read();
+                while (b != -1) {
+                    if (b == '<') {
+                        int index = _dataSize - 1;
+                        int line = _line;
+                        b = read();
+                        if (b == '?')
+                            skipUntil(_INSTRUCTION_END);
+                        else if (b == '!') {
+                            b = read();
+                            if (b == '-')
+                                skipUntil(_COMMENT_END);
+                            else if (b == '[')
+                                skipUntil(_CDATA_END);
+                            else
+                                skipUntil(_TAG_END);
+                        }
+                        else if (b == '/') {
+                            skipUntil(_TAG_END);
+                            _depth--;
+                            if (_depth == 1) {
+                                _lastElementEnd = _dataSize;
+                                if (_numPatients > 0 && _patientEnds[_numPatients - 1] == -1)
+                                    _patientEnds[_numPatients - 1] = _dataSize;
+                            }
+                            else if (_depth <= 0) {
+                                _rootClosed = true;
+                                return false;
+                            }
+                        }
+                        else if (b != -1) {
+                            String name = null;
+                            if (_depth <= 1) {
+                                StringBuilder buf = new StringBuilder();
+                                while (b != -1 && b != '>' && b != '/' && !Character.isWhitespace(b)) {
+                                    buf.append((char)b);
+                                    b = read();
+                                }
+                                name = buf.toString();
+                            }
+                            boolean emptyTag = skipTag(b);
+                            boolean topLevel = _depth == 1;
+
+                            if (_depth == 0) {
+                                _rootStartTag = Arrays.copyOfRange(_data, index, _dataSize);
+                                for (int i = 0; i < _rootStartTag.length; i++)
+                                    if (_rootStartTag[i] == '\n' || _rootStartTag[i] == '\r')
+                                        _rootStartTag[i] = ' ';
+                                _rootEndTag = ("</" + name + ">").getBytes(StandardCharsets.UTF_8);
+                            }
+
+                            if (!emptyTag)
+                                _depth++;
+                            else if (_depth == 1)
+                                _lastElementEnd = _dataSize;
+
+                            if (topLevel && isPatientTag(name)) {
+                                _patientIndex = index;
+                                _patientLine = line;
+                                addPatient(index, line);
+                                if (emptyTag)
+                                    _patientEnds[_numPatients - 1] = _dataSize;
+                                return true;
+                            }
+                        }
+                    }
+                    b = read();
+                }
+                return false;
+            }
+            catch (IOException e) {
+                throw new NaaccrIOException(e.getMessage());
+            }
+        }
+
+        private static boolean isPatientTag(String name) {
+            int idx = name.indexOf(':');
+            return NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT.equals(idx == -1 ? name : name.substring(idx + 1));
+        }
+
+        // skips the rest of a start tag (the given byte is the first one to look at), returns true if the tag is empty (self-closing)
+        private boolean skipTag(int b) throws IOException {
+            int quote = -1;
+            int previous = -1;
+            while (b != -1) {
+                if (quote != -1) {
+                    if (b == quote)
+                        quote = -1;
+                }
+                else if (b == '"' || b == '\'')
+                    quote = b;
+                else if (b == '>')
+                    return previous == '/';
+                previous = b;
+                b = read();
+            }
+            return false;
+        }
+
+        // skips the data until the given (at most 4 bytes long) sequence has been read
+        private void skipUntil(byte[] end) throws IOException {
+            int expected = 0;
+            for (byte b : end)
+                expected = (expected << 8) | (b & 0xFF);
+            int mask = end.length == 4 ? -1 : (1 << (8 * end.length)) - 1;
+
+            int window = 0;
+            int b = read();
+            while (b != -1) {
+                window = ((window << 8) | b) & mask;
+                if (window == expected)
+                    return;
+                b = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (_bufferPos == _bufferLimit) {
+                int n = _input.read(_buffer);
+                if (n <= 0)
+                    return -1;
+                _bufferPos = 0;
+                _bufferLimit = n;
+            }
+            int b = _buffer[_bufferPos++];
+            if (_dataSize == _data.length)
+                _data = Arrays.copyOf(_data, _data.length * 2);
+            _data[_dataSize++] = (byte)b;
+            if (b == '\n')
+                _line++;
+            return b & 0xFF;
+        }
+    }
+}
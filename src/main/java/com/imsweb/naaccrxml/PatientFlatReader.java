@@ -11,7 +11,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Objects;
 
 import com.imsweb.naaccrxml.entity.AbstractEntity;
 import com.imsweb.naaccrxml.entity.Item;
@@ -19,8 +19,11 @@ import com.imsweb.naaccrxml.entity.NaaccrData;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.Tumor;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.FlatValueValidator;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+import com.imsweb.naaccrxml.runtime.RuntimeFlatLayout;
 import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryCache;
 import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryItem;
 
 /**
@@ -40,15 +43,30 @@ public class PatientFlatReader implements PatientReader {
     // the runtime dictionary (combination of base and user-defined dictionaries)
     protected RuntimeNaaccrDictionary _dictionary;
 
+    // the compiled layout of the items to extract from each line
+    protected RuntimeFlatLayout _layout;
+
     // the cached items that need to be used to know whether tumors belong to the same patient
     protected List<RuntimeNaaccrDictionaryItem> _groupingItems;
 
+    // the location of the grouping items in the lines (start and end offsets), and whether their values are fully trimmed
+    protected int[] _groupingStarts;
+    protected int[] _groupingEnds;
+    protected boolean[] _groupingTrimAll;
+
+    // the location of the grouping values in the first line of the current patient (a start of -1 means the value is missing)
+    protected int[] _groupingValueStarts;
+    protected int[] _groupingValueEnds;
+
     // the NAACCR format to use
     protected NaaccrFormat _format;
 
     // reference to the previous data line in the reader
     protected String _previousLine;
 
+    // the collector counting the validation errors (and deciding which ones are retained)
+    protected NaaccrErrorCollector _errorCollector;
+
     /**
      * Constructor
      * @param reader required underlined reader
@@ -113,6 +131,7 @@ public class PatientFlatReader implements PatientReader {
     public PatientFlatReader(Reader reader, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, NaaccrStreamConfiguration conf) throws NaaccrIOException {
         _reader = new LineNumberReader(reader);
         _options = options == null ? new NaaccrOptions() : options;
+        _errorCollector = new NaaccrErrorCollector(_options);
 
         try {
             _previousLine = _reader.readLine();
@@ -144,7 +163,7 @@ public class PatientFlatReader implements PatientReader {
         _dictionary = conf == null ? null : conf.getCachedDictionary();
         if (_dictionary == null) {
             NaaccrDictionary baseDictionary = NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(_format.getNaaccrVersion());
-            _dictionary = new RuntimeNaaccrDictionary(_format.getRecordType(), baseDictionary, userDictionaries);
+            _dictionary = RuntimeNaaccrDictionaryCache.getRuntimeDictionary(_format.getRecordType(), baseDictionary, userDictionaries);
         }
         _rootData = new NaaccrData(_format.toString());
         _rootData.setSpecificationVersion(NaaccrXmlUtils.CURRENT_SPECIFICATION_VERSION);
@@ -158,6 +177,9 @@ public class PatientFlatReader implements PatientReader {
             if (NaaccrXmlUtils.NAACCR_XML_TAG_ROOT.equals(itemDef.getParentXmlElement()))
                 addItemFromLine(_rootData, _previousLine, _reader.getLineNumber(), itemDef);
 
+        // get the layout of the items to extract from each line
+        _layout = _dictionary.getFlatLayout(_options);
+
         // let's cache the grouping items, we are going to need them a lot...
         _groupingItems = new ArrayList<>();
         if (_options.getTumorGroupingItems() != null) {
@@ -167,26 +189,68 @@ public class PatientFlatReader implements PatientReader {
                     _groupingItems.add(item);
             }
         }
+        int numGroupingItems = _groupingItems.size();
+        _groupingStarts = new int[numGroupingItems];
+        _groupingEnds = new int[numGroupingItems];
+        _groupingTrimAll = new boolean[numGroupingItems];
+        for (int i = 0; i < numGroupingItems; i++) {
+            RuntimeNaaccrDictionaryItem item = _groupingItems.get(i);
+            // as of spec 1.1, the start column is optional for user-defined items; such an item never has a value in the lines
+            _groupingStarts[i] = item.getStartColumn() == null ? Integer.MAX_VALUE : item.getStartColumn() - 1;
+            _groupingEnds[i] = item.getStartColumn() == null ? Integer.MAX_VALUE : _groupingStarts[i] + item.getLength();
+            _groupingTrimAll[i] = item.getTrim() == null || NaaccrXmlDictionaryUtils.NAACCR_TRIM_ALL.equals(item.getTrim());
+        }
+        _groupingValueStarts = new int[numGroupingItems];
+        _groupingValueEnds = new int[numGroupingItems];
     }
 
     @Override
     public Patient readPatient() throws NaaccrIOException {
         List<String> lines = new ArrayList<>();
         List<Integer> lineNumbers = new ArrayList<>();
+        return readPatientLines(lines, lineNumbers) ? createPatientFromLines(lines, lineNumbers) : null;
+    }
+
+    /**
+     * Reads the lines of the next patient and validates them without creating the patient, its tumors and their items; the patient and its
+     * validation errors are added to the given summary.
+     * <br/><br/>
+     * This executes the same checks as readPatient() and applies the same limits to the retained errors; the errors that are not retained are
+     * counted by the error collector of this reader.
+     * @param summary the summary to add the patient and its errors to, cannot be null
+     * @return true if a patient was validated, false if there is no more patient
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public boolean validatePatient(NaaccrValidationSummary summary) throws NaaccrIOException {
+        List<String> lines = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        if (!readPatientLines(lines, lineNumbers))
+            return false;
+        validatePatientLines(lines, lineNumbers, summary);
+        return true;
+    }
 
+    /**
+     * Reads the lines of the next patient (the lines having the same tumor grouping values as the first one).
+     * @param lines the read lines (populated by this method)
+     * @param lineNumbers the line numbers of the read lines (populated by this method)
+     * @return true if some lines were read, false if there is no more patient
+     */
+    protected boolean readPatientLines(List<String> lines, List<Integer> lineNumbers) throws NaaccrIOException {
         try {
             if (_previousLine == null) {
                 _previousLine = _reader.readLine();
                 if (_previousLine == null) // would be an empty file...
-                    return null;
+                    return false;
             }
 
-            Map<String, String> firstLineGroupingValues = extractGroupingValues(_previousLine, _reader.getLineNumber(), _groupingItems);
+            String firstLine = _previousLine;
+            boolean hasGroupingValues = locateGroupingValues(firstLine, _groupingValueStarts, _groupingValueEnds);
             lines.add(_previousLine);
             lineNumbers.add(_reader.getLineNumber());
             _previousLine = _reader.readLine();
             while (_previousLine != null) {
-                boolean samePatient = !firstLineGroupingValues.isEmpty() && firstLineGroupingValues.equals(extractGroupingValues(_previousLine, _reader.getLineNumber(), _groupingItems));
+                boolean samePatient = hasGroupingValues && hasSameGroupingValues(firstLine, _groupingValueStarts, _groupingValueEnds, _previousLine);
                 if (samePatient) {
                     lines.add(_previousLine);
                     lineNumbers.add(_reader.getLineNumber());
@@ -200,7 +264,12 @@ public class PatientFlatReader implements PatientReader {
             throw new NaaccrIOException(e.getMessage());
         }
 
-        return lines.isEmpty() ? null : createPatientFromLines(lines, lineNumbers);
+        return !lines.isEmpty();
+    }
+
+    @Override
+    public NaaccrErrorCollector getErrorCollector() {
+        return _errorCollector;
     }
 
     @Override
@@ -224,13 +293,102 @@ public class PatientFlatReader implements PatientReader {
         }
     }
 
+    /**
+     * Locates the grouping values in the given line, applying the trimming rules of their items; the location of a missing value (blank, or beyond
+     * the end of the line) has a start of -1.
+     * @param line line to look into
+     * @param valueStarts the start offsets of the values (populated by this method)
+     * @param valueEnds the end offsets of the values (populated by this method)
+     * @return true if at least one grouping value is present in the line
+     */
+    protected boolean locateGroupingValues(String line, int[] valueStarts, int[] valueEnds) {
+        boolean hasValues = false;
+        for (int i = 0; i < _groupingStarts.length; i++) {
+            int start = _groupingStarts[i];
+            int end = _groupingEnds[i];
+            if (end > line.length()) {
+                valueStarts[i] = -1;
+                continue;
+            }
+            int trimmedStart = start;
+            while (trimmedStart < end && line.charAt(trimmedStart) <= ' ')
+                trimmedStart++;
+            if (trimmedStart == end) {
+                valueStarts[i] = -1;
+                continue;
+            }
+            if (_groupingTrimAll[i]) {
+                while (line.charAt(end - 1) <= ' ')
+                    end--;
+                start = trimmedStart;
+            }
+            valueStarts[i] = start;
+            valueEnds[i] = end;
+            hasValues = true;
+        }
+        return hasValues;
+    }
+
+    /**
+     * Returns true if the given line has the same grouping values as the ones located in the first line of a patient (a missing value is only the same
+     * as another missing value).
+     * <br/><br/>
+     * This is equivalent to comparing the values of the grouping items extracted from the two lines, without creating any object.
+     * @param firstLine first line of the patient
+     * @param valueStarts the start offsets of the values in the first line (see locateGroupingValues())
+     * @param valueEnds the end offsets of the values in the first line (see locateGroupingValues())
+     * @param line line to compare
+     * @return true if the grouping values are the same
+     */
+    protected boolean hasSameGroupingValues(String firstLine, int[] valueStarts, int[] valueEnds, String line) {
+        for (int i = 0; i < _groupingStarts.length; i++) {
+            int start = _groupingStarts[i];
+            int end = _groupingEnds[i];
+            boolean present = end <= line.length();
+            if (present) {
+                int trimmedStart = start;
+                while (trimmedStart < end && line.charAt(trimmedStart) <= ' ')
+                    trimmedStart++;
+                present = trimmedStart < end;
+                if (present && _groupingTrimAll[i]) {
+                    while (line.charAt(end - 1) <= ' ')
+                        end--;
+                    start = trimmedStart;
+                }
+            }
+            if (!present) {
+                if (valueStarts[i] != -1)
+                    return false;
+            }
+            else if (valueStarts[i] == -1 || valueEnds[i] - valueStarts[i] != end - start || !firstLine.regionMatches(valueStarts[i], line, start, end - start))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Extracts the values of the provided items from the given line.
+     * @deprecated the grouping values are now compared in place, this method is not called by the reader anymore; use locateGroupingValues() and
+     * hasSameGroupingValues() instead
+     */
+    @Deprecated
     protected Map<String, String> extractGroupingValues(String line, Integer linNumber, List<RuntimeNaaccrDictionaryItem> itemDefs) {
         Map<String, String> values = new HashMap<>();
 
-        for (RuntimeNaaccrDictionaryItem itemDef : itemDefs) {
-            Item item = createItemFromLine(null, line, linNumber, itemDef);
-            if (item != null)
-                values.put(item.getNaaccrId(), item.getValue());
+        if (itemDefs == _groupingItems) {
+            int[] valueStarts = new int[_groupingStarts.length];
+            int[] valueEnds = new int[_groupingStarts.length];
+            locateGroupingValues(line, valueStarts, valueEnds);
+            for (int i = 0; i < valueStarts.length; i++)
+                if (valueStarts[i] != -1)
+                    values.put(_groupingItems.get(i).getNaaccrId(), line.substring(valueStarts[i], valueEnds[i]));
+        }
+        else {
+            for (RuntimeNaaccrDictionaryItem itemDef : itemDefs) {
+                Item item = createItemFromLine(null, line, linNumber, itemDef);
+                if (item != null)
+                    values.put(item.getNaaccrId(), item.getValue());
+            }
         }
 
         return values;
@@ -238,6 +396,8 @@ public class PatientFlatReader implements PatientReader {
 
     protected Patient createPatientFromLines(List<String> lines, List<Integer> lineNumbers) {
         Patient patient = new Patient();
+        if (Boolean.TRUE.equals(_options.getUseCompactItemStorage()))
+            patient.useCompactItemStorage(_dictionary.getItemSlotIndex(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT));
         patient.setStartLineNumber(lineNumbers.get(0));
         patient.setEndLineNumber(lineNumbers.get(0)); // for flat, start and end are the same
 
@@ -249,33 +409,30 @@ public class PatientFlatReader implements PatientReader {
                 reportError(patient, lineNumber, null, null, NaaccrErrorUtils.CODE_BAD_LINE_LENGTH, _format.getLineLength(), line.length());
 
             Tumor tumor = new Tumor();
+            if (Boolean.TRUE.equals(_options.getUseCompactItemStorage()))
+                tumor.useCompactItemStorage(_dictionary.getItemSlotIndex(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR));
             tumor.setStartLineNumber(lineNumber);
             tumor.setEndLineNumber(lineNumber); // for flat, start and end are the same
-            for (RuntimeNaaccrDictionaryItem def : _dictionary.getItems()) {
-                if (NaaccrXmlUtils.NAACCR_XML_TAG_ROOT.equals(def.getParentXmlElement())) {
-                    if (Boolean.TRUE.equals(_options.getReportLevelMismatch()) ){
-                        Item currentTumorItem = createItemFromLine(null, line, lineNumber, def);
-                        String rootValue = _rootData.getItemValue(def.getNaaccrId());
-                        String tumorValue = currentTumorItem == null ? null : currentTumorItem.getValue();
-                        boolean same = rootValue == null ? tumorValue == null : rootValue.equals(tumorValue);
-                        if (!same)
-                            reportError(tumor, lineNumber, def, null, NaaccrErrorUtils.CODE_VAL_ROOT_VS_TUM, def.getNaaccrId());
+            for (int j = 0; j < _layout.getNumItems(); j++) {
+                switch (_layout.getLevel(j)) {
+                    case RuntimeFlatLayout.LEVEL_ROOT -> {
+                        String rootValue = _rootData.getItemValue(_layout.getItem(j).getNaaccrId());
+                        if (!Objects.equals(rootValue, _layout.extractValue(line, j)))
+                            reportError(tumor, lineNumber, _layout.getItem(j), null, NaaccrErrorUtils.CODE_VAL_ROOT_VS_TUM, _layout.getItem(j).getNaaccrId());
                     }
-                }
-                else if (NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT.equals(def.getParentXmlElement())) {
-                    if (i == 0)
-                        addItemFromLine(patient, line, lineNumber, def);
-                    else if (Boolean.TRUE.equals(_options.getReportLevelMismatch())) {
-                        Item currentTumorItem = createItemFromLine(null, line, lineNumber, def);
-                        String patValue = patient.getItemValue(def.getNaaccrId());
-                        String tumorValue = currentTumorItem == null ? null : currentTumorItem.getValue();
-                        boolean same = patValue == null ? tumorValue == null : patValue.equals(tumorValue);
-                        if (!same)
-                            reportError(tumor, lineNumber, def, null, NaaccrErrorUtils.CODE_VAL_PAT_VS_TUM, def.getNaaccrId());
+                    case RuntimeFlatLayout.LEVEL_PATIENT -> {
+                        if (i == 0) {
+                            if (_layout.isProcessed(j))
+                                addItemFromLine(patient, line, lineNumber, j);
+                        }
+                        else if (Boolean.TRUE.equals(_options.getReportLevelMismatch())) {
+                            String patValue = patient.getItemValue(_layout.getItem(j).getNaaccrId());
+                            if (!Objects.equals(patValue, _layout.extractValue(line, j)))
+                                reportError(tumor, lineNumber, _layout.getItem(j), null, NaaccrErrorUtils.CODE_VAL_PAT_VS_TUM, _layout.getItem(j).getNaaccrId());
+                        }
                     }
+                    default -> addItemFromLine(tumor, line, lineNumber, j);
                 }
-                else if (NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR.equals(def.getParentXmlElement()))
-                    addItemFromLine(tumor, line, lineNumber, def);
             }
             patient.addTumor(tumor);
         }
@@ -283,6 +440,88 @@ public class PatientFlatReader implements PatientReader {
         return patient;
     }
 
+    /**
+     * Validates the lines of a patient the same way createPatientFromLines() does, but only adds the retained errors to the summary; the number of
+     * errors retained for the patient and for the current tumor is tracked so the limits of the options are applied the same way.
+     */
+    protected void validatePatientLines(List<String> lines, List<Integer> lineNumbers, NaaccrValidationSummary summary) {
+        String firstLine = lines.get(0);
+        int numPatientErrors = 0;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+
+            if (line.length() != _format.getLineLength())
+                numPatientErrors += countError(summary, numPatientErrors, null, NaaccrErrorUtils.CODE_BAD_LINE_LENGTH);
+
+            int numTumorErrors = 0;
+            for (int j = 0; j < _layout.getNumItems(); j++) {
+                switch (_layout.getLevel(j)) {
+                    case RuntimeFlatLayout.LEVEL_ROOT -> {
+                        String rootValue = _rootData.getItemValue(_layout.getItem(j).getNaaccrId());
+                        if (!Objects.equals(rootValue, _layout.extractValue(line, j)))
+                            numTumorErrors += countError(summary, numTumorErrors, _layout.getItem(j), NaaccrErrorUtils.CODE_VAL_ROOT_VS_TUM);
+                    }
+                    case RuntimeFlatLayout.LEVEL_PATIENT -> {
+                        if (i == 0) {
+                            if (_layout.isProcessed(j))
+                                numPatientErrors += countValueError(summary, numPatientErrors, line, j);
+                        }
+                        else if (Boolean.TRUE.equals(_options.getReportLevelMismatch())) {
+                            String patValue = _layout.isProcessed(j) ? _layout.extractValue(firstLine, j) : null;
+                            if (!Objects.equals(patValue, _layout.extractValue(line, j)))
+                                numTumorErrors += countError(summary, numTumorErrors, _layout.getItem(j), NaaccrErrorUtils.CODE_VAL_PAT_VS_TUM);
+                        }
+                    }
+                    default -> numTumorErrors += countValueError(summary, numTumorErrors, line, j);
+                }
+            }
+        }
+
+        summary.addPatient(lines.size());
+    }
+
+    // validates the value of the given layout index, returns the number of errors added to the summary (0 or 1)
+    private int countValueError(NaaccrValidationSummary summary, int numEntityErrors, String line, int layoutIdx) {
+        String value = _layout.extractValue(line, layoutIdx);
+        if (value == null)
+            return 0;
+        String code = validateValue(value, layoutIdx);
+        return code == null ? 0 : countError(summary, numEntityErrors, _layout.getItem(layoutIdx), code);
+    }
+
+    // counts the given error, returns the number of errors added to the summary (0 or 1)
+    private int countError(NaaccrValidationSummary summary, int numEntityErrors, RuntimeNaaccrDictionaryItem def, String code) {
+        if (!_errorCollector.retain(numEntityErrors, code))
+            return 0;
+        summary.addError(code, def == null ? null : def.getNaaccrId());
+        return 1;
+    }
+
+    /**
+     * Adds the item corresponding to the given index of the compiled layout to the provided entity, validating its value.
+     */
+    protected void addItemFromLine(AbstractEntity entity, String line, Integer lineNumber, int layoutIdx) {
+        String value = _layout.extractValue(line, layoutIdx);
+        if (value == null)
+            return;
+
+        RuntimeNaaccrDictionaryItem def = _layout.getItem(layoutIdx);
+        entity.addItem(def.getNaaccrId(), def.getNaaccrNum(), value, lineNumber);
+
+        String code = validateValue(value, layoutIdx);
+        if (code != null)
+            reportError(entity, lineNumber, def, value, code, FlatValueValidator.getMessageValues(def, value, code));
+    }
+
+    /**
+     * Validates the value of the item corresponding to the given index of the compiled layout (see FlatValueValidator).
+     * @return the code of the validation error, null if the value is valid
+     */
+    protected String validateValue(String value, int layoutIdx) {
+        return FlatValueValidator.validate(_layout.getItem(layoutIdx), value, _options);
+    }
+
     protected void addItemFromLine(AbstractEntity entity, String line, Integer lineNumber, RuntimeNaaccrDictionaryItem def) {
 
         // as of spec 1.1, the start column is optional for user-defined items, so let's ignore those
@@ -314,17 +553,11 @@ public class PatientFlatReader implements PatientReader {
 
                 // validate the value
                 if (entity != null) {
-                    if (item.getValue().length() > def.getLength())
-                        reportError(entity, lineNumber, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_TOO_LONG, def.getLength(), item.getValue().length());
-                    if (Boolean.TRUE.equals(_options.getValidateReadValues())) {
-                        if (NaaccrXmlDictionaryUtils.isFullLengthRequiredForType(def.getDataType()) && item.getValue().length() < def.getLength())
-                            reportError(entity, lineNumber, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_TOO_SHORT, def.getLength(), item.getValue().length());
-                        else if (def.getDataType() != null) {
-                            Pattern pattern = NaaccrXmlDictionaryUtils.getDataTypePattern(def.getDataType());
-                            if (pattern != null && !pattern.matcher(item.getValue()).matches())
-                                reportError(entity, lineNumber, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE, def.getDataType());
-                        }
-                    }
+                    if (value.length() > def.getLength())
+                        reportError(entity, lineNumber, def, value, NaaccrErrorUtils.CODE_VAL_TOO_LONG, def.getLength(), value.length());
+                    String code = FlatValueValidator.validate(def, value, _options);
+                    if (code != null)
+                        reportError(entity, lineNumber, def, value, code, FlatValueValidator.getMessageValues(def, value, code));
                 }
             }
         }
@@ -333,6 +566,9 @@ public class PatientFlatReader implements PatientReader {
     }
 
     protected void reportError(AbstractEntity entity, int line, RuntimeNaaccrDictionaryItem def, String value, String code, Object... msgValues) {
+        if (!_errorCollector.retain(entity, code))
+            return;
+
         NaaccrValidationError error = new NaaccrValidationError(code, msgValues);
         error.setLineNumber(line);
         if (def != null) {
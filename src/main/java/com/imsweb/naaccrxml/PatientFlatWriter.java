@@ -9,9 +9,6 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
-
-import org.apache.commons.lang3.StringUtils;
 
 import com.imsweb.naaccrxml.entity.AbstractEntity;
 import com.imsweb.naaccrxml.entity.NaaccrData;
@@ -19,7 +16,9 @@ import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.Tumor;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+import com.imsweb.naaccrxml.runtime.RuntimeFlatTemplate;
 import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryCache;
 import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryItem;
 
 import static com.imsweb.naaccrxml.NaaccrOptions.NEW_LINE_CRLF;
@@ -51,8 +50,11 @@ public class PatientFlatWriter implements PatientWriter {
     // cached value for new line character(s)
     protected String _newLine;
 
-    // cached pattern for new lines
-    private static final Pattern _NEW_LINES_PATTERN = Pattern.compile("(\r\n|\n|\r)");
+    // the compiled template of the lines (blank line with the format, location and level of the items)
+    protected RuntimeFlatTemplate _template;
+
+    // the buffer used to write each line
+    protected char[] _lineBuffer;
 
     /**
      * Constructor.
@@ -138,7 +140,7 @@ public class PatientFlatWriter implements PatientWriter {
         _dictionary = conf == null ? null : conf.getCachedDictionary();
         if (_dictionary == null) {
             NaaccrDictionary baseDictionary = NaaccrXmlDictionaryUtils.getBaseDictionaryByUri(data.getBaseDictionaryUri());
-            _dictionary = new RuntimeNaaccrDictionary(data.getRecordType(), baseDictionary, userDictionaries);
+            _dictionary = RuntimeNaaccrDictionaryCache.getRuntimeDictionary(data.getRecordType(), baseDictionary, userDictionaries);
         }
 
         if (_dictionary.getLineLength() == null || _dictionary.getLineLength() == -1)
@@ -153,13 +155,20 @@ public class PatientFlatWriter implements PatientWriter {
             if (_recordTypeItem != null && _naaccrVersionItem != null)
                 break;
         }
+
+        _template = _dictionary.getFlatTemplate(_options);
+        _lineBuffer = _template.createLineBuffer();
     }
 
     @Override
     public void writePatient(Patient patient) throws NaaccrIOException {
-        for (String line : createLinesFromPatient(_rootData, patient)) {
+        // it's possible to have a patient without any tumor; in that case, we will want to output a line (with blank tumor items)...
+        List<Tumor> tumors = patient.getTumors();
+        int numLines = Math.max(1, tumors.size());
+        for (int i = 0; i < numLines; i++) {
+            _template.writeLine(_lineBuffer, _rootData, patient, tumors.isEmpty() ? null : tumors.get(i), _options);
             try {
-                _writer.write(line);
+                _writer.write(_lineBuffer, 0, _lineBuffer.length);
                 _writer.write(_newLine);
             }
             catch (IOException e) {
@@ -199,65 +208,26 @@ public class PatientFlatWriter implements PatientWriter {
     protected List<String> createLinesFromPatient(NaaccrData root, Patient patient) throws NaaccrIOException {
         List<String> lines = new ArrayList<>();
 
-        // it's possible to have a patient without any tumor; in that case, we will want to output a line...
+        // it's possible to have a patient without any tumor; in that case, we will want to output a line (with blank tumor items)...
         List<Tumor> tumors = new ArrayList<>(patient.getTumors());
         if (tumors.isEmpty())
-            tumors.add(new Tumor());
+            tumors.add(null);
 
+        char[] line = _template.createLineBuffer();
         for (Tumor tumor : tumors) {
-            int currentIndex = 1;
-            StringBuilder line = new StringBuilder();
-            for (RuntimeNaaccrDictionaryItem itemDef : _dictionary.getItems()) {
-                if (!NaaccrOptions.processItem(_options, itemDef.getNaaccrId()))
-                    continue;
-                // as of spec 1.1, the start column is optional for user-defined items, so let's ignore those
-                if (itemDef.getStartColumn() == null)
-                    continue;
-                if (itemDef.getParentXmlElement() != null && itemDef.getStartColumn() != null && itemDef.getLength() != null) {
-                    int start = itemDef.getStartColumn();
-                    int length = itemDef.getLength();
-                    int end = start + length - 1;
-
-                    // adjust for the "leading" gap
-                    if (start > currentIndex)
-                        for (int i = 0; i < start - currentIndex; i++)
-                            line.append(' ');
-                    currentIndex = start;
-
-                    String value = getValueForItem(itemDef, root, patient, tumor, Boolean.TRUE.equals(_options.getApplyZeroPaddingRules()));
-                    if (value != null) {
-                        line.append(value);
-                        currentIndex = start + value.length();
-                    }
-
-                    // adjust for the "trailing" gap
-                    if (currentIndex <= end)
-                        for (int i = 0; i < end - currentIndex + 1; i++)
-                            line.append(' ');
-                    currentIndex = end + 1;
-                }
-            }
-
-            // adjust for the final "trailing" gap
-            if (currentIndex <= _dictionary.getLineLength())
-                for (int i = 0; i < _dictionary.getLineLength() - currentIndex + 1; i++)
-                    line.append(' ');
-
-            // always use the format to write the NAACCR version and record type
-            if (_dictionary.getRecordType() != null && _recordTypeItem != null)
-                line.replace(_recordTypeItem.getStartColumn() - 1, _recordTypeItem.getStartColumn() + _recordTypeItem.getLength() - 1, _dictionary.getRecordType());
-            if (_dictionary.getNaaccrVersion() != null && _naaccrVersionItem != null)
-                line.replace(_naaccrVersionItem.getStartColumn() - 1, _naaccrVersionItem.getStartColumn() + _naaccrVersionItem.getLength() - 1, _dictionary.getNaaccrVersion());
-
-            lines.add(line.toString());
+            _template.writeLine(line, root, patient, tumor, _options);
+            lines.add(new String(line));
         }
 
         return lines;
     }
 
+    /**
+     * Returns the value of the provided item as it is written in the flat line.
+     * @deprecated the lines are now written from a compiled template, this method is not called by the writer anymore; use RuntimeFlatTemplate.formatValue() instead
+     */
+    @Deprecated
     protected String getValueForItem(RuntimeNaaccrDictionaryItem itemDef, NaaccrData root, Patient patient, Tumor tumor, boolean applyZeroPadding) throws NaaccrIOException {
-        String value;
-
         AbstractEntity entityToUse;
         if (NaaccrXmlUtils.NAACCR_XML_TAG_ROOT.equals(itemDef.getParentXmlElement()))
             entityToUse = root;
@@ -267,49 +237,19 @@ public class PatientFlatWriter implements PatientWriter {
             entityToUse = tumor;
         else
             throw new NaaccrIOException("unsupported parent element: " + itemDef.getParentXmlElement());
-        value = entityToUse.getItemValue(itemDef.getNaaccrId());
-
-        // handle the padding (always apply the space padding because it's an attribute of the format more than the data)
-        if (value != null && !value.isEmpty() && itemDef.getLength() != null && itemDef.getPadding() != null && value.length() < itemDef.getLength()) {
-            if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_BLANK.equals(itemDef.getPadding()))
-                value = StringUtils.leftPad(value, itemDef.getLength(), ' ');
-            else if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_BLANK.equals(itemDef.getPadding()))
-                value = StringUtils.rightPad(value, itemDef.getLength(), ' ');
-            else if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_ZERO.equals(itemDef.getPadding())) {
-                if (applyZeroPadding)
-                    value = StringUtils.leftPad(value, itemDef.getLength(), '0');
-            }
-            else if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_ZERO.equals(itemDef.getPadding())) {
-                if (applyZeroPadding)
-                    value = StringUtils.rightPad(value, itemDef.getLength(), '0');
-            }
-            else if (!NaaccrXmlDictionaryUtils.NAACCR_PADDING_NONE.equals(itemDef.getPadding()))
-                throw new IllegalStateException("Unknown padding option: " + itemDef.getPadding());
-        }
+        if (entityToUse == null)
+            return null;
 
-        // handle new lines (can't have that in flat files)
-        if (value != null && !value.isEmpty())
-            value = _NEW_LINES_PATTERN.matcher(value).replaceAll(" ");
-
-        // for flat-file values, we always have to truncate, so the "allowUnlimitedText" is used only to know if we have to report an error
-        if (value != null && value.length() > itemDef.getLength()) {
-            if (!Boolean.TRUE.equals(itemDef.getAllowUnlimitedText()) && Boolean.TRUE.equals(_options.getReportValuesTooLong()))
-                reportError(entityToUse, itemDef, value, NaaccrErrorUtils.CODE_VAL_TOO_LONG, itemDef.getLength(), value.length());
-            value = value.substring(0, itemDef.getLength());
-        }
-
-        return value;
+        return RuntimeFlatTemplate.formatValue(itemDef, entityToUse, applyZeroPadding, Boolean.TRUE.equals(_options.getReportValuesTooLong()));
     }
 
+    /**
+     * Reports a validation error on the provided entity.
+     * @deprecated the errors are now reported by the compiled template, this method is not called by the writer anymore; use RuntimeFlatTemplate.reportError() instead
+     */
+    @Deprecated
     @SuppressWarnings("SameParameterValue")
     protected void reportError(AbstractEntity entity, RuntimeNaaccrDictionaryItem def, String value, String code, Object... msgValues) {
-        NaaccrValidationError error = new NaaccrValidationError(code, msgValues);
-        if (def != null) {
-            error.setNaaccrId(def.getNaaccrId());
-            error.setNaaccrNum(def.getNaaccrNum());
-        }
-        if (value != null && !value.isEmpty())
-            error.setValue(value);
-        entity.addValidationError(error);
+        RuntimeFlatTemplate.reportError(entity, def, value, code, msgValues);
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * Reads, processes and writes patients using several threads.
+ * <br/><br/>
+ * One thread reads the patients and hands them to a pool of processing threads; the calling thread writes the processed patients, in the same
+ * order as they were read. The number of patients being processed at any given time is bounded, so is the memory used by the pipeline.
+ * <br/><br/>
+ * The read-ahead and write-behind options are honored the same way as for a single-threaded translation: the reading thread reads from an
+ * AsyncPatientReader, and the calling thread writes to an AsyncPatientWriter.
+ * <br/><br/>
+ * The observer (if any) is notified of the read patients from the reading thread, and of the written patients from the calling thread (or from
+ * the write-behind thread). Interrupting the calling thread cancels the processing; the reading thread is never interrupted (interrupting a thread
+ * can close the file channel it reads from), it checks a flag instead.
+ */
+class PatientProcessingPipeline {
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // marker for the end of the data
+    private static final Future<Patient> _END_OF_DATA = CompletableFuture.completedFuture(null);
+
+    // how long to wait for the reading thread before draining the queue again, when stopping the pipeline
+    private static final long _STOP_POLLING_MILLIS = 10;
+
+    private final PatientReader _reader;
+
+    private final PatientWriter _writer;
+
+    private final NaaccrPatientProcessor _processor;
+
+    private final NaaccrObserver _observer;
+
+    private final NaaccrOptions _options;
+
+    private final int _numThreads;
+
+    // the patients being processed, in the order they were read (this is what restores the order of the patients and limits the memory)
+    private final BlockingQueue<Future<Patient>> _pendingPatients;
+
+    // whether the pipeline has been stopped (the reading thread checks it after each patient)
+    private volatile boolean _stopped;
+
+    PatientProcessingPipeline(PatientReader reader, PatientWriter writer, NaaccrPatientProcessor processor, NaaccrObserver observer, NaaccrOptions options, int numThreads) {
+        _reader = reader;
+        _writer = writer;
+        _processor = processor;
+        _observer = observer;
+        _options = options;
+        _numThreads = numThreads;
+        _pendingPatients = new ArrayBlockingQueue<>(numThreads * 2);
+    }
+
+    /**
+     * Runs the pipeline until all the patients have been written, an error happens, or the calling thread is interrupted.
+     * @throws NaaccrIOException if a patient can't be read or written
+     */
+    void run() throws NaaccrIOException {
+        AsyncPatientReader readAheadReader = null;
+        if (_options != null && _options.getReadAheadQueueSize() != null && _options.getReadAheadQueueSize() > 0)
+            readAheadReader = new AsyncPatientReader(_reader, _options.getReadAheadQueueSize(), false);
+        PatientReader source = readAheadReader == null ? _reader : readAheadReader;
+
+        AsyncPatientWriter writeBehindWriter = null;
+        if (_options != null && _options.getWriteBehindQueueSize() != null && _options.getWriteBehindQueueSize() > 0)
+            writeBehindWriter = new AsyncPatientWriter(_writer, _options.getWriteBehindQueueSize(), false, _observer);
+        PatientWriter target = writeBehindWriter == null ? _writer : writeBehindWriter;
+
+        ExecutorService workers = Executors.newFixedThreadPool(_numThreads, r -> createThread(r, "naaccr-xml-processor-"));
+        Thread readerThread = createThread(() -> readPatients(source, workers), "naaccr-xml-pipeline-reader-");
+        readerThread.start();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Patient patient = _pendingPatients.take().get();
+                if (patient == null)
+                    break;
+                target.writePatient(patient);
+                // when writing behind, the background thread notifies the observer once the patient has actually been written
+                if (_observer != null && writeBehindWriter == null)
+                    _observer.patientWritten(patient);
+            }
+            if (writeBehindWriter != null)
+                writeBehindWriter.flushPatients();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof NaaccrIOException ex)
+                throw ex;
+            if (e.getCause() instanceof RuntimeException ex)
+                throw ex;
+            if (e.getCause() instanceof Error ex)
+                throw ex;
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw new NaaccrIOException(cause.getMessage(), cause);
+        }
+        finally {
+            stop(readerThread);
+            workers.shutdown();
+            if (readAheadReader != null)
+                readAheadReader.stop();
+            if (writeBehindWriter != null)
+                writeBehindWriter.stop();
+        }
+    }
+
+    /**
+     * Reads the patients and hands them to the processing threads; this is executed by the reading thread.
+     */
+    private void readPatients(PatientReader source, ExecutorService workers) {
+        try {
+            try {
+                Patient patient = source.readPatient();
+                while (patient != null && !_stopped) {
+                    if (_observer != null)
+                        _observer.patientRead(patient);
+                    Patient toProcess = patient;
+                    _pendingPatients.put(workers.submit(() -> {
+                        _processor.processPatient(toProcess);
+                        return toProcess;
+                    }));
+                    patient = source.readPatient();
+                }
+                if (!_stopped)
+                    _pendingPatients.put(_END_OF_DATA);
+            }
+            catch (NaaccrIOException | RuntimeException e) {
+                if (!_stopped)
+                    _pendingPatients.put(CompletableFuture.failedFuture(e));
+            }
+        }
+        catch (InterruptedException e) {
+            // the reading thread is never interrupted by this class, nothing else to do
+        }
+    }
+
+    /**
+     * Stops the reading thread and waits for it to be done, so the reader can safely be closed; the patients that are still pending are cancelled
+     * (the queue is drained in case the reading thread is waiting for room). This preserves the interrupted status of the calling thread.
+     */
+    private void stop(Thread readerThread) {
+        _stopped = true;
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (readerThread.isAlive()) {
+                cancelPendingPatients();
+                try {
+                    readerThread.join(_STOP_POLLING_MILLIS);
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        cancelPendingPatients();
+    }
+
+    private void cancelPendingPatients() {
+        Future<Patient> future = _pendingPatients.poll();
+        while (future != null) {
+            future.cancel(false);
+            future = _pendingPatients.poll();
+        }
+    }
+
+    private static Thread createThread(Runnable r, String prefix) {
+        Thread thread = new Thread(r, prefix + _THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -26,6 +26,15 @@ public interface PatientReader extends Closeable {
      */
     NaaccrData getRootData();
 
+    /**
+     * Returns the collector of the validation errors reported by this reader; it counts all the errors, including the ones that were not retained
+     * because of the limits defined in the options (see NaaccrOptions.setMaxValidationErrorsPerEntity() and others).
+     * @return the error collector of this reader, null if the reader doesn't provide one
+     */
+    default NaaccrErrorCollector getErrorCollector() {
+        return null;
+    }
+
     /**
      * Reads the final node of the document, without closing the stream.
      */
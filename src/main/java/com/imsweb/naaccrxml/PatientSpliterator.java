@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+/**
+ * A spliterator returning the patients of a patient reader; it is used to create the streams of patients (see NaaccrXmlUtils.streamPatients()).
+ * <br/><br/>
+ * A reader can only be read sequentially, so splitting this spliterator reads a batch of patients into an array and returns a spliterator over
+ * that array, the remaining patients staying in the reader. The size of the batches grows with each split (up to a maximum), which allows a
+ * parallel stream to process the batches on several threads while the patients are still read by a single thread, one batch at a time. The
+ * batches are read as fast as possible, so if the processing of the patients is much slower than their reading, a parallel stream can end up
+ * keeping many batches in memory.
+ * <br/><br/>
+ * A NaaccrIOException thrown by the reader is wrapped into a NaaccrUncheckedIOException. This spliterator doesn't close the reader.
+ */
+public class PatientSpliterator implements Spliterator<Patient> {
+
+    /**
+     * The size of the first batch returned by trySplit(), and the number of patients added to each subsequent batch.
+     */
+    public static final int BATCH_UNIT = 64;
+
+    /**
+     * The maximum size of a batch returned by trySplit(); patients are big objects, so this is much smaller than for the spliterators of the JDK.
+     */
+    public static final int MAX_BATCH = 1024;
+
+    // the reader
+    protected PatientReader _reader;
+
+    // the size of the previous batch
+    protected int _batchSize;
+
+    // set once the reader returned null
+    protected boolean _endReached;
+
+    /**
+     * Constructor.
+     * @param reader required reader
+     */
+    public PatientSpliterator(PatientReader reader) {
+        if (reader == null)
+            throw new IllegalStateException("Reader is required");
+        _reader = reader;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Patient> action) {
+        Patient patient = readPatient();
+        if (patient == null)
+            return false;
+        action.accept(patient);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Patient> action) {
+        for (Patient patient = readPatient(); patient != null; patient = readPatient())
+            action.accept(patient);
+    }
+
+    @Override
+    public Spliterator<Patient> trySplit() {
+        if (_endReached)
+            return null;
+
+        int size = Math.min(_batchSize + BATCH_UNIT, MAX_BATCH);
+        Patient[] batch = new Patient[size];
+        int count = 0;
+        for (Patient patient = readPatient(); patient != null; patient = count < size ? readPatient() : null)
+            batch[count++] = patient;
+        if (count == 0)
+            return null;
+
+        _batchSize = count;
+        return new BatchSpliterator(batch, count);
+    }
+
+    @Override
+    public long estimateSize() {
+        return _endReached ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    // reads the next patient, returns null once the end of the reader is reached
+    private Patient readPatient() {
+        if (_endReached)
+            return null;
+        try {
+            Patient patient = _reader.readPatient();
+            if (patient == null)
+                _endReached = true;
+            return patient;
+        }
+        catch (NaaccrIOException e) {
+            _endReached = true;
+            throw new NaaccrUncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A spliterator over a batch of patients; it releases each patient once it's returned, so the consumed patients of a batch can be garbage
+     * collected before the entire batch is processed.
+     */
+    private static final class BatchSpliterator implements Spliterator<Patient> {
+
+        // the patients of the batch
+        private final Patient[] _patients;
+
+        // the number of patients in the batch
+        private final int _count;
+
+        // the index of the next patient to return
+        private int _index;
+
+        private BatchSpliterator(Patient[] patients, int count) {
+            _patients = patients;
+            _count = count;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Patient> action) {
+            if (_index >= _count)
+                return false;
+            Patient patient = _patients[_index];
+            _patients[_index++] = null;
+            action.accept(patient);
+            return true;
+        }
+
+        @Override
+        public Spliterator<Patient> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long)_count - _index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | SIZED | SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.imsweb.naaccrxml.ParallelPatientXmlReader.Chunk;
+import com.imsweb.naaccrxml.ParallelPatientXmlReader.PatientBoundaryScanner;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+/**
+ * An index of the patients of a (non-compressed) NAACCR XML data file.
+ * <br/><br/>
+ * For each patient, the index contains the byte offset and length of its Patient tag, its start line number, and the values of some key items
+ * (patientIdNumber by default). The index is built in one pass over the data file, and can be saved into a binary file next to the data file;
+ * combined with a PatientXmlRandomAccessReader, it allows reading a given patient without reading the entire data file.
+ * <br/><br/>
+ * The index records the size and last modification time of the data file it was built from; use isValidFor() to make sure the data file hasn't
+ * changed since the index was built.
+ */
+public class PatientXmlIndex {
+
+    // the key items used by default
+    public static final List<String> DEFAULT_KEY_ITEMS = Collections.singletonList("patientIdNumber");
+
+    // the extension of the default index file
+    public static final String INDEX_FILE_EXTENSION = ".idx";
+
+    // identifies the index files, and their format version
+    private static final int _MAGIC_NUMBER = 0x4E584958;
+    private static final int _FORMAT_VERSION = 1;
+
+    // size and last modification time of the indexed file
+    private final long _fileSize;
+    private final long _lastModified;
+
+    // the NAACCR IDs of the key items
+    private final List<String> _keyItemIds;
+
+    // the patients
+    private final List<Entry> _entries;
+
+    // the patients per value, for each key item (in the same order as the key items)
+    private final List<Map<String, List<Entry>>> _entriesPerKeyValue;
+
+    /**
+     * Constructor.
+     * @param fileSize size of the indexed file
+     * @param lastModified last modification time of the indexed file
+     * @param keyItemIds NAACCR IDs of the key items
+     * @param entries patients
+     */
+    public PatientXmlIndex(long fileSize, long lastModified, List<String> keyItemIds, List<Entry> entries) {
+        _fileSize = fileSize;
+        _lastModified = lastModified;
+        _keyItemIds = Collections.unmodifiableList(new ArrayList<>(keyItemIds));
+        _entries = Collections.unmodifiableList(new ArrayList<>(entries));
+
+        _entriesPerKeyValue = new ArrayList<>(_keyItemIds.size());
+        for (int i = 0; i < _keyItemIds.size(); i++) {
+            Map<String, List<Entry>> entriesPerValue = new HashMap<>();
+            for (Entry entry : _entries)
+                entriesPerValue.computeIfAbsent(entry._keyValues[i], k -> new ArrayList<>(1)).add(entry);
+            entriesPerValue.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            _entriesPerKeyValue.add(entriesPerValue);
+        }
+    }
+
+    /**
+     * Builds the index of the given data file, using the default key items.
+     * @param xmlFile non-compressed NAACCR XML data file
+     * @return the index, never null
+     * @throws NaaccrIOException if the file can't be read
+     */
+    public static PatientXmlIndex build(File xmlFile) throws NaaccrIOException {
+        return build(xmlFile, DEFAULT_KEY_ITEMS, null, null);
+    }
+
+    /**
+     * Builds the index of the given data file.
+     * @param xmlFile non-compressed NAACCR XML data file
+     * @param keyItemIds NAACCR IDs of the (patient-level) items to record for each patient, can be empty
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @return the index, never null
+     * @throws NaaccrIOException if the file can't be read
+     */
+    public static PatientXmlIndex build(File xmlFile, List<String> keyItemIds, NaaccrOptions options, List<NaaccrDictionary> userDictionaries) throws NaaccrIOException {
+        return build(xmlFile, keyItemIds, options, userDictionaries, ParallelPatientXmlReader.DEFAULT_CHUNK_SIZE);
+    }
+
+    // package-private so the tests can use small chunks
+    static PatientXmlIndex build(File xmlFile, List<String> keyItemIds, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, int chunkSize) throws NaaccrIOException {
+        if (xmlFile == null || !xmlFile.exists())
+            throw new NaaccrIOException("Source XML file must exist");
+        if (xmlFile.getName().endsWith(".gz"))
+            throw new NaaccrIOException("Compressed files can't be indexed");
+        if (keyItemIds == null)
+            keyItemIds = Collections.emptyList();
+        if (options == null)
+            options = NaaccrOptions.getDefault();
+        if (userDictionaries == null)
+            userDictionaries = Collections.emptyList();
+
+        long fileSize = xmlFile.length();
+        long lastModified = xmlFile.lastModified();
+
+        List<Entry> entries = new ArrayList<>();
+        PatientBoundaryScanner scanner;
+        try {
+            scanner = new PatientBoundaryScanner(new FileInputStream(xmlFile), chunkSize);
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+        try {
+            NaaccrStreamConfiguration conf = ParallelPatientXmlReader.createLineOffsetConfiguration(null);
+            NaaccrErrorCollector errorCollector = new NaaccrErrorCollector(options);
+
+            // validates the root data
+            byte[] prologue = scanner.scanPrologue();
+            try (PatientXmlReader reader = new PatientXmlReader(new InputStreamReader(new ByteArrayInputStream(prologue), StandardCharsets.UTF_8), options, userDictionaries, conf)) {
+                reader.getRootData();
+            }
+
+            List<Patient> patients = new ArrayList<>();
+            Chunk chunk = scanner.scanChunk();
+            while (chunk != null) {
+                patients.clear();
+                ParallelPatientXmlReader.readPatients(chunk._data, chunk._startLine, scanner.getRootStartTag(), chunk._closeRoot ? scanner.getRootEndTag() : null, options,
+                        userDictionaries, conf, errorCollector, patients);
+                if (patients.size() != chunk._patientStarts.length)
+                    throw new NaaccrIOException("Unable to find the boundaries of the patients", chunk._patientLines.length == 0 ? null : chunk._patientLines[0]);
+                for (int i = 0; i < patients.size(); i++) {
+                    String[] values = new String[keyItemIds.size()];
+                    for (int j = 0; j < values.length; j++)
+                        values[j] = patients.get(i).getItemValue(keyItemIds.get(j));
+                    entries.add(new Entry(chunk._offset + chunk._patientStarts[i], chunk._patientEnds[i] - chunk._patientStarts[i], chunk._patientLines[i], values));
+                }
+                chunk = scanner.scanChunk();
+            }
+        }
+        finally {
+            scanner.close();
+        }
+
+        return new PatientXmlIndex(fileSize, lastModified, keyItemIds, entries);
+    }
+
+    /**
+     * Returns the default index file for the given data file (same path, with the index extension appended to it).
+     * @param xmlFile data file
+     * @return the default index file, never null
+     */
+    public static File getDefaultIndexFile(File xmlFile) {
+        return new File(xmlFile.getPath() + INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * Reads an index from the given file.
+     * @param indexFile index file, created with write()
+     * @return the index, never null
+     * @throws NaaccrIOException if the file can't be read
+     */
+    public static PatientXmlIndex read(File indexFile) throws NaaccrIOException {
+        try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (is.readInt() != _MAGIC_NUMBER)
+                throw new NaaccrIOException("Invalid index file");
+            int version = is.readInt();
+            if (version != _FORMAT_VERSION)
+                throw new NaaccrIOException("Unsupported index format version: " + version);
+            long fileSize = is.readLong();
+            long lastModified = is.readLong();
+            int numKeys = is.readInt();
+            List<String> keyItemIds = new ArrayList<>(numKeys);
+            for (int i = 0; i < numKeys; i++)
+                keyItemIds.add(is.readUTF());
+            int numEntries = is.readInt();
+            List<Entry> entries = new ArrayList<>(numEntries);
+            for (int i = 0; i < numEntries; i++) {
+                long offset = is.readLong();
+                int length = is.readInt();
+                int lineNumber = is.readInt();
+                String[] values = new String[numKeys];
+                for (int j = 0; j < numKeys; j++)
+                    values[j] = is.readBoolean() ? is.readUTF() : null;
+                entries.add(new Entry(offset, length, lineNumber, values));
+            }
+            return new PatientXmlIndex(fileSize, lastModified, keyItemIds, entries);
+        }
+        catch (NaaccrIOException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes this index to the given file.
+     * @param indexFile target file
+     * @throws NaaccrIOException if the file can't be written
+     */
+    public void write(File indexFile) throws NaaccrIOException {
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            os.writeInt(_MAGIC_NUMBER);
+            os.writeInt(_FORMAT_VERSION);
+            os.writeLong(_fileSize);
+            os.writeLong(_lastModified);
+            os.writeInt(_keyItemIds.size());
+            for (String id : _keyItemIds)
+                os.writeUTF(id);
+            os.writeInt(_entries.size());
+            for (Entry entry : _entries) {
+                os.writeLong(entry._offset);
+                os.writeInt(entry._length);
+                os.writeInt(entry._lineNumber);
+                for (String value : entry._keyValues) {
+                    os.writeBoolean(value != null);
+                    if (value != null)
+                        os.writeUTF(value);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if the given data file has the same size and last modification time as the file this index was built from.
+     * @param xmlFile data file
+     * @return true if the index can be used with that file, false otherwise
+     */
+    public boolean isValidFor(File xmlFile) {
+        return xmlFile != null && xmlFile.exists() && xmlFile.length() == _fileSize && xmlFile.lastModified() == _lastModified;
+    }
+
+    /**
+     * Returns the patients having the given value for the given key item.
+     * @param naaccrId NAACCR ID of a key item
+     * @param value requested value (null for the patients that don't have a value)
+     * @return the corresponding patients (in the order of the data file), maybe empty but never null
+     */
+    public List<Entry> findEntries(String naaccrId, String value) {
+        int idx = _keyItemIds.indexOf(naaccrId);
+        if (idx == -1)
+            throw new IllegalStateException("Item " + naaccrId + " is not a key item of the index");
+        return _entriesPerKeyValue.get(idx).getOrDefault(value, Collections.emptyList());
+    }
+
+    public long getFileSize() {
+        return _fileSize;
+    }
+
+    public long getLastModified() {
+        return _lastModified;
+    }
+
+    public List<String> getKeyItemIds() {
+        return _keyItemIds;
+    }
+
+    public List<Entry> getEntries() {
+        return _entries;
+    }
+
+    /**
+     * The location of a patient in the data file.
+     */
+    public static final class Entry {
+
+        // byte offset of the Patient tag in the data file, and length (in bytes) of the tag
+        private final long _offset;
+        private final int _length;
+
+        // line number of the Patient tag
+        private final int _lineNumber;
+
+        // the values of the key items (in the same order as the key items of the index)
+        private final String[] _keyValues;
+
+        public Entry(long offset, int length, int lineNumber, String[] keyValues) {
+            _offset = offset;
+            _length = length;
+            _lineNumber = lineNumber;
+            _keyValues = keyValues;
+        }
+
+        public long getOffset() {
+            return _offset;
+        }
+
+        public int getLength() {
+            return _length;
+        }
+
+        public int getLineNumber() {
+            return _lineNumber;
+        }
+
+        public String getKeyValue(int index) {
+            return _keyValues[index];
+        }
+    }
+}
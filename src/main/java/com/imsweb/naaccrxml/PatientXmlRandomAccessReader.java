@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.imsweb.naaccrxml.ParallelPatientXmlReader.PatientBoundaryScanner;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+/**
+ * This class can be used to read single patients from a (non-compressed) NAACCR XML data file, using their location in the file (see PatientXmlIndex).
+ * <br/><br/>
+ * The root data is read once, at creation; each patient is then read by seeking to its offset and parsing only its Patient tag, using the
+ * runtime dictionary of the file. The returned patients (including their line numbers and validation errors) are the same as the ones returned
+ * by the regular PatientXmlReader.
+ * <br/><br/>
+ * This class is not thread-safe; it should be used by a single thread.
+ */
+public class PatientXmlRandomAccessReader implements Closeable {
+
+    // the root data
+    protected NaaccrData _rootData;
+
+    // the options and dictionaries
+    protected NaaccrOptions _options;
+    protected List<NaaccrDictionary> _userDictionaries;
+
+    // the configuration used to read the patients (it caches the runtime dictionary)
+    protected NaaccrStreamConfiguration _configuration;
+
+    // start tag of the root (on a single line) and corresponding end tag
+    protected byte[] _rootStartTag;
+    protected byte[] _rootEndTag;
+
+    // the collector of the validation errors, shared by all the read patients
+    protected NaaccrErrorCollector _errorCollector;
+
+    // the channel used to read the patients
+    protected FileChannel _channel;
+
+    /**
+     * Constructor.
+     * @param xmlFile required non-compressed NAACCR XML data file
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public PatientXmlRandomAccessReader(File xmlFile) throws NaaccrIOException {
+        this(xmlFile, null, null);
+    }
+
+    /**
+     * Constructor.
+     * @param xmlFile required non-compressed NAACCR XML data file
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    public PatientXmlRandomAccessReader(File xmlFile, NaaccrOptions options, List<NaaccrDictionary> userDictionaries) throws NaaccrIOException {
+        if (xmlFile == null || !xmlFile.exists())
+            throw new NaaccrIOException("Source XML file must exist");
+        if (xmlFile.getName().endsWith(".gz"))
+            throw new NaaccrIOException("Compressed files can't be read randomly");
+
+        _options = options == null ? NaaccrOptions.getDefault() : options;
+        _userDictionaries = userDictionaries == null ? Collections.emptyList() : userDictionaries;
+        _configuration = ParallelPatientXmlReader.createLineOffsetConfiguration(null);
+        _errorCollector = new NaaccrErrorCollector(_options);
+
+        // read the root data (and the tags needed to read the patients) from the beginning of the file
+        PatientBoundaryScanner scanner;
+        try {
+            scanner = new PatientBoundaryScanner(new FileInputStream(xmlFile), ParallelPatientXmlReader.DEFAULT_CHUNK_SIZE);
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+        try {
+            byte[] prologue = scanner.scanPrologue();
+            try (PatientXmlReader reader = new PatientXmlReader(new InputStreamReader(new ByteArrayInputStream(prologue), StandardCharsets.UTF_8), _options, _userDictionaries,
+                    _configuration, _errorCollector)) {
+                _rootData = reader.getRootData();
+            }
+            _rootStartTag = scanner.getRootStartTag();
+            _rootEndTag = scanner.getRootEndTag();
+        }
+        finally {
+            scanner.close();
+        }
+
+        try {
+            _channel = FileChannel.open(xmlFile.toPath(), StandardOpenOption.READ);
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the root data of the file.
+     * @return the root data, never null
+     */
+    public NaaccrData getRootData() {
+        return _rootData;
+    }
+
+    /**
+     * Returns the collector of the validation errors; the errors of a patient are counted every time that patient is read.
+     * @return the error collector, never null
+     */
+    public NaaccrErrorCollector getErrorCollector() {
+        return _errorCollector;
+    }
+
+    /**
+     * Reads the patient at the given location.
+     * @param entry location of the patient, from an index built for the file
+     * @return the patient, never null
+     * @throws NaaccrIOException if the patient can't be read
+     */
+    public Patient readPatient(PatientXmlIndex.Entry entry) throws NaaccrIOException {
+        return readPatient(entry.getOffset(), entry.getLength(), entry.getLineNumber());
+    }
+
+    /**
+     * Reads the patient at the given location.
+     * @param offset byte offset of the Patient tag
+     * @param length length (in bytes) of the Patient tag
+     * @param lineNumber line number of the Patient tag (used for the line numbers of the returned patient and of the errors)
+     * @return the patient, never null
+     * @throws NaaccrIOException if the patient can't be read
+     */
+    public Patient readPatient(long offset, int length, int lineNumber) throws NaaccrIOException {
+        if (_rootStartTag == null)
+            throw new NaaccrIOException("Unable to find the root tag");
+        if (offset < 0 || length <= 0)
+            throw new NaaccrIOException("Invalid patient location");
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining())
+                if (_channel.read(buffer, offset + buffer.position()) == -1)
+                    throw new NaaccrIOException("Patient location is beyond the end of the file");
+        }
+        catch (NaaccrIOException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+
+        List<Patient> patients = new ArrayList<>(1);
+        ParallelPatientXmlReader.readPatients(buffer.array(), lineNumber, _rootStartTag, _rootEndTag, _options, _userDictionaries, _configuration, _errorCollector, patients);
+        if (patients.size() != 1)
+            throw new NaaccrIOException("Expected a single patient at offset " + offset + " but found " + patients.size(), lineNumber);
+        return patients.get(0);
+    }
+
+    @Override
+    public void close() throws NaaccrIOException {
+        try {
+            _channel.close();
+        }
+        catch (IOException e) {
+            throw new NaaccrIOException(e.getMessage());
+        }
+    }
+}
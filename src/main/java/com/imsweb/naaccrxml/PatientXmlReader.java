@@ -22,13 +22,17 @@ import com.thoughtworks.xstream.converters.ConversionException;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.StreamException;
 import com.thoughtworks.xstream.mapper.CannotResolveClassException;
+import com.thoughtworks.xstream.security.AbstractSecurityException;
 
 import com.imsweb.naaccrxml.entity.NaaccrData;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.internal.NaaccrXmlPullReader;
+import com.imsweb.naaccrxml.runtime.NaaccrPatientConverter;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamContext;
 import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryCache;
 
 import static com.imsweb.naaccrxml.NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_ID;
 import static com.imsweb.naaccrxml.NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_NUM;
@@ -56,12 +60,18 @@ public class PatientXmlReader implements PatientReader {
     // underlined reader
     protected HierarchicalStreamReader _reader;
 
+    // patient converter, only set when the patients are read with the pull parser engine (in which case XStream is only used for the extensions)
+    protected NaaccrPatientConverter _patientConverter;
+
     // context for this reader (some stuff got a bit convoluted and using a context made them a cleaner)
     protected NaaccrStreamContext _context;
 
     // sometimes we want to finalize the reading operation without closing the reader itself...
     protected boolean _hasBeenFinalized = false;
 
+    // the collector counting the validation errors (and deciding which ones are retained)
+    protected NaaccrErrorCollector _errorCollector;
+
     /**
      * Constructor.
      * @param reader required underlined reader
@@ -123,14 +133,31 @@ public class PatientXmlReader implements PatientReader {
      * @param conf optional stream configuration
      * @throws NaaccrIOException if anything goes wrong
      */
-    @SuppressWarnings("java:S1141") // embedded try block
     public PatientXmlReader(Reader reader, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, NaaccrStreamConfiguration conf) throws NaaccrIOException {
+        this(reader, options, userDictionaries, conf, null);
+    }
+
+    /**
+     * Constructor.
+     * @param reader required underlined reader
+     * @param options optional options
+     * @param userDictionaries optional user-defined dictionaries (can be null or empty)
+     * @param conf optional stream configuration
+     * @param errorCollector optional error collector, used by the readers sharing a collector between several XML readers (a new one is created if null)
+     * @throws NaaccrIOException if anything goes wrong
+     */
+    @SuppressWarnings("java:S1141") // embedded try block
+    PatientXmlReader(Reader reader, NaaccrOptions options, List<NaaccrDictionary> userDictionaries, NaaccrStreamConfiguration conf, NaaccrErrorCollector errorCollector)
+            throws NaaccrIOException {
 
         try {
             // we always need options
             if (options == null)
                 options = NaaccrOptions.getDefault();
 
+            // we always need an error collector
+            _errorCollector = errorCollector == null ? new NaaccrErrorCollector(options) : errorCollector;
+
             // we always need a configuration
             if (conf == null)
                 conf = NaaccrStreamConfiguration.getDefault();
@@ -146,9 +173,13 @@ public class PatientXmlReader implements PatientReader {
             _context = new NaaccrStreamContext();
             _context.setOptions(options);
             _context.setConfiguration(conf);
+            _context.setErrorCollector(_errorCollector);
 
             // create the XML reader
-            _reader = conf.getDriver().createReader(reader);
+            if (NaaccrStreamConfiguration.READING_ENGINE_PULL_PARSER.equals(conf.getReadingEngine()))
+                _reader = new NaaccrXmlPullReader(reader, conf.getParser());
+            else
+                _reader = conf.getDriver().createReader(reader);
             if (!isRootTag(_reader.getNodeName()))
                 throw new NaaccrIOException("was expecting " + NAACCR_XML_TAG_ROOT + " root tag but got " + _reader.getNodeName(), conf.getParser().getLineNumber());
 
@@ -218,7 +249,8 @@ public class PatientXmlReader implements PatientReader {
                     _rootData.setTimeGenerated(NaaccrXmlUtils.parseIso8601Date(_reader.getAttribute(NAACCR_XML_ROOT_ATT_TIME_GENERATED)));
                 }
                 catch (IOException e) {
-                    _rootData.addValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_BAD_TIME_GENERATED, generatedTime));
+                    if (_errorCollector.retain(_rootData, NaaccrErrorUtils.CODE_BAD_TIME_GENERATED))
+                        _rootData.addValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_BAD_TIME_GENERATED, generatedTime));
                 }
             }
 
@@ -282,7 +314,7 @@ public class PatientXmlReader implements PatientReader {
 
             // create or get the runtime dictionary
             if (conf.getCachedDictionary() == null || !conf.getCachedDictionary().getId().equals(RuntimeNaaccrDictionary.computeId(_rootData.getRecordType(), baseDictionary, dictionaries.values())))
-                conf.setCachedDictionary(new RuntimeNaaccrDictionary(_rootData.getRecordType(), baseDictionary, dictionaries.values()));
+                conf.setCachedDictionary(RuntimeNaaccrDictionaryCache.getRuntimeDictionary(_rootData.getRecordType(), baseDictionary, dictionaries.values()));
 
             // now we are ready to setup our reading context and make it available to the patient converter
             _context.setDictionary(conf.getCachedDictionary());
@@ -303,7 +335,7 @@ public class PatientXmlReader implements PatientReader {
                 else
                     itemsAlreadySeen.add(rawId);
                 // following call will ensure that proper validation runs
-                conf.getPatientConverter().readItem(_rootData, "/NaaccrData", NAACCR_XML_TAG_ROOT, rawId, rawNum, _reader.getValue());
+                conf.getPatientConverter().readItem(_rootData, NAACCR_XML_TAG_ROOT, null, null, rawId, rawNum, _reader.getValue());
                 _reader.moveUp();
                 if (_reader.hasMoreChildren())
                     _reader.moveDown();
@@ -328,6 +360,8 @@ public class PatientXmlReader implements PatientReader {
 
             // need to expose xstream so the other methods can use it...
             _xstream = conf.getXstream();
+            if (_reader instanceof NaaccrXmlPullReader)
+                _patientConverter = conf.getPatientConverter();
         }
         catch (ConversionException ex) {
             throw convertSyntaxException(ex);
@@ -366,7 +400,10 @@ public class PatientXmlReader implements PatientReader {
 
         Patient patient;
         try {
-            patient = (Patient)_xstream.unmarshal(_reader);
+            if (_patientConverter != null)
+                patient = unmarshalPatient((NaaccrXmlPullReader)_reader);
+            else
+                patient = (Patient)_xstream.unmarshal(_reader);
             _reader.moveUp();
             if (_reader.hasMoreChildren())
                 _reader.moveDown();
@@ -384,6 +421,38 @@ public class PatientXmlReader implements PatientReader {
         return patient;
     }
 
+    /**
+     * Reads the current patient with the patient converter (without going through XStream); the errors are reported the same way XStream would report them.
+     */
+    private Patient unmarshalPatient(NaaccrXmlPullReader reader) {
+        int depth = reader.getDepth();
+        try {
+            return (Patient)_patientConverter.unmarshal(reader, null);
+        }
+        catch (ConversionException ex) {
+            addErrorInformation(ex, reader, depth);
+            throw ex;
+        }
+        catch (AbstractSecurityException ex) {
+            throw ex;
+        }
+        catch (RuntimeException ex) {
+            ConversionException conversionException = new ConversionException(ex);
+            addErrorInformation(conversionException, reader, depth);
+            throw conversionException;
+        }
+    }
+
+    private static void addErrorInformation(ConversionException ex, NaaccrXmlPullReader reader, int depth) {
+        ex.add("path", reader.getPath(depth));
+        reader.appendErrors(ex);
+    }
+
+    @Override
+    public NaaccrErrorCollector getErrorCollector() {
+        return _errorCollector;
+    }
+
     @Override
     public NaaccrData getRootData() {
         return _rootData;
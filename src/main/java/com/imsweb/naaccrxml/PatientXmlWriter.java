@@ -23,10 +23,13 @@ import com.thoughtworks.xstream.converters.ConversionException;
 import com.imsweb.naaccrxml.entity.NaaccrData;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.internal.NaaccrXmlDirectWriter;
 import com.imsweb.naaccrxml.internal.NaaccrXmlPrettyPrintWriter;
+import com.imsweb.naaccrxml.runtime.NaaccrPatientConverter;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
 import com.imsweb.naaccrxml.runtime.NaaccrStreamContext;
 import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryCache;
 
 import static com.imsweb.naaccrxml.NaaccrOptions.NEW_LINE_CRLF;
 import static com.imsweb.naaccrxml.NaaccrOptions.NEW_LINE_LF;
@@ -45,6 +48,9 @@ public class PatientXmlWriter implements PatientWriter {
     // cached value for new line character(s)
     protected String _newLine;
 
+    // the patient converter, only used when writing the patients directly (see NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT)
+    protected NaaccrPatientConverter _directConverter;
+
     // sometimes we want to finalize the writing operation without closing the writer itself...
     protected boolean _hasBeenFinalized = false;
 
@@ -154,7 +160,12 @@ public class PatientXmlWriter implements PatientWriter {
                         dictionaries.put(userDictionary.getDictionaryUri(), userDictionary);
 
             // create the writer
-            _writer = new NaaccrXmlPrettyPrintWriter(writer, _newLine);
+            if (NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT.equals(conf.getWritingEngine())) {
+                _writer = new NaaccrXmlDirectWriter(writer, _newLine);
+                _directConverter = conf.getPatientConverter();
+            }
+            else
+                _writer = new NaaccrXmlPrettyPrintWriter(writer, _newLine);
 
             // would be better to use a "header writer", I think XStream has one actually; that would be better...
             try {
@@ -203,7 +214,7 @@ public class PatientXmlWriter implements PatientWriter {
 
             // create or get the runtime dictionary
             if (conf.getCachedDictionary() == null || !conf.getCachedDictionary().getId().equals(RuntimeNaaccrDictionary.computeId(rootData.getRecordType(), baseDictionary, dictionaries.values())))
-                conf.setCachedDictionary(new RuntimeNaaccrDictionary(rootData.getRecordType(), baseDictionary, dictionaries.values()));
+                conf.setCachedDictionary(RuntimeNaaccrDictionaryCache.getRuntimeDictionary(rootData.getRecordType(), baseDictionary, dictionaries.values()));
 
             // now we are ready to create our reading context and make it available to the patient converter
             context.setDictionary(conf.getCachedDictionary());
@@ -228,7 +239,13 @@ public class PatientXmlWriter implements PatientWriter {
     @Override
     public void writePatient(Patient patient) throws NaaccrIOException {
         try {
-            _xstream.marshal(patient, _writer);
+            if (_directConverter != null) {
+                _writer.startNode(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT);
+                _directConverter.marshal(patient, _writer, null);
+                _writer.endNode();
+            }
+            else
+                _xstream.marshal(patient, _writer);
         }
         catch (ConversionException ex) {
             throw convertSyntaxException(ex);
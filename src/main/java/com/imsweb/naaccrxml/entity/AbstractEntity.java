@@ -4,10 +4,12 @@
 package com.imsweb.naaccrxml.entity;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import com.imsweb.naaccrxml.DuplicateItemException;
 import com.imsweb.naaccrxml.NaaccrValidationError;
@@ -21,13 +23,17 @@ import com.imsweb.naaccrxml.NaaccrValidationError;
  * <li>Entity has a list of extensions (most of the time those won't be provided in the data)</li>
  * </ol>
  * This class also defines some utility methods to read/write those variables...
+ * <br/><br/>
+ * An entity can optionally use a compact storage for its items (see useCompactItemStorage()); in that case, only the values are stored, in an array
+ * indexed by the slots of a shared index, and the Item objects are created only if they are requested (at which point the entity goes back to
+ * the regular storage).
  */
 public class AbstractEntity {
 
-    // the items corresponding to this entity
+    // the items corresponding to this entity (null until the first regular item is added)
     protected List<Item> _items;
 
-    // the validation errors for this entity (most errors are attached to individual items; to gather all errors for an entity, use the getAllValidationErrors() method)
+    // the validation errors for this entity (most errors are attached to individual items; to gather all errors for an entity, use the getAllValidationErrors() method); null until the first error is added
     protected List<NaaccrValidationError> _errors;
 
     // the starting line number (start tag) for this entity; available only when reading from a file
@@ -39,16 +45,60 @@ public class AbstractEntity {
     // the extension objects
     protected List<Object> _extensions;
 
-    // caches to improve lookup performances
+    // caches to improve lookup performances (null until the first regular item is added)
     protected Map<String, Item> _cachedById;
 
+    // the index used to store the item values in slots; null if the items are stored as regular Item objects
+    protected ItemSlotIndex _slotIndex;
+
+    // the item values, indexed by slot (compact storage only)
+    protected String[] _slotValues;
+
+    // the slots, in the order the items were added (compact storage only)
+    protected int[] _addedSlots;
+
+    // the item line numbers, in the order the items were added, 0 meaning no line number (compact storage only, allocated only if a line number is provided)
+    protected int[] _addedLineNumbers;
+
+    // the number of slots that have been added (compact storage only)
+    protected int _numAddedSlots;
+
+    // the number of items that had a validation error when they were added to this entity
+    protected int _numItemsValidationErrors;
+
     /**
      * Default constructor.
+     * <br/><br/>
+     * The collections holding the items and the errors are only created when needed, so an entity using a compact storage never creates them.
      */
     public AbstractEntity() {
-        _items = new ArrayList<>();
-        _errors = new ArrayList<>();
-        _cachedById = new HashMap<>();
+        // nothing to do
+    }
+
+    /**
+     * Requests the items of this entity to be stored in a compact way, using the slots of the provided index.
+     * <br/><br/>
+     * Only the values (and line numbers) of the items are kept; items that are not part of the index, or that have a validation error, are stored
+     * as regular items, which switches the entity back to the regular storage. Requesting the Item objects (with getItems() or getItem())
+     * also switches the entity back to the regular storage. This method must be called before any item is added to the entity.
+     * @param index slot index to use, typically the one from the runtime dictionary
+     */
+    public void useCompactItemStorage(ItemSlotIndex index) {
+        if ((_items != null && !_items.isEmpty()) || _numAddedSlots > 0)
+            throw new IllegalStateException("Compact storage must be requested before any item is added");
+        _slotIndex = index;
+        _slotValues = new String[index.getNumSlots()];
+        _addedSlots = new int[8];
+        _addedLineNumbers = null;
+        _numAddedSlots = 0;
+    }
+
+    /**
+     * Returns true if the items of this entity are currently stored in a compact way.
+     * @return true if the items are stored in a compact way
+     */
+    public boolean isUsingCompactItemStorage() {
+        return _slotIndex != null;
     }
 
     /**
@@ -59,7 +109,9 @@ public class AbstractEntity {
      * @return the list of items that are contained in this entity
      */
     public List<Item> getItems() {
-        return Collections.unmodifiableList(_items);
+        if (_slotIndex != null)
+            inflateItems();
+        return _items == null ? Collections.emptyList() : Collections.unmodifiableList(_items);
     }
 
     /**
@@ -70,11 +122,34 @@ public class AbstractEntity {
      * @param item item to add, cannot be null
      */
     public void addItem(Item item) {
+        if (_slotIndex != null) {
+            if (item.getValidationError() == null && addSlotValue(item.getNaaccrId(), item.getNaaccrNum(), item.getValue(), item.getStartLineNumber()))
+                return;
+            inflateItems();
+        }
+
+        if (_items == null)
+            createItemCollections(8);
+
         // it is important to keep the cache in the same state as the items and so item two identical items has to trigger an exception
         if (_cachedById.containsKey(item.getNaaccrId()))
             throw new DuplicateItemException(item.getNaaccrId(), "Duplicate item ID found for '" + item.getNaaccrId() + "'");
         _items.add(item);
         _cachedById.put(item.getNaaccrId(), item);
+        if (item.getValidationError() != null)
+            _numItemsValidationErrors++;
+    }
+
+    /**
+     * Adds an item to this entity; this is equivalent to adding a new Item object, but it doesn't create such object if the entity uses a compact storage.
+     * @param naaccrId NAACCR ID of the item to add
+     * @param naaccrNum NAACCR Number of the item to add
+     * @param value value of the item to add
+     * @param lineNumber line number of the item to add
+     */
+    public void addItem(String naaccrId, Integer naaccrNum, String value, Integer lineNumber) {
+        if (_slotIndex == null || !addSlotValue(naaccrId, naaccrNum, value, lineNumber))
+            addItem(new Item(naaccrId, naaccrNum, value, lineNumber));
     }
 
     /**
@@ -95,6 +170,11 @@ public class AbstractEntity {
         if (item == null || item.getNaaccrId() == null)
             return false;
 
+        if (_slotIndex != null)
+            inflateItems();
+        if (_items == null)
+            return false;
+
         // there is no equality defined on Item (one might argue this is wrong), and so we have to iterate over them and find the item by index...
         int idx = -1;
         for (int i = 0; i < _items.size(); i++) {
@@ -105,7 +185,8 @@ public class AbstractEntity {
         }
 
         if (idx != -1) {
-            _items.remove(idx);
+            if (_items.remove(idx).getValidationError() != null && _numItemsValidationErrors > 0)
+                _numItemsValidationErrors--;
             _cachedById.remove(item.getNaaccrId());
             return true;
         }
@@ -122,7 +203,12 @@ public class AbstractEntity {
      * @return the corresponding item, sometimes null
      */
     public Item getItem(String id) {
-        return _cachedById.get(id);
+        if (_slotIndex != null) {
+            if (getItemValue(id) == null)
+                return null;
+            inflateItems();
+        }
+        return _cachedById == null ? null : _cachedById.get(id);
     }
 
     /**
@@ -131,7 +217,11 @@ public class AbstractEntity {
      * @return the value of the corresponding item, sometimes null
      */
     public String getItemValue(String id) {
-        Item item = getItem(id);
+        if (_slotIndex != null) {
+            int slot = _slotIndex.getSlot(id);
+            return slot == -1 ? null : _slotValues[slot];
+        }
+        Item item = _cachedById == null ? null : _cachedById.get(id);
         if (item != null)
             return item.getValue();
         return null;
@@ -142,7 +232,51 @@ public class AbstractEntity {
      * @return collection of validation error, maybe empty but never null
      */
     public List<NaaccrValidationError> getValidationErrors() {
-        return Collections.unmodifiableList(_errors);
+        return _errors == null ? Collections.emptyList() : Collections.unmodifiableList(_errors);
+    }
+
+    /**
+     * Returns the validation errors attached to the items of the current entity.
+     * @return collection of validation error, maybe empty but never null
+     */
+    protected List<NaaccrValidationError> getItemsValidationErrors() {
+        List<NaaccrValidationError> results = new ArrayList<>();
+
+        // items with a validation error are never stored in a compact way
+        if (_items != null)
+            for (Item item : _items)
+                if (item.getValidationError() != null)
+                    results.add(item.getValidationError());
+
+        return results;
+    }
+
+    /**
+     * Returns true if the current entity or any of its items has a validation error; unlike getting the errors, this doesn't create any list.
+     * @return true if the entity or one of its items has a validation error
+     */
+    protected boolean hasEntityOrItemsValidationErrors() {
+        if (_errors != null && !_errors.isEmpty())
+            return true;
+
+        // items with a validation error are never stored in a compact way
+        if (_items != null)
+            for (Item item : _items)
+                if (item.getValidationError() != null)
+                    return true;
+
+        return false;
+    }
+
+    /**
+     * Returns the number of validation errors of the current entity, including the errors of its items (for a patient entity, the errors of the tumors
+     * are NOT included); this is used to enforce the maximum number of errors per entity when reading data.
+     * <br/><br/>
+     * The errors of the items are counted when the items are added to the entity; errors set on an item after it was added are not included.
+     * @return the number of validation errors
+     */
+    public int getNumValidationErrors() {
+        return (_errors == null ? 0 : _errors.size()) + _numItemsValidationErrors;
     }
 
     /**
@@ -150,6 +284,8 @@ public class AbstractEntity {
      * @param error error to add, cannot be null
      */
     public void addValidationError(NaaccrValidationError error) {
+        if (_errors == null)
+            _errors = new ArrayList<>();
         _errors.add(error);
     }
 
@@ -218,4 +354,61 @@ public class AbstractEntity {
             _extensions = new ArrayList<>();
         _extensions.add(extension);
     }
+
+    /**
+     * Stores the provided value in its slot.
+     * @return true if the value was stored, false if the item cannot be stored in a compact way
+     */
+    private boolean addSlotValue(String naaccrId, Integer naaccrNum, String value, Integer lineNumber) {
+        int slot = _slotIndex.getSlot(naaccrId);
+        if (slot == -1 || value == null || (lineNumber != null && lineNumber == 0) || !Objects.equals(naaccrNum, _slotIndex.getNaaccrNum(slot)))
+            return false;
+
+        if (_slotValues[slot] != null)
+            throw new DuplicateItemException(naaccrId, "Duplicate item ID found for '" + naaccrId + "'");
+        _slotValues[slot] = value;
+
+        if (_numAddedSlots == _addedSlots.length) {
+            _addedSlots = Arrays.copyOf(_addedSlots, _addedSlots.length * 2);
+            if (_addedLineNumbers != null)
+                _addedLineNumbers = Arrays.copyOf(_addedLineNumbers, _addedSlots.length);
+        }
+        if (lineNumber != null) {
+            if (_addedLineNumbers == null)
+                _addedLineNumbers = new int[_addedSlots.length];
+            _addedLineNumbers[_numAddedSlots] = lineNumber;
+        }
+        _addedSlots[_numAddedSlots++] = slot;
+
+        return true;
+    }
+
+    /**
+     * Creates the Item objects for the values stored in a compact way, and switches this entity back to the regular storage.
+     */
+    private void inflateItems() {
+        if (_items == null)
+            createItemCollections(Math.max(8, _numAddedSlots));
+        for (int i = 0; i < _numAddedSlots; i++) {
+            int slot = _addedSlots[i];
+            Integer lineNumber = _addedLineNumbers == null || _addedLineNumbers[i] == 0 ? null : _addedLineNumbers[i];
+            Item item = new Item(_slotIndex.getNaaccrId(slot), _slotIndex.getNaaccrNum(slot), _slotValues[slot], lineNumber);
+            _items.add(item);
+            _cachedById.put(item.getNaaccrId(), item);
+        }
+
+        _slotIndex = null;
+        _slotValues = null;
+        _addedSlots = null;
+        _addedLineNumbers = null;
+        _numAddedSlots = 0;
+    }
+
+    /**
+     * Creates the collections used by the regular storage of the items.
+     */
+    private void createItemCollections(int expectedSize) {
+        _items = new ArrayList<>(expectedSize);
+        _cachedById = new HashMap<>(expectedSize * 2);
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.entity;
+
+import java.util.List;
+
+/**
+ * An immutable index assigning a slot to each item ID; it is used by the entities using a compact storage for their items (see AbstractEntity.useCompactItemStorage()).
+ * <br/><br/>
+ * The index is meant to be shared by all the entities created from the same dictionary, see RuntimeNaaccrDictionary.getItemSlotIndex().
+ */
+public final class ItemSlotIndex {
+
+    // the NAACCR IDs, indexed by slot
+    private final String[] _naaccrIds;
+
+    // the NAACCR Numbers, indexed by slot
+    private final Integer[] _naaccrNums;
+
+    // open-addressing table (linear probing) giving the slot of each NAACCR ID without boxing: the IDs and their slots, at the position derived from the ID hash
+    private final String[] _tableIds;
+    private final int[] _tableSlots;
+
+    // the mask applied to the hashes (the table size is a power of two)
+    private final int _tableMask;
+
+    /**
+     * Constructor.
+     * @param naaccrIds the NAACCR IDs, the index of each ID in the list will be its slot
+     * @param naaccrNums the corresponding NAACCR Numbers (some of them might be null), must have the same size as the IDs
+     */
+    public ItemSlotIndex(List<String> naaccrIds, List<Integer> naaccrNums) {
+        if (naaccrIds.size() != naaccrNums.size())
+            throw new IllegalStateException("Number of IDs and Numbers must be the same");
+
+        _naaccrIds = naaccrIds.toArray(new String[0]);
+        _naaccrNums = naaccrNums.toArray(new Integer[0]);
+
+        // the table is kept at most half full so the probing sequences remain short
+        int size = 4;
+        while (size < _naaccrIds.length * 2)
+            size <<= 1;
+        _tableIds = new String[size];
+        _tableSlots = new int[size];
+        _tableMask = size - 1;
+        for (int i = 0; i < _naaccrIds.length; i++) {
+            int pos = hash(_naaccrIds[i]) & _tableMask;
+            while (_tableIds[pos] != null) {
+                if (_tableIds[pos].equals(_naaccrIds[i]))
+                    throw new IllegalStateException("Duplicate ID: " + _naaccrIds[i]);
+                pos = (pos + 1) & _tableMask;
+            }
+            _tableIds[pos] = _naaccrIds[i];
+            _tableSlots[pos] = i;
+        }
+    }
+
+    /**
+     * Returns the number of slots in this index.
+     * @return number of slots
+     */
+    public int getNumSlots() {
+        return _naaccrIds.length;
+    }
+
+    /**
+     * Returns the slot for the requested ID.
+     * @param naaccrId NAACCR ID
+     * @return the corresponding slot, -1 if the ID is not part of this index
+     */
+    public int getSlot(String naaccrId) {
+        if (naaccrId == null)
+            return -1;
+        int pos = hash(naaccrId) & _tableMask;
+        String id;
+        while ((id = _tableIds[pos]) != null) {
+            // the IDs usually come from the dictionary, so they are often the exact same instances
+            if (id == naaccrId || id.equals(naaccrId))
+                return _tableSlots[pos];
+            pos = (pos + 1) & _tableMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the NAACCR ID for the requested slot.
+     * @param slot slot
+     * @return the corresponding NAACCR ID
+     */
+    public String getNaaccrId(int slot) {
+        return _naaccrIds[slot];
+    }
+
+    /**
+     * Returns the NAACCR Number for the requested slot.
+     * @param slot slot
+     * @return the corresponding NAACCR Number, maybe null
+     */
+    public Integer getNaaccrNum(int slot) {
+        return _naaccrNums[slot];
+    }
+
+    // spreads the higher bits of the (cached) string hash, like HashMap does
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -6,7 +6,6 @@ package com.imsweb.naaccrxml.entity;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.imsweb.naaccrxml.NaaccrValidationError;
 
@@ -49,12 +48,26 @@ public class Patient extends AbstractEntity {
      */
     public List<NaaccrValidationError> getAllValidationErrors() {
         List<NaaccrValidationError> results = new ArrayList<>(getValidationErrors());
-        results.addAll(getItems().stream().filter(item -> item.getValidationError() != null).map(Item::getValidationError).collect(Collectors.toList()));
+        results.addAll(getItemsValidationErrors());
         for (Tumor tumor : getTumors())
             results.addAll(tumor.getAllValidationErrors());
         return results;
     }
 
+    /**
+     * Returns true if the patient, any of its items or any of its tumors has a validation error; this is the same as checking that
+     * getAllValidationErrors() is not empty, but it doesn't create any list.
+     * @return true if there is at least one validation error
+     */
+    public boolean hasAnyValidationErrors() {
+        if (hasEntityOrItemsValidationErrors())
+            return true;
+        for (Tumor tumor : _tumors)
+            if (tumor.hasAnyValidationErrors())
+                return true;
+        return false;
+    }
+
     /**
      * Adds the given tumor to this patient.
      */
@@ -5,7 +5,6 @@ package com.imsweb.naaccrxml.entity;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.imsweb.naaccrxml.NaaccrValidationError;
 
@@ -20,7 +19,16 @@ public class Tumor extends AbstractEntity {
      */
     public List<NaaccrValidationError> getAllValidationErrors() {
         List<NaaccrValidationError> results = new ArrayList<>(getValidationErrors());
-        results.addAll(getItems().stream().filter(item -> item.getValidationError() != null).map(Item::getValidationError).collect(Collectors.toList()));
+        results.addAll(getItemsValidationErrors());
         return results;
     }
+
+    /**
+     * Returns true if the tumor or any of its items has a validation error; this is the same as checking that getAllValidationErrors() is not empty,
+     * but it doesn't create any list.
+     * @return true if there is at least one validation error
+     */
+    public boolean hasAnyValidationErrors() {
+        return hasEntityOrItemsValidationErrors();
+    }
 }
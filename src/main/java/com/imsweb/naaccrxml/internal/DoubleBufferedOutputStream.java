@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An output stream writing its bytes to another stream using a background thread.
+ * <br/><br/>
+ * The bytes are accumulated into a chunk; once the chunk is full, it is handed to the background thread and the bytes are accumulated into a
+ * second chunk while the first one is written (double buffering). This is useful when the wrapped stream is expensive, like a GZIP stream: the
+ * compression happens on the background thread while the calling thread is producing the next bytes.
+ * <br/><br/>
+ * A failure of the wrapped stream is thrown by the next call to any method of this stream. Flushing this stream waits for all the bytes to be
+ * written; closing it also stops the background thread and closes the wrapped stream.
+ */
+public class DoubleBufferedOutputStream extends OutputStream {
+
+    /**
+     * The default size (in bytes) of each of the two chunks.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // marker for the end of the data
+    private static final Chunk _END_OF_DATA = new Chunk(new byte[0]);
+
+    private final OutputStream _out;
+
+    // the chunks to write (filled by the calling thread), and the chunks that can be filled (returned by the background thread)
+    private final BlockingQueue<Chunk> _toWrite;
+    private final BlockingQueue<Chunk> _free;
+
+    private final Thread _thread;
+
+    // the chunk being filled by the calling thread
+    private Chunk _current;
+
+    private volatile IOException _failure;
+
+    private boolean _closed;
+
+    /**
+     * Constructor; uses the default chunk size and starts the background thread.
+     * @param out required wrapped stream, written by the background thread and closed when this stream is closed
+     */
+    public DoubleBufferedOutputStream(OutputStream out) {
+        this(out, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor; starts the background thread.
+     * @param out required wrapped stream, written by the background thread and closed when this stream is closed
+     * @param chunkSize size (in bytes) of each of the two chunks, must be at least 1
+     */
+    public DoubleBufferedOutputStream(OutputStream out, int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalStateException("Chunk size must be at least 1");
+        _out = out;
+        _toWrite = new ArrayBlockingQueue<>(2);
+        _free = new ArrayBlockingQueue<>(2);
+        _current = new Chunk(new byte[chunkSize]);
+        _free.add(new Chunk(new byte[chunkSize]));
+        _thread = new Thread(this::writeChunks, "naaccr-xml-output-" + _THREAD_COUNTER.incrementAndGet());
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (_current._count == _current._bytes.length)
+            handOff();
+        _current._bytes[_current._count++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (_current._count == _current._bytes.length)
+                handOff();
+            int n = Math.min(len, _current._bytes.length - _current._count);
+            System.arraycopy(b, off, _current._bytes, _current._count, n);
+            _current._count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (_current._count > 0)
+            handOff();
+
+        // once both chunks are free, the background thread is idle and the wrapped stream can be used by this thread
+        Chunk other = take(_free);
+        checkFailure();
+        _out.flush();
+        _free.add(other);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_closed)
+            return;
+
+        IOException failure = null;
+        try {
+            flush();
+        }
+        catch (IOException e) {
+            failure = e;
+        }
+        _closed = true;
+
+        // stop the background thread (this preserves the interrupted status of the calling thread)
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                _toWrite.put(_END_OF_DATA);
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (_thread.isAlive()) {
+            try {
+                _thread.join();
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        try {
+            _out.close();
+        }
+        catch (IOException e) {
+            if (failure == null)
+                failure = e;
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Hands the current chunk to the background thread and waits for the other one to be free.
+     */
+    private void handOff() throws IOException {
+        put(_current);
+        _current = take(_free);
+        checkFailure();
+    }
+
+    /**
+     * Writes the chunks; this is executed by the background thread.
+     */
+    private void writeChunks() {
+        try {
+            Chunk chunk = _toWrite.take();
+            while (chunk != _END_OF_DATA) {
+                // once the wrapped stream failed, the remaining chunks are discarded
+                if (_failure == null) {
+                    try {
+                        _out.write(chunk._bytes, 0, chunk._count);
+                    }
+                    catch (IOException e) {
+                        _failure = e;
+                    }
+                    catch (RuntimeException e) {
+                        _failure = new IOException(e);
+                    }
+                }
+                chunk._count = 0;
+                _free.put(chunk);
+                chunk = _toWrite.take();
+            }
+        }
+        catch (InterruptedException e) {
+            // the background thread is never interrupted by this class, nothing else to do
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (_closed)
+            throw new IOException("Stream closed");
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (_failure != null)
+            throw _failure;
+    }
+
+    private void put(Chunk chunk) throws IOException {
+        try {
+            _toWrite.put(chunk);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the data");
+        }
+    }
+
+    private static Chunk take(BlockingQueue<Chunk> queue) throws IOException {
+        try {
+            return queue.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the data");
+        }
+    }
+
+    // a chunk of bytes
+    private static final class Chunk {
+
+        private final byte[] _bytes;
+
+        private int _count;
+
+        private Chunk(byte[] bytes) {
+            _bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+/**
+ * Sanitizes the item values before they are written, in a single pass over the characters.
+ * <br/><br/>
+ * The new lines (CRLF, CR and LF) are replaced by a given character and the non-printable control characters (the first 32 ASCII characters
+ * except TAB, CR and LF, and the DEL character) are kept, removed or rejected. Most values don't contain any of those characters; in that case the
+ * provided value is returned as-is, without allocating anything.
+ */
+public final class ItemValueSanitizer {
+
+    /**
+     * The control characters are left untouched.
+     */
+    public static final int CONTROL_CHARACTERS_KEEP = 0;
+
+    /**
+     * The control characters are removed.
+     */
+    public static final int CONTROL_CHARACTERS_REMOVE = 1;
+
+    /**
+     * The control characters are rejected (the sanitizing returns null).
+     */
+    public static final int CONTROL_CHARACTERS_REJECT = 2;
+
+    private ItemValueSanitizer() {
+        // no instances for this class
+    }
+
+    /**
+     * Sanitizes the provided value.
+     * @param value value to sanitize, cannot be null
+     * @param newLineReplacement the character replacing each new line (CRLF, CR or LF)
+     * @param controlCharacters how to handle the control characters, one of the CONTROL_CHARACTERS_XXX constants
+     * @return the sanitized value (the same instance if nothing had to be changed), null if the value contains control characters that have to be rejected
+     */
+    public static String sanitize(String value, char newLineReplacement, int controlCharacters) {
+        int length = value.length();
+
+        // first, look for a character that requires the value to be changed
+        int idx = 0;
+        while (idx < length) {
+            char c = value.charAt(idx);
+            if (c < ' ' || c == 0x7F) {
+                if (c == '\r' || (c == '\n' && newLineReplacement != '\n'))
+                    break;
+                if (isControlCharacter(c)) {
+                    if (controlCharacters == CONTROL_CHARACTERS_REJECT)
+                        return null;
+                    if (controlCharacters == CONTROL_CHARACTERS_REMOVE)
+                        break;
+                }
+            }
+            idx++;
+        }
+        if (idx == length)
+            return value;
+
+        // then create the new value from that point, copying the unchanged characters by chunks
+        StringBuilder buf = new StringBuilder(length);
+        int start = 0;
+        for (; idx < length; idx++) {
+            char c = value.charAt(idx);
+            if (c >= ' ' && c != 0x7F)
+                continue;
+            if (c == '\r') {
+                buf.append(value, start, idx).append(newLineReplacement);
+                if (idx + 1 < length && value.charAt(idx + 1) == '\n')
+                    idx++;
+                start = idx + 1;
+            }
+            else if (c == '\n') {
+                buf.append(value, start, idx).append(newLineReplacement);
+                start = idx + 1;
+            }
+            else if (isControlCharacter(c)) {
+                if (controlCharacters == CONTROL_CHARACTERS_REJECT)
+                    return null;
+                if (controlCharacters == CONTROL_CHARACTERS_REMOVE) {
+                    buf.append(value, start, idx);
+                    start = idx + 1;
+                }
+            }
+        }
+        buf.append(value, start, length);
+
+        return buf.toString();
+    }
+
+    /**
+     * Returns true if the provided character is a non-printable control character.
+     * @param c character
+     * @return true if the character is a non-printable control character
+     */
+    public static boolean isControlCharacter(char c) {
+        return c <= 0x08 || c == 0x0B || c == 0x0C || (c >= 0x0E && c <= 0x1F) || c == 0x7F;
+    }
+}
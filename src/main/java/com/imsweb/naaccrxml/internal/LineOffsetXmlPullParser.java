@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * A pull parser delegating all its calls to another parser, but shifting the reported line numbers by a given offset.
+ * <br/><br/>
+ * This is used when only a portion of a file is parsed, so the line numbers are still reported relatively to the full file.
+ */
+public class LineOffsetXmlPullParser implements XmlPullParser {
+
+    private final XmlPullParser _parser;
+
+    private int _lineOffset;
+
+    public LineOffsetXmlPullParser(XmlPullParser parser) {
+        _parser = parser;
+    }
+
+    public int getLineOffset() {
+        return _lineOffset;
+    }
+
+    public void setLineOffset(int lineOffset) {
+        _lineOffset = lineOffset;
+    }
+
+    @Override
+    public int getLineNumber() {
+        int line = _parser.getLineNumber();
+        return line == -1 ? -1 : line + _lineOffset;
+    }
+
+    @Override
+    public String getPositionDescription() {
+        return _parser.getPositionDescription();
+    }
+
+    @Override
+    public void setFeature(String name, boolean state) throws XmlPullParserException {
+        _parser.setFeature(name, state);
+    }
+
+    @Override
+    public boolean getFeature(String name) {
+        return _parser.getFeature(name);
+    }
+
+    @Override
+    public void setProperty(String name, Object value) throws XmlPullParserException {
+        _parser.setProperty(name, value);
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return _parser.getProperty(name);
+    }
+
+    @Override
+    public void setInput(Reader in) throws XmlPullParserException {
+        _parser.setInput(in);
+    }
+
+    @Override
+    public void setInput(InputStream inputStream, String inputEncoding) throws XmlPullParserException {
+        _parser.setInput(inputStream, inputEncoding);
+    }
+
+    @Override
+    public String getInputEncoding() {
+        return _parser.getInputEncoding();
+    }
+
+    @Override
+    public void defineEntityReplacementText(String entityName, String replacementText) throws XmlPullParserException {
+        _parser.defineEntityReplacementText(entityName, replacementText);
+    }
+
+    @Override
+    public int getNamespaceCount(int depth) throws XmlPullParserException {
+        return _parser.getNamespaceCount(depth);
+    }
+
+    @Override
+    public String getNamespacePrefix(int pos) throws XmlPullParserException {
+        return _parser.getNamespacePrefix(pos);
+    }
+
+    @Override
+    public String getNamespaceUri(int pos) throws XmlPullParserException {
+        return _parser.getNamespaceUri(pos);
+    }
+
+    @Override
+    public String getNamespace(String prefix) {
+        return _parser.getNamespace(prefix);
+    }
+
+    @Override
+    public int getDepth() {
+        return _parser.getDepth();
+    }
+
+    @Override
+    public int getColumnNumber() {
+        return _parser.getColumnNumber();
+    }
+
+    @Override
+    public boolean isWhitespace() throws XmlPullParserException {
+        return _parser.isWhitespace();
+    }
+
+    @Override
+    public String getText() {
+        return _parser.getText();
+    }
+
+    @Override
+    public char[] getTextCharacters(int[] holderForStartAndLength) {
+        return _parser.getTextCharacters(holderForStartAndLength);
+    }
+
+    @Override
+    public String getNamespace() {
+        return _parser.getNamespace();
+    }
+
+    @Override
+    public String getName() {
+        return _parser.getName();
+    }
+
+    @Override
+    public String getPrefix() {
+        return _parser.getPrefix();
+    }
+
+    @Override
+    public boolean isEmptyElementTag() throws XmlPullParserException {
+        return _parser.isEmptyElementTag();
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return _parser.getAttributeCount();
+    }
+
+    @Override
+    public String getAttributeNamespace(int index) {
+        return _parser.getAttributeNamespace(index);
+    }
+
+    @Override
+    public String getAttributeName(int index) {
+        return _parser.getAttributeName(index);
+    }
+
+    @Override
+    public String getAttributePrefix(int index) {
+        return _parser.getAttributePrefix(index);
+    }
+
+    @Override
+    public String getAttributeType(int index) {
+        return _parser.getAttributeType(index);
+    }
+
+    @Override
+    public boolean isAttributeDefault(int index) {
+        return _parser.isAttributeDefault(index);
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        return _parser.getAttributeValue(index);
+    }
+
+    @Override
+    public String getAttributeValue(String namespace, String name) {
+        return _parser.getAttributeValue(namespace, name);
+    }
+
+    @Override
+    public int getEventType() throws XmlPullParserException {
+        return _parser.getEventType();
+    }
+
+    @Override
+    public int next() throws XmlPullParserException, IOException {
+        return _parser.next();
+    }
+
+    @Override
+    public int nextToken() throws XmlPullParserException, IOException {
+        return _parser.nextToken();
+    }
+
+    @Override
+    public void require(int type, String namespace, String name) throws XmlPullParserException, IOException {
+        _parser.require(type, namespace, name);
+    }
+
+    @Override
+    public String nextText() throws XmlPullParserException, IOException {
+        return _parser.nextText();
+    }
+
+    @Override
+    public int nextTag() throws XmlPullParserException, IOException {
+        return _parser.nextTag();
+    }
+}
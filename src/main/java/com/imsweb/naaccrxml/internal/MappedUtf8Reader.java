@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A reader decoding UTF-8 bytes directly from a memory-mapped file.
+ * <br/><br/>
+ * The bytes are consumed straight from the mapped buffer, without any intermediate byte array nor charset decoder; ASCII bytes (which represent
+ * almost all the content of a NAACCR XML file) are copied as-is, and only the non-ASCII sequences are actually decoded. Large files are mapped
+ * one window at a time. Malformed sequences are replaced by the U+FFFD character, like the standard UTF-8 decoder does.
+ */
+public class MappedUtf8Reader extends Reader {
+
+    public static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final char _REPLACEMENT_CHAR = '\uFFFD';
+
+    private final FileChannel _channel;
+
+    private final long _size;
+
+    private final long _windowSize;
+
+    private MappedByteBuffer _buffer;
+
+    private long _windowEnd;
+
+    // low surrogate that couldn't be returned by the previous read operation (-1 if none)
+    private int _pendingChar = -1;
+
+    public MappedUtf8Reader(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedUtf8Reader(FileChannel channel, long windowSize) throws IOException {
+        _channel = channel;
+        _size = channel.size();
+        _windowSize = windowSize;
+        mapNextWindow();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (_buffer == null)
+            throw new IOException("Stream closed");
+        if (len == 0)
+            return 0;
+
+        int n = 0;
+        if (_pendingChar != -1) {
+            cbuf[off + n++] = (char)_pendingChar;
+            _pendingChar = -1;
+        }
+
+        MappedByteBuffer buffer = _buffer;
+        while (n < len) {
+            if (!buffer.hasRemaining()) {
+                if (!mapNextWindow())
+                    break;
+                buffer = _buffer;
+            }
+
+            // fast path for ASCII bytes
+            int limit = Math.min(buffer.remaining(), len - n);
+            int b = 0;
+            int i = 0;
+            while (i < limit && (b = buffer.get()) >= 0) {
+                cbuf[off + n++] = (char)b;
+                i++;
+            }
+            if (i == limit)
+                continue;
+
+            int codePoint = decode(b & 0xFF);
+            buffer = _buffer;
+            if (codePoint > 0xFFFF) {
+                cbuf[off + n++] = Character.highSurrogate(codePoint);
+                if (n < len)
+                    cbuf[off + n++] = Character.lowSurrogate(codePoint);
+                else
+                    _pendingChar = Character.lowSurrogate(codePoint);
+            }
+            else
+                cbuf[off + n++] = (char)codePoint;
+        }
+
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _buffer = null;
+        _channel.close();
+    }
+
+    // decodes a multi-byte sequence starting with the given (already consumed) byte
+    private int decode(int first) throws IOException {
+        int length;
+        int codePoint;
+        int min;
+        if ((first & 0xE0) == 0xC0) {
+            length = 2;
+            codePoint = first & 0x1F;
+            min = 0x80;
+        }
+        else if ((first & 0xF0) == 0xE0) {
+            length = 3;
+            codePoint = first & 0x0F;
+            min = 0x800;
+        }
+        else if ((first & 0xF8) == 0xF0) {
+            length = 4;
+            codePoint = first & 0x07;
+            min = 0x10000;
+        }
+        else
+            return _REPLACEMENT_CHAR;
+
+        for (int i = 1; i < length; i++) {
+            int next = peek();
+            if (next == -1 || (next & 0xC0) != 0x80)
+                return _REPLACEMENT_CHAR;
+            _buffer.get();
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE))
+            return _REPLACEMENT_CHAR;
+
+        return codePoint;
+    }
+
+    // returns the next byte without consuming it, -1 if the end of the file has been reached
+    private int peek() throws IOException {
+        if (!_buffer.hasRemaining() && !mapNextWindow())
+            return -1;
+        return _buffer.get(_buffer.position()) & 0xFF;
+    }
+
+    private boolean mapNextWindow() throws IOException {
+        if (_windowEnd >= _size && _buffer != null)
+            return false;
+        long start = _windowEnd;
+        _windowEnd = Math.min(_size, start + _windowSize);
+        _buffer = _channel.map(FileChannel.MapMode.READ_ONLY, start, _windowEnd - start);
+        return _buffer.hasRemaining();
+    }
+}
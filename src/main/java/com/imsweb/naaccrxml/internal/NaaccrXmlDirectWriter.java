@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import com.thoughtworks.xstream.io.StreamException;
+
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+
+/**
+ * A writer producing exactly the same output as its parent, but writing directly into a reusable buffer instead of going through the XStream quick writer.
+ * <br/><br/>
+ * The parent keeps its formatting state private, so this class re-implements the whole pretty-printing logic (indentation, empty tags, escaping) and
+ * never delegates to it. On top of the regular node-based methods (which are still used for the root data and the extensions), it provides a
+ * method writing an entire item from a pre-computed start tag (see createItemStartTag()).
+ */
+public class NaaccrXmlDirectWriter extends NaaccrXmlPrettyPrintWriter {
+
+    private static final int _BUFFER_SIZE = 8192;
+
+    private static final int _INITIAL_DEPTH = 16;
+
+    private static final char[] _INDENTATION = {' ', ' ', ' ', ' '};
+
+    // the hard-coded indentation used after an attribute written on its own line (see NaaccrXmlPrettyPrintWriter)
+    private static final char[] _ATTRIBUTE_INDENTATION = "           ".toCharArray();
+
+    private static final char[] _ITEM_END_TAG = ("</" + NaaccrXmlUtils.NAACCR_XML_TAG_ITEM + ">").toCharArray();
+
+    private static final char[] _NULL = "&#x0;".toCharArray();
+    private static final char[] _AMP = "&amp;".toCharArray();
+    private static final char[] _LT = "&lt;".toCharArray();
+    private static final char[] _GT = "&gt;".toCharArray();
+    private static final char[] _CR = "&#xd;".toCharArray();
+    private static final char[] _QUOT = "&quot;".toCharArray();
+    private static final char[] _APOS = "&apos;".toCharArray();
+
+    private final Writer _out;
+
+    private final char[] _newLineChars;
+
+    // the reusable buffer, written to the underlying writer when full
+    private final char[] _buffer;
+
+    private int _bufferSize;
+
+    // the encoded names of the open tags, by depth
+    private String[] _openTags = new String[_INITIAL_DEPTH];
+
+    // the formatting state (same semantic as in the XStream pretty print writer)
+    private int _depth;
+    private boolean _tagInProgress;
+    private boolean _readyForNewLine;
+    private boolean _tagIsEmpty;
+
+    public NaaccrXmlDirectWriter(Writer writer, String newLine) {
+        this(writer, newLine, _BUFFER_SIZE);
+    }
+
+    private NaaccrXmlDirectWriter(Writer writer, String newLine, int bufferSize) {
+        super(writer, newLine);
+        _out = writer;
+        _newLineChars = newLine.toCharArray();
+        _buffer = new char[bufferSize];
+    }
+
+    /**
+     * Creates the start tag of an item (including the closing bracket), to be used with writeItem().
+     * @param naaccrId NAACCR ID, required
+     * @param naaccrNum NAACCR Number, if null, the attribute won't be written
+     * @return the start tag
+     */
+    public static char[] createItemStartTag(String naaccrId, Integer naaccrNum) {
+        CharArrayWriter out = new CharArrayWriter(64);
+        NaaccrXmlDirectWriter writer = new NaaccrXmlDirectWriter(out, "\n", 64);
+        writer.startNode(NaaccrXmlUtils.NAACCR_XML_TAG_ITEM);
+        writer.addAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_ID, naaccrId);
+        if (naaccrNum != null)
+            writer.addAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_NUM, naaccrNum.toString());
+        writer.setValue("");
+        writer.flushBuffer();
+        return out.toCharArray();
+    }
+
+    /**
+     * Writes an entire item; this is equivalent to starting an item node, adding its attributes, setting its value and ending the node.
+     * @param startTag the start tag of the item (see createItemStartTag())
+     * @param value the value, cannot be null
+     */
+    public void writeItem(char[] startTag, String value) {
+        finishTag();
+        write(startTag);
+        writeText(value, false);
+        write(_ITEM_END_TAG);
+        _readyForNewLine = true;
+    }
+
+    @Override
+    public void startNode(String name) {
+        String encodedName = encodeNode(name);
+        _tagIsEmpty = false;
+        finishTag();
+        write('<');
+        write(encodedName);
+        if (_depth == _openTags.length) {
+            String[] openTags = new String[_depth * 2];
+            System.arraycopy(_openTags, 0, openTags, 0, _depth);
+            _openTags = openTags;
+        }
+        _openTags[_depth++] = encodedName;
+        _tagInProgress = true;
+        _readyForNewLine = true;
+        _tagIsEmpty = true;
+    }
+
+    @Override
+    public void startNode(String name, Class clazz) {
+        startNode(name);
+    }
+
+    @Override
+    public void addAttribute(String key, String value) {
+        write(' ');
+        write(encodeAttribute(key));
+        write('=');
+        write('"');
+        writeText(value, true);
+        write('"');
+    }
+
+    @Override
+    public void addAttributeWithNewLine(String key, String value) {
+        addAttribute(key, value);
+        write(_newLineChars);
+        write(_ATTRIBUTE_INDENTATION);
+    }
+
+    @Override
+    public void setValue(String text) {
+        _readyForNewLine = false;
+        _tagIsEmpty = false;
+        finishTag();
+        writeText(text, false);
+    }
+
+    @Override
+    public void endNode() {
+        _depth--;
+        if (_tagIsEmpty) {
+            write('/');
+            _readyForNewLine = false;
+            finishTag();
+        }
+        else {
+            finishTag();
+            write('<');
+            write('/');
+            write(_openTags[_depth]);
+            write('>');
+        }
+        _openTags[_depth] = null;
+        _readyForNewLine = true;
+        if (_depth == 0)
+            flush();
+    }
+
+    @Override
+    public void flush() {
+        flushBuffer();
+        try {
+            _out.flush();
+        }
+        catch (IOException e) {
+            throw new StreamException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flushBuffer();
+        try {
+            _out.close();
+        }
+        catch (IOException e) {
+            throw new StreamException(e);
+        }
+    }
+
+    private void finishTag() {
+        if (_tagInProgress)
+            write('>');
+        _tagInProgress = false;
+        if (_readyForNewLine) {
+            write(_newLineChars);
+            for (int i = 0; i < _depth; i++)
+                write(_INDENTATION);
+        }
+        _readyForNewLine = false;
+        _tagIsEmpty = false;
+    }
+
+    private void writeText(String text, boolean isAttribute) {
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            // most characters are printable ASCII characters that don't require any escaping; those are copied by chunks
+            if (c >= ' ' && c < 0x7F && c != '&' && c != '<' && c != '>' && c != '"' && c != '\'')
+                continue;
+
+            write(text, start, i);
+            start = i + 1;
+            switch (c) {
+                case '\0' -> write(_NULL);
+                case '&' -> write(_AMP);
+                case '<' -> write(_LT);
+                case '>' -> write(_GT);
+                case '"' -> write(_QUOT);
+                case '\'' -> write(_APOS);
+                case '\r' -> write(_CR);
+                default -> {
+                    if ((c == '\t' || c == '\n') && !isAttribute)
+                        write(c);
+                    else if (Character.isDefined(c) && !Character.isISOControl(c))
+                        write(c);
+                    else {
+                        write("&#x");
+                        write(Integer.toHexString(c));
+                        write(';');
+                    }
+                }
+            }
+        }
+        write(text, start, length);
+    }
+
+    private void write(char c) {
+        if (_bufferSize == _buffer.length)
+            flushBuffer();
+        _buffer[_bufferSize++] = c;
+    }
+
+    private void write(char[] chars) {
+        if (_bufferSize + chars.length > _buffer.length) {
+            flushBuffer();
+            if (chars.length > _buffer.length) {
+                writeToOutput(chars, 0, chars.length);
+                return;
+            }
+        }
+        System.arraycopy(chars, 0, _buffer, _bufferSize, chars.length);
+        _bufferSize += chars.length;
+    }
+
+    private void write(String str) {
+        write(str, 0, str.length());
+    }
+
+    private void write(String str, int start, int end) {
+        while (start < end) {
+            if (_bufferSize == _buffer.length)
+                flushBuffer();
+            int count = Math.min(end - start, _buffer.length - _bufferSize);
+            str.getChars(start, start + count, _buffer, _bufferSize);
+            _bufferSize += count;
+            start += count;
+        }
+    }
+
+    private void flushBuffer() {
+        if (_bufferSize > 0) {
+            writeToOutput(_buffer, 0, _bufferSize);
+            _bufferSize = 0;
+        }
+    }
+
+    private void writeToOutput(char[] chars, int offset, int length) {
+        try {
+            _out.write(chars, offset, length);
+        }
+        catch (IOException e) {
+            throw new StreamException(e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.thoughtworks.xstream.converters.ErrorWriter;
+import com.thoughtworks.xstream.io.AbstractReader;
+import com.thoughtworks.xstream.io.StreamException;
+import com.thoughtworks.xstream.io.naming.NameCoder;
+import com.thoughtworks.xstream.io.xml.XmlFriendlyNameCoder;
+
+/**
+ * A lightweight reader driving the pull parser directly; it replicates the navigation semantic of the XStream XppReader (including the reported line numbers)
+ * but doesn't create any intermediate event object, and it keeps track of the current path without relying on the XStream path tracker.
+ */
+public class NaaccrXmlPullReader extends AbstractReader {
+
+    private static final int _INITIAL_DEPTH = 16;
+
+    private final XmlPullParser _parser;
+
+    private final Reader _reader;
+
+    // event type (START_TAG, END_TAG or END_DOCUMENT) that was read by the parser but not consumed yet, -1 if there is no such event
+    private int _pendingEvent = -1;
+
+    // current depth (the root tag is at depth 1)
+    private int _depth;
+
+    // decoded name of the open tags, by depth
+    private String[] _names = new String[_INITIAL_DEPTH];
+
+    // index of the open tags among the siblings of the same name, by depth
+    private int[] _indexes = new int[_INITIAL_DEPTH];
+
+    // names and counts of the children seen so far for each open tag, by depth of the children
+    private String[][] _childrenNames = new String[_INITIAL_DEPTH][];
+    private int[][] _childrenCounts = new int[_INITIAL_DEPTH][];
+    private int[] _childrenSizes = new int[_INITIAL_DEPTH];
+
+    public NaaccrXmlPullReader(Reader reader, XmlPullParser parser) {
+        this(reader, parser, new XmlFriendlyNameCoder());
+    }
+
+    public NaaccrXmlPullReader(Reader reader, XmlPullParser parser, NameCoder nameCoder) {
+        super(nameCoder);
+        _parser = parser;
+        _reader = reader;
+        try {
+            _parser.setInput(_reader);
+        }
+        catch (XmlPullParserException e) {
+            throw new StreamException(e);
+        }
+        moveDown();
+    }
+
+    public XmlPullParser getParser() {
+        return _parser;
+    }
+
+    public int getDepth() {
+        return _depth;
+    }
+
+    /**
+     * Returns the path of the current tag, starting at the given depth (using the same format as the XStream path tracker).
+     */
+    public String getPath(int fromDepth) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = fromDepth; i <= _depth; i++) {
+            buf.append('/').append(_names[i]);
+            if (i > fromDepth && _indexes[i] > 1)
+                buf.append('[').append(_indexes[i]).append(']');
+        }
+        return buf.toString();
+    }
+
+    @Override
+    public boolean hasMoreChildren() {
+        return peekTag() == XmlPullParser.START_TAG;
+    }
+
+    @Override
+    public void moveDown() {
+        if (nextTag() != XmlPullParser.START_TAG)
+            throw new StreamException("unexpected end of element " + getNodeName());
+        push(decodeNode(_parser.getName()));
+    }
+
+    @Override
+    public void moveUp() {
+        int currentDepth = _depth;
+        while (_depth >= currentDepth) {
+            int event = nextTag();
+            if (event == XmlPullParser.START_TAG)
+                push(decodeNode(_parser.getName()));
+            else if (event == XmlPullParser.END_TAG)
+                _depth--;
+            else
+                throw new StreamException("unexpected end of document");
+        }
+    }
+
+    @Override
+    public String getNodeName() {
+        return _names[_depth];
+    }
+
+    @Override
+    public String getValue() {
+        if (_pendingEvent != -1)
+            return "";
+
+        String value = null;
+        StringBuilder buf = null;
+        try {
+            int event = _parser.next();
+            while (event != XmlPullParser.START_TAG && event != XmlPullParser.END_TAG && event != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.TEXT) {
+                    String text = _parser.getText();
+                    if (value == null)
+                        value = text;
+                    else {
+                        if (buf == null)
+                            buf = new StringBuilder(value);
+                        buf.append(text);
+                    }
+                }
+                event = _parser.next();
+            }
+            _pendingEvent = event;
+        }
+        catch (XmlPullParserException | IOException e) {
+            throw new StreamException(e);
+        }
+
+        if (buf != null)
+            return buf.toString();
+        return value == null ? "" : value;
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        return _parser.getAttributeValue(null, encodeAttribute(name));
+    }
+
+    @Override
+    public String getAttribute(int index) {
+        return _parser.getAttributeValue(index);
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return _parser.getAttributeCount();
+    }
+
+    @Override
+    public String getAttributeName(int index) {
+        return decodeAttribute(_parser.getAttributeName(index));
+    }
+
+    @Override
+    public Iterator<String> getAttributeNames() {
+        String[] names = new String[getAttributeCount()];
+        for (int i = 0; i < names.length; i++)
+            names[i] = getAttributeName(i);
+        return Arrays.asList(names).iterator();
+    }
+
+    @Override
+    public String peekNextChild() {
+        return peekTag() == XmlPullParser.START_TAG ? decodeNode(_parser.getName()) : null;
+    }
+
+    @Override
+    public void appendErrors(ErrorWriter errorWriter) {
+        errorWriter.add("line number", String.valueOf(_parser.getLineNumber()));
+    }
+
+    @Override
+    public void close() {
+        try {
+            _reader.close();
+        }
+        catch (IOException e) {
+            throw new StreamException(e);
+        }
+    }
+
+    // reads (without consuming it) the next event that is a start tag, an end tag or the end of the document
+    private int peekTag() {
+        if (_pendingEvent == -1) {
+            try {
+                int event = _parser.next();
+                while (event != XmlPullParser.START_TAG && event != XmlPullParser.END_TAG && event != XmlPullParser.END_DOCUMENT)
+                    event = _parser.next();
+                _pendingEvent = event;
+            }
+            catch (XmlPullParserException | IOException e) {
+                throw new StreamException(e);
+            }
+        }
+        return _pendingEvent;
+    }
+
+    // reads and consumes the next event that is a start tag, an end tag or the end of the document
+    private int nextTag() {
+        int event = peekTag();
+        _pendingEvent = -1;
+        return event;
+    }
+
+    private void push(String name) {
+        int depth = _depth + 1;
+        if (depth + 1 >= _names.length) {
+            int newLength = _names.length * 2;
+            _names = Arrays.copyOf(_names, newLength);
+            _indexes = Arrays.copyOf(_indexes, newLength);
+            _childrenNames = Arrays.copyOf(_childrenNames, newLength);
+            _childrenCounts = Arrays.copyOf(_childrenCounts, newLength);
+            _childrenSizes = Arrays.copyOf(_childrenSizes, newLength);
+        }
+
+        // compute the index of the new tag among its siblings of the same name
+        String[] siblingNames = _childrenNames[depth];
+        int[] siblingCounts = _childrenCounts[depth];
+        int size = _childrenSizes[depth];
+        int idx = 0;
+        while (idx < size && !siblingNames[idx].equals(name))
+            idx++;
+        if (idx == size) {
+            if (siblingNames == null) {
+                siblingNames = _childrenNames[depth] = new String[4];
+                siblingCounts = _childrenCounts[depth] = new int[4];
+            }
+            else if (size == siblingNames.length) {
+                siblingNames = _childrenNames[depth] = Arrays.copyOf(siblingNames, size * 2);
+                siblingCounts = _childrenCounts[depth] = Arrays.copyOf(siblingCounts, size * 2);
+            }
+            siblingNames[idx] = name;
+            siblingCounts[idx] = 0;
+            _childrenSizes[depth] = size + 1;
+        }
+
+        _depth = depth;
+        _names[depth] = name;
+        _indexes[depth] = ++siblingCounts[idx];
+        _childrenSizes[depth + 1] = 0;
+    }
+}
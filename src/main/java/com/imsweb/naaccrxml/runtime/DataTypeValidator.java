@@ -0,0 +1,21 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+/**
+ * Validates the values of a given NAACCR data type.
+ * <br/><br/>
+ * See DataTypeValidators for the validators of the standard data types, and RegexValidators for the validators compiled from the regular expressions
+ * of the dictionary items.
+ */
+@FunctionalInterface
+public interface DataTypeValidator {
+
+    /**
+     * Returns true if the given value is valid for the data type of this validator.
+     * @param value value to validate, cannot be null
+     * @return true if the value is valid, false otherwise
+     */
+    boolean isValid(String value);
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+
+/**
+ * The validators of the standard NAACCR data types.
+ * <br/><br/>
+ * Each validator accepts exactly the same values as the corresponding regular expression (see NaaccrXmlDictionaryUtils.getDataTypePattern()), but
+ * checks the characters of the value directly instead of going through a regex matcher; the validators don't allocate any memory.
+ */
+public final class DataTypeValidators {
+
+    // uppercase letters, A-Z
+    public static final DataTypeValidator ALPHA = DataTypeValidators::isAlpha;
+
+    // digits, 0-9
+    public static final DataTypeValidator DIGITS = DataTypeValidators::isDigits;
+
+    // uppercase letters or digits, A-Z,0-9
+    public static final DataTypeValidator MIXED = DataTypeValidators::isMixed;
+
+    // digits, 0-9 with optional period (followed by at least one digit)
+    public static final DataTypeValidator NUMERIC = DataTypeValidators::isNumeric;
+
+    // YYYY or YYYYMM or YYYYMMDD, with a year between 1800 and 2099
+    public static final DataTypeValidator DATE = DataTypeValidators::isDate;
+
+    // HL7 FHIR date with optional timestamp portion
+    public static final DataTypeValidator DATE_TIME = DataTypeValidators::isDateTime;
+
+    private DataTypeValidators() {
+        // utility class
+    }
+
+    /**
+     * Returns the validator for the provided data type, null if the values of that type don't need to be validated (like for the text type).
+     * @param dataType requested data type, can be null
+     * @return corresponding validator, maybe null
+     */
+    public static DataTypeValidator getValidator(String dataType) {
+        if (dataType == null)
+            return null;
+        return switch (dataType) {
+            case NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_ALPHA -> ALPHA;
+            case NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DIGITS -> DIGITS;
+            case NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_MIXED -> MIXED;
+            case NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_NUMERIC -> NUMERIC;
+            case NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DATE -> DATE;
+            case NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DATE_TIME -> DATE_TIME;
+            default -> null;
+        };
+    }
+
+    private static boolean isAlpha(String value) {
+        int length = value.length();
+        if (length == 0)
+            return false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 'A' || c > 'Z')
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigits(String value) {
+        return value.length() > 0 && isDigits(value, 0, value.length());
+    }
+
+    private static boolean isMixed(String value) {
+        int length = value.length();
+        if (length == 0)
+            return false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < 'A' || c > 'Z') && (c < '0' || c > '9'))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(String value) {
+        int length = value.length();
+        int period = value.indexOf('.');
+        if (period == -1)
+            return length > 0 && isDigits(value, 0, length);
+        return period > 0 && period < length - 1 && isDigits(value, 0, period) && isDigits(value, period + 1, length);
+    }
+
+    private static boolean isDate(String value) {
+        int length = value.length();
+        if (length != 4 && length != 6 && length != 8)
+            return false;
+        if (!isDigits(value, 0, length))
+            return false;
+        char c0 = value.charAt(0);
+        char c1 = value.charAt(1);
+        if (!(c0 == '1' && (c1 == '8' || c1 == '9')) && !(c0 == '2' && c1 == '0'))
+            return false;
+        return (length < 6 || isMonth(value, 4)) && (length < 8 || isDay(value, 6));
+    }
+
+    private static boolean isDateTime(String value) {
+        int length = value.length();
+
+        // year (any 4 digits except 0000)
+        if (length < 4 || !isDigits(value, 0, 4) || value.startsWith("0000"))
+            return false;
+        if (length == 4)
+            return true;
+
+        // month
+        if (length < 7 || value.charAt(4) != '-' || !isMonth(value, 5))
+            return false;
+
+        // the regex allows a time zone right after the month; since that time zone can start with a dash, it needs to be tried along with the day
+        return isTimeZone(value, 7) || isDayTimeAndTimeZone(value, 7);
+    }
+
+    // "-DD", optionally followed by "Thh:mm:ss", optionally followed by a time zone
+    private static boolean isDayTimeAndTimeZone(String value, int idx) {
+        int length = value.length();
+        if (length < idx + 3 || value.charAt(idx) != '-' || !isDay(value, idx + 1))
+            return false;
+        idx += 3;
+        if (isTimeZone(value, idx))
+            return true;
+        if (length < idx + 9 || value.charAt(idx) != 'T' || value.charAt(idx + 3) != ':' || value.charAt(idx + 6) != ':')
+            return false;
+        return isHour(value, idx + 1) && isMinute(value, idx + 4) && isSecond(value, idx + 7) && isTimeZone(value, idx + 9);
+    }
+
+    // nothing, "Z", "+", "-", "+hh:mm" or "-hh:mm" (with an offset between 00:00 and 14:00), and nothing after it
+    private static boolean isTimeZone(String value, int idx) {
+        int length = value.length();
+        if (idx == length)
+            return true;
+        char c = value.charAt(idx);
+        if (c == 'Z')
+            return idx + 1 == length;
+        if (c != '+' && c != '-')
+            return false;
+        if (idx + 1 == length)
+            return true;
+        if (idx + 6 != length || value.charAt(idx + 3) != ':' || !isDigits(value, idx + 1, idx + 3) || !isMinute(value, idx + 4))
+            return false;
+        char h0 = value.charAt(idx + 1);
+        char h1 = value.charAt(idx + 2);
+        if (h0 == '0' || (h0 == '1' && h1 <= '3'))
+            return true;
+        return h0 == '1' && h1 == '4' && value.charAt(idx + 4) == '0' && value.charAt(idx + 5) == '0';
+    }
+
+    // 01-12
+    private static boolean isMonth(String value, int idx) {
+        char c0 = value.charAt(idx);
+        char c1 = value.charAt(idx + 1);
+        return isDigit(c1) && ((c0 == '0' && c1 != '0') || (c0 == '1' && c1 <= '2'));
+    }
+
+    // 01-31
+    private static boolean isDay(String value, int idx) {
+        char c0 = value.charAt(idx);
+        char c1 = value.charAt(idx + 1);
+        if (!isDigit(c1))
+            return false;
+        return (c0 == '0' && c1 != '0') || c0 == '1' || c0 == '2' || (c0 == '3' && c1 <= '1');
+    }
+
+    // 00-23
+    private static boolean isHour(String value, int idx) {
+        char c0 = value.charAt(idx);
+        char c1 = value.charAt(idx + 1);
+        return isDigit(c1) && (c0 == '0' || c0 == '1' || (c0 == '2' && c1 <= '3'));
+    }
+
+    // 00-59
+    private static boolean isMinute(String value, int idx) {
+        char c0 = value.charAt(idx);
+        return c0 >= '0' && c0 <= '5' && isDigit(value.charAt(idx + 1));
+    }
+
+    // 00-60 (leap second)
+    private static boolean isSecond(String value, int idx) {
+        return isMinute(value, idx) || (value.charAt(idx) == '6' && value.charAt(idx + 1) == '0');
+    }
+
+    private static boolean isDigits(String value, int start, int end) {
+        for (int i = start; i < end; i++)
+            if (!isDigit(value.charAt(i)))
+                return false;
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
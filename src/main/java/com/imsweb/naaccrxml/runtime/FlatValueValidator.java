@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.NaaccrOptions;
+
+/**
+ * The validation of the values read from flat lines, shared by the flat readers and the flat codec.
+ * <br/><br/>
+ * A value is validated against the length, data type and regular expression of its item (depending on the options); the validation returns the
+ * code of the first failed check, and the values of the message of the corresponding error can then be requested, so each caller can report (or
+ * only count) the error its own way.
+ */
+public final class FlatValueValidator {
+
+    private FlatValueValidator() {
+        // utility class
+    }
+
+    /**
+     * Validates a value read from a flat line.
+     * @param def item definition, required
+     * @param value trimmed value, required
+     * @param options options, required
+     * @return the code of the validation error (see NaaccrErrorUtils), null if the value is valid or the values don't need to be validated
+     */
+    public static String validate(RuntimeNaaccrDictionaryItem def, String value, NaaccrOptions options) {
+        if (!Boolean.TRUE.equals(options.getValidateReadValues()))
+            return null;
+
+        if (def.isFullLengthRequired() && value.length() < def.getLength())
+            return NaaccrErrorUtils.CODE_VAL_TOO_SHORT;
+        DataTypeValidator validator = def.getDataTypeValidator();
+        if (validator != null && !validator.isValid(value))
+            return NaaccrErrorUtils.CODE_VAL_DATA_TYPE;
+        if (def.getRegexValidator() != null && Boolean.TRUE.equals(options.getEnforceRegexValidation()) && !def.getRegexValidator().isValid(value))
+            return NaaccrErrorUtils.CODE_VAL_REGEX;
+        return null;
+    }
+
+    /**
+     * Returns the values of the message of a validation error returned by validate().
+     * @param def item definition, required
+     * @param value validated value, required
+     * @param code error code, required
+     * @return the values of the message, never null
+     */
+    public static Object[] getMessageValues(RuntimeNaaccrDictionaryItem def, String value, String code) {
+        return switch (code) {
+            case NaaccrErrorUtils.CODE_VAL_TOO_SHORT, NaaccrErrorUtils.CODE_VAL_TOO_LONG -> new Object[] {def.getLength(), value.length()};
+            case NaaccrErrorUtils.CODE_VAL_DATA_TYPE -> new Object[] {def.getDataType()};
+            case NaaccrErrorUtils.CODE_VAL_REGEX -> new Object[] {def.getRegexValidation().pattern()};
+            default -> new Object[0];
+        };
+    }
+}
@@ -33,16 +33,26 @@ import com.imsweb.naaccrxml.entity.Item;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.Tumor;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
+import com.imsweb.naaccrxml.internal.ItemValueSanitizer;
+import com.imsweb.naaccrxml.internal.NaaccrXmlDirectWriter;
 
 /**
  * This class is telling the library how to read/write patients from/to XML.
  */
 public class NaaccrPatientConverter implements Converter {
 
-    // this pattern is used to replace CR by LF (because this library generates "&#xd;" for CR, which is technically correct but causes a lot of confusion)
+    /**
+     * This pattern is used to replace CR by LF (because this library generates "&#xd;" for CR, which is technically correct but causes a lot of confusion).
+     * @deprecated the values are now cleaned up in a single pass by ItemValueSanitizer, this pattern is not used by the converter anymore
+     */
+    @Deprecated
     protected static final Pattern _CARRIAGE_RETURN_PATTERN = Pattern.compile("\r\n|\r(?!\n)|(?<!\r)\n");
 
-    // this pattern is used to find/remove non-printable control characters (those are the first 32 ASCII characters, except the TAB, CR and LF)
+    /**
+     * This pattern is used to find/remove non-printable control characters (those are the first 32 ASCII characters, except the TAB, CR and LF).
+     * @deprecated the values are now cleaned up in a single pass by ItemValueSanitizer, this pattern is not used by the converter anymore
+     */
+    @Deprecated
     protected static final Pattern _CONTROL_CHARACTERS_PATTERN = Pattern.compile("[\\x00-\\x08\\x0B\\x0C\\x0E-\\x1F\\x7F]");
 
     // current processing context
@@ -98,6 +108,8 @@ public class NaaccrPatientConverter implements Converter {
                 reportSyntaxError("unexpected attribute for Patient tag: " + reader.getAttribute(0));
 
             Patient patient = new Patient();
+            if (Boolean.TRUE.equals(_context.getOptions().getUseCompactItemStorage()))
+                patient.useCompactItemStorage(_context.getDictionary().getItemSlotIndex(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT));
             patient.setStartLineNumber(_context.getLineNumber());
             int patItemCount = 0;
             int tumorCount = 0;
@@ -112,14 +124,13 @@ public class NaaccrPatientConverter implements Converter {
                     if (tumorCount > 0 || seenPatientExtension)
                         reportSyntaxError("unexpected tag: " + _context.extractTag(reader.getNodeName()));
                     patItemCount++;
-                    String path = "/Patient/Item[" + patItemCount + "]";
                     String rawId = reader.getAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_ID);
                     String rawNum = reader.getAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_NUM);
                     if (rawId != null && itemsAlreadySeen.contains(rawId))
                         reportSyntaxError("item '" + rawId + "' should be unique within the " + NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT + " tags");
                     else
                         itemsAlreadySeen.add(rawId);
-                    Item wrongLevelItem = readItem(patient, path, NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT, rawId, rawNum, reader.getValue());
+                    Item wrongLevelItem = readItem(patient, NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT, null, patItemCount, rawId, rawNum, reader.getValue());
                     if (wrongLevelItem != null)
                         itemsToMoveFromPatToTumor.add(wrongLevelItem);
                 }
@@ -131,6 +142,8 @@ public class NaaccrPatientConverter implements Converter {
                         reportSyntaxError("unexpected attribute for Tumor tag: " + reader.getAttribute(0));
 
                     Tumor tumor = new Tumor();
+                    if (Boolean.TRUE.equals(_context.getOptions().getUseCompactItemStorage()))
+                        tumor.useCompactItemStorage(_context.getDictionary().getItemSlotIndex(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR));
                     tumor.setStartLineNumber(_context.getLineNumber());
                     tumorCount++;
                     int tumorItemCount = 0;
@@ -144,14 +157,13 @@ public class NaaccrPatientConverter implements Converter {
                             if (seenTumorExtension)
                                 reportSyntaxError("unexpected tag: " + _context.extractTag(reader.getNodeName()));
                             tumorItemCount++;
-                            String path = "/Patient/Tumor[" + tumorCount + "]/Item[" + tumorItemCount + "]";
                             String rawId = reader.getAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_ID);
                             String rawNum = reader.getAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_NUM);
                             if (rawId != null && itemsAlreadySeen.contains(rawId))
                                 reportSyntaxError("item '" + rawId + "' should be unique within the " + NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR + " tags");
                             else
                                 itemsAlreadySeen.add(rawId);
-                            readItem(tumor, path, NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR, rawId, rawNum, reader.getValue());
+                            readItem(tumor, NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR, tumorCount, tumorItemCount, rawId, rawNum, reader.getValue());
                         }
                         else {
                             if (!Boolean.TRUE.equals(_context.getOptions().getIgnoreExtensions()))
@@ -223,23 +235,12 @@ public class NaaccrPatientConverter implements Converter {
         if (itemDef != null && item.getNaaccrNum() != null && !item.getNaaccrNum().equals(itemDef.getNaaccrNum()))
             reportSyntaxError("provided NAACCR Number '" + item.getNaaccrNum() + "' doesn't correspond to the provided NAACCR ID '" + item.getNaaccrId() + "'");
 
-        // write the item
-        writer.startNode(NaaccrXmlUtils.NAACCR_XML_TAG_ITEM);
-        writer.addAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_ID, itemDef != null ? itemDef.getNaaccrId() : item.getNaaccrId());
-        if (itemDef != null && itemDef.getNaaccrNum() != null && Boolean.TRUE.equals(_context.getOptions().getWriteItemNumber()))
-            writer.addAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_NUM, itemDef.getNaaccrNum().toString());
-
-        // first, let's remove any CR, we only want to use LF for new lines (because this library generates "&#xd;" for CR, which is technically correct but causes a lot of confusion)
-        String value = _CARRIAGE_RETURN_PATTERN.matcher(item.getValue()).replaceAll("\n");
-
-        // then deal with the control characters
-        Matcher matcher = _CONTROL_CHARACTERS_PATTERN.matcher(value);
-        if (matcher.find()) {
-            if (Boolean.TRUE.equals(_context.getOptions().getIgnoreControlCharacters()))
-                value = matcher.replaceAll("");
-            else
-                reportSyntaxError("value for item '" + item.getNaaccrId() + "' contains non-printable control characters");
-        }
+        // remove any CR, we only want to use LF for new lines (because this library generates "&#xd;" for CR, which is technically correct but causes a lot of confusion);
+        // also deal with the control characters; this is done in a single pass, and most values are returned as-is
+        boolean ignoreControlCharacters = Boolean.TRUE.equals(_context.getOptions().getIgnoreControlCharacters());
+        String value = ItemValueSanitizer.sanitize(item.getValue(), '\n', ignoreControlCharacters ? ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE : ItemValueSanitizer.CONTROL_CHARACTERS_REJECT);
+        if (value == null)
+            reportSyntaxError("value for item '" + item.getNaaccrId() + "' contains non-printable control characters");
 
         // handle the padding - only 0-padding is taken into account when writing XML; blank padding (left or right) is completely ignored
         boolean applyZeroPadding = Boolean.TRUE.equals(_context.getOptions().getApplyZeroPaddingRules()) && NumberUtils.isDigits(value);
@@ -260,15 +261,55 @@ public class NaaccrPatientConverter implements Converter {
         // do we need to truncate the value?
         if (itemDef != null && itemDef.getLength() != null && value.length() > itemDef.getLength() && !Boolean.TRUE.equals(itemDef.getAllowUnlimitedText())) {
             if (Boolean.TRUE.equals(_context.getOptions().getReportValuesTooLong()))
-                reportError(item, null, null, itemDef, value, NaaccrErrorUtils.CODE_VAL_TOO_LONG, itemDef.getLength(), value.length());
+                reportError(item, (AbstractEntity)null, null, null, null, null, itemDef, value, NaaccrErrorUtils.CODE_VAL_TOO_LONG, itemDef.getLength(), value.length());
             value = value.substring(0, itemDef.getLength());
         }
 
-        writer.setValue(value);
-        writer.endNode();
+        // write the item (the direct writer uses the pre-computed start tag of the item)
+        boolean writeItemNumber = Boolean.TRUE.equals(_context.getOptions().getWriteItemNumber());
+        if (itemDef != null && writer instanceof NaaccrXmlDirectWriter directWriter)
+            directWriter.writeItem(itemDef.getXmlStartTag(writeItemNumber), value);
+        else {
+            writer.startNode(NaaccrXmlUtils.NAACCR_XML_TAG_ITEM);
+            writer.addAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_ID, itemDef != null ? itemDef.getNaaccrId() : item.getNaaccrId());
+            if (itemDef != null && itemDef.getNaaccrNum() != null && writeItemNumber)
+                writer.addAttribute(NaaccrXmlUtils.NAACCR_XML_ITEM_ATT_NUM, itemDef.getNaaccrNum().toString());
+            writer.setValue(value);
+            writer.endNode();
+        }
     }
 
+    /**
+     * Reads an item and validates its value.
+     * @param entity entity the item belongs to
+     * @param currentPath the path of the item (like "/Patient/Tumor[2]/Item[15]")
+     * @param parentTag the tag the item was found under (NaaccrData, Patient or Tumor)
+     * @param rawId NAACCR ID of the item
+     * @param rawNum NAACCR Number of the item
+     * @param value value of the item
+     * @return the item if it was found under the patient tag but needs to be moved to the tumors, null otherwise
+     * @deprecated use the method taking the tumor index and item index instead; the path of the errors is computed from those only when it's requested
+     */
+    @Deprecated
     public Item readItem(AbstractEntity entity, String currentPath, String parentTag, String rawId, String rawNum, String value) {
+        ErrorLocation location = ErrorLocation.parse(currentPath, parentTag);
+        return readItem(entity, parentTag, location._tumorIndex, location._itemIndex, rawId, rawNum, value);
+    }
+
+    /**
+     * Reads an item and validates its value.
+     * <br/><br/>
+     * The location of the item (parent tag, tumor index and item index) is only used to compute the path of the reported errors, if any.
+     * @param entity entity the item belongs to
+     * @param parentTag the tag the item was found under (NaaccrData, Patient or Tumor)
+     * @param tumorIndex the 1-based index of the tumor within its patient, null if the item is not under a tumor
+     * @param itemIndex the 1-based index of the item within its parent tag, null if unknown
+     * @param rawId NAACCR ID of the item
+     * @param rawNum NAACCR Number of the item
+     * @param value value of the item
+     * @return the item if it was found under the patient tag but needs to be moved to the tumors, null otherwise
+     */
+    public Item readItem(AbstractEntity entity, String parentTag, Integer tumorIndex, Integer itemIndex, String rawId, String rawNum, String value) {
         int lineNumber = _context.getLineNumber();
 
         // if there is no value at all, don't bother
@@ -308,7 +349,7 @@ public class NaaccrPatientConverter implements Converter {
                     badItem.setNaaccrId(rawId);
                     if (StringUtils.isNumeric(rawNum))
                         badItem.setNaaccrNum(Integer.parseInt(rawNum));
-                    reportError(entity, lineNumber, currentPath, new RuntimeNaaccrDictionaryItem(badItem), value, NaaccrErrorUtils.CODE_BAD_NAACCR_ID, rawId);
+                    reportError(entity, entity, lineNumber, parentTag, tumorIndex, itemIndex, new RuntimeNaaccrDictionaryItem(badItem), value, NaaccrErrorUtils.CODE_BAD_NAACCR_ID, rawId);
                     return null;
                 }
                 case NaaccrOptions.ITEM_HANDLING_IGNORE -> {
@@ -324,7 +365,7 @@ public class NaaccrPatientConverter implements Converter {
             try {
                 if (def != null) {
                     if (!Integer.valueOf(rawNum).equals(def.getNaaccrNum()))
-                        reportError(item, lineNumber, currentPath, null, null, NaaccrErrorUtils.CODE_BAD_NAACCR_NUM, rawNum, def.getNaaccrId());
+                        reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, null, null, NaaccrErrorUtils.CODE_BAD_NAACCR_NUM, rawNum, def.getNaaccrId());
                 }
                 else
                     item.setNaaccrNum(Integer.valueOf(rawNum));
@@ -340,20 +381,19 @@ public class NaaccrPatientConverter implements Converter {
             // value should be valid
             if (item.getValue() != null) {
                 if (item.getValue().length() > def.getLength() && (!Boolean.TRUE.equals(def.getAllowUnlimitedText())))
-                    reportError(item, lineNumber, currentPath, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_TOO_LONG, def.getLength(), item.getValue().length());
+                    reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_TOO_LONG, def.getLength(), item.getValue().length());
                 if (Boolean.TRUE.equals(_context.getOptions().getValidateReadValues())) {
-                    if (NaaccrXmlDictionaryUtils.isFullLengthRequiredForType(def.getDataType()) && item.getValue().length() < def.getLength())
-                        reportError(item, lineNumber, currentPath, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_TOO_SHORT, def.getLength(), item.getValue().length());
-                    else if (def.getDataType() != null) {
-                        Pattern pattern = NaaccrXmlDictionaryUtils.getDataTypePattern(def.getDataType());
-                        if (pattern != null && !pattern.matcher(item.getValue()).matches())
-                            reportError(item, lineNumber, currentPath, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE, def.getDataType());
-                    }
+                    if (def.isFullLengthRequired() && item.getValue().length() < def.getLength())
+                        reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_TOO_SHORT, def.getLength(), item.getValue().length());
+                    else if (def.getDataTypeValidator() != null && !def.getDataTypeValidator().isValid(item.getValue()))
+                        reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE, def.getDataType());
+                    else if (def.getRegexValidator() != null && Boolean.TRUE.equals(_context.getOptions().getEnforceRegexValidation()) && !def.getRegexValidator().isValid(item.getValue()))
+                        reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_REGEX, def.getRegexValidation().pattern());
 
                     if (item.getValue().startsWith(" "))
-                        reportError(item, lineNumber, currentPath, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_START_SPACE);
+                        reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_START_SPACE);
                     if (item.getValue().endsWith(" "))
-                        reportError(item, lineNumber, currentPath, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_END_SPACE);
+                        reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_VAL_END_SPACE);
                 }
             }
 
@@ -366,7 +406,7 @@ public class NaaccrPatientConverter implements Converter {
                         if (NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT.equals(parentTag) && NaaccrXmlDictionaryUtils.getPatToTumorChangedNaaccr18And21Ids().contains(rawId))
                             return item;
 
-                reportError(item, lineNumber, currentPath, def, item.getValue(), NaaccrErrorUtils.CODE_BAD_DATA_LEVEL, def.getParentXmlElement(), parentTag);
+                reportError(item, entity, lineNumber, parentTag, tumorIndex, itemIndex, def, item.getValue(), NaaccrErrorUtils.CODE_BAD_DATA_LEVEL, def.getParentXmlElement(), parentTag);
             }
         }
 
@@ -375,10 +415,32 @@ public class NaaccrPatientConverter implements Converter {
         return null;
     }
 
+    /**
+     * Reports a validation error on the given entity or item.
+     * @deprecated use the method taking the level, tumor index and item index instead; the path of the error is computed from those only when it's requested
+     */
+    @Deprecated
     protected void reportError(Object obj, Integer line, String path, RuntimeNaaccrDictionaryItem def, String value, String code, Object... msgValues) {
+        ErrorLocation location = ErrorLocation.parse(path, null);
+        reportError(obj, obj instanceof AbstractEntity entity ? entity : null, line, location._level, location._tumorIndex, location._itemIndex, def, value, code, msgValues);
+    }
+
+    protected void reportError(Object obj, AbstractEntity entity, Integer line, String level, Integer tumorIndex, Integer itemIndex, RuntimeNaaccrDictionaryItem def, String value,
+            String code, Object... msgValues) {
+
+        // an item can only have one error, the other ones are ignored
+        if (obj instanceof Item item && item.getValidationError() != null)
+            return;
+
+        // the collector might decide to drop the error (in which case it's only counted)
+        if (_context.getErrorCollector() != null && !_context.getErrorCollector().retain(entity, code))
+            return;
+
         NaaccrValidationError error = new NaaccrValidationError(code, msgValues);
         error.setLineNumber(line);
-        error.setPath(path);
+        error.setLevel(level);
+        error.setTumorIndex(tumorIndex);
+        error.setItemIndex(itemIndex);
         if (def != null) {
             error.setNaaccrId(def.getNaaccrId());
             error.setNaaccrNum(def.getNaaccrNum());
@@ -388,10 +450,8 @@ public class NaaccrPatientConverter implements Converter {
 
         if (obj instanceof AbstractEntity)
             ((AbstractEntity)obj).addValidationError(error);
-        else if (obj instanceof Item) {
-            if (((Item)obj).getValidationError() == null)
-                ((Item)obj).setValidationError(error);
-        }
+        else if (obj instanceof Item item)
+            item.setValidationError(error);
         else
             throw new IllegalStateException("Unsupported type: " + obj.getClass().getName());
     }
@@ -401,4 +461,26 @@ public class NaaccrPatientConverter implements Converter {
         ex.add("message", message);
         throw ex;
     }
+
+    // the location of an error, parsed from a path like "/Patient/Tumor[2]/Item[15]" (used by the deprecated methods taking a path)
+    private static final class ErrorLocation {
+
+        private static final Pattern _PATH_PATTERN = Pattern.compile("/(NaaccrData|Patient)(?:/(Tumor)(?:\\[(\\d+)])?)?(?:/Item\\[(\\d+)])?");
+
+        private String _level;
+        private Integer _tumorIndex;
+        private Integer _itemIndex;
+
+        private static ErrorLocation parse(String path, String defaultLevel) {
+            ErrorLocation location = new ErrorLocation();
+            location._level = defaultLevel;
+            Matcher matcher = path == null ? null : _PATH_PATTERN.matcher(path);
+            if (matcher != null && matcher.matches()) {
+                location._level = matcher.group(2) != null ? matcher.group(2) : matcher.group(1);
+                location._tumorIndex = matcher.group(3) == null ? null : Integer.valueOf(matcher.group(3));
+                location._itemIndex = matcher.group(4) == null ? null : Integer.valueOf(matcher.group(4));
+            }
+            return location;
+        }
+    }
 }
@@ -40,6 +40,26 @@ import com.imsweb.naaccrxml.entity.Patient;
 @SuppressWarnings("unused")
 public class NaaccrStreamConfiguration {
 
+    /**
+     * Reading engine relying on XStream to unmarshal the patients (default).
+     */
+    public static final String READING_ENGINE_XSTREAM = "xstream";
+
+    /**
+     * Reading engine driving the pull parser directly to read the patients, XStream is only used for the extensions.
+     */
+    public static final String READING_ENGINE_PULL_PARSER = "pull-parser";
+
+    /**
+     * Writing engine relying on XStream to marshal the patients (default).
+     */
+    public static final String WRITING_ENGINE_XSTREAM = "xstream";
+
+    /**
+     * Writing engine writing the patients directly into a reusable buffer, XStream is only used for the extensions.
+     */
+    public static final String WRITING_ENGINE_DIRECT = "direct";
+
     // the parser used for reading operations
     protected XmlPullParser _parser;
 
@@ -64,6 +84,12 @@ public class NaaccrStreamConfiguration {
     // cached runtime dictionary
     protected RuntimeNaaccrDictionary _cachedDictionary;
 
+    // the engine used to read the patients
+    protected String _readingEngine;
+
+    // the engine used to write the patients
+    protected String _writingEngine;
+
     /**
      * Convenience method to make the code look nicer, but it really just calls the default constructor!
      * @return an instance of the configuration with all default values.
@@ -91,6 +117,9 @@ public class NaaccrStreamConfiguration {
         _defaultTags = Collections.unmodifiableSet(defaultTags);
 
         _xstream.registerConverter(new LineNumberExtensionConverter(this));
+
+        _readingEngine = READING_ENGINE_XSTREAM;
+        _writingEngine = WRITING_ENGINE_XSTREAM;
     }
 
     /**
@@ -230,6 +259,49 @@ public class NaaccrStreamConfiguration {
         _cachedDictionary = cachedDictionary;
     }
 
+    /**
+     * Returns the engine used to read the patients.
+     * @return the reading engine, never null
+     */
+    public String getReadingEngine() {
+        return _readingEngine;
+    }
+
+    /**
+     * Sets the engine used to read the patients; must be one of the READING_ENGINE_XXX constants.
+     * <br/><br/>
+     * The default engine uses XStream to unmarshal each patient; the pull parser engine drives the parser directly and is significantly
+     * faster on large files. Both engines return the same entities, validation errors and line numbers; extensions are always read with XStream.
+     * @param readingEngine reading engine to set
+     */
+    public void setReadingEngine(String readingEngine) {
+        if (!READING_ENGINE_XSTREAM.equals(readingEngine) && !READING_ENGINE_PULL_PARSER.equals(readingEngine))
+            throw new IllegalStateException("Unknown reading engine: " + readingEngine);
+        _readingEngine = readingEngine;
+    }
+
+    /**
+     * Returns the engine used to write the patients.
+     * @return the writing engine, never null
+     */
+    public String getWritingEngine() {
+        return _writingEngine;
+    }
+
+    /**
+     * Sets the engine used to write the patients; must be one of the WRITING_ENGINE_XXX constants.
+     * <br/><br/>
+     * The default engine uses XStream to marshal each patient; the direct engine writes the items directly into a reusable buffer, using the
+     * start tags pre-computed by the runtime dictionary, and is significantly faster on large files. Both engines produce exactly the same output;
+     * extensions are always written with XStream.
+     * @param writingEngine writing engine to set
+     */
+    public void setWritingEngine(String writingEngine) {
+        if (!WRITING_ENGINE_XSTREAM.equals(writingEngine) && !WRITING_ENGINE_DIRECT.equals(writingEngine))
+            throw new IllegalStateException("Unknown writing engine: " + writingEngine);
+        _writingEngine = writingEngine;
+    }
+
     /**
      * Registers a namespace for a given namespace prefix. This method must be called before registering any tags or attributes
      * for that namespace. Note that extensions require namespaces to work properly.
@@ -5,6 +5,7 @@ package com.imsweb.naaccrxml.runtime;
 
 import java.util.Set;
 
+import com.imsweb.naaccrxml.NaaccrErrorCollector;
 import com.imsweb.naaccrxml.NaaccrIOException;
 import com.imsweb.naaccrxml.NaaccrOptions;
 
@@ -16,6 +17,9 @@ public class NaaccrStreamContext {
 
     protected NaaccrOptions _options;
 
+    // the collector deciding which validation errors are retained when reading (null when writing, in which case all the errors are retained)
+    protected NaaccrErrorCollector _errorCollector;
+
     public RuntimeNaaccrDictionary getDictionary() {
         return _dictionary;
     }
@@ -40,6 +44,14 @@ public class NaaccrStreamContext {
         _options = options;
     }
 
+    public NaaccrErrorCollector getErrorCollector() {
+        return _errorCollector;
+    }
+
+    public void setErrorCollector(NaaccrErrorCollector errorCollector) {
+        _errorCollector = errorCollector;
+    }
+
     /**
      * Returns the current line number.
      * @return current line number (from the parser).
@@ -0,0 +1,437 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the regular expressions of the dictionary items (regexValidation attribute) into validators.
+ * <br/><br/>
+ * Most of those regular expressions are very simple; they are either a list of codes (like "^(01|02|99)$") or a sequence of character classes
+ * (like "^[0-9]{3}[A-Z]?$"). Such expressions are turned into a lookup table or into bitsets of allowed characters, which are a lot faster than
+ * going through a regex matcher. Any other expression is validated with the regex engine, using a matcher that is re-used by each thread.
+ * <br/><br/>
+ * The returned validators accept exactly the same values as Pattern.matches() for the provided expression; they are thread-safe.
+ */
+public final class RegexValidators {
+
+    // the characters that have a special meaning in a regular expression (outside a character class)
+    private static final String _META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    // the value of an unbounded quantifier
+    private static final int _UNBOUNDED = Integer.MAX_VALUE;
+
+    // the longest value the character classes validator handles (the reachable positions are tracked in a single long), longer values use the regex engine
+    private static final int _MAX_SEQUENCE_VALUE_LENGTH = 63;
+
+    private RegexValidators() {
+        // utility class
+    }
+
+    /**
+     * Compiles the given regular expression into a validator.
+     * @param regex regular expression, required
+     * @return corresponding validator, never null
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid
+     */
+    public static DataTypeValidator compile(String regex) {
+        return compile(Pattern.compile(regex));
+    }
+
+    /**
+     * Compiles the given pattern into a validator.
+     * @param pattern compiled regular expression, required
+     * @return corresponding validator, never null
+     */
+    public static DataTypeValidator compile(Pattern pattern) {
+        PatternValidator patternValidator = new PatternValidator(pattern);
+
+        // a pattern using flags can't be simplified
+        if (pattern.flags() != 0)
+            return patternValidator;
+
+        Set<String> codes = parseCodes(pattern.pattern());
+        if (codes != null)
+            return new CodesValidator(codes);
+
+        List<CharClassAtom> atoms = parseCharClasses(pattern.pattern());
+        if (atoms != null)
+            return new CharClassesValidator(atoms, patternValidator);
+
+        return patternValidator;
+    }
+
+    /**
+     * Parses an expression that is a list of literal codes, like "^(01|02|99)$" or "A|B|C".
+     * @return the codes, null if the expression is not a list of codes
+     */
+    static Set<String> parseCodes(String regex) {
+        String body = stripAnchors(regex);
+        if (body.startsWith("(?:") && body.endsWith(")"))
+            body = body.substring(3, body.length() - 1);
+        else if (body.startsWith("(") && body.endsWith(")"))
+            body = body.substring(1, body.length() - 1);
+
+        Set<String> codes = new HashSet<>();
+        StringBuilder code = new StringBuilder();
+        int idx = 0;
+        while (idx <= body.length()) {
+            if (idx == body.length() || body.charAt(idx) == '|') {
+                codes.add(code.toString());
+                code.setLength(0);
+                idx++;
+                continue;
+            }
+            char c = body.charAt(idx);
+            if (c == '\\') {
+                if (idx + 1 == body.length() || Character.isLetterOrDigit(body.charAt(idx + 1)))
+                    return null;
+                c = body.charAt(idx + 1);
+                idx++;
+            }
+            else if (_META_CHARACTERS.indexOf(c) != -1)
+                return null;
+            if (Character.isSurrogate(c))
+                return null;
+            code.append(c);
+            idx++;
+        }
+
+        return codes;
+    }
+
+    /**
+     * Parses an expression that is a sequence of (optionally quantified) characters and character classes, like "^[0-9]{3}[A-Z]?$" or "\d+".
+     * @return the parsed sequence, null if the expression is not such a sequence
+     */
+    static List<CharClassAtom> parseCharClasses(String regex) {
+        String body = stripAnchors(regex);
+
+        List<CharClassAtom> atoms = new ArrayList<>();
+        int idx = 0;
+        while (idx < body.length()) {
+            char c = body.charAt(idx);
+            CharClass cls;
+            if (c == '[') {
+                int end = findClassEnd(body, idx);
+                if (end == -1)
+                    return null;
+                cls = parseClass(body.substring(idx + 1, end));
+                idx = end + 1;
+            }
+            else if (c == '\\') {
+                if (idx + 1 == body.length())
+                    return null;
+                cls = new CharClass();
+                if (!cls.addEscape(body.charAt(idx + 1)))
+                    return null;
+                idx += 2;
+            }
+            else if (c == '.') {
+                cls = CharClass.createDot();
+                idx++;
+            }
+            else if (_META_CHARACTERS.indexOf(c) != -1 || c >= 128)
+                return null;
+            else {
+                cls = new CharClass();
+                cls.add(c);
+                idx++;
+            }
+            if (cls == null)
+                return null;
+
+            int min = 1;
+            int max = 1;
+            if (idx < body.length()) {
+                char q = body.charAt(idx);
+                if (q == '?' || q == '*' || q == '+') {
+                    min = q == '+' ? 1 : 0;
+                    max = q == '?' ? 1 : _UNBOUNDED;
+                    idx++;
+                }
+                else if (q == '{') {
+                    int end = body.indexOf('}', idx);
+                    if (end == -1)
+                        return null;
+                    String[] bounds = body.substring(idx + 1, end).split(",", -1);
+                    if (bounds.length > 2 || !isNumber(bounds[0]) || (bounds.length == 2 && !bounds[1].isEmpty() && !isNumber(bounds[1])))
+                        return null;
+                    min = Integer.parseInt(bounds[0]);
+                    max = bounds.length == 1 ? min : bounds[1].isEmpty() ? _UNBOUNDED : Integer.parseInt(bounds[1]);
+                    idx = end + 1;
+                }
+                else
+                    q = 0;
+
+                // lazy quantifiers accept the same values, but possessive ones don't; let's keep it simple and not support either of them
+                if (q != 0 && idx < body.length() && (body.charAt(idx) == '?' || body.charAt(idx) == '+'))
+                    return null;
+            }
+
+            atoms.add(new CharClassAtom(cls, min, max));
+        }
+
+        return atoms;
+    }
+
+    // removes the leading "^" and trailing "$" (they don't change anything since the full value needs to match)
+    private static String stripAnchors(String regex) {
+        int start = regex.startsWith("^") ? 1 : 0;
+        int end = regex.length();
+        if (end > start && regex.charAt(end - 1) == '$') {
+            int numBackslashes = 0;
+            while (end - 2 - numBackslashes >= start && regex.charAt(end - 2 - numBackslashes) == '\\')
+                numBackslashes++;
+            if (numBackslashes % 2 == 0)
+                end--;
+        }
+        return regex.substring(start, end);
+    }
+
+    // returns the index of the closing bracket of the class starting at the given index, -1 if the class is too complex to be handled
+    private static int findClassEnd(String body, int start) {
+        int idx = start + 1;
+        if (idx < body.length() && body.charAt(idx) == '^')
+            idx++;
+        // a closing bracket right after the opening one is handled differently by different regex engines; let's not support it
+        if (idx < body.length() && body.charAt(idx) == ']')
+            return -1;
+        while (idx < body.length()) {
+            char c = body.charAt(idx);
+            if (c == '\\')
+                idx++;
+            else if (c == '[')
+                return -1;
+            else if (c == ']')
+                return idx;
+            idx++;
+        }
+        return -1;
+    }
+
+    // parses the content of a character class (without the brackets), returns null if it's too complex to be handled
+    private static CharClass parseClass(String content) {
+        CharClass cls = new CharClass();
+
+        int idx = 0;
+        if (content.startsWith("^")) {
+            cls.setNegated();
+            idx++;
+        }
+
+        int start = idx;
+        while (idx < content.length()) {
+            char c = content.charAt(idx);
+            if (c == '\\') {
+                if (!cls.addEscape(content.charAt(idx + 1)))
+                    return null;
+                idx += 2;
+                continue;
+            }
+            if (c == '&' || c >= 128)
+                return null;
+            if (c == '-' && idx != start && idx != content.length() - 1)
+                return null;
+            if (c != '-' && idx + 2 < content.length() && content.charAt(idx + 1) == '-') {
+                char to = content.charAt(idx + 2);
+                if (to == '\\' || to == '[' || to == '&' || to == '-' || to >= 128 || to < c)
+                    return null;
+                cls.addRange(c, to);
+                idx += 3;
+                continue;
+            }
+            cls.add(c);
+            idx++;
+        }
+
+        return cls;
+    }
+
+    private static boolean isNumber(String value) {
+        if (value.isEmpty() || value.length() > 6)
+            return false;
+        for (int i = 0; i < value.length(); i++)
+            if (value.charAt(i) < '0' || value.charAt(i) > '9')
+                return false;
+        return true;
+    }
+
+    /**
+     * A set of characters, stored as a bitset for the ASCII characters.
+     */
+    static final class CharClass {
+
+        // the ASCII characters (0-63 and 64-127) added to the class
+        private long _low;
+
+        private long _high;
+
+        // whether the class is negated (it then contains all the characters that were not added), and whether it's the "any character" class
+        private boolean _negated;
+
+        private boolean _dot;
+
+        // the dot matches any character except the line terminators
+        static CharClass createDot() {
+            CharClass cls = new CharClass();
+            cls.add('\n');
+            cls.add('\r');
+            cls._negated = true;
+            cls._dot = true;
+            return cls;
+        }
+
+        void add(char c) {
+            if (c < 64)
+                _low |= 1L << c;
+            else
+                _high |= 1L << (c - 64);
+        }
+
+        void addRange(char from, char to) {
+            for (char c = from; c <= to; c++)
+                add(c);
+        }
+
+        // adds the characters of an escape sequence (the character following the backslash), returns false if the sequence is not supported
+        boolean addEscape(char c) {
+            switch (c) {
+                case 'd' -> addRange('0', '9');
+                case 'w' -> {
+                    addRange('a', 'z');
+                    addRange('A', 'Z');
+                    addRange('0', '9');
+                    add('_');
+                }
+                case 's' -> {
+                    add(' ');
+                    add('\t');
+                    add('\n');
+                    add('\u000B');
+                    add('\f');
+                    add('\r');
+                }
+                default -> {
+                    if (c >= 128 || Character.isLetterOrDigit(c))
+                        return false;
+                    add(c);
+                }
+            }
+            return true;
+        }
+
+        void setNegated() {
+            _negated = true;
+        }
+
+        boolean contains(char c) {
+            boolean added;
+            if (c < 64)
+                added = (_low >>> c & 1L) != 0;
+            else if (c < 128)
+                added = (_high >>> (c - 64) & 1L) != 0;
+            else
+                added = _dot && (c == '\u0085' || c == '\u2028' || c == '\u2029');
+            return added != _negated;
+        }
+    }
+
+    /**
+     * A character class with a quantifier.
+     */
+    record CharClassAtom(CharClass cls, int min, int max) {
+    }
+
+    /**
+     * Validates the values against a list of codes.
+     */
+    static final class CodesValidator implements DataTypeValidator {
+
+        private final Set<String> _codes;
+
+        CodesValidator(Set<String> codes) {
+            _codes = codes;
+        }
+
+        @Override
+        public boolean isValid(String value) {
+            return _codes.contains(value);
+        }
+    }
+
+    /**
+     * Validates the values against a sequence of quantified character classes; the positions of the value that can be reached after each class are
+     * tracked as a bitset, so the validation never needs to backtrack.
+     */
+    static final class CharClassesValidator implements DataTypeValidator {
+
+        private final CharClassAtom[] _atoms;
+
+        private final DataTypeValidator _fallback;
+
+        CharClassesValidator(List<CharClassAtom> atoms, DataTypeValidator fallback) {
+            _atoms = atoms.toArray(new CharClassAtom[0]);
+            _fallback = fallback;
+        }
+
+        @Override
+        public boolean isValid(String value) {
+            int length = value.length();
+            if (length > _MAX_SEQUENCE_VALUE_LENGTH)
+                return _fallback.isValid(value);
+
+            long reachable = 1L;
+            for (CharClassAtom atom : _atoms) {
+                long next = 0L;
+                long remaining = reachable;
+                while (remaining != 0L) {
+                    int pos = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    if (atom.min() == 0)
+                        next |= 1L << pos;
+                    int count = 0;
+                    while (count < atom.max() && pos + count < length) {
+                        char c = value.charAt(pos + count);
+                        // the regex engine works with code points, not characters; let it handle the surrogate pairs
+                        if (Character.isSurrogate(c))
+                            return _fallback.isValid(value);
+                        if (!atom.cls().contains(c))
+                            break;
+                        count++;
+                        if (count >= atom.min())
+                            next |= 1L << (pos + count);
+                    }
+                }
+                if (next == 0L)
+                    return false;
+                reachable = next;
+            }
+
+            return (reachable >>> length & 1L) != 0;
+        }
+    }
+
+    /**
+     * Validates the values using the regex engine; each thread gets its own matcher, which is re-used for all the values.
+     */
+    static final class PatternValidator implements DataTypeValidator {
+
+        private final ThreadLocal<Matcher> _matcher;
+
+        PatternValidator(Pattern pattern) {
+            _matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+
+        @Override
+        public boolean isValid(String value) {
+            return _matcher.get().reset(value).matches();
+        }
+    }
+}
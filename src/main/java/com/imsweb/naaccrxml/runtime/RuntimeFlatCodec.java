@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrValidationError;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+import com.imsweb.naaccrxml.entity.AbstractEntity;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+
+/**
+ * A codec translating a single flat line into a patient and vice-versa, compiled once from a runtime dictionary and some options.
+ * <br/><br/>
+ * Unlike the flat reader and writer, the codec doesn't create any stream; it uses the compiled flat layout to extract the values from the lines,
+ * and the compiled flat template to write the values into a line buffer re-used by each thread. It produces the same
+ * patients, lines and validation errors as the flat reader and writer would for a single line.
+ * <br/><br/>
+ * The codec is thread-safe; it is created and cached by the NaaccrContext (see NaaccrXmlUtils.lineToPatient() and patientToLine()).
+ */
+public class RuntimeFlatCodec {
+
+    // the line buffers, re-used by each thread; they are shared by all the codecs so a discarded codec doesn't leave buffers on pooled threads
+    // (the character buffer is re-created when a codec uses a different line length)
+    private static final ThreadLocal<StringBuilder> _LINE_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    private static final ThreadLocal<char[]> _CHAR_BUFFER = ThreadLocal.withInitial(() -> new char[0]);
+
+    // the format the codec was compiled for
+    private final NaaccrFormat _format;
+
+    // the runtime dictionary (combination of base and user-defined dictionaries)
+    private final RuntimeNaaccrDictionary _dictionary;
+
+    // the options to use when translating the lines and patients
+    private final NaaccrOptions _options;
+
+    // the compiled layout of the items to extract from each line
+    private final RuntimeFlatLayout _layout;
+
+    // the compiled template of the lines to write
+    private final RuntimeFlatTemplate _template;
+
+    /**
+     * Constructor.
+     * @param format NAACCR format, required
+     * @param dictionary runtime dictionary, required
+     * @param options options, can be null
+     */
+    public RuntimeFlatCodec(NaaccrFormat format, RuntimeNaaccrDictionary dictionary, NaaccrOptions options) {
+        _format = format;
+        _dictionary = dictionary;
+        _options = options == null ? new NaaccrOptions() : options;
+        _layout = dictionary.getFlatLayout(_options);
+        _template = dictionary.getFlatTemplate(_options);
+    }
+
+    public NaaccrFormat getFormat() {
+        return _format;
+    }
+
+    public NaaccrOptions getOptions() {
+        return _options;
+    }
+
+    /**
+     * Translates a single flat line into a patient; the resulting patient will have exactly one tumor.
+     * @param line line to translate, required
+     * @return the corresponding patient, never null
+     * @throws NaaccrIOException if the line cannot be translated
+     */
+    public Patient lineToPatient(String line) throws NaaccrIOException {
+        if (line.length() != _format.getLineLength())
+            throw new NaaccrIOException("Expected line length to be " + _format.getLineLength() + " but was " + line.length());
+
+        // a line containing new line characters would have been split into several lines by the flat reader
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\r' || c == '\n') {
+                if (i == 0)
+                    throw new NaaccrIOException("first line is empty");
+                throw new NaaccrIOException("invalid line length for first record, expected " + _format.getLineLength() + " but got " + i);
+            }
+        }
+
+        // always use the format for the record type and NAACCR version
+        boolean updateType = line.charAt(0) != _format.getRecordType().charAt(0);
+        boolean updateVersion = !line.regionMatches(16, _format.getNaaccrVersion(), 0, 3);
+        if (updateType || updateVersion) {
+            StringBuilder buf = _LINE_BUFFER.get();
+            buf.setLength(0);
+            buf.append(line);
+            buf.replace(0, 1, _format.getRecordType());
+            buf.replace(16, 19, _format.getNaaccrVersion());
+            line = buf.toString();
+        }
+
+        int lineNumber = 1;
+        boolean compact = Boolean.TRUE.equals(_options.getUseCompactItemStorage());
+
+        Patient patient = new Patient();
+        if (compact)
+            patient.useCompactItemStorage(_dictionary.getItemSlotIndex(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT));
+        patient.setStartLineNumber(lineNumber);
+        patient.setEndLineNumber(lineNumber);
+
+        Tumor tumor = new Tumor();
+        if (compact)
+            tumor.useCompactItemStorage(_dictionary.getItemSlotIndex(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR));
+        tumor.setStartLineNumber(lineNumber);
+        tumor.setEndLineNumber(lineNumber);
+
+        for (int j = 0; j < _layout.getNumItems(); j++) {
+            switch (_layout.getLevel(j)) {
+                case RuntimeFlatLayout.LEVEL_ROOT -> {
+                    // the root data is read from the same line, so the values can only be different if the item is not processed
+                    if (!_layout.isProcessed(j) && _layout.extractValue(line, j) != null)
+                        reportError(tumor, lineNumber, _layout.getItem(j), null, NaaccrErrorUtils.CODE_VAL_ROOT_VS_TUM, _layout.getItem(j).getNaaccrId());
+                }
+                case RuntimeFlatLayout.LEVEL_PATIENT -> {
+                    if (_layout.isProcessed(j))
+                        addItemFromLine(patient, line, lineNumber, j);
+                }
+                default -> addItemFromLine(tumor, line, lineNumber, j);
+            }
+        }
+        patient.addTumor(tumor);
+
+        return patient;
+    }
+
+    /**
+     * Translates a single patient into a flat line (without any new line character).
+     * @param patient patient to translate, required; must have 0 or 1 tumor
+     * @return the corresponding line, never null
+     * @throws NaaccrIOException if the patient cannot be translated
+     */
+    public String patientToLine(Patient patient) throws NaaccrIOException {
+        if (_dictionary.getLineLength() == null || _dictionary.getLineLength() == -1)
+            throw new NaaccrIOException("version " + _dictionary.getNaaccrVersion() + " does not support start columns and cannot be used with this flat writer");
+        // it wouldn't be very hard to support more than one tumor, but will do it only if needed
+        if (patient.getTumors().size() > 1)
+            throw new NaaccrIOException("This method requires a patient with 0 or 1 tumor.");
+
+        // it's possible to have a patient without any tumor; in that case, we will want to output a line...
+        Tumor tumor = patient.getTumors().isEmpty() ? new Tumor() : patient.getTumors().get(0);
+
+        // the root data is always empty when translating a single patient
+        char[] line = _CHAR_BUFFER.get();
+        if (line.length != _template.getLineLength()) {
+            line = _template.createLineBuffer();
+            _CHAR_BUFFER.set(line);
+        }
+        _template.writeLine(line, null, patient, tumor, _options);
+
+        return new String(line);
+    }
+
+    private void addItemFromLine(AbstractEntity entity, String line, Integer lineNumber, int layoutIdx) {
+        String value = _layout.extractValue(line, layoutIdx);
+        if (value == null)
+            return;
+
+        RuntimeNaaccrDictionaryItem def = _layout.getItem(layoutIdx);
+        entity.addItem(def.getNaaccrId(), def.getNaaccrNum(), value, lineNumber);
+
+        String code = FlatValueValidator.validate(def, value, _options);
+        if (code != null)
+            reportError(entity, lineNumber, def, value, code, FlatValueValidator.getMessageValues(def, value, code));
+    }
+
+    private static void reportError(AbstractEntity entity, Integer lineNumber, RuntimeNaaccrDictionaryItem def, String value, String code, Object... msgValues) {
+        NaaccrValidationError error = new NaaccrValidationError(code, msgValues);
+        error.setLineNumber(lineNumber);
+        if (def != null) {
+            error.setNaaccrId(def.getNaaccrId());
+            error.setNaaccrNum(def.getNaaccrNum());
+        }
+        if (value != null && !value.isEmpty())
+            error.setValue(value);
+        entity.addValidationError(error);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+
+/**
+ * A flat layout compiled from a runtime dictionary and some options; it contains only the items that need to be extracted from each flat line,
+ * with their location, level, trimming rule and data type validation stored in arrays so they can be efficiently processed for every line.
+ */
+public class RuntimeFlatLayout {
+
+    public static final byte LEVEL_ROOT = 0;
+    public static final byte LEVEL_PATIENT = 1;
+    public static final byte LEVEL_TUMOR = 2;
+
+    // the item definitions
+    private final RuntimeNaaccrDictionaryItem[] _items;
+
+    // the start (0-based, inclusive) and end (0-based, exclusive) offsets of the items in the line
+    private final int[] _starts;
+    private final int[] _ends;
+
+    // the level of the items (one of the LEVEL_XXX constants)
+    private final byte[] _levels;
+
+    // whether the values need to be fully trimmed (otherwise they are only trimmed if they are blank)
+    private final boolean[] _trimAll;
+
+    // whether the items need to be added to the entities (otherwise they are only used to compare values between levels)
+    private final boolean[] _processed;
+
+    // whether the items require their values to be full length
+    private final boolean[] _fullLengthRequired;
+
+    /**
+     * Constructor.
+     * @param dictionary runtime dictionary, required
+     * @param options options, required
+     */
+    public RuntimeFlatLayout(RuntimeNaaccrDictionary dictionary, NaaccrOptions options) {
+        boolean reportLevelMismatch = Boolean.TRUE.equals(options.getReportLevelMismatch());
+
+        List<RuntimeNaaccrDictionaryItem> items = new ArrayList<>();
+        List<Byte> levels = new ArrayList<>();
+        List<Boolean> processed = new ArrayList<>();
+        for (RuntimeNaaccrDictionaryItem item : dictionary.getItems()) {
+            if (item.getStartColumn() == null || item.getLength() == null)
+                continue;
+
+            boolean process = NaaccrOptions.processItem(options, item.getNaaccrId());
+            if (NaaccrXmlUtils.NAACCR_XML_TAG_ROOT.equals(item.getParentXmlElement())) {
+                if (reportLevelMismatch) {
+                    items.add(item);
+                    levels.add(LEVEL_ROOT);
+                    processed.add(process);
+                }
+            }
+            else if (NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT.equals(item.getParentXmlElement())) {
+                if (process || reportLevelMismatch) {
+                    items.add(item);
+                    levels.add(LEVEL_PATIENT);
+                    processed.add(process);
+                }
+            }
+            else if (NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR.equals(item.getParentXmlElement()) && process) {
+                items.add(item);
+                levels.add(LEVEL_TUMOR);
+                processed.add(true);
+            }
+        }
+
+        int size = items.size();
+        _items = items.toArray(new RuntimeNaaccrDictionaryItem[0]);
+        _starts = new int[size];
+        _ends = new int[size];
+        _levels = new byte[size];
+        _trimAll = new boolean[size];
+        _processed = new boolean[size];
+        _fullLengthRequired = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            RuntimeNaaccrDictionaryItem item = _items[i];
+            _starts[i] = item.getStartColumn() - 1; // dictionary is 1-based
+            _ends[i] = _starts[i] + item.getLength();
+            _levels[i] = levels.get(i);
+            _trimAll[i] = item.getTrim() == null || NaaccrXmlDictionaryUtils.NAACCR_TRIM_ALL.equals(item.getTrim());
+            _processed[i] = processed.get(i);
+            _fullLengthRequired[i] = item.isFullLengthRequired();
+        }
+    }
+
+    /**
+     * Returns the key identifying the layouts compiled for options equivalent to the provided ones; it contains a copy of every option input that
+     * affects the layout.
+     * @param options options, required
+     * @return the corresponding key, never null
+     */
+    static List<Object> getCacheKey(NaaccrOptions options) {
+        return Arrays.asList(Boolean.TRUE.equals(options.getReportLevelMismatch()), options.getItemsToInclude() == null ? null : new ArrayList<>(options.getItemsToInclude()),
+                options.getItemsToExclude() == null ? null : new ArrayList<>(options.getItemsToExclude()));
+    }
+
+    public int getNumItems() {
+        return _items.length;
+    }
+
+    public RuntimeNaaccrDictionaryItem getItem(int idx) {
+        return _items[idx];
+    }
+
+    public int getStart(int idx) {
+        return _starts[idx];
+    }
+
+    public int getEnd(int idx) {
+        return _ends[idx];
+    }
+
+    public byte getLevel(int idx) {
+        return _levels[idx];
+    }
+
+    public boolean isTrimAll(int idx) {
+        return _trimAll[idx];
+    }
+
+    public boolean isProcessed(int idx) {
+        return _processed[idx];
+    }
+
+    public boolean isFullLengthRequired(int idx) {
+        return _fullLengthRequired[idx];
+    }
+
+    /**
+     * Extracts the value of the requested item from the provided line, applying the trimming rule of the item.
+     * <br/><br/>
+     * This method doesn't create any object if the value is blank (which is the case for most items).
+     * @param line line to extract the value from
+     * @param idx index of the item in this layout
+     * @return the extracted value, null if the value is blank or the line is too short
+     */
+    public String extractValue(String line, int idx) {
+        int start = _starts[idx];
+        int end = _ends[idx];
+        if (end > line.length())
+            return null;
+
+        int trimmedStart = start;
+        while (trimmedStart < end && line.charAt(trimmedStart) <= ' ')
+            trimmedStart++;
+        if (trimmedStart == end)
+            return null;
+
+        if (!_trimAll[idx])
+            return line.substring(start, end);
+
+        int trimmedEnd = end;
+        while (line.charAt(trimmedEnd - 1) <= ' ')
+            trimmedEnd--;
+        return line.substring(trimmedStart, trimmedEnd);
+    }
+}
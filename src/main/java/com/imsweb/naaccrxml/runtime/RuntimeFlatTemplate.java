@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrValidationError;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+import com.imsweb.naaccrxml.entity.AbstractEntity;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+import com.imsweb.naaccrxml.internal.ItemValueSanitizer;
+
+/**
+ * A flat template compiled from a runtime dictionary and some options; it contains a blank line with the record type and NAACCR version already
+ * stamped, and the items that need to be written into each flat line, with their location and level stored in arrays.
+ * <br/><br/>
+ * A line is created by copying the template into a character buffer and then copying the values of the items into their columns; no intermediate
+ * string is created unless a value needs to be padded after its new lines are replaced.
+ */
+public class RuntimeFlatTemplate {
+
+    // the item definitions
+    private final RuntimeNaaccrDictionaryItem[] _items;
+
+    // the start (0-based, inclusive) offsets and the lengths of the items in the line
+    private final int[] _starts;
+    private final int[] _lengths;
+
+    // the level of the items (one of the RuntimeFlatLayout.LEVEL_XXX constants, -1 if the parent element is not supported)
+    private final byte[] _levels;
+
+    // whether the items are stamped in the template (record type and NAACCR version); their values are only validated
+    private final boolean[] _stamped;
+
+    // a blank line with the record type and NAACCR version
+    private final char[] _template;
+
+    /**
+     * Constructor.
+     * @param dictionary runtime dictionary, required
+     * @param options options, required
+     */
+    public RuntimeFlatTemplate(RuntimeNaaccrDictionary dictionary, NaaccrOptions options) {
+        List<RuntimeNaaccrDictionaryItem> items = new ArrayList<>();
+        RuntimeNaaccrDictionaryItem recordTypeItem = null, naaccrVersionItem = null;
+        int lineLength = dictionary.getLineLength() == null ? 0 : Math.max(0, dictionary.getLineLength());
+        for (RuntimeNaaccrDictionaryItem item : dictionary.getItems()) {
+            // as of spec 1.1, the start column is optional for user-defined items, so let's ignore those
+            if (item.getStartColumn() == null || item.getLength() == null)
+                continue;
+            if (NaaccrXmlUtils.FLAT_FILE_FORMAT_ITEM_REC_TYPE.equals(item.getNaaccrId()) && dictionary.getRecordType() != null)
+                recordTypeItem = item;
+            if (NaaccrXmlUtils.FLAT_FILE_FORMAT_ITEM_NAACCR_VERSION.equals(item.getNaaccrId()) && dictionary.getNaaccrVersion() != null)
+                naaccrVersionItem = item;
+            if (item.getParentXmlElement() != null && NaaccrOptions.processItem(options, item.getNaaccrId())) {
+                items.add(item);
+                lineLength = Math.max(lineLength, item.getStartColumn() - 1 + item.getLength());
+            }
+        }
+
+        int size = items.size();
+        _items = items.toArray(new RuntimeNaaccrDictionaryItem[0]);
+        _starts = new int[size];
+        _lengths = new int[size];
+        _levels = new byte[size];
+        _stamped = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            RuntimeNaaccrDictionaryItem item = _items[i];
+            _stamped[i] = item == recordTypeItem || item == naaccrVersionItem;
+            _starts[i] = item.getStartColumn() - 1; // dictionary is 1-based
+            _lengths[i] = item.getLength();
+            String parent = item.getParentXmlElement();
+            if (NaaccrXmlUtils.NAACCR_XML_TAG_ROOT.equals(parent))
+                _levels[i] = RuntimeFlatLayout.LEVEL_ROOT;
+            else if (NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT.equals(parent))
+                _levels[i] = RuntimeFlatLayout.LEVEL_PATIENT;
+            else if (NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR.equals(parent))
+                _levels[i] = RuntimeFlatLayout.LEVEL_TUMOR;
+            else
+                _levels[i] = -1;
+        }
+
+        _template = new char[lineLength];
+        Arrays.fill(_template, ' ');
+        stamp(recordTypeItem, dictionary.getRecordType());
+        stamp(naaccrVersionItem, dictionary.getNaaccrVersion());
+    }
+
+    private void stamp(RuntimeNaaccrDictionaryItem item, String value) {
+        if (item != null)
+            value.getChars(0, Math.min(value.length(), item.getLength()), _template, item.getStartColumn() - 1);
+    }
+
+    /**
+     * Returns the key identifying the templates compiled for options equivalent to the provided ones; it contains a copy of every option input that
+     * affects the template.
+     * @param options options, required
+     * @return the corresponding key, never null
+     */
+    static List<Object> getCacheKey(NaaccrOptions options) {
+        return Arrays.asList(options.getItemsToInclude() == null ? null : new ArrayList<>(options.getItemsToInclude()),
+                options.getItemsToExclude() == null ? null : new ArrayList<>(options.getItemsToExclude()));
+    }
+
+    /**
+     * Returns the length of the lines created with this template.
+     */
+    public int getLineLength() {
+        return _template.length;
+    }
+
+    /**
+     * Creates a buffer that can be used to write the lines.
+     */
+    public char[] createLineBuffer() {
+        return new char[_template.length];
+    }
+
+    /**
+     * Writes the values of the provided entities into the provided line buffer; the buffer is fully overridden.
+     * @param line line buffer (see createLineBuffer())
+     * @param root root data, if null the root items are left blank
+     * @param patient patient, required
+     * @param tumor tumor, if null the tumor items are left blank
+     * @param options options, required
+     * @throws NaaccrIOException if an item has an unsupported parent element
+     */
+    public void writeLine(char[] line, NaaccrData root, Patient patient, Tumor tumor, NaaccrOptions options) throws NaaccrIOException {
+        System.arraycopy(_template, 0, line, 0, _template.length);
+
+        boolean applyZeroPadding = Boolean.TRUE.equals(options.getApplyZeroPaddingRules());
+        boolean reportValuesTooLong = Boolean.TRUE.equals(options.getReportValuesTooLong());
+        for (int i = 0; i < _items.length; i++) {
+            AbstractEntity entity;
+            if (_levels[i] == RuntimeFlatLayout.LEVEL_TUMOR)
+                entity = tumor;
+            else if (_levels[i] == RuntimeFlatLayout.LEVEL_PATIENT)
+                entity = patient;
+            else if (_levels[i] == RuntimeFlatLayout.LEVEL_ROOT)
+                entity = root;
+            else
+                throw new NaaccrIOException("unsupported parent element: " + _items[i].getParentXmlElement());
+            if (entity == null)
+                continue;
+
+            String value = entity.getItemValue(_items[i].getNaaccrId());
+            if (value == null || value.isEmpty())
+                continue;
+            if (!_stamped[i])
+                writeValue(line, _starts[i], _lengths[i], _items[i], entity, value, applyZeroPadding, reportValuesTooLong);
+            else if (value.length() > _lengths[i] && reportValuesTooLong && !Boolean.TRUE.equals(_items[i].getAllowUnlimitedText())) {
+                // the value is not written, but it is still reported if it's too long (padding can't make a value too long, sanitizing could make it shorter)
+                value = ItemValueSanitizer.sanitize(value, ' ', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP);
+                if (value.length() > _lengths[i])
+                    reportError(entity, _items[i], value, NaaccrErrorUtils.CODE_VAL_TOO_LONG, _lengths[i], value.length());
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the provided item as it would be written in a flat line: padded, with its new lines replaced by spaces and truncated to
+     * the length of the item (an error is reported on the entity if the value is too long and that was requested).
+     * @param itemDef item definition, required
+     * @param entity entity containing the value, required
+     * @param applyZeroPadding whether the zero padding rules should be applied
+     * @param reportValuesTooLong whether an error should be reported on the entity when the value is too long
+     * @return the formatted value, null if the entity doesn't contain a value for the item
+     */
+    public static String formatValue(RuntimeNaaccrDictionaryItem itemDef, AbstractEntity entity, boolean applyZeroPadding, boolean reportValuesTooLong) {
+        String value = entity.getItemValue(itemDef.getNaaccrId());
+        if (value == null || value.isEmpty())
+            return value;
+
+        char[] buffer = new char[itemDef.getLength()];
+        Arrays.fill(buffer, ' ');
+        int end = writeValue(buffer, 0, buffer.length, itemDef, entity, value, applyZeroPadding, reportValuesTooLong);
+        return new String(buffer, 0, end);
+    }
+
+    // returns the end (exclusive) of the value written in the line, including its padding
+    private static int writeValue(char[] line, int start, int length, RuntimeNaaccrDictionaryItem itemDef, AbstractEntity entity, String value, boolean applyZeroPadding,
+            boolean reportValuesTooLong) {
+        String padding = itemDef.getPadding();
+
+        // the new lines are replaced by a space; that can change the length of the value, in which case the padding has to be applied first
+        String sanitized = ItemValueSanitizer.sanitize(value, ' ', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP);
+        if (sanitized != value) {
+            if (padding != null && value.length() < length)
+                value = pad(value, length, padding, applyZeroPadding);
+            value = ItemValueSanitizer.sanitize(value, ' ', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP);
+            padding = null;
+        }
+        else if (padding != null && value.length() < length && !isSupportedPadding(padding))
+            throw new IllegalStateException("Unknown padding option: " + padding);
+
+        // for flat-file values, we always have to truncate, so the "allowUnlimitedText" is used only to know if we have to report an error
+        int valueLength = value.length();
+        if (valueLength > length) {
+            if (!Boolean.TRUE.equals(itemDef.getAllowUnlimitedText()) && reportValuesTooLong)
+                reportError(entity, itemDef, value, NaaccrErrorUtils.CODE_VAL_TOO_LONG, length, valueLength);
+            valueLength = length;
+        }
+
+        // apply the padding directly in the line (the space padding is always applied because the template contains only spaces)
+        int offset = start;
+        int end = start + valueLength;
+        if (valueLength < length) {
+            if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_BLANK.equals(padding))
+                offset = start + length - valueLength;
+            else if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_ZERO.equals(padding) && applyZeroPadding) {
+                offset = start + length - valueLength;
+                Arrays.fill(line, start, offset, '0');
+            }
+            else if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_ZERO.equals(padding) && applyZeroPadding)
+                Arrays.fill(line, end, start + length, '0');
+            if (offset != start || NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_BLANK.equals(padding)
+                    || (NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_ZERO.equals(padding) && applyZeroPadding))
+                end = start + length;
+        }
+        value.getChars(0, valueLength, line, offset);
+        return end;
+    }
+
+    private static String pad(String value, int length, String padding, boolean applyZeroPadding) {
+        if (!isSupportedPadding(padding))
+            throw new IllegalStateException("Unknown padding option: " + padding);
+        if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_BLANK.equals(padding))
+            return StringUtils.leftPad(value, length, ' ');
+        if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_BLANK.equals(padding))
+            return StringUtils.rightPad(value, length, ' ');
+        if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_ZERO.equals(padding) && applyZeroPadding)
+            return StringUtils.leftPad(value, length, '0');
+        if (NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_ZERO.equals(padding) && applyZeroPadding)
+            return StringUtils.rightPad(value, length, '0');
+        return value;
+    }
+
+    private static boolean isSupportedPadding(String padding) {
+        return NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_BLANK.equals(padding) || NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_BLANK.equals(padding)
+                || NaaccrXmlDictionaryUtils.NAACCR_PADDING_LEFT_ZERO.equals(padding) || NaaccrXmlDictionaryUtils.NAACCR_PADDING_RIGHT_ZERO.equals(padding)
+                || NaaccrXmlDictionaryUtils.NAACCR_PADDING_NONE.equals(padding);
+    }
+
+    /**
+     * Reports a validation error on the provided entity.
+     * @param entity entity to report the error on, required
+     * @param def item definition, optional
+     * @param value value, optional
+     * @param code error code, required
+     * @param msgValues values of the error message
+     */
+    public static void reportError(AbstractEntity entity, RuntimeNaaccrDictionaryItem def, String value, String code, Object... msgValues) {
+        NaaccrValidationError error = new NaaccrValidationError(code, msgValues);
+        if (def != null) {
+            error.setNaaccrId(def.getNaaccrId());
+            error.setNaaccrNum(def.getNaaccrNum());
+        }
+        if (value != null && !value.isEmpty())
+            error.setValue(value);
+        entity.addValidationError(error);
+    }
+}
@@ -4,25 +4,34 @@
 package com.imsweb.naaccrxml.runtime;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 
 import com.imsweb.naaccrxml.NaaccrFormat;
 import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrOptions;
 import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+import com.imsweb.naaccrxml.entity.ItemSlotIndex;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
 
 public class RuntimeNaaccrDictionary {
 
+    // the maximum number of flat layouts and templates cached per dictionary (the caches are cleared when reached)
+    private static final int _MAX_CACHED_FLAT_OBJECTS = 16;
+
     // used to uniquely identify a runtime dictionary (based on the URI of the base and user dictionaries)
     private final String _id;
 
@@ -30,10 +39,19 @@ public class RuntimeNaaccrDictionary {
     private final NaaccrFormat _format;
 
     // the items for this runtime dictionary
-    private List<RuntimeNaaccrDictionaryItem> _items;
+    private final List<RuntimeNaaccrDictionaryItem> _items;
 
     // caches used to improve lookup performances
-    private Map<String, RuntimeNaaccrDictionaryItem> _cachedById;
+    private volatile Map<String, RuntimeNaaccrDictionaryItem> _cachedById;
+
+    // the slot indexes used by the entities storing their items in a compact way, keyed by parent XML element
+    private volatile Map<String, ItemSlotIndex> _cachedSlotIndexes;
+
+    // the flat layouts compiled for this dictionary, keyed by the options they were compiled for (see RuntimeFlatLayout.getCacheKey())
+    private final Map<List<Object>, RuntimeFlatLayout> _cachedFlatLayouts = new ConcurrentHashMap<>();
+
+    // the flat templates compiled for this dictionary, keyed by the options they were compiled for (see RuntimeFlatTemplate.getCacheKey())
+    private final Map<List<Object>, RuntimeFlatTemplate> _cachedFlatTemplates = new ConcurrentHashMap<>();
 
     /**
      * Constructor.
@@ -70,15 +88,15 @@ public class RuntimeNaaccrDictionary {
         }
 
         _format = NaaccrFormat.getInstance(baseDictionary.getNaaccrVersion(), recordType);
-        _items = new ArrayList<>();
+        List<RuntimeNaaccrDictionaryItem> items = new ArrayList<>();
         for (NaaccrDictionaryItem item : baseDictionary.getItems())
             if (item.getRecordTypes() == null || Strings.CS.contains(item.getRecordTypes(), recordType))
-                _items.add(new RuntimeNaaccrDictionaryItem(item));
+                items.add(new RuntimeNaaccrDictionaryItem(item));
         Set<String> processedIds = new HashSet<>();
         for (NaaccrDictionary userDictionary : dictionaries) {
             for (NaaccrDictionaryItem item : userDictionary.getItems()) {
                 if ((item.getRecordTypes() == null || Strings.CS.contains(item.getRecordTypes(), recordType) && !processedIds.contains(item.getNaaccrId()))) {
-                    _items.add(new RuntimeNaaccrDictionaryItem(item));
+                    items.add(new RuntimeNaaccrDictionaryItem(item));
                     processedIds.add(item.getNaaccrId());
                 }
             }
@@ -86,7 +104,7 @@ public class RuntimeNaaccrDictionary {
 
         // sort the fields by starting columns (no start columns go to the end) for older version, by ID for new ones
         if (Integer.parseInt(_format.getNaaccrVersion()) <= 180) {
-            _items.sort((o1, o2) -> {
+            items.sort((o1, o2) -> {
                 if (o1.getStartColumn() == null)
                     return 1;
                 if (o2.getStartColumn() == null)
@@ -95,7 +113,10 @@ public class RuntimeNaaccrDictionary {
             });
         }
         else
-            _items.sort(Comparator.comparing(RuntimeNaaccrDictionaryItem::getNaaccrId));
+            items.sort(Comparator.comparing(RuntimeNaaccrDictionaryItem::getNaaccrId));
+
+        // runtime dictionaries are shared (see RuntimeNaaccrDictionaryCache), so they can't be modified
+        _items = Collections.unmodifiableList(items);
     }
 
     public String getId() {
@@ -115,20 +136,83 @@ public class RuntimeNaaccrDictionary {
     }
 
     public List<RuntimeNaaccrDictionaryItem> getItems() {
-        if (_items == null)
-            _items = new ArrayList<>();
         return _items;
     }
 
     public RuntimeNaaccrDictionaryItem getItemByNaaccrId(String id) {
-        if (_cachedById == null) {
-            Map<String, RuntimeNaaccrDictionaryItem> cache = new HashMap<>();
+        Map<String, RuntimeNaaccrDictionaryItem> cache = _cachedById;
+        if (cache == null) {
+            cache = new HashMap<>();
             for (RuntimeNaaccrDictionaryItem item : _items)
                 if (item.getNaaccrId() != null)
                     cache.put(item.getNaaccrId(), item);
             _cachedById = cache;
         }
-        return _cachedById.get(id);
+        return cache.get(id);
+    }
+
+    /**
+     * Returns the slot index for the items of the requested level; the index is computed only once and shared by all the entities
+     * using a compact storage for their items (see AbstractEntity.useCompactItemStorage()).
+     * @param parentXmlElement parent XML element (NaaccrData, Patient or Tumor)
+     * @return the corresponding slot index, never null
+     */
+    public ItemSlotIndex getItemSlotIndex(String parentXmlElement) {
+        Map<String, ItemSlotIndex> indexes = _cachedSlotIndexes;
+        if (indexes == null) {
+            Map<String, List<String>> ids = new HashMap<>();
+            Map<String, List<Integer>> nums = new HashMap<>();
+            Set<String> processedIds = new HashSet<>();
+            for (RuntimeNaaccrDictionaryItem item : getItems()) {
+                if (item.getNaaccrId() != null && item.getParentXmlElement() != null && processedIds.add(item.getNaaccrId())) {
+                    ids.computeIfAbsent(item.getParentXmlElement(), k -> new ArrayList<>()).add(item.getNaaccrId());
+                    nums.computeIfAbsent(item.getParentXmlElement(), k -> new ArrayList<>()).add(item.getNaaccrNum());
+                }
+            }
+            indexes = new HashMap<>();
+            for (String element : Arrays.asList(NaaccrXmlUtils.NAACCR_XML_TAG_ROOT, NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT, NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR))
+                indexes.put(element, new ItemSlotIndex(ids.getOrDefault(element, Collections.emptyList()), nums.getOrDefault(element, Collections.emptyList())));
+            _cachedSlotIndexes = indexes;
+        }
+
+        ItemSlotIndex index = indexes.get(parentXmlElement);
+        if (index == null)
+            throw new IllegalStateException("Unsupported parent XML element: " + parentXmlElement);
+        return index;
+    }
+
+    /**
+     * Returns the flat layout for this dictionary and the provided options; the layouts are cached per combination of the options affecting them,
+     * so a dictionary shared by readers using different options doesn't re-compile its layouts.
+     * @param options options, required
+     * @return the corresponding flat layout, never null
+     */
+    public RuntimeFlatLayout getFlatLayout(NaaccrOptions options) {
+        List<Object> key = RuntimeFlatLayout.getCacheKey(options);
+        RuntimeFlatLayout layout = _cachedFlatLayouts.get(key);
+        if (layout == null) {
+            if (_cachedFlatLayouts.size() >= _MAX_CACHED_FLAT_OBJECTS)
+                _cachedFlatLayouts.clear();
+            layout = _cachedFlatLayouts.computeIfAbsent(key, k -> new RuntimeFlatLayout(this, options));
+        }
+        return layout;
+    }
+
+    /**
+     * Returns the flat template for this dictionary and the provided options; the templates are cached per combination of the options affecting
+     * them, like the flat layouts.
+     * @param options options, required
+     * @return the corresponding flat template, never null
+     */
+    public RuntimeFlatTemplate getFlatTemplate(NaaccrOptions options) {
+        List<Object> key = RuntimeFlatTemplate.getCacheKey(options);
+        RuntimeFlatTemplate template = _cachedFlatTemplates.get(key);
+        if (template == null) {
+            if (_cachedFlatTemplates.size() >= _MAX_CACHED_FLAT_OBJECTS)
+                _cachedFlatTemplates.clear();
+            template = _cachedFlatTemplates.computeIfAbsent(key, k -> new RuntimeFlatTemplate(this, options));
+        }
+        return template;
     }
 
     /**
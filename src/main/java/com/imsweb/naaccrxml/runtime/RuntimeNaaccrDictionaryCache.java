@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+
+/**
+ * A process-wide cache of runtime dictionaries; creating a runtime dictionary requires the base and user dictionaries to be validated and the
+ * validation patterns to be compiled, so the readers and writers use this cache to share the runtime dictionaries instead of creating their own.
+ * <br/><br/>
+ * The dictionaries are keyed by their ID (see RuntimeNaaccrDictionary.computeId()) and the versions of the base and user dictionaries; each cached
+ * runtime dictionary also keeps a reference to the dictionaries it was created from, and a cached dictionary is returned only if the requested
+ * dictionaries are the same instances (so a lookup never has to compare the items of the dictionaries). Two different dictionary instances using the
+ * same URI and versions therefore never share the same runtime dictionary; the last one to be requested replaces the other one in the cache. The
+ * cache is bounded, the least recently used dictionary is evicted when the maximum size is reached.
+ * <br/><br/>
+ * The dictionaries provided to this cache must not be modified afterward (the base and default user dictionaries provided by this library are never
+ * modified); to use a modified dictionary, create a new instance (for example with NaaccrXmlDictionaryUtils.readDictionary()).
+ */
+public final class RuntimeNaaccrDictionaryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    // the cached runtime dictionaries, in access order
+    private static final Map<String, CacheEntry> _CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    // the maximum number of runtime dictionaries to keep
+    private static int _MAX_SIZE = DEFAULT_MAX_SIZE;
+
+    // counters
+    private static final AtomicLong _HIT_COUNT = new AtomicLong();
+    private static final AtomicLong _MISS_COUNT = new AtomicLong();
+    private static final AtomicLong _EVICTION_COUNT = new AtomicLong();
+
+    private RuntimeNaaccrDictionaryCache() {
+        // no instances for this class
+    }
+
+    /**
+     * Returns the runtime dictionary corresponding to the provided record type, base and user dictionaries, creating it if it's not cached yet.
+     * @param recordType record type (required)
+     * @param baseDictionary base dictionary (required)
+     * @param userDictionaries user dictionaries (optional)
+     * @return the corresponding runtime dictionary, never null
+     * @throws NaaccrIOException if the runtime dictionary cannot be successfully created
+     */
+    public static RuntimeNaaccrDictionary getRuntimeDictionary(String recordType, NaaccrDictionary baseDictionary, Collection<NaaccrDictionary> userDictionaries) throws NaaccrIOException {
+        if (recordType == null || baseDictionary == null)
+            return new RuntimeNaaccrDictionary(recordType, baseDictionary, userDictionaries); // let the constructor report the problem
+
+        String key = computeKey(recordType, baseDictionary, userDictionaries);
+
+        synchronized (_CACHE) {
+            CacheEntry entry = _CACHE.get(key);
+            if (entry != null && entry.matches(baseDictionary, userDictionaries)) {
+                _HIT_COUNT.incrementAndGet();
+                return entry._dictionary;
+            }
+        }
+
+        // the dictionary is created outside the lock; two threads might end up creating the same dictionary, but only one of them will be cached
+        _MISS_COUNT.incrementAndGet();
+        RuntimeNaaccrDictionary dictionary = new RuntimeNaaccrDictionary(recordType, baseDictionary, userDictionaries);
+        CacheEntry entry = new CacheEntry(dictionary, baseDictionary, userDictionaries);
+
+        synchronized (_CACHE) {
+            CacheEntry existing = _CACHE.get(key);
+            if (existing != null && existing.matches(baseDictionary, userDictionaries))
+                return existing._dictionary;
+            _CACHE.put(key, entry);
+            evict();
+        }
+
+        return dictionary;
+    }
+
+    /**
+     * Returns the number of requests that were served from the cache.
+     */
+    public static long getHitCount() {
+        return _HIT_COUNT.get();
+    }
+
+    /**
+     * Returns the number of requests that required a runtime dictionary to be created.
+     */
+    public static long getMissCount() {
+        return _MISS_COUNT.get();
+    }
+
+    /**
+     * Returns the number of runtime dictionaries that were evicted from the cache because its maximum size was reached.
+     */
+    public static long getEvictionCount() {
+        return _EVICTION_COUNT.get();
+    }
+
+    /**
+     * Returns the number of runtime dictionaries currently cached.
+     */
+    public static int getSize() {
+        synchronized (_CACHE) {
+            return _CACHE.size();
+        }
+    }
+
+    /**
+     * Returns the maximum number of runtime dictionaries that can be cached.
+     */
+    public static int getMaxSize() {
+        synchronized (_CACHE) {
+            return _MAX_SIZE;
+        }
+    }
+
+    /**
+     * Sets the maximum number of runtime dictionaries that can be cached (0 disables the caching); the least recently used dictionaries are evicted
+     * if the cache contains more dictionaries than the new maximum.
+     * @param maxSize maximum size, must be positive or zero
+     */
+    public static void setMaxSize(int maxSize) {
+        if (maxSize < 0)
+            throw new IllegalStateException("Maximum size must be positive or zero");
+        synchronized (_CACHE) {
+            _MAX_SIZE = maxSize;
+            evict();
+        }
+    }
+
+    /**
+     * Clears the cached runtime dictionaries and resets the counters.
+     */
+    public static void clear() {
+        synchronized (_CACHE) {
+            _CACHE.clear();
+            _HIT_COUNT.set(0);
+            _MISS_COUNT.set(0);
+            _EVICTION_COUNT.set(0);
+        }
+    }
+
+    // must be called while holding the lock on the cache
+    private static void evict() {
+        Iterator<Map.Entry<String, CacheEntry>> iterator = _CACHE.entrySet().iterator();
+        while (_CACHE.size() > _MAX_SIZE && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            _EVICTION_COUNT.incrementAndGet();
+        }
+    }
+
+    /**
+     * Computes the key for the provided dictionaries; the key is made of the ID of the runtime dictionary and the versions of the dictionaries.
+     */
+    static String computeKey(String recordType, NaaccrDictionary baseDictionary, Collection<NaaccrDictionary> userDictionaries) {
+        StringBuilder buf = new StringBuilder(RuntimeNaaccrDictionary.computeId(recordType, baseDictionary, userDictionaries));
+        buf.append("#").append(baseDictionary.getNaaccrVersion()).append(";").append(baseDictionary.getSpecificationVersion());
+        if (userDictionaries != null)
+            for (NaaccrDictionary userDictionary : userDictionaries)
+                if (userDictionary != null)
+                    buf.append("#").append(userDictionary.getNaaccrVersion()).append(";").append(userDictionary.getSpecificationVersion());
+        return buf.toString();
+    }
+
+    // returns the non-null user dictionaries
+    private static List<NaaccrDictionary> getUserDictionaries(Collection<NaaccrDictionary> userDictionaries) {
+        if (userDictionaries == null || userDictionaries.isEmpty())
+            return Collections.emptyList();
+        List<NaaccrDictionary> result = new ArrayList<>(userDictionaries.size());
+        for (NaaccrDictionary userDictionary : userDictionaries)
+            if (userDictionary != null)
+                result.add(userDictionary);
+        return result;
+    }
+
+    private static final class CacheEntry {
+
+        // the cached runtime dictionary
+        private final RuntimeNaaccrDictionary _dictionary;
+
+        // the base and user dictionaries the runtime dictionary was created from
+        private final NaaccrDictionary _baseDictionary;
+        private final List<NaaccrDictionary> _userDictionaries;
+
+        private CacheEntry(RuntimeNaaccrDictionary dictionary, NaaccrDictionary baseDictionary, Collection<NaaccrDictionary> userDictionaries) {
+            _dictionary = dictionary;
+            _baseDictionary = baseDictionary;
+            _userDictionaries = getUserDictionaries(userDictionaries);
+        }
+
+        // returns true if the provided dictionaries are the same instances as the ones this entry was created from
+        private boolean matches(NaaccrDictionary baseDictionary, Collection<NaaccrDictionary> userDictionaries) {
+            if (baseDictionary != _baseDictionary)
+                return false;
+            int idx = 0;
+            if (userDictionaries != null)
+                for (NaaccrDictionary userDictionary : userDictionaries)
+                    if (userDictionary != null && (idx >= _userDictionaries.size() || userDictionary != _userDictionaries.get(idx++)))
+                        return false;
+            return idx == _userDictionaries.size();
+        }
+    }
+}
@@ -5,7 +5,9 @@ package com.imsweb.naaccrxml.runtime;
 
 import java.util.regex.Pattern;
 
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
+import com.imsweb.naaccrxml.internal.NaaccrXmlDirectWriter;
 
 public class RuntimeNaaccrDictionaryItem {
 
@@ -23,12 +25,25 @@ public class RuntimeNaaccrDictionaryItem {
 
     private Pattern _regexValidation;
 
+    // the validator compiled from the regular expression (null if the item doesn't define one)
+    private DataTypeValidator _regexValidator;
+
     private String _dataType;
 
+    // the validator of the data type (null if the values don't need to be validated), and whether the values need to be fully filled-in
+    private DataTypeValidator _dataTypeValidator;
+
+    private boolean _fullLengthRequired;
+
     private String _trim;
 
     private String _padding;
 
+    // pre-computed XML start tags, used by the direct writing engine
+    private char[] _xmlStartTag;
+
+    private char[] _xmlStartTagWithNum;
+
     public RuntimeNaaccrDictionaryItem(NaaccrDictionaryItem item) {
         _naaccrId = item.getNaaccrId();
         _naaccrNum = item.getNaaccrNum();
@@ -36,11 +51,19 @@ public class RuntimeNaaccrDictionaryItem {
         _length = item.getLength();
         _allowUnlimitedText = item.getAllowUnlimitedText();
         _parentXmlElement = item.getParentXmlElement();
-        if (item.getRegexValidation() != null)
+        if (item.getRegexValidation() != null) {
             _regexValidation = Pattern.compile(item.getRegexValidation());
+            _regexValidator = RegexValidators.compile(_regexValidation);
+        }
         _dataType = item.getDataType();
+        _dataTypeValidator = DataTypeValidators.getValidator(_dataType);
+        _fullLengthRequired = NaaccrXmlDictionaryUtils.isFullLengthRequiredForType(_dataType);
         _trim = item.getTrim();
         _padding = item.getPadding();
+        if (_naaccrId != null) {
+            _xmlStartTag = NaaccrXmlDirectWriter.createItemStartTag(_naaccrId, null);
+            _xmlStartTagWithNum = _naaccrNum == null ? _xmlStartTag : NaaccrXmlDirectWriter.createItemStartTag(_naaccrId, _naaccrNum);
+        }
     }
 
     public String getNaaccrId() {
@@ -71,10 +94,22 @@ public class RuntimeNaaccrDictionaryItem {
         return _regexValidation;
     }
 
+    public DataTypeValidator getRegexValidator() {
+        return _regexValidator;
+    }
+
     public String getDataType() {
         return _dataType;
     }
 
+    public DataTypeValidator getDataTypeValidator() {
+        return _dataTypeValidator;
+    }
+
+    public boolean isFullLengthRequired() {
+        return _fullLengthRequired;
+    }
+
     public String getPadding() {
         return _padding;
     }
@@ -82,4 +117,13 @@ public class RuntimeNaaccrDictionaryItem {
     public String getTrim() {
         return _trim;
     }
+
+    /**
+     * Returns the XML start tag of this item (including the closing bracket).
+     * @param includeNaaccrNum whether the NAACCR Number should be included (it's never included if this item doesn't have a number)
+     * @return the start tag, null if this item doesn't have a NAACCR ID
+     */
+    public char[] getXmlStartTag(boolean includeNaaccrNum) {
+        return includeNaaccrNum ? _xmlStartTagWithNum : _xmlStartTag;
+    }
 }
@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.sas;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * An input stream decompressing GZIP data using background threads.
+ * <br/><br/>
+ * The members created by SasParallelGzipOutputStream contain their compressed size in their header; those members are read ahead and decompressed
+ * in parallel by a pool of threads, and their bytes are returned in order. Any other GZIP data (like a file created with a single member by
+ * another tool) is decompressed by a single background thread, so that the decompression happens while the calling thread is consuming the
+ * previous bytes.
+ * <br/><br/>
+ * Like the JDK GZIPInputStream, the stream fails at creation if the data doesn't start with a GZIP header, and the bytes following the last
+ * member are ignored if they are not a GZIP member.
+ * <br/><br/>
+ * This class is not thread-safe; it should be used by a single thread.
+ * <br/><br/>
+ * This is a Java 8 compatible copy of the ParallelGzipInputStream class of the main library, which can't be used by the SAS library; the two classes
+ * must be kept in sync (this is checked by SasUtilsTest).
+ */
+public class SasParallelGzipInputStream extends InputStream {
+
+    // the size of the chunks returned by the background thread when the members can't be decompressed in parallel
+    private static final int _CHUNK_SIZE = 64 * 1024;
+
+    private static final int _TRAILER_SIZE = 8;
+
+    // the maximum size of a member read in memory to be decompressed in parallel; a bigger size doesn't come from SasParallelGzipOutputStream with
+    // its default block size (or is corrupted), so such member is decompressed by the background thread as it's read, like any other GZIP data
+    private static final int _MAX_SIZED_MEMBER_SIZE = 4 * SasParallelGzipOutputStream.DEFAULT_BLOCK_SIZE;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    // marker for the end of the data
+    private static final Object _END_OF_DATA = new Object();
+
+    private final PushbackInputStream _in;
+
+    private final int _numThreads;
+
+    // the members being decompressed in parallel, in the order they need to be returned (the pool is created when the first member is found)
+    private ExecutorService _executor;
+
+    private final Deque<Future<byte[]>> _pendingMembers;
+
+    // whether no more member can be decompressed in parallel (end of the data, or a member without its size)
+    private boolean _noMoreSizedMembers;
+
+    // whether at least one member has been found
+    private boolean _memberFound;
+
+    // the thread decompressing the remaining data when the members can't be decompressed in parallel, and the decompressed chunks
+    private Thread _thread;
+
+    private BlockingQueue<Object> _chunks;
+
+    // the bytes being returned
+    private byte[] _buffer;
+
+    private int _pos;
+
+    private boolean _endReached;
+
+    private IOException _failure;
+
+    private boolean _closed;
+
+    /**
+     * Constructor, using as many threads as available processors.
+     * @param in compressed data
+     * @throws IOException if the data doesn't start with a GZIP header
+     */
+    public SasParallelGzipInputStream(InputStream in) throws IOException {
+        this(in, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * @param in compressed data
+     * @param numThreads maximum number of threads decompressing the members in parallel, must be at least 1
+     * @throws IOException if the data doesn't start with a GZIP header
+     */
+    public SasParallelGzipInputStream(InputStream in, int numThreads) throws IOException {
+        if (numThreads < 1)
+            throw new IllegalStateException("Number of threads must be at least 1");
+        _in = new PushbackInputStream(in, SasParallelGzipOutputStream.MEMBER_HEADER_SIZE);
+        _numThreads = numThreads;
+        _pendingMembers = new ArrayDeque<>();
+
+        // same validation as the JDK stream
+        byte[] magic = new byte[2];
+        int n = readFully(magic, 0, 2);
+        if (n < 2 || (magic[0] & 0xff) != 0x1f || (magic[1] & 0xff) != 0x8b) {
+            _in.close();
+            throw n < 2 ? new EOFException() : new ZipException("Not in GZIP format");
+        }
+        _in.unread(magic, 0, 2);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBuffer())
+            return -1;
+        return _buffer[_pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (!ensureBuffer())
+            return -1;
+        int n = Math.min(len, _buffer.length - _pos);
+        System.arraycopy(_buffer, _pos, b, off, n);
+        _pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (_closed)
+            throw new IOException("Stream closed");
+        return _buffer == null ? 0 : _buffer.length - _pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_closed)
+            return;
+        _closed = true;
+
+        if (_executor != null)
+            _executor.shutdownNow();
+        _pendingMembers.clear();
+
+        // stop the background thread (this preserves the interrupted status of the calling thread)
+        if (_thread != null) {
+            _thread.interrupt();
+            boolean interrupted = Thread.interrupted();
+            while (_thread.isAlive()) {
+                try {
+                    _thread.join();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            _chunks.clear();
+        }
+
+        _in.close();
+    }
+
+    /**
+     * Makes sure there are bytes to return in the buffer; returns false if the end of the data has been reached.
+     */
+    private boolean ensureBuffer() throws IOException {
+        if (_closed)
+            throw new IOException("Stream closed");
+        if (_failure != null)
+            throw _failure;
+        while (_buffer == null || _pos == _buffer.length) {
+            if (_endReached)
+                return false;
+            try {
+                _buffer = nextBuffer();
+            }
+            catch (IOException e) {
+                _failure = e;
+                throw e;
+            }
+            _pos = 0;
+            if (_buffer == null) {
+                _endReached = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next decompressed bytes, null if there is no more data.
+     */
+    private byte[] nextBuffer() throws IOException {
+        if (_chunks != null) {
+            Object next;
+            try {
+                next = _chunks.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decompressing the data");
+            }
+            if (next == _END_OF_DATA)
+                return null;
+            if (next instanceof IOException)
+                throw (IOException)next;
+            return (byte[])next;
+        }
+
+        submitMembers();
+        Future<byte[]> future = _pendingMembers.poll();
+        if (future == null) {
+            if (isEndOfData())
+                return null;
+            startBackgroundThread();
+            return nextBuffer();
+        }
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompressing the data");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the next members (as long as they contain their size) and submits them to the pool of threads.
+     */
+    private void submitMembers() throws IOException {
+        while (!_noMoreSizedMembers && _pendingMembers.size() < _numThreads * 2) {
+            byte[] member = readSizedMember();
+            if (member == null)
+                _noMoreSizedMembers = true;
+            else {
+                if (_executor == null)
+                    _executor = Executors.newFixedThreadPool(_numThreads, r -> {
+                        Thread thread = new Thread(r, "naaccr-xml-sas-gunzip-" + _THREAD_COUNTER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                _pendingMembers.add(_executor.submit(() -> decompress(member)));
+                _memberFound = true;
+            }
+        }
+    }
+
+    /**
+     * Reads the next member if its header contains a reasonable size (the header is pushed back otherwise), returns null if there is no such member.
+     */
+    private byte[] readSizedMember() throws IOException {
+        byte[] header = new byte[SasParallelGzipOutputStream.MEMBER_HEADER_SIZE];
+        int n = readFully(header, 0, header.length);
+        if (n < header.length || !isSizedMemberHeader(header)) {
+            if (n > 0)
+                _in.unread(header, 0, n);
+            return null;
+        }
+
+        int size = (header[16] & 0xff) | (header[17] & 0xff) << 8 | (header[18] & 0xff) << 16 | (header[19] & 0xff) << 24;
+        if (size < 0 || size > _MAX_SIZED_MEMBER_SIZE) {
+            _in.unread(header, 0, n);
+            return null;
+        }
+        if (size < header.length + _TRAILER_SIZE)
+            throw new ZipException("Invalid GZIP member size");
+        byte[] member = new byte[size];
+        System.arraycopy(header, 0, member, 0, header.length);
+        if (readFully(member, header.length, size - header.length) < size - header.length)
+            throw new EOFException("Unexpected end of ZLIB input stream");
+        return member;
+    }
+
+    private static boolean isSizedMemberHeader(byte[] header) {
+        return (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b && header[2] == 8 && header[3] == 4 && header[10] == 8 && header[11] == 0
+                && header[12] == SasParallelGzipOutputStream.MEMBER_SIZE_SUBFIELD_ID[0] && header[13] == SasParallelGzipOutputStream.MEMBER_SIZE_SUBFIELD_ID[1]
+                && header[14] == 4 && header[15] == 0;
+    }
+
+    /**
+     * Returns true if there is no more member to read; like the JDK stream, the data following the members is ignored if it's not a GZIP member.
+     */
+    private boolean isEndOfData() throws IOException {
+        byte[] magic = new byte[2];
+        int n = readFully(magic, 0, 2);
+        if (n == 0)
+            return true;
+        if (_memberFound && (n < 2 || (magic[0] & 0xff) != 0x1f || (magic[1] & 0xff) != 0x8b))
+            return true;
+        _in.unread(magic, 0, n);
+        return false;
+    }
+
+    /**
+     * Decompresses a full member; this is executed by the pool of threads.
+     */
+    private static byte[] decompress(byte[] member) throws IOException {
+        int size = (member[member.length - 4] & 0xff) | (member[member.length - 3] & 0xff) << 8 | (member[member.length - 2] & 0xff) << 16 | (member[member.length - 1] & 0xff) << 24;
+        if (size < 0)
+            throw new ZipException("GZIP member too large");
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(member), Math.min(member.length, 65536))) {
+            byte[] result = new byte[size];
+            int total = 0;
+            while (total < size) {
+                int n = is.read(result, total, size - total);
+                if (n == -1)
+                    break;
+                total += n;
+            }
+            // reading the end of the member validates its CRC and size
+            if (total != size || is.read() != -1)
+                throw new ZipException("Corrupt GZIP trailer");
+            return result;
+        }
+    }
+
+    /**
+     * Starts the background thread decompressing the remaining data.
+     */
+    private void startBackgroundThread() {
+        _chunks = new ArrayBlockingQueue<>(4);
+        _thread = new Thread(this::decompressRemainingData, "naaccr-xml-sas-gunzip-" + _THREAD_COUNTER.incrementAndGet());
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    /**
+     * Decompresses the remaining data; this is executed by the background thread.
+     */
+    private void decompressRemainingData() {
+        try {
+            try {
+                GZIPInputStream is = new GZIPInputStream(_in, 65536);
+                byte[] chunk = new byte[_CHUNK_SIZE];
+                int count = 0;
+                int n = is.read(chunk);
+                while (n != -1) {
+                    count += n;
+                    if (count == chunk.length) {
+                        _chunks.put(chunk);
+                        chunk = new byte[_CHUNK_SIZE];
+                        count = 0;
+                    }
+                    n = is.read(chunk, count, chunk.length - count);
+                }
+                if (count > 0)
+                    _chunks.put(count == chunk.length ? chunk : Arrays.copyOf(chunk, count));
+                _chunks.put(_END_OF_DATA);
+            }
+            catch (IOException e) {
+                _chunks.put(e);
+            }
+            catch (RuntimeException e) {
+                _chunks.put(new IOException(e));
+            }
+        }
+        catch (InterruptedException e) {
+            // the stream has been closed, nothing else to do
+        }
+    }
+
+    private int readFully(byte[] b, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int n = _in.read(b, off + total, len - total);
+            if (n == -1)
+                break;
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.sas;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream compressing its bytes in the GZIP format using several threads.
+ * <br/><br/>
+ * The bytes are split into blocks of a fixed size; each block is compressed by a pool of threads into its own GZIP member, and the members are
+ * written in order to the wrapped stream. A GZIP file made of several concatenated members is standard (see RFC 1952) and can be read by any
+ * GZIP tool, including the JDK GZIPInputStream. Each block is compressed independently, so the compression ratio is very slightly worse than
+ * a single member, unless the blocks are very small.
+ * <br/><br/>
+ * The header of each member contains an extra field (see MEMBER_SIZE_SUBFIELD_ID) with the compressed size of the member; this allows a reader
+ * to find the members without decompressing them, and to decompress them in parallel.
+ * <br/><br/>
+ * This class is not thread-safe; it should be used by a single thread.
+ * <br/><br/>
+ * This is a Java 8 compatible copy of the ParallelGzipOutputStream class of the main library, which can't be used by the SAS library; the two classes
+ * must be kept in sync (this is checked by SasUtilsTest).
+ */
+public class SasParallelGzipOutputStream extends OutputStream {
+
+    // the default size of the (uncompressed) blocks
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    // the ID of the extra subfield containing the compressed size of the member (including its header and trailer), as a 4-bytes little endian value
+    public static final byte[] MEMBER_SIZE_SUBFIELD_ID = {'N', 'X'};
+
+    // the size of the header of a member
+    public static final int MEMBER_HEADER_SIZE = 20;
+
+    private static final int _TRAILER_SIZE = 8;
+
+    private static final AtomicInteger _THREAD_COUNTER = new AtomicInteger();
+
+    private final OutputStream _out;
+
+    private final int _level;
+
+    private final int _blockSize;
+
+    private final ExecutorService _executor;
+
+    // the blocks being compressed, in the order they need to be written
+    private final Deque<Future<byte[]>> _pendingMembers;
+
+    private final int _maxPendingMembers;
+
+    // the block being filled by the calling thread
+    private byte[] _block;
+
+    private int _count;
+
+    // whether at least one member has been written (an empty stream still needs one member to be a valid GZIP file)
+    private boolean _memberWritten;
+
+    private boolean _closed;
+
+    /**
+     * Constructor.
+     * @param out wrapped stream
+     * @param numThreads number of compressing threads, must be at least 1
+     * @param level compression level (0-9, or -1 for the default level)
+     */
+    public SasParallelGzipOutputStream(OutputStream out, int numThreads, int level) {
+        this(out, numThreads, level, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param out wrapped stream
+     * @param numThreads number of compressing threads, must be at least 1
+     * @param level compression level (0-9, or -1 for the default level)
+     * @param blockSize size of the uncompressed blocks, must be at least 1
+     */
+    public SasParallelGzipOutputStream(OutputStream out, int numThreads, int level, int blockSize) {
+        if (numThreads < 1)
+            throw new IllegalStateException("Number of threads must be at least 1");
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+            throw new IllegalStateException("Invalid compression level: " + level);
+        if (blockSize < 1)
+            throw new IllegalStateException("Block size must be at least 1");
+        _out = out;
+        _level = level;
+        _blockSize = blockSize;
+        _executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "naaccr-xml-sas-gzip-" + _THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        _pendingMembers = new ArrayDeque<>();
+        _maxPendingMembers = numThreads * 2;
+        _block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (_count == _block.length)
+            submitBlock();
+        _block[_count++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (_count == _block.length)
+                submitBlock();
+            int n = Math.min(len, _block.length - _count);
+            System.arraycopy(b, off, _block, _count, n);
+            _count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Compresses and writes all the bytes written so far (this ends the current member) and flushes the wrapped stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (_count > 0)
+            submitBlock();
+        while (!_pendingMembers.isEmpty())
+            writeNextMember();
+        _out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_closed)
+            return;
+        try {
+            flush();
+            if (!_memberWritten)
+                _out.write(compress(_block, 0, _level));
+        }
+        finally {
+            _closed = true;
+            _executor.shutdownNow();
+            _out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] block = _block;
+        int count = _count;
+        _pendingMembers.add(_executor.submit(() -> compress(block, count, _level)));
+        _block = new byte[_blockSize];
+        _count = 0;
+
+        // limit the number of blocks in memory
+        while (_pendingMembers.size() >= _maxPendingMembers)
+            writeNextMember();
+    }
+
+    private void writeNextMember() throws IOException {
+        Future<byte[]> future = _pendingMembers.poll();
+        if (future == null)
+            return;
+        try {
+            _out.write(future.get());
+            _memberWritten = true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing the data");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (_closed)
+            throw new IOException("Stream closed");
+    }
+
+    /**
+     * Compresses the given bytes into a full GZIP member; this is executed by the compressing threads.
+     */
+    static byte[] compress(byte[] bytes, int count, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, count);
+
+        byte[] result = new byte[MEMBER_HEADER_SIZE + count + count / 1000 + 64 + _TRAILER_SIZE];
+        int size = MEMBER_HEADER_SIZE;
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(bytes, 0, count);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (size == result.length - _TRAILER_SIZE)
+                    result = Arrays.copyOf(result, result.length * 2);
+                size += deflater.deflate(result, size, result.length - _TRAILER_SIZE - size);
+            }
+        }
+        finally {
+            deflater.end();
+        }
+
+        // trailer
+        writeInt((int)crc.getValue(), result, size);
+        writeInt(count, result, size + 4);
+        size += _TRAILER_SIZE;
+
+        // header (the modification time and extra flags are left to 0), with the extra field containing the size of the member
+        result[0] = (byte)0x1f;
+        result[1] = (byte)0x8b;
+        result[2] = Deflater.DEFLATED;
+        result[3] = 4; // FEXTRA flag
+        result[9] = (byte)255; // unknown OS
+        writeShort(8, result, 10);
+        result[12] = MEMBER_SIZE_SUBFIELD_ID[0];
+        result[13] = MEMBER_SIZE_SUBFIELD_ID[1];
+        writeShort(4, result, 14);
+        writeInt(size, result, 16);
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static void writeInt(int i, byte[] buf, int offset) {
+        writeShort(i & 0xffff, buf, offset);
+        writeShort((i >> 16) & 0xffff, buf, offset + 2);
+    }
+
+    private static void writeShort(int s, byte[] buf, int offset) {
+        buf[offset] = (byte)(s & 0xff);
+        buf[offset + 1] = (byte)((s >> 8) & 0xff);
+    }
+}
@@ -24,7 +24,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -100,38 +100,62 @@ public final class SasUtils {
     }
 
     /**
-     * Creates a reader from the given file. Support GZIP compressed files.
+     * Creates a reader from the given file. Support GZIP compressed files (decompressed by background threads).
      * @param file file to read
      * @return reader
      */
     public static BufferedReader createReader(File file) throws IOException {
         InputStream is = new FileInputStream(file);
         if (file.getName().toLowerCase().endsWith(".gz"))
-            is = new GZIPInputStream(is);
+            is = new SasParallelGzipInputStream(is);
         return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
     }
 
     /**
-     * Creates a reader from the given file. Support GZIP compressed files.
+     * Creates a reader from the given file. Support GZIP compressed files (decompressed by background threads).
      * @param is input stream to read
      * @param name name of the resource to red
      * @return reader
      */
     public static BufferedReader createReader(InputStream is, String name) throws IOException {
         if (name.toLowerCase().endsWith(".gz"))
-            is = new GZIPInputStream(is);
+            is = new SasParallelGzipInputStream(is);
         return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8), 65536);
     }
 
     /**
-     * Creates a writer from the given file. Supports GZIP compressed files.
+     * Creates a writer from the given file. Supports GZIP compressed files (compressed by the calling thread, as a single GZIP member).
      * @param file file to write
      * @return writer
      */
     public static BufferedWriter createWriter(File file) throws IOException {
+        return createWriter(file, 1, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a writer from the given file. Supports GZIP compressed files.
+     * @param file file to write
+     * @param numCompressionThreads number of threads used to compress GZIP files (1 means the data is compressed by the calling thread, as a single GZIP
+     * member; several threads create a file made of several GZIP members)
+     * @param compressionLevel compression level of GZIP files (0-9, or -1 for the default level)
+     * @return writer
+     */
+    public static BufferedWriter createWriter(File file, int numCompressionThreads, final int compressionLevel) throws IOException {
         OutputStream os = new FileOutputStream(file);
-        if (file.getName().toLowerCase().endsWith(".gz"))
-            os = new GZIPOutputStream(os);
+        if (file.getName().toLowerCase().endsWith(".gz")) {
+            if (numCompressionThreads > 1)
+                os = new SasParallelGzipOutputStream(os, numCompressionThreads, compressionLevel);
+            else if (compressionLevel == Deflater.DEFAULT_COMPRESSION)
+                os = new GZIPOutputStream(os);
+            else {
+                // the JDK stream doesn't expose the level of its deflater, but nothing has been compressed yet so it can still be changed
+                os = new GZIPOutputStream(os) {
+                    {
+                        def.setLevel(compressionLevel);
+                    }
+                };
+            }
+        }
         return new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 65536);
     }
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class AsyncPatientReaderTest {
+
+    @Test
+    public void testReader() throws IOException {
+        File flatFile = TestingUtils.createFile("async-reader.txt");
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            TestingUtils.writeFile(flatFile, reader.lines().limit(250).collect(Collectors.joining("\n")));
+        }
+        String expected = TestingUtils.readPatientsAsText(() -> new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile)));
+        for (int queueSize : new int[] {1, 3, AsyncPatientReader.DEFAULT_QUEUE_SIZE})
+            for (boolean useVirtualThread : new boolean[] {false, true})
+                Assert.assertEquals(expected, TestingUtils.readPatientsAsText(() -> new AsyncPatientReader(new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile)), queueSize,
+                        useVirtualThread)));
+
+        File xmlFile = TestingUtils.getDataFile("standard-file.xml");
+        expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(NaaccrXmlUtils.createReader(xmlFile)));
+        Assert.assertEquals(expected, TestingUtils.readPatientsAsText(() -> new AsyncPatientReader(new PatientXmlReader(NaaccrXmlUtils.createReader(xmlFile)))));
+
+        // the end of the data should be returned more than once
+        try (AsyncPatientReader reader = new AsyncPatientReader(new PatientXmlReader(NaaccrXmlUtils.createReader(xmlFile)))) {
+            Assert.assertNotNull(reader.getRootData());
+            Assert.assertNotNull(reader.readPatient());
+            Assert.assertNotNull(reader.readPatient());
+            Assert.assertNull(reader.readPatient());
+            Assert.assertNull(reader.readPatient());
+            reader.closeAndKeepAlive();
+            Assert.assertNull(reader.readPatient());
+        }
+
+        Assert.assertThrows(IllegalStateException.class, () -> new AsyncPatientReader(null));
+        Assert.assertThrows(IllegalStateException.class, () -> new AsyncPatientReader(new PatientXmlReader(NaaccrXmlUtils.createReader(xmlFile)), 0, false));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+
+        // the exception should be thrown after the patients that were read before it, with the same message and line number
+        StringBuilder buf = new StringBuilder();
+        buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        buf.append("<NaaccrData baseDictionaryUri=\"http://naaccr.org/naaccrxml/naaccr-dictionary-160.xml\" recordType=\"I\" specificationVersion=\"1.3\" xmlns=\"http://naaccr.org/naaccrxml\">\n");
+        for (int i = 1; i <= 20; i++) {
+            buf.append("    <Patient>\n");
+            if (i == 15)
+                buf.append("        <Item>00000015</Item>\n");
+            else
+                buf.append("        <Item naaccrId=\"patientIdNumber\">").append(String.format("%08d", i)).append("</Item>\n");
+            buf.append("    </Patient>\n");
+        }
+        buf.append("</NaaccrData>");
+        File file = TestingUtils.createFile("async-reader-bad.xml");
+        TestingUtils.writeFile(file, buf.toString());
+
+        String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(NaaccrXmlUtils.createReader(file)));
+        Assert.assertTrue(expected.contains("exception: "));
+        for (int queueSize : new int[] {1, 3, AsyncPatientReader.DEFAULT_QUEUE_SIZE})
+            Assert.assertEquals(expected, TestingUtils.readPatientsAsText(() -> new AsyncPatientReader(new PatientXmlReader(NaaccrXmlUtils.createReader(file)), queueSize, false)));
+
+        // the failure should be thrown again on any subsequent call
+        try (AsyncPatientReader reader = new AsyncPatientReader(new PatientXmlReader(NaaccrXmlUtils.createReader(file)))) {
+            for (int i = 1; i <= 14; i++)
+                Assert.assertNotNull(reader.readPatient());
+            NaaccrIOException ex = Assert.assertThrows(NaaccrIOException.class, reader::readPatient);
+            Assert.assertNotNull(ex.getLineNumber());
+            Assert.assertSame(ex, Assert.assertThrows(NaaccrIOException.class, reader::readPatient));
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        File flatFile = TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz");
+
+        // closing the reader before the end of the data should stop the background thread
+        AsyncPatientReader reader = new AsyncPatientReader(new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile)), 2, false);
+        Patient patient = reader.readPatient();
+        Assert.assertNotNull(patient);
+        reader.close();
+        Assert.assertFalse(reader._thread.isAlive());
+        Assert.assertThrows(NaaccrIOException.class, reader::readPatient);
+
+        // stopping the reader shouldn't close the wrapped reader
+        try (PatientFlatReader flatReader = new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile))) {
+            reader = new AsyncPatientReader(flatReader, 2, true);
+            Assert.assertNotNull(reader.readPatient());
+            reader.stop();
+            Assert.assertFalse(reader._thread.isAlive());
+            Assert.assertNotNull(flatReader.readPatient());
+        }
+
+        // closing a reader that was never used should be fine
+        reader = new AsyncPatientReader(new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile)));
+        reader.close();
+        Assert.assertNull(reader._thread);
+
+        // interrupting the calling thread should make the reader fail, with the interrupted status preserved
+        try (AsyncPatientReader reader2 = new AsyncPatientReader(new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile)))) {
+            Assert.assertNotNull(reader2.readPatient());
+            Thread.currentThread().interrupt();
+            try {
+                // the patient might already be available, in which case it's returned
+                Assert.assertThrows(NaaccrIOException.class, () -> {
+                    Patient next = reader2.readPatient();
+                    while (next != null)
+                        next = reader2.readPatient();
+                });
+                Assert.assertTrue(Thread.currentThread().isInterrupted());
+            }
+            finally {
+                Thread.interrupted();
+            }
+        }
+    }
+}
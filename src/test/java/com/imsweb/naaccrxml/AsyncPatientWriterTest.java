@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class AsyncPatientWriterTest {
+
+    @Test
+    public void testWriter() throws IOException {
+        File flatFile = TestingUtils.createFile("async-writer-source.txt");
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            TestingUtils.writeFile(flatFile, reader.lines().limit(250).collect(Collectors.joining("\n")));
+        }
+        NaaccrData data = NaaccrXmlUtils.readFlatFile(flatFile, null, null, null);
+
+        File expectedFlat = TestingUtils.createFile("async-writer-expected.txt");
+        try (PatientFlatWriter writer = new PatientFlatWriter(NaaccrXmlUtils.createWriter(expectedFlat), data)) {
+            for (Patient patient : data.getPatients())
+                writer.writePatient(patient);
+        }
+        File expectedXml = TestingUtils.createFile("async-writer-expected.xml");
+        try (PatientXmlWriter writer = new PatientXmlWriter(NaaccrXmlUtils.createWriter(expectedXml), data)) {
+            for (Patient patient : data.getPatients())
+                writer.writePatient(patient);
+        }
+
+        // the written files should be the same, whatever the size of the queue and the type of thread
+        for (int queueSize : new int[] {1, 3, AsyncPatientWriter.DEFAULT_QUEUE_SIZE}) {
+            for (boolean useVirtualThread : new boolean[] {false, true}) {
+                File flat = TestingUtils.createFile("async-writer.txt");
+                try (AsyncPatientWriter writer = new AsyncPatientWriter(new PatientFlatWriter(NaaccrXmlUtils.createWriter(flat), data), queueSize, useVirtualThread)) {
+                    for (Patient patient : data.getPatients())
+                        writer.writePatient(patient);
+                }
+                Assert.assertEquals(TestingUtils.readFileAsOneString(expectedFlat), TestingUtils.readFileAsOneString(flat));
+            }
+        }
+        File xml = TestingUtils.createFile("async-writer.xml");
+        try (AsyncPatientWriter writer = new AsyncPatientWriter(new PatientXmlWriter(NaaccrXmlUtils.createWriter(xml), data))) {
+            for (Patient patient : data.getPatients())
+                writer.writePatient(patient);
+        }
+        Assert.assertEquals(TestingUtils.readXmlWithoutTimeGenerated(expectedXml), TestingUtils.readXmlWithoutTimeGenerated(xml));
+
+        Assert.assertThrows(IllegalStateException.class, () -> new AsyncPatientWriter(null));
+        Assert.assertThrows(IllegalStateException.class, () -> new AsyncPatientWriter(new RecordingWriter(-1), 0, false));
+    }
+
+    @Test
+    public void testOrderAndFlush() throws IOException {
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+            patients.add(new Patient());
+
+        // the patients should be written in the same order as they were provided
+        RecordingWriter recorder = new RecordingWriter(-1);
+        AsyncPatientWriter writer = new AsyncPatientWriter(recorder, 2, false);
+        for (Patient patient : patients.subList(0, 250))
+            writer.writePatient(patient);
+        writer.flushPatients();
+        Assert.assertEquals(250, recorder._written.size());
+        Assert.assertNull(writer._thread);
+
+        // the writer should keep working after a flush
+        for (Patient patient : patients.subList(250, 500))
+            writer.writePatient(patient);
+        writer.close();
+        Assert.assertEquals(patients.size(), recorder._written.size());
+        for (int i = 0; i < patients.size(); i++)
+            Assert.assertSame(patients.get(i), recorder._written.get(i));
+        Assert.assertTrue(recorder._closed);
+        Assert.assertThrows(NaaccrIOException.class, () -> writer.writePatient(new Patient()));
+
+        // closing a writer that was never used should be fine
+        recorder = new RecordingWriter(-1);
+        new AsyncPatientWriter(recorder).close();
+        Assert.assertTrue(recorder._closed);
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+
+        // the failure should be thrown by one of the next calls, and the remaining patients should be discarded
+        RecordingWriter recorder = new RecordingWriter(5);
+        AsyncPatientWriter writer = new AsyncPatientWriter(recorder, 2, false);
+        NaaccrIOException ex = Assert.assertThrows(NaaccrIOException.class, () -> {
+            for (int i = 0; i < 1000; i++)
+                writer.writePatient(new Patient());
+        });
+        Assert.assertEquals("Failure for patient 6", ex.getMessage());
+        Assert.assertSame(ex, Assert.assertThrows(NaaccrIOException.class, () -> writer.writePatient(new Patient())));
+        writer.close();
+        Assert.assertEquals(5, recorder._written.size());
+        Assert.assertTrue(recorder._closed);
+
+        // a failure for the last patients should be thrown when closing the writer
+        RecordingWriter recorder2 = new RecordingWriter(2);
+        AsyncPatientWriter writer2 = new AsyncPatientWriter(recorder2);
+        for (int i = 0; i < 3; i++)
+            writer2.writePatient(new Patient());
+        ex = Assert.assertThrows(NaaccrIOException.class, writer2::close);
+        Assert.assertEquals("Failure for patient 3", ex.getMessage());
+        Assert.assertTrue(recorder2._closed);
+
+        // same thing when flushing the patients, but the failure is reported only once
+        AsyncPatientWriter writer3 = new AsyncPatientWriter(new RecordingWriter(0));
+        writer3.writePatient(new Patient());
+        Assert.assertThrows(NaaccrIOException.class, writer3::flushPatients);
+        writer3.flushPatients();
+        writer3.close();
+    }
+
+    @Test
+    public void testObserver() throws IOException {
+
+        // the observer should be notified by the background thread, only for the patients that were actually written
+        List<Patient> notified = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        NaaccrObserver observer = new NaaccrObserver() {
+            @Override
+            public void patientRead(Patient patient) {
+                throw new IllegalStateException("Unexpected call");
+            }
+
+            @Override
+            public void patientWritten(Patient patient) {
+                notified.add(patient);
+                threads.add(Thread.currentThread());
+            }
+        };
+        RecordingWriter recorder = new RecordingWriter(5);
+        AsyncPatientWriter writer = new AsyncPatientWriter(recorder, 2, false, observer);
+        Assert.assertThrows(NaaccrIOException.class, () -> {
+            for (int i = 0; i < 1000; i++)
+                writer.writePatient(new Patient());
+        });
+        writer.close();
+        Assert.assertEquals(recorder._written, notified);
+        Assert.assertFalse(threads.contains(Thread.currentThread()));
+    }
+
+    // a writer keeping track of the written patients, failing after the requested number of patients (if not negative)
+    private static final class RecordingWriter implements PatientWriter {
+
+        private final List<Patient> _written = new ArrayList<>();
+
+        private final int _numPatientsBeforeFailure;
+
+        private boolean _closed;
+
+        private RecordingWriter(int numPatientsBeforeFailure) {
+            _numPatientsBeforeFailure = numPatientsBeforeFailure;
+        }
+
+        @Override
+        public void writePatient(Patient patient) throws NaaccrIOException {
+            if (_written.size() == _numPatientsBeforeFailure)
+                throw new NaaccrIOException("Failure for patient " + (_written.size() + 1));
+            _written.add(patient);
+        }
+
+        @Override
+        public void closeAndKeepAlive() {
+            // nothing to do
+        }
+
+        @Override
+        public void close() {
+            _closed = true;
+        }
+    }
+}
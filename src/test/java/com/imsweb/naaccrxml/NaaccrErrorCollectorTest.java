@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+
+public class NaaccrErrorCollectorTest {
+
+    @Test
+    public void testNoLimit() {
+        NaaccrErrorCollector collector = new NaaccrErrorCollector(null);
+        for (int i = 0; i < 100; i++)
+            Assert.assertTrue(collector.retain(new Patient(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE));
+        Assert.assertEquals(100, collector.getNumErrors());
+        Assert.assertEquals(0, collector.getNumDroppedErrors());
+        Assert.assertEquals(100L, collector.getErrorCounts().get(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).longValue());
+        Assert.assertEquals(1, collector.getErrorCounts().size());
+        Assert.assertTrue(collector.getDroppedErrorCounts().isEmpty());
+    }
+
+    @Test
+    public void testLimits() {
+
+        // limit per entity
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setMaxValidationErrorsPerEntity(2);
+        NaaccrErrorCollector collector = new NaaccrErrorCollector(options);
+        Tumor tumor = new Tumor();
+        for (int i = 0; i < 5; i++)
+            if (collector.retain(tumor, NaaccrErrorUtils.CODE_VAL_DATA_TYPE))
+                tumor.addValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "digits"));
+        Assert.assertEquals(2, tumor.getValidationErrors().size());
+        Assert.assertTrue(collector.retain(new Tumor(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE));
+        Assert.assertEquals(6, collector.getNumErrors());
+        Assert.assertEquals(3, collector.getNumDroppedErrors());
+
+        // limit per code
+        options = NaaccrOptions.getDefault();
+        options.setMaxValidationErrorsPerCode(3);
+        collector = new NaaccrErrorCollector(options);
+        int numRetained = 0;
+        for (int i = 0; i < 10; i++)
+            if (collector.retain(new Tumor(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE))
+                numRetained++;
+        Assert.assertEquals(3, numRetained);
+        Assert.assertTrue(collector.retain(new Tumor(), NaaccrErrorUtils.CODE_VAL_TOO_LONG));
+        Assert.assertEquals(7L, collector.getDroppedErrorCounts().get(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).longValue());
+        Assert.assertNull(collector.getDroppedErrorCounts().get(NaaccrErrorUtils.CODE_VAL_TOO_LONG));
+
+        // limit per file (a rejected error must not use one of the slots of its code)
+        options = NaaccrOptions.getDefault();
+        options.setMaxValidationErrorsPerFile(2);
+        options.setMaxValidationErrorsPerCode(2);
+        collector = new NaaccrErrorCollector(options);
+        Assert.assertTrue(collector.retain(null, NaaccrErrorUtils.CODE_VAL_DATA_TYPE));
+        Assert.assertTrue(collector.retain(null, NaaccrErrorUtils.CODE_VAL_TOO_LONG));
+        Assert.assertFalse(collector.retain(null, NaaccrErrorUtils.CODE_VAL_DATA_TYPE));
+        Assert.assertFalse(collector.retain(null, NaaccrErrorUtils.CODE_VAL_TOO_SHORT));
+        Assert.assertEquals(4, collector.getNumErrors());
+        Assert.assertEquals(2, collector.getNumDroppedErrors());
+
+        // a limit of 0 means the errors are only counted
+        options = NaaccrOptions.getDefault();
+        options.setMaxValidationErrorsPerFile(0);
+        collector = new NaaccrErrorCollector(options);
+        Assert.assertFalse(collector.retain(new Patient(), NaaccrErrorUtils.CODE_VAL_DATA_TYPE));
+        Assert.assertEquals(1, collector.getNumErrors());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setMaxValidationErrorsPerFile(1000);
+        options.setMaxValidationErrorsPerCode(300);
+        NaaccrErrorCollector collector = new NaaccrErrorCollector(options);
+
+        List<String> codes = List.of(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, NaaccrErrorUtils.CODE_VAL_TOO_LONG, NaaccrErrorUtils.CODE_VAL_TOO_SHORT,
+                NaaccrErrorUtils.CODE_VAL_START_SPACE, NaaccrErrorUtils.CODE_VAL_END_SPACE);
+        ExecutorService service = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            results.add(service.submit(() -> {
+                int numRetained = 0;
+                for (int j = 0; j < 5_000; j++)
+                    if (collector.retain(null, codes.get(j % codes.size())))
+                        numRetained++;
+                return numRetained;
+            }));
+        service.shutdown();
+        Assert.assertTrue(service.awaitTermination(1, TimeUnit.MINUTES));
+
+        int numRetained = 0;
+        for (Future<Integer> result : results)
+            numRetained += result.get();
+        Assert.assertEquals(1000, numRetained);
+        Assert.assertEquals(20_000, collector.getNumErrors());
+        Assert.assertEquals(19_000, collector.getNumDroppedErrors());
+    }
+}
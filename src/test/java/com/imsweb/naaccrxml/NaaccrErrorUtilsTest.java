@@ -16,6 +16,18 @@ public class NaaccrErrorUtilsTest {
         Assert.assertEquals("unknown NAACCR ID: xyz", NaaccrErrorUtils.getValidationError(NaaccrErrorUtils.CODE_BAD_NAACCR_ID, "xyz"));
     }
     
+    @Test
+    public void testFillMessage() {
+        Assert.assertEquals("abc", NaaccrErrorUtils.fillMessage("abc"));
+        Assert.assertEquals("abc", NaaccrErrorUtils.fillMessage("abc", "x"));
+        Assert.assertEquals("x and y", NaaccrErrorUtils.fillMessage("${0} and ${1}", "x", "y"));
+        Assert.assertEquals("y and x and y", NaaccrErrorUtils.fillMessage("${1} and ${0} and ${1}", "x", "y"));
+        Assert.assertEquals("x and ${1}", NaaccrErrorUtils.fillMessage("${0} and ${1}", "x"));
+        Assert.assertEquals("{blank} and 2", NaaccrErrorUtils.fillMessage("${0} and ${1}", null, 2));
+        Assert.assertEquals("${a} ${} x ${0", NaaccrErrorUtils.fillMessage("${a} ${} ${0} ${0", "x"));
+        Assert.assertEquals("${1}", NaaccrErrorUtils.fillMessage("${0}", "${1}", "y"));
+    }
+
     @Test
     public void testGetAllValidationErrors() {
         Assert.assertFalse(NaaccrErrorUtils.getAllValidationErrors().isEmpty());
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class NaaccrValidationErrorTest {
+
+    @Test
+    public void testMessage() {
+        NaaccrValidationError error = new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_TOO_LONG, 2, 5);
+        Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_TOO_LONG, error.getCode());
+        Assert.assertEquals("value too long, expected at most 2 character(s) but got 5", error.getMessage());
+        Assert.assertSame(error.getMessage(), error.getMessage());
+
+        Assert.assertEquals("unknown NAACCR ID: {blank}", new NaaccrValidationError(NaaccrErrorUtils.CODE_BAD_NAACCR_ID, (Object)null).getMessage());
+        Assert.assertEquals("unknown NAACCR ID: ${0}", new NaaccrValidationError(NaaccrErrorUtils.CODE_BAD_NAACCR_ID).getMessage());
+
+        // an unknown code is still reported right away
+        try {
+            new NaaccrValidationError("whatever");
+            Assert.fail("Was expecting an exception here");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPath() {
+        NaaccrValidationError error = new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "digits");
+        Assert.assertNull(error.getPath());
+
+        error.setLevel(NaaccrXmlUtils.NAACCR_XML_TAG_ROOT);
+        Assert.assertEquals("/NaaccrData", error.getPath());
+
+        error = new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "digits");
+        error.setLevel(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT);
+        error.setItemIndex(3);
+        Assert.assertEquals("/Patient/Item[3]", error.getPath());
+
+        error = new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "digits");
+        error.setLevel(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR);
+        error.setTumorIndex(2);
+        error.setItemIndex(15);
+        Assert.assertEquals("/Patient/Tumor[2]/Item[15]", error.getPath());
+
+        // an explicit path always wins
+        error = new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "digits");
+        error.setLevel(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR);
+        error.setPath("/something/else");
+        Assert.assertEquals("/something/else", error.getPath());
+    }
+
+    @Test
+    public void testReaderCoordinates() throws IOException {
+        String xml = "<NaaccrData baseDictionaryUri=\"http://naaccr.org/naaccrxml/naaccr-dictionary-220.xml\" recordType=\"A\" specificationVersion=\""
+                + NaaccrXmlUtils.CURRENT_SPECIFICATION_VERSION + "\" xmlns=\"http://naaccr.org/naaccrxml\">\n"
+                + "  <Patient>\n"
+                + "    <Item naaccrId=\"patientIdNumber\">00000001</Item>\n"
+                + "    <Item naaccrId=\"nameLast\">0123456789012345678901234567890123456789012345</Item>\n"
+                + "    <Tumor>\n"
+                + "      <Item naaccrId=\"primarySite\">C123</Item>\n"
+                + "    </Tumor>\n"
+                + "    <Tumor>\n"
+                + "      <Item naaccrId=\"primarySite\">C123</Item>\n"
+                + "      <Item naaccrId=\"dateOfDiagnosis\">2010XX</Item>\n"
+                + "    </Tumor>\n"
+                + "  </Patient>\n"
+                + "</NaaccrData>";
+
+        try (PatientXmlReader reader = new PatientXmlReader(new StringReader(xml))) {
+            Patient patient = reader.readPatient();
+            List<NaaccrValidationError> errors = patient.getAllValidationErrors();
+            Assert.assertEquals(2, errors.size());
+
+            NaaccrValidationError error = errors.get(0);
+            Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_TOO_LONG, error.getCode());
+            Assert.assertEquals(NaaccrXmlUtils.NAACCR_XML_TAG_PATIENT, error.getLevel());
+            Assert.assertNull(error.getTumorIndex());
+            Assert.assertEquals(2, error.getItemIndex().intValue());
+            Assert.assertEquals("/Patient/Item[2]", error.getPath());
+            Assert.assertEquals(4, error.getLineNumber().intValue());
+
+            error = errors.get(1);
+            Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, error.getCode());
+            Assert.assertEquals(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR, error.getLevel());
+            Assert.assertEquals(2, error.getTumorIndex().intValue());
+            Assert.assertEquals(2, error.getItemIndex().intValue());
+            Assert.assertEquals("/Patient/Tumor[2]/Item[2]", error.getPath());
+            Assert.assertEquals("invalid value according to data type 'date'", error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+
+public class NaaccrValidationSummaryTest {
+
+    @Test
+    public void testSummary() {
+        NaaccrValidationSummary summary = new NaaccrValidationSummary();
+        Assert.assertEquals(0, summary.getNumErrors());
+        Assert.assertTrue(summary.getErrorCounts().isEmpty());
+        Assert.assertTrue(summary.getItemErrorCounts(NaaccrErrorUtils.CODE_VAL_TOO_LONG).isEmpty());
+
+        NaaccrData rootData = new NaaccrData(NaaccrFormat.NAACCR_FORMAT_22_INCIDENCE);
+        rootData.addValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_BAD_TIME_GENERATED, "whatever"));
+        summary.addRootData(rootData);
+
+        Patient patient = new Patient();
+        patient.addValidationError(createError(NaaccrErrorUtils.CODE_VAL_TOO_LONG, "nameLast"));
+        Tumor tumor = new Tumor();
+        tumor.addValidationError(createError(NaaccrErrorUtils.CODE_VAL_TOO_LONG, "primarySite"));
+        tumor.addValidationError(createError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "primarySite"));
+        patient.addTumor(tumor);
+        patient.addTumor(new Tumor());
+        summary.addPatient(patient);
+        summary.addPatient(new Patient());
+
+        Assert.assertEquals(2, summary.getNumPatients());
+        Assert.assertEquals(2, summary.getNumTumors());
+        Assert.assertEquals(4, summary.getNumErrors());
+        Assert.assertEquals(1, summary.getNumErrors(NaaccrErrorUtils.CODE_BAD_TIME_GENERATED));
+        Assert.assertEquals(2, summary.getNumErrors(NaaccrErrorUtils.CODE_VAL_TOO_LONG));
+        Assert.assertEquals(0, summary.getNumErrors(NaaccrErrorUtils.CODE_VAL_TOO_SHORT));
+        Assert.assertEquals(3, summary.getErrorCounts().size());
+        Assert.assertEquals(2, summary.getItemErrorCounts(NaaccrErrorUtils.CODE_VAL_TOO_LONG).size());
+        Assert.assertTrue(summary.getItemErrorCounts(NaaccrErrorUtils.CODE_BAD_TIME_GENERATED).isEmpty());
+
+        NaaccrValidationSummary other = new NaaccrValidationSummary();
+        Patient otherPatient = new Patient();
+        otherPatient.addValidationError(createError(NaaccrErrorUtils.CODE_VAL_TOO_LONG, "nameLast"));
+        other.addPatient(otherPatient);
+        summary.merge(other);
+        Assert.assertEquals(3, summary.getNumPatients());
+        Assert.assertEquals(3, summary.getNumErrors(NaaccrErrorUtils.CODE_VAL_TOO_LONG));
+        Assert.assertEquals(2L, summary.getItemErrorCounts(NaaccrErrorUtils.CODE_VAL_TOO_LONG).get("nameLast").longValue());
+        Assert.assertEquals(1L, summary.getItemErrorCounts(NaaccrErrorUtils.CODE_VAL_TOO_LONG).get("primarySite").longValue());
+    }
+
+    private static NaaccrValidationError createError(String code, String naaccrId) {
+        NaaccrValidationError error = new NaaccrValidationError(code, 1, 2);
+        error.setNaaccrId(naaccrId);
+        return error;
+    }
+}
@@ -10,9 +10,12 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -21,7 +24,16 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -30,6 +42,7 @@ import com.imsweb.naaccrxml.entity.NaaccrData;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.Tumor;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.internal.MappedUtf8Reader;
 
 public class NaaccrXmlUtilsTest {
 
@@ -57,6 +70,116 @@ public class NaaccrXmlUtilsTest {
         Assert.assertEquals("0", patients.get(1).getItemValue("icdRevisionNumber"));
     }
 
+    @Test
+    public void testXmlToXmlMultiThreaded() throws IOException, InterruptedException {
+        File sourceXml = TestingUtils.createFile("xml-to-xml-multi-threaded-source.xml");
+        NaaccrData data = new NaaccrData(NaaccrFormat.NAACCR_FORMAT_16_INCIDENCE);
+        try (PatientXmlWriter writer = new PatientXmlWriter(new FileWriter(sourceXml), data)) {
+            for (int i = 1; i <= 500; i++) {
+                Patient patient = new Patient();
+                patient.addItem(new Item("patientIdNumber", String.format("%08d", i)));
+                Tumor tumor = new Tumor();
+                tumor.addItem(new Item("primarySite", "C" + String.format("%03d", i % 1000)));
+                patient.addTumor(tumor);
+                writer.writePatient(patient);
+            }
+        }
+
+        // processing takes a random amount of time, so the patients are not processed in order
+        NaaccrPatientProcessor processor = patient -> {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            patient.addItem(new Item("icdRevisionNumber", patient.getItemValue("patientIdNumber").substring(7)));
+        };
+
+        File expectedXml = TestingUtils.createFile("xml-to-xml-multi-threaded-expected.xml");
+        NaaccrXmlUtils.xmlToXml(sourceXml, expectedXml, processor, null, null, null);
+        NaaccrOptions asyncOptions = NaaccrOptions.getDefault();
+        asyncOptions.setReadAheadQueueSize(5);
+        asyncOptions.setWriteBehindQueueSize(5);
+        for (NaaccrOptions options : new NaaccrOptions[] {null, asyncOptions}) {
+            for (int numThreads : new int[] {1, 4}) {
+                AtomicInteger readCount = new AtomicInteger();
+                List<String> writtenIds = Collections.synchronizedList(new ArrayList<>());
+                NaaccrObserver observer = new NaaccrObserver() {
+                    @Override
+                    public void patientRead(Patient patient) {
+                        readCount.incrementAndGet();
+                    }
+
+                    @Override
+                    public void patientWritten(Patient patient) {
+                        writtenIds.add(patient.getItemValue("patientIdNumber"));
+                    }
+                };
+                File targetXml = TestingUtils.createFile("xml-to-xml-multi-threaded-target.xml");
+                NaaccrXmlUtils.xmlToXml(sourceXml, targetXml, processor, options, null, observer, numThreads);
+                Assert.assertEquals(TestingUtils.readFileAsOneString(expectedXml), TestingUtils.readFileAsOneString(targetXml));
+                Assert.assertEquals(500, readCount.get());
+                Assert.assertEquals(500, writtenIds.size());
+                for (int i = 0; i < writtenIds.size(); i++)
+                    Assert.assertEquals(String.format("%08d", i + 1), writtenIds.get(i));
+            }
+        }
+
+        // exceptions from the processor should be propagated
+        File targetXml = TestingUtils.createFile("xml-to-xml-multi-threaded-target.xml");
+        Assert.assertThrows(IllegalArgumentException.class, () -> NaaccrXmlUtils.xmlToXml(sourceXml, targetXml, patient -> {
+            if ("00000250".equals(patient.getItemValue("patientIdNumber")))
+                throw new IllegalArgumentException("Bad patient");
+        }, null, null, null, 2));
+
+        // so should the reading exceptions
+        File badXml = TestingUtils.createFile("xml-to-xml-multi-threaded-bad.xml");
+        TestingUtils.writeFile(badXml, TestingUtils.readFileAsOneString(sourceXml).replace("<Item naaccrId=\"patientIdNumber\">00000300</Item>", "<Item>00000300</Item>"));
+        NaaccrIOException ex = Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.xmlToXml(badXml, targetXml, processor, null, null, null, 2));
+        Assert.assertNotNull(ex.getLineNumber());
+
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.xmlToXml(sourceXml, targetXml, processor, null, null, null, 0));
+
+        // interrupting the calling thread should cancel the processing
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger writtenCount = new AtomicInteger();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            try {
+                NaaccrXmlUtils.xmlToXml(sourceXml, targetXml, patient -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(10);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, null, null, new NaaccrObserver() {
+                    @Override
+                    public void patientRead(Patient patient) {
+                    }
+
+                    @Override
+                    public void patientWritten(Patient patient) {
+                        writtenCount.incrementAndGet();
+                    }
+                }, 2);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+            catch (NaaccrIOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        thread.interrupt();
+        thread.join(10000);
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertTrue(interrupted.get());
+        Assert.assertTrue(writtenCount.get() < 500);
+    }
+
     @Test
     public void testFlatToXml() throws IOException {
         File xmlFile = new File(TestingUtils.getWorkingDirectory() + "/build/test.xml");
@@ -79,6 +202,15 @@ public class NaaccrXmlUtilsTest {
         NaaccrXmlUtils.flatToXml(flatFile, xmlFile, options, null, null);
         Assert.assertTrue(TestingUtils.readFileAsOneString(xmlFile).contains("naaccrNum="));
 
+        // same test, but read the flat file using several threads; the patients must come back in the same order
+        options = new NaaccrOptions();
+        options.setFlatReadingThreads(2);
+        NaaccrXmlUtils.flatToXml(flatFile, xmlFile, options, null, null);
+        data2 = NaaccrXmlUtils.readXmlFile(xmlFile, null, null, null);
+        Assert.assertEquals(data.getPatients().size(), data2.getPatients().size());
+        for (int i = 0; i < data.getPatients().size(); i++)
+            Assert.assertEquals(data.getPatients().get(i).getItemValue("patientIdNumber"), data2.getPatients().get(i).getItemValue("patientIdNumber"));
+
         // same test, but use a user-defined dictionary (we have to re-write the flat-file to use the extra variable)
         NaaccrDictionary dict = TestingUtils.createUserDictionary();
         data.getPatients().get(0).getTumors().get(0).addItem(new Item("myVariable", "01"));
@@ -120,6 +252,187 @@ public class NaaccrXmlUtilsTest {
         Assert.assertTrue(TestingUtils.readFileAsOneString(xmlFile).contains("01"));
     }
 
+    @Test
+    public void testValidateFiles() throws IOException {
+        int dxStart = NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion("140").getItemByNaaccrId("dateOfDiagnosis").getStartColumn() - 1;
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            reader.lines().limit(250).forEach(lines::add);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (i % 7 == 0)
+                line = line.substring(0, dxStart) + "XXXXXXXX" + line.substring(dxStart + 8);
+            if (i % 11 == 10)
+                line = line.substring(0, line.length() - 100);
+            lines.set(i, line);
+        }
+        File flatFile = TestingUtils.createFile("validate-source.txt");
+        TestingUtils.writeFile(flatFile, String.join("\n", lines));
+        File xmlFile = TestingUtils.createFile("validate-source.xml");
+        NaaccrXmlUtils.flatToXml(flatFile, xmlFile, null, null, null);
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setReportLevelMismatch(true);
+
+        // the summary should contain the same errors as the ones found when reading the full files
+        NaaccrValidationSummary summary = NaaccrXmlUtils.validateFlatFile(flatFile, options, null, null);
+        assertSummary(NaaccrXmlUtils.readFlatFile(flatFile, options, null, null), summary);
+        Assert.assertEquals(250 / 7 + 1, summary.getItemErrorCounts(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).get("dateOfDiagnosis").longValue());
+        Assert.assertEquals(250 / 11, summary.getNumErrors(NaaccrErrorUtils.CODE_BAD_LINE_LENGTH));
+        Assert.assertTrue(summary.getItemErrorCounts(NaaccrErrorUtils.CODE_BAD_LINE_LENGTH).isEmpty());
+
+        // without an observer, the flat lines are validated without creating the patients; the result should be the same, even with limits
+        NaaccrObserver readingObserver = new NaaccrObserver() {
+            @Override
+            public void patientRead(Patient patient) {
+                // nothing to do
+            }
+
+            @Override
+            public void patientWritten(Patient patient) {
+                throw new IllegalStateException("Nothing should be written");
+            }
+        };
+        for (int limit : new int[] {-1, 0, 1, 5}) {
+            NaaccrOptions limitedOptions = NaaccrOptions.getDefault();
+            limitedOptions.setReportLevelMismatch(true);
+            limitedOptions.setMaxValidationErrorsPerEntity(limit);
+            limitedOptions.setMaxValidationErrorsPerCode(limit < 0 ? -1 : limit * 10);
+            NaaccrValidationSummary counted = NaaccrXmlUtils.validateFlatFile(flatFile, limitedOptions, null, null);
+            NaaccrValidationSummary read = NaaccrXmlUtils.validateFlatFile(flatFile, limitedOptions, null, readingObserver);
+            Assert.assertEquals(read.getNumPatients(), counted.getNumPatients());
+            Assert.assertEquals(read.getNumTumors(), counted.getNumTumors());
+            Assert.assertEquals(read.getErrorCounts(), counted.getErrorCounts());
+            for (String code : read.getErrorCounts().keySet())
+                Assert.assertEquals(read.getItemErrorCounts(code), counted.getItemErrorCounts(code));
+        }
+
+        summary = NaaccrXmlUtils.validateXmlFile(xmlFile, options, null, null);
+        assertSummary(NaaccrXmlUtils.readXmlFile(xmlFile, options, null, null), summary);
+        Assert.assertEquals(250 / 7 + 1, summary.getItemErrorCounts(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).get("dateOfDiagnosis").longValue());
+
+        // same thing, with a read-ahead reader and an observer
+        options.setReadAheadQueueSize(8);
+        AtomicInteger count = new AtomicInteger();
+        NaaccrObserver observer = new NaaccrObserver() {
+            @Override
+            public void patientRead(Patient patient) {
+                count.incrementAndGet();
+            }
+
+            @Override
+            public void patientWritten(Patient patient) {
+                throw new IllegalStateException("Nothing should be written");
+            }
+        };
+        summary = NaaccrXmlUtils.validateXmlFile(xmlFile, options, null, observer);
+        assertSummary(NaaccrXmlUtils.readXmlFile(xmlFile, options, null, null), summary);
+        Assert.assertEquals(summary.getNumPatients(), count.get());
+
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.validateXmlFile(null, null, null, null));
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.validateFlatFile(new File(flatFile.getParentFile(), "missing-file.txt"), null, null, null));
+
+        // a file that can't be read at all should fail right away (the file reader is closed)
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.validateXmlFile(flatFile, null, null, null));
+    }
+
+    private static void assertSummary(NaaccrData data, NaaccrValidationSummary summary) {
+        NaaccrValidationSummary expected = new NaaccrValidationSummary();
+        expected.addRootData(data);
+        for (Patient patient : data.getPatients())
+            expected.addPatient(patient);
+        Assert.assertEquals(data.getPatients().size(), summary.getNumPatients());
+        Assert.assertEquals(expected.getNumTumors(), summary.getNumTumors());
+        Assert.assertEquals(expected.getErrorCounts(), summary.getErrorCounts());
+        Assert.assertTrue(summary.getNumErrors() > 0);
+        for (String code : expected.getErrorCounts().keySet())
+            Assert.assertEquals(expected.getItemErrorCounts(code), summary.getItemErrorCounts(code));
+    }
+
+    @Test
+    public void testTranslationWithReadAhead() throws IOException {
+        File flatFile = TestingUtils.createFile("read-ahead-source.txt");
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            TestingUtils.writeFile(flatFile, reader.lines().limit(1000).collect(Collectors.joining("\n")));
+        }
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        File expectedXml = TestingUtils.createFile("read-ahead-expected.xml");
+        NaaccrXmlUtils.flatToXml(flatFile, expectedXml, options, null, null);
+        File expectedFlat = TestingUtils.createFile("read-ahead-expected.txt");
+        NaaccrXmlUtils.xmlToFlat(expectedXml, expectedFlat, options, null, null);
+        File expectedProcessedXml = TestingUtils.createFile("read-ahead-expected-processed.xml");
+        NaaccrPatientProcessor processor = patient -> patient.getTumors().stream().map(tumor -> tumor.getItem("primarySite")).filter(Objects::nonNull).forEach(item -> item.setValue("C000"));
+        NaaccrXmlUtils.xmlToXml(expectedXml, expectedProcessedXml, processor, options, null, null);
+
+        // the result should be the same when the patients are read ahead, and the observer should be notified of all of them
+        options.setReadAheadQueueSize(16);
+        AtomicInteger readCount = new AtomicInteger();
+        NaaccrObserver observer = new NaaccrObserver() {
+            @Override
+            public void patientRead(Patient patient) {
+                readCount.incrementAndGet();
+            }
+
+            @Override
+            public void patientWritten(Patient patient) {
+            }
+        };
+        File xmlFile = TestingUtils.createFile("read-ahead.xml");
+        NaaccrXmlUtils.flatToXml(flatFile, xmlFile, options, null, observer);
+        Assert.assertEquals(TestingUtils.readXmlWithoutTimeGenerated(expectedXml), TestingUtils.readXmlWithoutTimeGenerated(xmlFile));
+        File targetFlat = TestingUtils.createFile("read-ahead.txt");
+        NaaccrXmlUtils.xmlToFlat(xmlFile, targetFlat, options, null, observer);
+        Assert.assertEquals(TestingUtils.readFileAsOneString(expectedFlat), TestingUtils.readFileAsOneString(targetFlat));
+        File processedXml = TestingUtils.createFile("read-ahead-processed.xml");
+        NaaccrXmlUtils.xmlToXml(xmlFile, processedXml, processor, options, null, observer);
+        Assert.assertEquals(TestingUtils.readXmlWithoutTimeGenerated(expectedProcessedXml), TestingUtils.readXmlWithoutTimeGenerated(processedXml));
+        Assert.assertEquals(3 * NaaccrXmlUtils.readFlatFile(flatFile, null, null, null).getPatients().size(), readCount.get());
+
+        // the reading exceptions should be the same
+        File badXml = TestingUtils.createFile("read-ahead-bad.xml");
+        TestingUtils.writeFile(badXml, TestingUtils.readFileAsOneString(xmlFile).replaceFirst("<Item naaccrId=\"patientIdNumber\">", "<Item>"));
+        options.setReadAheadQueueSize(0);
+        NaaccrIOException expectedEx = Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.xmlToFlat(badXml, targetFlat, options, null, null));
+        options.setReadAheadQueueSize(16);
+        NaaccrIOException ex = Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.xmlToFlat(badXml, targetFlat, options, null, null));
+        Assert.assertEquals(expectedEx.getMessage(), ex.getMessage());
+        Assert.assertEquals(expectedEx.getLineNumber(), ex.getLineNumber());
+    }
+
+    @Test
+    public void testTranslationWithWriteBehind() throws IOException {
+        File flatFile = TestingUtils.createFile("write-behind-source.txt");
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            TestingUtils.writeFile(flatFile, reader.lines().limit(1000).collect(Collectors.joining("\n")));
+        }
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        File expectedXml = TestingUtils.createFile("write-behind-expected.xml");
+        NaaccrXmlUtils.flatToXml(flatFile, expectedXml, options, null, null);
+        File expectedFlat = TestingUtils.createFile("write-behind-expected.txt");
+        NaaccrXmlUtils.xmlToFlat(expectedXml, expectedFlat, options, null, null);
+
+        // the result should be the same when the patients are written by a background thread, and/or compressed by another one
+        for (int queueSize : new int[] {0, 1, 16}) {
+            for (boolean compressInBackground : new boolean[] {false, true}) {
+                options.setWriteBehindQueueSize(queueSize);
+                options.setCompressInBackground(compressInBackground);
+                options.setReadAheadQueueSize(queueSize);
+                File xmlFile = TestingUtils.createFile("write-behind.xml.gz");
+                NaaccrXmlUtils.flatToXml(flatFile, xmlFile, options, null, null);
+                Assert.assertEquals(TestingUtils.readXmlWithoutTimeGenerated(expectedXml), TestingUtils.readXmlWithoutTimeGenerated(xmlFile));
+                File targetFlat = TestingUtils.createFile("write-behind.txt");
+                NaaccrXmlUtils.xmlToFlat(xmlFile, targetFlat, options, null, null);
+                Assert.assertEquals(TestingUtils.readFileAsOneString(expectedFlat), TestingUtils.readFileAsOneString(targetFlat));
+                File processedXml = TestingUtils.createFile("write-behind-processed.xml");
+                NaaccrXmlUtils.xmlToXml(xmlFile, processedXml, patient -> { }, options, null, null);
+                Assert.assertEquals(TestingUtils.readXmlWithoutTimeGenerated(expectedXml), TestingUtils.readXmlWithoutTimeGenerated(processedXml));
+            }
+        }
+    }
+
     @Test
     public void testReadXmlFile() throws IOException {
         File file = new File(TestingUtils.getWorkingDirectory() + "/src/test/resources/data/standard-file.xml");
@@ -156,6 +469,61 @@ public class NaaccrXmlUtilsTest {
         }
     }
 
+    @Test
+    public void testStreamFiles() throws IOException {
+        File flatFile = TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz");
+        File xmlFile = TestingUtils.createFile("stream-source.xml");
+        NaaccrXmlUtils.flatToXml(flatFile, xmlFile, null, null, null);
+        List<String> expectedIds = new ArrayList<>();
+        long expectedNumTumors = 0;
+        try (PatientFlatReader reader = new PatientFlatReader(NaaccrXmlUtils.createReader(flatFile))) {
+            for (Patient patient = reader.readPatient(); patient != null; patient = reader.readPatient()) {
+                expectedIds.add(patient.getItemValue("patientIdNumber"));
+                expectedNumTumors += patient.getTumors().size();
+            }
+        }
+
+        // sequential and parallel streams should return the same patients, in the same order
+        for (boolean parallel : new boolean[] {false, true}) {
+            try (Stream<Patient> stream = NaaccrXmlUtils.streamFlatFile(flatFile, null, null)) {
+                Assert.assertEquals(expectedIds, (parallel ? stream.parallel() : stream).map(p -> p.getItemValue("patientIdNumber")).collect(Collectors.toList()));
+            }
+            try (Stream<Patient> stream = NaaccrXmlUtils.streamXmlFile(xmlFile, null, null)) {
+                Assert.assertEquals(expectedNumTumors, (parallel ? stream.parallel() : stream).mapToLong(p -> p.getTumors().size()).sum());
+            }
+        }
+
+        // closing the stream should close the reader, even if not all the patients were consumed
+        AtomicBoolean closed = new AtomicBoolean();
+        PatientXmlReader reader = new PatientXmlReader(NaaccrXmlUtils.createReader(xmlFile)) {
+            @Override
+            public void close() {
+                closed.set(true);
+                super.close();
+            }
+        };
+        try (Stream<Patient> stream = NaaccrXmlUtils.streamPatients(reader)) {
+            Assert.assertEquals(expectedIds.subList(0, 10), stream.limit(10).map(p -> p.getItemValue("patientIdNumber")).collect(Collectors.toList()));
+            Assert.assertFalse(closed.get());
+        }
+        Assert.assertTrue(closed.get());
+
+        // a reading problem should be reported with its line number
+        File badFile = TestingUtils.createFile("stream-bad-source.xml");
+        TestingUtils.writeFile(badFile, TestingUtils.readFileAsOneString(TestingUtils.getDataFile("standard-file.xml")).replaceFirst("</Patient>", "</Patient><Tumor/>"));
+        try (Stream<Patient> stream = NaaccrXmlUtils.streamXmlFile(badFile, null, null)) {
+            NaaccrUncheckedIOException exception = Assert.assertThrows(NaaccrUncheckedIOException.class, stream::count);
+            Assert.assertEquals("Unexpected tag: Tumor", exception.getMessage());
+            Assert.assertNotNull(exception.getLineNumber());
+        }
+
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.streamXmlFile(null, null, null));
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.streamFlatFile(new File(flatFile.getParentFile(), "missing-file.txt"), null, null));
+
+        // a file that can't be read at all should fail right away (the file reader is closed)
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.streamXmlFile(flatFile, null, null));
+    }
+
     @Test
     public void testWriteXmlFile() throws IOException {
         NaaccrData data = new NaaccrData();
@@ -221,6 +589,8 @@ public class NaaccrXmlUtilsTest {
         NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_16_ABSTRACT);
         String line = NaaccrXmlUtils.patientToLine(patient, context);
         Assert.assertEquals("00000001", line.substring(41, 49));
+        Assert.assertEquals(NaaccrFormat.getInstance(NaaccrFormat.NAACCR_FORMAT_16_ABSTRACT).getLineLength(), line.length());
+        Assert.assertEquals("00000001", NaaccrXmlUtils.lineToPatient(line, context).getItemValue("patientIdNumber"));
 
         List<NaaccrDictionary> dictionaries = Collections.singletonList(TestingUtils.createUserDictionary());
         Tumor tumor = new Tumor();
@@ -324,6 +694,103 @@ public class NaaccrXmlUtilsTest {
         }
     }
 
+    @Test
+    public void testCreateWriter() throws IOException {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            buf.append("line ").append(i).append('\n');
+
+        // the GZIP files should be the same once uncompressed, whatever the compression options
+        for (int numThreads : new int[] {0, 1, 3}) {
+            for (int level : new int[] {-1, 1}) {
+                NaaccrOptions options = NaaccrOptions.getDefault();
+                options.setGzipCompressionThreads(numThreads);
+                options.setGzipCompressionLevel(level);
+                File file = TestingUtils.createFile("create-writer.txt.gz");
+                try (Writer writer = NaaccrXmlUtils.createWriter(file, options)) {
+                    writer.write(buf.toString());
+                }
+                try (Reader reader = NaaccrXmlUtils.createReader(file)) {
+                    Assert.assertEquals(buf.toString(), IOUtils.toString(reader));
+                }
+            }
+        }
+
+        // by default, the GZIP files are standard single-member files (the parallel stream sets the FEXTRA flag to record the size of its members)
+        File file = TestingUtils.createFile("create-writer.txt.gz");
+        try (Writer writer = NaaccrXmlUtils.createWriter(file)) {
+            writer.write(buf.toString());
+        }
+        Assert.assertEquals(0, Files.readAllBytes(file.toPath())[3]);
+        try (Writer writer = NaaccrXmlUtils.createWriter(file, NaaccrOptions.getDefault())) {
+            writer.write(buf.toString());
+        }
+        Assert.assertEquals(0, Files.readAllBytes(file.toPath())[3]);
+        NaaccrOptions parallelOptions = NaaccrOptions.getDefault();
+        parallelOptions.setGzipCompressionThreads(2);
+        try (Writer writer = NaaccrXmlUtils.createWriter(file, parallelOptions)) {
+            writer.write(buf.toString());
+        }
+        Assert.assertEquals(4, Files.readAllBytes(file.toPath())[3]);
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setGzipCompressionThreads(-1);
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.createWriter(file, options));
+        options.setGzipCompressionThreads(0);
+        options.setGzipCompressionLevel(10);
+        Assert.assertThrows(NaaccrIOException.class, () -> NaaccrXmlUtils.createWriter(file, options));
+    }
+
+    @Test
+    public void testCreateMappedReader() throws IOException {
+
+        // the mapped reader should return the same content as the regular reader for all the testing files (including the ones with non-ASCII characters)
+        List<File> files = TestingUtils.getXmlDataFiles();
+        for (File file : TestingUtils.getDataFile("encoding").listFiles((d, name) -> name.contains("UTF-8")))
+            files.add(file);
+        for (File file : files) {
+            try (Reader expected = NaaccrXmlUtils.createReader(file); Reader actual = NaaccrXmlUtils.createMappedReader(file)) {
+                Assert.assertEquals(file.getName(), IOUtils.toString(expected), IOUtils.toString(actual));
+            }
+        }
+
+        // test multi-byte characters crossing the boundaries of the mapped windows (and reading one character at a time)
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 25; i++)
+            buf.append("abc \u00e9\u00e8 \u20ac \ud83d\ude00 ").append(i).append('\n');
+        File file = TestingUtils.createFile("mapped-reader.txt");
+        Files.write(file.toPath(), buf.toString().getBytes(StandardCharsets.UTF_8));
+        for (long windowSize : new long[] {3, 5, 7, 1024}) {
+            try (Reader reader = new MappedUtf8Reader(FileChannel.open(file.toPath(), StandardOpenOption.READ), windowSize)) {
+                Assert.assertEquals(buf.toString(), IOUtils.toString(reader));
+            }
+            try (Reader reader = new MappedUtf8Reader(FileChannel.open(file.toPath(), StandardOpenOption.READ), windowSize)) {
+                StringBuilder result = new StringBuilder();
+                char[] cbuf = new char[1];
+                while (reader.read(cbuf, 0, 1) != -1)
+                    result.append(cbuf[0]);
+                Assert.assertEquals(buf.toString(), result.toString());
+            }
+        }
+
+        // malformed sequences should be replaced
+        Files.write(file.toPath(), new byte[] {'a', (byte)0xC3, 'b', (byte)0xFF, 'c', (byte)0xE2, (byte)0x82});
+        try (Reader reader = NaaccrXmlUtils.createMappedReader(file)) {
+            Assert.assertEquals("a\ufffdb\ufffdc\ufffd", IOUtils.toString(reader));
+        }
+
+        // empty file
+        Files.write(file.toPath(), new byte[0]);
+        try (Reader reader = NaaccrXmlUtils.createMappedReader(file)) {
+            Assert.assertEquals(-1, reader.read());
+        }
+
+        // the mapped reader should be usable with the patient reader
+        File xmlFile = TestingUtils.getDataFile("standard-file.xml");
+        Assert.assertEquals(TestingUtils.readPatientsAsText(() -> new PatientXmlReader(NaaccrXmlUtils.createReader(xmlFile))),
+                TestingUtils.readPatientsAsText(() -> new PatientXmlReader(NaaccrXmlUtils.createMappedReader(xmlFile))));
+    }
+
     @Test
     public void testParseIso8601Date() {
         // following examples are from http://books.xmlschemata.org/relaxng/ch19-77049.html
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class ParallelPatientFlatReaderTest {
+
+    @Test
+    public void testReader() throws IOException {
+        File file = TestingUtils.getDataFile("fake-naaccr14inc-2-rec.txt");
+        try (ParallelPatientFlatReader reader = new ParallelPatientFlatReader(file, null, null, 2)) {
+            Assert.assertEquals("0000001551", reader.getRootData().getItemValue("registryId"));
+            Patient patient = reader.readPatient();
+            Assert.assertEquals("00000000", patient.getItemValue("patientIdNumber"));
+            Assert.assertEquals(1, patient.getStartLineNumber().intValue());
+            Assert.assertEquals(2, patient.getTumors().size());
+            Assert.assertEquals(2, patient.getTumors().get(1).getStartLineNumber().intValue());
+            Assert.assertNull(reader.readPatient());
+            Assert.assertNull(reader.readPatient());
+        }
+
+        Assert.assertThrows(IllegalStateException.class, () -> new ParallelPatientFlatReader(file, null, null, 0));
+        Assert.assertThrows(NaaccrIOException.class, () -> new ParallelPatientFlatReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz"), null, null, 2));
+        File emptyFile = TestingUtils.createFile("parallel-flat-empty.txt");
+        TestingUtils.writeFile(emptyFile, "");
+        Assert.assertEquals("first line is empty", Assert.assertThrows(NaaccrIOException.class, () -> new ParallelPatientFlatReader(emptyFile, null, null, 2)).getMessage());
+    }
+
+    @Test
+    public void testSameResultAsRegularReader() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            String line = reader.readLine();
+            while (line != null && lines.size() < 1000) {
+                // group the lines into patients with 1 to 3 tumors
+                StringBuilder buf = new StringBuilder(line);
+                buf.replace(41, 49, String.format("%08d", (lines.size() * 7 / 17) + 1));
+                lines.add(buf.toString());
+                line = reader.readLine();
+            }
+        }
+
+        // malformed lines: too short, too long, empty, non-ASCII characters, invalid values
+        List<String> badLines = new ArrayList<>(lines);
+        badLines.set(10, badLines.get(10).substring(0, 3000));
+        badLines.set(50, badLines.get(50) + "TOO LONG");
+        badLines.add(100, "");
+        badLines.set(200, badLines.get(200).substring(0, 200) + "ÉÈ" + badLines.get(200).substring(202));
+        badLines.set(300, badLines.get(300).substring(0, 41) + "ÉÉÉÉÉÉÉÉ" + badLines.get(300).substring(49));
+        badLines.set(400, badLines.get(400).substring(0, 41) + "        " + badLines.get(400).substring(49));
+        badLines.set(401, badLines.get(401).substring(0, 41) + "        " + badLines.get(401).substring(49));
+
+        NaaccrOptions noGroupingOptions = NaaccrOptions.getDefault();
+        noGroupingOptions.setTumorGroupingItems(Collections.emptyList());
+        NaaccrOptions mismatchOptions = NaaccrOptions.getDefault();
+        mismatchOptions.setReportLevelMismatch(true);
+
+        int count = 0;
+        for (List<String> data : List.of(lines, badLines)) {
+            for (String newLine : new String[] {"\n", "\r\n", "\r"}) {
+                for (boolean lastNewLine : new boolean[] {true, false}) {
+                    File file = TestingUtils.createFile("parallel-flat-" + count++ + ".txt");
+                    TestingUtils.writeFile(file, String.join(newLine, data) + (lastNewLine ? newLine : ""));
+                    for (NaaccrOptions options : new NaaccrOptions[] {null, noGroupingOptions, mismatchOptions}) {
+                        String expected = TestingUtils.readPatientsAsText(() -> new PatientFlatReader(new FileReader(file), options));
+                        for (int chunkSize : new int[] {1, 5000, 100000, 100000000}) {
+                            String actual = TestingUtils.readPatientsAsText(() -> new ParallelPatientFlatReader(file, options, null, 3, chunkSize));
+                            Assert.assertEquals(file.getName() + " " + chunkSize, expected, actual);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+public class ParallelPatientXmlReaderTest {
+
+    @Test
+    public void testReader() throws IOException {
+        File file = TestingUtils.getDataFile("standard-file.xml");
+        try (ParallelPatientXmlReader reader = new ParallelPatientXmlReader(new FileInputStream(file), null, null, 2)) {
+            Assert.assertEquals("0000000001", reader.getRootData().getItemValue("registryId"));
+            Assert.assertEquals(3, reader.getRootData().getStartLineNumber().intValue());
+            Patient patient = reader.readPatient();
+            Assert.assertEquals("00000001", patient.getItemValue("patientIdNumber"));
+            Assert.assertEquals(5, patient.getStartLineNumber().intValue());
+            Assert.assertEquals(1, patient.getTumors().size());
+            patient = reader.readPatient();
+            Assert.assertEquals("00000002", patient.getItemValue("patientIdNumber"));
+            Assert.assertEquals(11, patient.getStartLineNumber().intValue());
+            Assert.assertNull(reader.readPatient());
+            Assert.assertNull(reader.readPatient());
+        }
+
+        Assert.assertThrows(IllegalStateException.class, () -> new ParallelPatientXmlReader(new FileInputStream(file), null, null, 0));
+    }
+
+    @Test
+    public void testSameResultAsRegularReader() throws IOException {
+        NaaccrOptions relaxedOptions = NaaccrOptions.getDefault();
+        relaxedOptions.setUseStrictNamespaces(false);
+        NaaccrOptions validatingOptions = NaaccrOptions.getDefault();
+        validatingOptions.setValidateReadValues(true);
+
+        for (File file : TestingUtils.getXmlDataFiles()) {
+            for (NaaccrOptions options : new NaaccrOptions[] {null, relaxedOptions, validatingOptions}) {
+                String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(new FileReader(file), options));
+                String actual = TestingUtils.readPatientsAsText(() -> new ParallelPatientXmlReader(new FileInputStream(file), options, null, null, 3, 1));
+                Assert.assertEquals(file.getName(), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeFile() throws IOException {
+        StringBuilder buf = new StringBuilder();
+        buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        buf.append("<!-- a comment with a fake <Patient> tag -->\n");
+        buf.append("<NaaccrData baseDictionaryUri=\"http://naaccr.org/naaccrxml/naaccr-dictionary-160.xml\"\n");
+        buf.append("            recordType=\"I\"\n");
+        buf.append("            specificationVersion=\"1.4\"\n");
+        buf.append("            xmlns=\"http://naaccr.org/naaccrxml\">\n");
+        buf.append("    <Item naaccrId=\"registryId\">0000000001</Item>\n");
+        for (int i = 1; i <= 2500; i++) {
+            buf.append("    <Patient>\n");
+            buf.append("        <Item naaccrId=\"patientIdNumber\">").append(String.format("%08d", i)).append("</Item>\n");
+            buf.append("        <Item naaccrId=\"nameLast\"><![CDATA[<Patient>]]></Item>\n");
+            if (i % 7 == 0)
+                buf.append("        <Item naaccrId=\"vitalStatus\">X</Item>\n");
+            if (i % 3 == 0)
+                buf.append("        <!-- </Patient> -->\n");
+            for (int j = 0; j < i % 4; j++) {
+                buf.append("        <Tumor>\n");
+                buf.append("            <Item naaccrId=\"primarySite\">C").append(j).append("00</Item>\n");
+                buf.append("            <Item naaccrId=\"unknownItem\">whatever</Item>\n");
+                buf.append("        </Tumor>\n");
+            }
+            buf.append("    </Patient>\n");
+            if (i % 11 == 0)
+                buf.append("    <Patient/>\n");
+        }
+        buf.append("</NaaccrData>\n");
+        File file = TestingUtils.createFile("parallel-reader-large.xml");
+        TestingUtils.writeFile(file, buf.toString());
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setValidateReadValues(true);
+        options.setUnknownItemHandling(NaaccrOptions.ITEM_HANDLING_ERROR);
+
+        String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(NaaccrXmlUtils.createReader(file), options));
+        Assert.assertFalse(expected.contains("exception"));
+        for (int chunkSize : new int[] {1, 1000, 10000, ParallelPatientXmlReader.DEFAULT_CHUNK_SIZE})
+            for (int numThreads : new int[] {1, 4})
+                Assert.assertEquals(expected, TestingUtils.readPatientsAsText(() -> new ParallelPatientXmlReader(new FileInputStream(file), options, null, null, numThreads, chunkSize)));
+    }
+
+    @Test
+    public void testExtensions() throws IOException {
+        File file = TestingUtils.getDataFile("standard-file-extension.xml");
+        try (ParallelPatientXmlReader reader = new ParallelPatientXmlReader(new FileInputStream(file), null, Collections.emptyList(), conf -> {
+            conf.getXstream().autodetectAnnotations(true);
+            conf.registerNamespace("other", "http://whatever.org");
+            conf.registerTag("other", "MyOuterTag", OuterTag.class);
+            conf.registerTag("other", "MyEmbeddedEntity", EmbeddedEntity.class);
+            conf.registerAttribute("other", "someAttribute", OuterTag.class, "_someAttribute", String.class);
+        }, 2, 1)) {
+            Assert.assertEquals(2, reader.getRootData().getExtensions().size());
+            Assert.assertEquals(5, ((OuterTag)reader.getRootData().getExtensions().get(0)).getStartLineNumber().intValue());
+
+            Patient patient = reader.readPatient();
+            Assert.assertEquals(2, patient.getExtensions().size());
+            Assert.assertEquals("patient-extension-1", ((OuterTag)patient.getExtensions().get(0)).getInnerTag());
+            Assert.assertEquals(16, ((OuterTag)patient.getExtensions().get(0)).getStartLineNumber().intValue());
+            Assert.assertEquals(2, patient.getTumor(0).getExtensions().size());
+            Assert.assertEquals(27, ((OuterTag)patient.getTumor(0).getExtensions().get(1)).getStartLineNumber().intValue());
+            Assert.assertNull(reader.readPatient());
+        }
+
+        // without the extensions being registered, the error should be the same as the regular reader
+        String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(new FileReader(file), null, (NaaccrDictionary)null, null));
+        Assert.assertTrue(expected.contains("exception"));
+        Assert.assertEquals(expected, TestingUtils.readPatientsAsText(() -> new ParallelPatientXmlReader(new FileInputStream(file), null, null, 2)));
+    }
+
+    @SuppressWarnings("unused")
+    @XStreamAlias("MyOuterTag")
+    private static class OuterTag extends AbstractNaaccrXmlExtension {
+
+        @XStreamAlias("other:MyInnerTag")
+        private String _innerTag;
+
+        @XStreamAlias("other:MyEmbeddedEntity")
+        private EmbeddedEntity _entity;
+
+        private String _someAttribute;
+
+        public String getInnerTag() {
+            return _innerTag;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @XStreamAlias("MyEmbeddedEntity")
+    private static class EmbeddedEntity extends AbstractNaaccrXmlExtension {
+
+        @XStreamAlias("other:MyEntityTag")
+        private String _entityTag;
+    }
+}
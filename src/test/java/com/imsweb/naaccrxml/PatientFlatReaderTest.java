@@ -8,13 +8,21 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.imsweb.naaccrxml.entity.Item;
 import com.imsweb.naaccrxml.entity.Patient;
 import com.imsweb.naaccrxml.entity.Tumor;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.RuntimeNaaccrDictionaryItem;
 
 public class PatientFlatReaderTest {
 
@@ -245,4 +253,115 @@ public class PatientFlatReaderTest {
             }
         }
     }
+
+    @Test
+    public void testRegexValidation() throws IOException {
+        StringBuilder rec1 = TestingUtils.createEmptyRecord("160", "A", "00000001");
+        rec1.replace(2339, 2341, "01");
+        StringBuilder rec2 = TestingUtils.createEmptyRecord("160", "A", "00000002");
+        rec2.replace(2339, 2341, "05");
+        File file = TestingUtils.createAndPopulateFile("test-flat-reader-regex.txt", rec1, rec2);
+
+        NaaccrDictionary dict = TestingUtils.createUserDictionary(SpecificationVersion.SPEC_1_1);
+        dict.getItemByNaaccrId("myVariable").setRegexValidation("^0[2-8]$");
+
+        // the regular expressions are not enforced by default
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        try (PatientFlatReader reader = new PatientFlatReader(new FileReader(file), options, dict)) {
+            Assert.assertTrue(reader.readPatient().getAllValidationErrors().isEmpty());
+            Assert.assertTrue(reader.readPatient().getAllValidationErrors().isEmpty());
+        }
+
+        options.setEnforceRegexValidation(true);
+        try (PatientFlatReader reader = new PatientFlatReader(new FileReader(file), options, dict)) {
+            Patient patient = reader.readPatient();
+            Assert.assertEquals("01", patient.getTumor(0).getItemValue("myVariable"));
+            Assert.assertEquals(1, patient.getAllValidationErrors().size());
+            Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_REGEX, patient.getAllValidationErrors().get(0).getCode());
+            Assert.assertEquals("myVariable", patient.getAllValidationErrors().get(0).getNaaccrId());
+            Assert.assertTrue(reader.readPatient().getAllValidationErrors().isEmpty());
+        }
+    }
+
+    @Test
+    public void testCompactItemStorage() throws IOException {
+        File file = TestingUtils.getDataFile("fake-naaccr14inc-2-rec.txt");
+
+        // the compact storage should be transparent for the callers
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setReportLevelMismatch(true);
+        options.setUseCompactItemStorage(false);
+        String expected = TestingUtils.readPatientsAsText(() -> new PatientFlatReader(NaaccrXmlUtils.createReader(file), options));
+        options.setUseCompactItemStorage(true);
+        String actual = TestingUtils.readPatientsAsText(() -> new PatientFlatReader(NaaccrXmlUtils.createReader(file), options));
+        Assert.assertEquals(expected, actual);
+
+        try (PatientFlatReader reader = new PatientFlatReader(NaaccrXmlUtils.createReader(file), options)) {
+            Patient patient = reader.readPatient();
+            Assert.assertTrue(patient.isUsingCompactItemStorage());
+            Assert.assertTrue(patient.getTumor(0).isUsingCompactItemStorage());
+            Assert.assertNotNull(patient.getItemValue("patientIdNumber"));
+            Assert.assertNotNull(patient.getTumor(0).getItemValue("primarySite"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testGroupingValues() throws IOException {
+        StringBuilder rec1 = TestingUtils.createEmptyRecord("150", "I", "00000001");
+        File file = TestingUtils.createAndPopulateFile("test-flat-reader-grouping.txt", rec1);
+
+        // patient ID number is trimmed, the two reserved items are not (and the second one is at the end of the line); duplicates are allowed
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setTumorGroupingItems(Arrays.asList("patientIdNumber", "reserved00", "stateRequestorItems", "patientIdNumber"));
+
+        try (PatientFlatReader reader = new PatientFlatReader(new FileReader(file), options)) {
+            int lineLength = rec1.length();
+            List<String> lines = new ArrayList<>();
+            Random random = new Random(0);
+            for (int i = 0; i < 500; i++) {
+                StringBuilder buf = new StringBuilder(rec1);
+                // each value is blank, or one of a few patterns (with leading and/or trailing spaces)
+                for (int[] range : new int[][] {{41, 49}, {2, 16}, {2339, lineLength}}) {
+                    int pattern = random.nextInt(4);
+                    for (int j = range[0]; j < range[1]; j++)
+                        buf.setCharAt(j, pattern == 0 || (j - range[0]) % 4 == pattern ? ' ' : (char)('A' + pattern));
+                }
+                int length = random.nextInt(4) == 0 ? random.nextInt(lineLength + 1) : lineLength;
+                lines.add(buf.substring(0, length));
+            }
+            lines.add(rec1.toString());
+            lines.add(rec1.toString());
+            lines.add(rec1.toString().replace("00000001", "   00001"));
+            lines.add(rec1.toString().replace("00000001", "00001   "));
+
+            // the result must be the same as comparing the extracted values
+            int[] valueStarts = new int[reader._groupingItems.size()];
+            int[] valueEnds = new int[reader._groupingItems.size()];
+            int numSame = 0;
+            for (String firstLine : lines) {
+                Map<String, String> firstValues = extractGroupingValues(reader, firstLine);
+                Assert.assertEquals(!firstValues.isEmpty(), reader.locateGroupingValues(firstLine, valueStarts, valueEnds));
+                Assert.assertEquals(firstValues, reader.extractGroupingValues(firstLine, null, reader._groupingItems));
+                for (String line : lines) {
+                    boolean expected = !firstValues.isEmpty() && firstValues.equals(extractGroupingValues(reader, line));
+                    boolean actual = !firstValues.isEmpty() && reader.hasSameGroupingValues(firstLine, valueStarts, valueEnds, line);
+                    Assert.assertEquals(expected, actual);
+                    if (actual)
+                        numSame++;
+                }
+            }
+            Assert.assertTrue(numSame > lines.size());
+        }
+    }
+
+    private static Map<String, String> extractGroupingValues(PatientFlatReader reader, String line) {
+        Map<String, String> values = new HashMap<>();
+        for (RuntimeNaaccrDictionaryItem itemDef : reader._groupingItems) {
+            Item item = reader.createItemFromLine(null, line, null, itemDef);
+            if (item != null)
+                values.put(item.getNaaccrId(), item.getValue());
+        }
+        return values;
+    }
 }
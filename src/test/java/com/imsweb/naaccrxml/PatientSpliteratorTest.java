@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.Item;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class PatientSpliteratorTest {
+
+    @Test
+    public void testSequential() {
+        List<String> ids = new ArrayList<>();
+        new PatientSpliterator(new FakeReader(10, false)).forEachRemaining(p -> ids.add(p.getItemValue("patientIdNumber")));
+        Assert.assertEquals(10, ids.size());
+        Assert.assertEquals("00000001", ids.get(0));
+        Assert.assertEquals("00000010", ids.get(9));
+
+        PatientSpliterator spliterator = new PatientSpliterator(new FakeReader(1, false));
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        Assert.assertTrue(spliterator.tryAdvance(p -> Assert.assertEquals("00000001", p.getItemValue("patientIdNumber"))));
+        Assert.assertFalse(spliterator.tryAdvance(p -> Assert.fail("Was not expecting another patient")));
+        Assert.assertEquals(0, spliterator.estimateSize());
+        Assert.assertNull(spliterator.trySplit());
+
+        Assert.assertThrows(IllegalStateException.class, () -> new PatientSpliterator(null));
+    }
+
+    @Test
+    public void testSplit() {
+        PatientSpliterator spliterator = new PatientSpliterator(new FakeReader(600, false));
+
+        // each split returns a bigger batch, the last one containing the remaining patients
+        Spliterator<Patient> batch = spliterator.trySplit();
+        Assert.assertEquals(PatientSpliterator.BATCH_UNIT, batch.estimateSize());
+        Assert.assertTrue(batch.hasCharacteristics(Spliterator.SIZED));
+        Assert.assertTrue(batch.tryAdvance(p -> Assert.assertEquals("00000001", p.getItemValue("patientIdNumber"))));
+        Assert.assertEquals(2 * PatientSpliterator.BATCH_UNIT, spliterator.trySplit().estimateSize());
+        Assert.assertTrue(spliterator.tryAdvance(p -> Assert.assertEquals(String.format("%08d", 3 * PatientSpliterator.BATCH_UNIT + 1), p.getItemValue("patientIdNumber"))));
+        Assert.assertEquals(3 * PatientSpliterator.BATCH_UNIT, spliterator.trySplit().estimateSize());
+        Assert.assertEquals(600 - 6 * PatientSpliterator.BATCH_UNIT - 1, spliterator.trySplit().estimateSize());
+        Assert.assertNull(spliterator.trySplit());
+        Assert.assertEquals(0, spliterator.estimateSize());
+
+        // a parallel stream should return all the patients, in order
+        List<String> ids = StreamSupport.stream(new PatientSpliterator(new FakeReader(25_000, false)), true)
+                .map(p -> p.getItemValue("patientIdNumber"))
+                .collect(Collectors.toList());
+        Assert.assertEquals(25_000, ids.size());
+        for (int i = 0; i < ids.size(); i++)
+            Assert.assertEquals(String.format("%08d", i + 1), ids.get(i));
+    }
+
+    @Test
+    public void testFailure() {
+        PatientSpliterator spliterator = new PatientSpliterator(new FakeReader(3, true));
+        Assert.assertTrue(spliterator.tryAdvance(p -> {}));
+        NaaccrUncheckedIOException exception = Assert.assertThrows(NaaccrUncheckedIOException.class, () -> spliterator.forEachRemaining(p -> {}));
+        Assert.assertEquals(4, exception.getLineNumber().intValue());
+        Assert.assertEquals("bad line", exception.getMessage());
+        Assert.assertEquals("bad line", exception.getCause().getMessage());
+        Assert.assertFalse(spliterator.tryAdvance(p -> Assert.fail("Was not expecting another patient")));
+
+        // the failure also goes through a split
+        Assert.assertThrows(NaaccrUncheckedIOException.class, () -> new PatientSpliterator(new FakeReader(3, true)).trySplit());
+    }
+
+    // returns the requested number of patients, and then fails (on the next line) if requested
+    private static final class FakeReader implements PatientReader {
+
+        private final int _numPatients;
+
+        private final boolean _fail;
+
+        private int _count;
+
+        private FakeReader(int numPatients, boolean fail) {
+            _numPatients = numPatients;
+            _fail = fail;
+        }
+
+        @Override
+        public Patient readPatient() throws NaaccrIOException {
+            if (_count == _numPatients) {
+                if (_fail)
+                    throw new NaaccrIOException("bad line", _count + 1);
+                return null;
+            }
+            _count++;
+            Patient patient = new Patient();
+            patient.addItem(new Item("patientIdNumber", String.format("%08d", _count)));
+            return patient;
+        }
+
+        @Override
+        public NaaccrData getRootData() {
+            return new NaaccrData();
+        }
+
+        @Override
+        public void closeAndKeepAlive() {
+            // nothing to do
+        }
+
+        @Override
+        public void close() {
+            // nothing to do
+        }
+    }
+}
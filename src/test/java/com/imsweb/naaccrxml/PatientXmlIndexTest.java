@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class PatientXmlIndexTest {
+
+    @Test
+    public void testBuild() throws IOException {
+        File file = TestingUtils.getDataFile("standard-file.xml");
+        PatientXmlIndex index = PatientXmlIndex.build(file);
+        Assert.assertEquals(PatientXmlIndex.DEFAULT_KEY_ITEMS, index.getKeyItemIds());
+        Assert.assertEquals(file.length(), index.getFileSize());
+        Assert.assertEquals(2, index.getEntries().size());
+        Assert.assertEquals(5, index.getEntries().get(0).getLineNumber());
+        Assert.assertEquals("00000001", index.getEntries().get(0).getKeyValue(0));
+        Assert.assertEquals(11, index.getEntries().get(1).getLineNumber());
+        Assert.assertEquals("00000002", index.getEntries().get(1).getKeyValue(0));
+        assertEntriesMatchContent(file, index);
+        Assert.assertTrue(index.isValidFor(file));
+
+        // several key items, including a missing one
+        index = PatientXmlIndex.build(file, Arrays.asList("patientIdNumber", "nameLast"), null, null);
+        Assert.assertEquals("00000002", index.getEntries().get(1).getKeyValue(0));
+        Assert.assertNull(index.getEntries().get(1).getKeyValue(1));
+
+        // no key items
+        index = PatientXmlIndex.build(file, Collections.emptyList(), null, null);
+        Assert.assertEquals(2, index.getEntries().size());
+
+        Assert.assertThrows(NaaccrIOException.class, () -> PatientXmlIndex.build(new File(file.getParentFile(), "missing-file.xml")));
+        File gzFile = TestingUtils.createFile("patient-index.xml.gz");
+        NaaccrXmlUtils.writeXmlFile(new NaaccrData(NaaccrFormat.NAACCR_FORMAT_22_INCIDENCE), gzFile, null, null, null);
+        Assert.assertThrows(NaaccrIOException.class, () -> PatientXmlIndex.build(gzFile));
+    }
+
+    @Test
+    public void testLargeFile() throws IOException {
+        File file = createLargeFile();
+        String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(NaaccrXmlUtils.createReader(file)));
+        for (int chunkSize : new int[] {1, 1000, ParallelPatientXmlReader.DEFAULT_CHUNK_SIZE}) {
+            PatientXmlIndex index = PatientXmlIndex.build(file, PatientXmlIndex.DEFAULT_KEY_ITEMS, null, null, chunkSize);
+            Assert.assertEquals(2500 + 2500 / 11, index.getEntries().size());
+            assertEntriesMatchContent(file, index);
+            Assert.assertEquals(expected, readPatientsAsText(file, index, null));
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File file = createLargeFile();
+        PatientXmlIndex index = PatientXmlIndex.build(file);
+        File indexFile = PatientXmlIndex.getDefaultIndexFile(file);
+        Assert.assertEquals(file.getName() + PatientXmlIndex.INDEX_FILE_EXTENSION, indexFile.getName());
+        index.write(indexFile);
+
+        PatientXmlIndex index2 = PatientXmlIndex.read(indexFile);
+        Assert.assertEquals(index.getFileSize(), index2.getFileSize());
+        Assert.assertEquals(index.getLastModified(), index2.getLastModified());
+        Assert.assertEquals(index.getKeyItemIds(), index2.getKeyItemIds());
+        Assert.assertEquals(index.getEntries().size(), index2.getEntries().size());
+        for (int i = 0; i < index.getEntries().size(); i++) {
+            PatientXmlIndex.Entry entry = index.getEntries().get(i);
+            PatientXmlIndex.Entry entry2 = index2.getEntries().get(i);
+            Assert.assertEquals(entry.getOffset(), entry2.getOffset());
+            Assert.assertEquals(entry.getLength(), entry2.getLength());
+            Assert.assertEquals(entry.getLineNumber(), entry2.getLineNumber());
+            Assert.assertEquals(entry.getKeyValue(0), entry2.getKeyValue(0));
+        }
+        Assert.assertTrue(index2.isValidFor(file));
+
+        // the index shouldn't be valid anymore if the file changes
+        Assert.assertTrue(file.setLastModified(index.getLastModified() - 10000));
+        Assert.assertFalse(index2.isValidFor(file));
+        TestingUtils.writeFile(file, TestingUtils.readFileAsOneString(file) + "\n");
+        Assert.assertFalse(index2.isValidFor(file));
+        Assert.assertFalse(index2.isValidFor(null));
+
+        // not an index file
+        Assert.assertThrows(NaaccrIOException.class, () -> PatientXmlIndex.read(file));
+    }
+
+    @Test
+    public void testFindEntries() throws IOException {
+        File file = createLargeFile();
+        PatientXmlIndex index = PatientXmlIndex.build(file);
+
+        List<PatientXmlIndex.Entry> entries = index.findEntries("patientIdNumber", "00000123");
+        Assert.assertEquals(1, entries.size());
+        try (PatientXmlRandomAccessReader reader = new PatientXmlRandomAccessReader(file)) {
+            Assert.assertEquals("00000123", reader.readPatient(entries.get(0)).getItemValue("patientIdNumber"));
+        }
+        Assert.assertTrue(index.findEntries("patientIdNumber", "99999999").isEmpty());
+        Assert.assertEquals(2500 / 11, index.findEntries("patientIdNumber", null).size());
+        Assert.assertThrows(IllegalStateException.class, () -> index.findEntries("nameLast", "X"));
+    }
+
+    /**
+     * Creates a data file with many patients, including some self-closing ones and some tags hidden in comments and CDATA sections.
+     */
+    static File createLargeFile() throws IOException {
+        StringBuilder buf = new StringBuilder();
+        buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        buf.append("<!-- a comment with a fake <Patient> tag -->\n");
+        buf.append("<NaaccrData baseDictionaryUri=\"http://naaccr.org/naaccrxml/naaccr-dictionary-160.xml\"\n");
+        buf.append("            recordType=\"I\"\n");
+        buf.append("            specificationVersion=\"1.4\"\n");
+        buf.append("            xmlns=\"http://naaccr.org/naaccrxml\">\n");
+        buf.append("    <Item naaccrId=\"registryId\">0000000001</Item>\n");
+        for (int i = 1; i <= 2500; i++) {
+            buf.append("    <Patient>\n");
+            buf.append("        <Item naaccrId=\"patientIdNumber\">").append(String.format("%08d", i)).append("</Item>\n");
+            buf.append("        <Item naaccrId=\"nameLast\"><![CDATA[<Patient>]]>\u00e9</Item>\n");
+            if (i % 3 == 0)
+                buf.append("        <!-- </Patient> -->\n");
+            for (int j = 0; j < i % 4; j++) {
+                buf.append("        <Tumor>\n");
+                buf.append("            <Item naaccrId=\"primarySite\">C").append(j).append("00</Item>\n");
+                buf.append("        </Tumor>\n");
+            }
+            buf.append("    </Patient>\n");
+            if (i % 11 == 0)
+                buf.append("    <Patient/>\n");
+        }
+        buf.append("</NaaccrData>\n");
+        File file = TestingUtils.createFile("patient-index-large.xml");
+        TestingUtils.writeFile(file, buf.toString());
+        return file;
+    }
+
+    /**
+     * Makes sure the location of each entry corresponds to a full Patient tag.
+     */
+    private static void assertEntriesMatchContent(File file, PatientXmlIndex index) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        for (PatientXmlIndex.Entry entry : index.getEntries()) {
+            String tag = new String(content, (int)entry.getOffset(), entry.getLength(), StandardCharsets.UTF_8);
+            Assert.assertTrue(tag, tag.startsWith("<Patient"));
+            Assert.assertTrue(tag, tag.endsWith("</Patient>") || tag.equals("<Patient/>"));
+            int lineNumber = 1;
+            for (int i = 0; i < entry.getOffset(); i++)
+                if (content[i] == '\n')
+                    lineNumber++;
+            Assert.assertEquals(lineNumber, entry.getLineNumber());
+        }
+    }
+
+    /**
+     * Reads the patients of the index using a random access reader, and returns a textual representation of them.
+     */
+    static String readPatientsAsText(File file, PatientXmlIndex index, NaaccrOptions options) {
+        return TestingUtils.readPatientsAsText(() -> {
+            PatientXmlRandomAccessReader reader = new PatientXmlRandomAccessReader(file, options, null);
+            return new PatientReader() {
+                private int _index;
+
+                @Override
+                public Patient readPatient() throws NaaccrIOException {
+                    return _index < index.getEntries().size() ? reader.readPatient(index.getEntries().get(_index++)) : null;
+                }
+
+                @Override
+                public NaaccrData getRootData() {
+                    return reader.getRootData();
+                }
+
+                @Override
+                public void closeAndKeepAlive() {
+                    // nothing to do
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        });
+    }
+}
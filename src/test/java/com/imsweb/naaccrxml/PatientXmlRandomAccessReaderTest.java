@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+
+public class PatientXmlRandomAccessReaderTest {
+
+    @Test
+    public void testReader() throws IOException {
+        File file = TestingUtils.getDataFile("standard-file.xml");
+        PatientXmlIndex index = PatientXmlIndex.build(file);
+        try (PatientXmlRandomAccessReader reader = new PatientXmlRandomAccessReader(file)) {
+            Assert.assertEquals("0000000001", reader.getRootData().getItemValue("registryId"));
+
+            // read the patients in reverse order, twice
+            for (int i = 0; i < 2; i++) {
+                Patient patient = reader.readPatient(index.getEntries().get(1));
+                Assert.assertEquals("00000002", patient.getItemValue("patientIdNumber"));
+                Assert.assertEquals(11, patient.getStartLineNumber().intValue());
+                patient = reader.readPatient(index.getEntries().get(0));
+                Assert.assertEquals("00000001", patient.getItemValue("patientIdNumber"));
+                Assert.assertEquals(5, patient.getStartLineNumber().intValue());
+                Assert.assertEquals(1, patient.getTumors().size());
+            }
+
+            // bad locations
+            PatientXmlIndex.Entry entry = index.getEntries().get(0);
+            Assert.assertThrows(NaaccrIOException.class, () -> reader.readPatient(-1, entry.getLength(), entry.getLineNumber()));
+            Assert.assertThrows(NaaccrIOException.class, () -> reader.readPatient(entry.getOffset() + 1, entry.getLength(), entry.getLineNumber()));
+            Assert.assertThrows(NaaccrIOException.class, () -> reader.readPatient(file.length() - 5, entry.getLength(), entry.getLineNumber()));
+        }
+
+        File gzFile = TestingUtils.createFile("random-access-reader.xml.gz");
+        NaaccrXmlUtils.writeXmlFile(new NaaccrData(NaaccrFormat.NAACCR_FORMAT_22_INCIDENCE), gzFile, null, null, null);
+        Assert.assertThrows(NaaccrIOException.class, () -> new PatientXmlRandomAccessReader(gzFile));
+        Assert.assertThrows(NaaccrIOException.class, () -> new PatientXmlRandomAccessReader(new File(file.getParentFile(), "missing-file.xml")));
+    }
+
+    @Test
+    public void testSameResultAsRegularReader() throws IOException {
+        NaaccrOptions validatingOptions = NaaccrOptions.getDefault();
+        validatingOptions.setValidateReadValues(true);
+
+        for (File file : TestingUtils.getXmlDataFiles()) {
+            String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(new FileReader(file), validatingOptions));
+            if (expected.contains("exception"))
+                continue;
+            PatientXmlIndex index = PatientXmlIndex.build(file, PatientXmlIndex.DEFAULT_KEY_ITEMS, validatingOptions, null);
+            Assert.assertEquals(file.getName(), expected, PatientXmlIndexTest.readPatientsAsText(file, index, validatingOptions));
+        }
+    }
+}
@@ -3,12 +3,15 @@
  */
 package com.imsweb.naaccrxml;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -466,11 +469,58 @@ public class PatientXmlReaderTest {
         }
     }
 
+    @Test
+    public void testRegexValidation() throws IOException {
+        NaaccrOptions options = new NaaccrOptions();
+        options.setUseStrictNamespaces(false);
+
+        // the value of the data file is "01", which doesn't match the expression
+        NaaccrDictionary dict = TestingUtils.createUserDictionary(SpecificationVersion.SPEC_1_1);
+        dict.getItemByNaaccrId("myVariable").setRegexValidation("0[2-8]");
+
+        // the regular expressions are not enforced by default
+        try (PatientXmlReader reader = new PatientXmlReader(new FileReader(TestingUtils.getDataFile("xml-reader-user-dict-1.xml")), options, dict, null)) {
+            Assert.assertTrue(reader.readPatient().getAllValidationErrors().isEmpty());
+        }
+
+        options.setEnforceRegexValidation(true);
+        try (PatientXmlReader reader = new PatientXmlReader(new FileReader(TestingUtils.getDataFile("xml-reader-user-dict-1.xml")), options, dict, null)) {
+            Patient patient = reader.readPatient();
+            Assert.assertEquals("01", patient.getTumor(0).getItemValue("myVariable"));
+            Assert.assertEquals(1, patient.getAllValidationErrors().size());
+            NaaccrValidationError error = patient.getAllValidationErrors().get(0);
+            Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_REGEX, error.getCode());
+            Assert.assertEquals("myVariable", error.getNaaccrId());
+            Assert.assertEquals("01", error.getValue());
+            Assert.assertTrue(error.getMessage().contains("0[2-8]"));
+        }
+
+        // the regular expressions are part of the value validation, which can be turned off
+        options.setValidateReadValues(false);
+        try (PatientXmlReader reader = new PatientXmlReader(new FileReader(TestingUtils.getDataFile("xml-reader-user-dict-1.xml")), options, dict, null)) {
+            Assert.assertTrue(reader.readPatient().getAllValidationErrors().isEmpty());
+        }
+
+        // the dictionaries can't be modified once they have been used, a new instance is needed
+        options.setValidateReadValues(true);
+        NaaccrDictionary otherDict = TestingUtils.createUserDictionary(SpecificationVersion.SPEC_1_1);
+        otherDict.getItemByNaaccrId("myVariable").setRegexValidation("0[0-8]");
+        try (PatientXmlReader reader = new PatientXmlReader(new FileReader(TestingUtils.getDataFile("xml-reader-user-dict-1.xml")), options, otherDict, null)) {
+            Assert.assertTrue(reader.readPatient().getAllValidationErrors().isEmpty());
+        }
+    }
+
     @Test
     public void testExtensions() throws IOException {
+        assertExtensions(NaaccrStreamConfiguration.READING_ENGINE_XSTREAM);
+        assertExtensions(NaaccrStreamConfiguration.READING_ENGINE_PULL_PARSER);
+    }
+
+    private void assertExtensions(String readingEngine) throws IOException {
 
         // to properly process extensions, we have to register them to the framework; this is done through a configuration object
         NaaccrStreamConfiguration conf = new NaaccrStreamConfiguration();
+        conf.setReadingEngine(readingEngine);
         conf.getXstream().autodetectAnnotations(true); // required only because we want to use annotation on the extension classes (it's more convenient)
         conf.registerNamespace("other", "http://whatever.org");
         conf.registerTag("other", "MyOuterTag", OuterTag.class);
@@ -520,6 +570,131 @@ public class PatientXmlReaderTest {
         }
     }
 
+    @Test
+    public void testReadingEngines() throws IOException {
+        Assert.assertEquals(NaaccrStreamConfiguration.READING_ENGINE_XSTREAM, NaaccrStreamConfiguration.getDefault().getReadingEngine());
+        Assert.assertThrows(IllegalStateException.class, () -> NaaccrStreamConfiguration.getDefault().setReadingEngine("whatever"));
+
+        List<File> files = TestingUtils.getXmlDataFiles();
+        Assert.assertFalse(files.isEmpty());
+
+        NaaccrOptions relaxedOptions = NaaccrOptions.getDefault();
+        relaxedOptions.setUseStrictNamespaces(false);
+        NaaccrOptions validatingOptions = NaaccrOptions.getDefault();
+        validatingOptions.setValidateReadValues(true);
+        validatingOptions.setUnknownItemHandling(NaaccrOptions.ITEM_HANDLING_ERROR);
+
+        // both engines should return the exact same patients, validation errors, line numbers and exceptions
+        for (File file : files) {
+            for (NaaccrOptions options : Arrays.asList(null, relaxedOptions, validatingOptions)) {
+                String expected = readWithEngine(file, options, NaaccrStreamConfiguration.READING_ENGINE_XSTREAM);
+                String actual = readWithEngine(file, options, NaaccrStreamConfiguration.READING_ENGINE_PULL_PARSER);
+                Assert.assertEquals(file.getName(), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testCompactItemStorage() throws IOException {
+        NaaccrOptions validatingOptions = NaaccrOptions.getDefault();
+        validatingOptions.setValidateReadValues(true);
+        validatingOptions.setTranslateRenamedStandardItemIds(true);
+
+        // the compact storage should be transparent for the callers
+        for (File file : TestingUtils.getXmlDataFiles()) {
+            for (NaaccrOptions options : Arrays.asList(NaaccrOptions.getDefault(), validatingOptions)) {
+                options.setUseCompactItemStorage(false);
+                String expected = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(new FileReader(file), options));
+                options.setUseCompactItemStorage(true);
+                String actual = TestingUtils.readPatientsAsText(() -> new PatientXmlReader(new FileReader(file), options));
+                Assert.assertEquals(file.getName(), expected, actual);
+            }
+        }
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setUseStrictNamespaces(false);
+        options.setUseCompactItemStorage(true);
+        try (PatientXmlReader reader = new PatientXmlReader(new FileReader(TestingUtils.getDataFile("xml-reader-one-patient-one-tumor.xml")), options)) {
+            Patient patient = reader.readPatient();
+            Assert.assertTrue(patient.isUsingCompactItemStorage());
+            Assert.assertTrue(patient.getTumor(0).isUsingCompactItemStorage());
+            Assert.assertEquals("00000001", patient.getItemValue("patientIdNumber"));
+            Assert.assertEquals("C123", patient.getTumor(0).getItemValue("primarySite"));
+            Assert.assertTrue(patient.getAllValidationErrors().isEmpty());
+            Assert.assertTrue(patient.isUsingCompactItemStorage());
+            Assert.assertEquals(3, patient.getItem("patientIdNumber").getStartLineNumber().intValue());
+            Assert.assertFalse(patient.isUsingCompactItemStorage());
+        }
+    }
+
+    @Test
+    public void testValidationErrorLimits() throws IOException {
+        StringBuilder buf = new StringBuilder();
+        buf.append("<NaaccrData baseDictionaryUri=\"http://naaccr.org/naaccrxml/naaccr-dictionary-220.xml\" recordType=\"A\" specificationVersion=\"")
+                .append(NaaccrXmlUtils.CURRENT_SPECIFICATION_VERSION).append("\" xmlns=\"http://naaccr.org/naaccrxml\">\n");
+        for (int i = 1; i <= 5; i++) {
+            buf.append("  <Patient>\n");
+            buf.append("    <Item naaccrId=\"patientIdNumber\">0000000").append(i).append("</Item>\n");
+            buf.append("    <Tumor>\n");
+            buf.append("      <Item naaccrId=\"dateOfDiagnosis\">2010XX</Item>\n");
+            buf.append("      <Item naaccrId=\"dateCaseCompleted\">1950XX</Item>\n");
+            buf.append("      <Item naaccrId=\"primarySite\">C12345</Item>\n");
+            buf.append("    </Tumor>\n");
+            buf.append("  </Patient>\n");
+        }
+        buf.append("</NaaccrData>");
+        String xml = buf.toString();
+
+        // no limit by default
+        try (PatientXmlReader reader = new PatientXmlReader(new StringReader(xml))) {
+            int numErrors = 0;
+            for (Patient patient = reader.readPatient(); patient != null; patient = reader.readPatient())
+                numErrors += patient.getAllValidationErrors().size();
+            Assert.assertEquals(15, numErrors);
+            Assert.assertEquals(15, reader.getErrorCollector().getNumErrors());
+            Assert.assertEquals(0, reader.getErrorCollector().getNumDroppedErrors());
+        }
+
+        // limits per entity and per code
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        options.setMaxValidationErrorsPerEntity(2);
+        options.setMaxValidationErrorsPerCode(3);
+        try (PatientXmlReader reader = new PatientXmlReader(new StringReader(xml), options)) {
+            int numDataTypeErrors = 0;
+            int numTooLongErrors = 0;
+            for (Patient patient = reader.readPatient(); patient != null; patient = reader.readPatient()) {
+                Assert.assertTrue(patient.getTumor(0).getNumValidationErrors() <= 2);
+                for (NaaccrValidationError error : patient.getAllValidationErrors()) {
+                    if (NaaccrErrorUtils.CODE_VAL_DATA_TYPE.equals(error.getCode()))
+                        numDataTypeErrors++;
+                    else if (NaaccrErrorUtils.CODE_VAL_TOO_LONG.equals(error.getCode()))
+                        numTooLongErrors++;
+                }
+            }
+            Assert.assertEquals(3, numDataTypeErrors);
+            Assert.assertEquals(3, numTooLongErrors);
+            NaaccrErrorCollector collector = reader.getErrorCollector();
+            Assert.assertEquals(15, collector.getNumErrors());
+            Assert.assertEquals(9, collector.getNumDroppedErrors());
+            Assert.assertEquals(10L, collector.getErrorCounts().get(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).longValue());
+            Assert.assertEquals(7L, collector.getDroppedErrorCounts().get(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).longValue());
+            Assert.assertEquals(2L, collector.getDroppedErrorCounts().get(NaaccrErrorUtils.CODE_VAL_TOO_LONG).longValue());
+        }
+
+        // the validation summary should still report all the errors
+        File file = TestingUtils.createFile("validation-error-limits.xml");
+        TestingUtils.writeFile(file, xml);
+        NaaccrValidationSummary summary = NaaccrXmlUtils.validateXmlFile(file, options, null, null);
+        Assert.assertEquals(10L, summary.getErrorCounts().get(NaaccrErrorUtils.CODE_VAL_DATA_TYPE).longValue());
+        Assert.assertEquals(5L, summary.getErrorCounts().get(NaaccrErrorUtils.CODE_VAL_TOO_LONG).longValue());
+    }
+
+    private String readWithEngine(File file, NaaccrOptions options, String engine) {
+        NaaccrStreamConfiguration conf = new NaaccrStreamConfiguration();
+        conf.setReadingEngine(engine);
+        return TestingUtils.readPatientsAsText(() -> new PatientXmlReader(new FileReader(file), options, (NaaccrDictionary)null, conf));
+    }
+
     @SuppressWarnings("unused")
     @XStreamAlias("MyOuterTag")
     private static class OuterTag extends AbstractNaaccrXmlExtension {
@@ -5,9 +5,11 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -495,6 +497,110 @@ public class PatientXmlWriterTest {
         }
     }
 
+    @Test
+    public void testWritingEngines() throws IOException {
+        Assert.assertEquals(NaaccrStreamConfiguration.WRITING_ENGINE_XSTREAM, NaaccrStreamConfiguration.getDefault().getWritingEngine());
+        Assert.assertThrows(IllegalStateException.class, () -> NaaccrStreamConfiguration.getDefault().setWritingEngine("whatever"));
+
+        NaaccrData data = new NaaccrData(NaaccrFormat.NAACCR_FORMAT_22_INCIDENCE);
+        data.setTimeGenerated(new Date(0));
+        data.addExtraRootParameters("other:myAttribute", "X&Y");
+        data.addItem(new Item("registryId", "0000000001"));
+        Patient patient1 = new Patient();
+        patient1.addItem(new Item("patientIdNumber", "1"));
+        patient1.addItem(new Item("nameLast", "O'Brien & <Sons> \"Jr\""));
+        patient1.addItem(new Item("addrAtDxCity", "Montr\u00E9al \u00C7\u00E0 \uD83D\uDE00 \u2028"));
+        patient1.addItem(new Item("unknownItem", "VALUE"));
+        patient1.addItem(new Item("dateOfBirth", ""));
+        OuterTag tag = new OuterTag();
+        tag.setInnerTag("INNER");
+        tag.setSomeAttribute("XXX");
+        patient1.setExtensions(Collections.singletonList(tag));
+        Tumor tumor1 = new Tumor();
+        tumor1.addItem(new Item("primarySite", "C123"));
+        tumor1.addItem(new Item("sequenceNumberCentral", "1"));
+        tumor1.addItem(new Item("textRemarks", "Line 1\r\nLine 2\rLine 3\n\tLine 4"));
+        tumor1.setExtensions(Collections.singletonList(tag));
+        patient1.addTumor(tumor1);
+        patient1.addTumor(new Tumor());
+        Tumor tumor3 = new Tumor();
+        tumor3.addItem(new Item("primarySite", "C44999999"));
+        tumor3.addItem(new Item("textRemarks", "\u0001\u0002"));
+        patient1.addTumor(tumor3);
+        data.addPatient(patient1);
+        data.addPatient(new Patient());
+        Patient patient3 = new Patient();
+        patient3.addItem(new Item("patientIdNumber", "3"));
+        data.addPatient(patient3);
+
+        NaaccrOptions defaultOptions = NaaccrOptions.getDefault();
+        defaultOptions.setUnknownItemHandling(NaaccrOptions.ITEM_HANDLING_PROCESS);
+        defaultOptions.setIgnoreControlCharacters(true);
+        NaaccrOptions otherOptions = NaaccrOptions.getDefault();
+        otherOptions.setUnknownItemHandling(NaaccrOptions.ITEM_HANDLING_IGNORE);
+        otherOptions.setIgnoreControlCharacters(true);
+        otherOptions.setWriteItemNumber(true);
+        otherOptions.setWriteItemsInAlphabeticalOrder(true);
+        otherOptions.setApplyZeroPaddingRules(true);
+        otherOptions.setIgnoreExtensions(true);
+        otherOptions.setNewLine(NaaccrOptions.NEW_LINE_CRLF);
+        NaaccrOptions failingOptions = NaaccrOptions.getDefault();
+        failingOptions.setUnknownItemHandling(NaaccrOptions.ITEM_HANDLING_PROCESS);
+        failingOptions.setIgnoreControlCharacters(false);
+
+        // both engines should produce the exact same output (or the same exception)
+        for (NaaccrOptions options : Arrays.asList(defaultOptions, otherOptions, failingOptions)) {
+            String expected = writeWithEngine(data, options, NaaccrStreamConfiguration.WRITING_ENGINE_XSTREAM);
+            Assert.assertEquals(expected, writeWithEngine(data, options, NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT));
+        }
+        Assert.assertTrue(writeWithEngine(data, failingOptions, NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT).contains("non-printable control characters"));
+        NaaccrData emptyData = new NaaccrData(NaaccrFormat.NAACCR_FORMAT_22_INCIDENCE);
+        emptyData.setTimeGenerated(new Date(0));
+        Assert.assertEquals(writeWithEngine(emptyData, defaultOptions, NaaccrStreamConfiguration.WRITING_ENGINE_XSTREAM), writeWithEngine(emptyData, defaultOptions,
+                NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT));
+
+        // re-writing the testing data files should produce the exact same output
+        NaaccrOptions readOptions = NaaccrOptions.getDefault();
+        readOptions.setUseStrictNamespaces(false);
+        readOptions.setUnknownItemHandling(NaaccrOptions.ITEM_HANDLING_PROCESS);
+        int count = 0;
+        for (File file : TestingUtils.getXmlDataFiles()) {
+            NaaccrData fileData;
+            try {
+                fileData = NaaccrXmlUtils.readXmlFile(file, readOptions, null, null);
+            }
+            catch (NaaccrIOException e) {
+                continue;
+            }
+            fileData.setTimeGenerated(new Date(0));
+            for (NaaccrOptions options : Arrays.asList(defaultOptions, otherOptions)) {
+                String expected = writeWithEngine(fileData, options, NaaccrStreamConfiguration.WRITING_ENGINE_XSTREAM);
+                Assert.assertEquals(file.getName(), expected, writeWithEngine(fileData, options, NaaccrStreamConfiguration.WRITING_ENGINE_DIRECT));
+            }
+            count++;
+        }
+        Assert.assertTrue(count > 0);
+    }
+
+    private static String writeWithEngine(NaaccrData data, NaaccrOptions options, String engine) {
+        NaaccrStreamConfiguration conf = new NaaccrStreamConfiguration();
+        conf.setWritingEngine(engine);
+        conf.getXstream().autodetectAnnotations(true);
+        conf.registerNamespace("other", "http://whatever.org");
+        conf.registerTag("other", "MyOuterTag", OuterTag.class);
+        conf.registerAttribute("other", "someAttribute", OuterTag.class, "_someAttribute", String.class);
+
+        StringWriter buf = new StringWriter();
+        try (PatientXmlWriter writer = new PatientXmlWriter(buf, data, options, (NaaccrDictionary)null, conf)) {
+            for (Patient patient : data.getPatients())
+                writer.writePatient(patient);
+        }
+        catch (NaaccrIOException e) {
+            return "ERROR: " + e.getMessage();
+        }
+        return buf.toString();
+    }
+
     @SuppressWarnings("unused")
     @XStreamAlias("other:MyOuterTag")
     private static class OuterTag implements NaaccrXmlExtension {
@@ -6,13 +6,19 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
+import com.imsweb.naaccrxml.entity.AbstractEntity;
+import com.imsweb.naaccrxml.entity.Item;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
 import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
 
@@ -169,6 +175,16 @@ public class TestingUtils {
         }
     }
 
+    /**
+     * Reads the content of the given XML data file (which can be compressed) as one big string, without the timeGenerated attribute (so the content
+     * of two files written at different times can be compared).
+     */
+    public static String readXmlWithoutTimeGenerated(File file) throws IOException {
+        try (Reader reader = NaaccrXmlUtils.createReader(file)) {
+            return IOUtils.toString(reader).replaceAll("timeGenerated=\"[^\"]+\"", "");
+        }
+    }
+
     /**
      * Writes the given content to the given file.
      */
@@ -186,4 +202,69 @@ public class TestingUtils {
         FileUtils.copyFile(source, target);
         return target;
     }
+
+    /**
+     * Creates a patient reader, used by the methods comparing the result of different readers.
+     */
+    @FunctionalInterface
+    public interface PatientReaderCreator {
+
+        PatientReader create() throws IOException;
+    }
+
+    /**
+     * Reads all the patients from the created reader and returns a textual representation of them (including their line numbers and validation errors);
+     * if the reading fails, the returned text includes the exception message, line number and path.
+     */
+    public static String readPatientsAsText(PatientReaderCreator creator) {
+        StringBuilder buf = new StringBuilder();
+        try (PatientReader reader = creator.create()) {
+            appendEntity(buf, "root", reader.getRootData());
+            Patient patient = reader.readPatient();
+            while (patient != null) {
+                appendEntity(buf, "patient", patient);
+                for (Tumor tumor : patient.getTumors())
+                    appendEntity(buf, "tumor", tumor);
+                patient = reader.readPatient();
+            }
+        }
+        catch (NaaccrIOException e) {
+            buf.append("exception: ").append(e.getMessage()).append(" line=").append(e.getLineNumber()).append(" path=").append(e.getPath()).append("\n");
+        }
+        catch (IOException e) {
+            buf.append("exception: ").append(e.getMessage()).append("\n");
+        }
+        return buf.toString();
+    }
+
+    private static void appendEntity(StringBuilder buf, String type, AbstractEntity entity) {
+        buf.append(type).append(" lines=").append(entity.getStartLineNumber()).append('-').append(entity.getEndLineNumber()).append("\n");
+        for (Item item : entity.getItems()) {
+            buf.append("  item ").append(item.getNaaccrId()).append('/').append(item.getNaaccrNum()).append('=').append(item.getValue()).append(" line=").append(item.getStartLineNumber()).append("\n");
+            if (item.getValidationError() != null)
+                appendError(buf, item.getValidationError());
+        }
+        for (NaaccrValidationError error : entity.getValidationErrors())
+            appendError(buf, error);
+        if (entity.getExtensions() != null)
+            buf.append("  extensions=").append(entity.getExtensions().size()).append("\n");
+    }
+
+    private static void appendError(StringBuilder buf, NaaccrValidationError error) {
+        buf.append("  error ").append(error.getCode()).append(": ").append(error.getMessage()).append(" line=").append(error.getLineNumber()).append(" path=").append(error.getPath())
+                .append(" id=").append(error.getNaaccrId()).append(" num=").append(error.getNaaccrNum()).append(" value=").append(error.getValue()).append("\n");
+    }
+
+    /**
+     * Returns all the XML testing data files (including the files used to test the validity of the format).
+     */
+    public static List<File> getXmlDataFiles() {
+        List<File> files = new ArrayList<>();
+        for (String dir : new String[] {"", "validity/valid", "validity/invalid", "validity/invalid_relaxed", "validity/invalid_library_only"}) {
+            File[] dirFiles = getDataFile(dir).listFiles((d, name) -> name.endsWith(".xml"));
+            if (dirFiles != null)
+                files.addAll(Arrays.asList(dirFiles));
+        }
+        return files;
+    }
 }
@@ -8,7 +8,10 @@ import java.util.Arrays;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.imsweb.naaccrxml.DuplicateItemException;
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
 import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrValidationError;
 
 public class AbstractEntityTest {
 
@@ -46,4 +49,107 @@ public class AbstractEntityTest {
         Assert.assertEquals("1", tumor2.getItemValue("laterality"));
     }
 
+    @Test
+    public void testValidationErrors() {
+        Patient patient = new Patient();
+        patient.addItem(new Item("patientIdNumber", "00000001"));
+        Tumor tumor1 = new Tumor();
+        tumor1.addItem(new Item("primarySite", "C123"));
+        Tumor tumor2 = new Tumor();
+        tumor2.addItem(new Item("laterality", "1"));
+        patient.setTumors(Arrays.asList(tumor1, tumor2));
+        Assert.assertFalse(patient.hasAnyValidationErrors());
+        Assert.assertEquals(0, patient.getNumValidationErrors());
+
+        // error on an item of a tumor
+        Item item = new Item("dateOfDiagnosis", "2010XX");
+        item.setValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "date"));
+        tumor2.addItem(item);
+        Assert.assertTrue(tumor2.hasAnyValidationErrors());
+        Assert.assertFalse(tumor1.hasAnyValidationErrors());
+        Assert.assertTrue(patient.hasAnyValidationErrors());
+        Assert.assertEquals(1, tumor2.getNumValidationErrors());
+        Assert.assertEquals(0, patient.getNumValidationErrors());
+        Assert.assertTrue(tumor2.removeItem("dateOfDiagnosis"));
+        Assert.assertFalse(patient.hasAnyValidationErrors());
+        Assert.assertEquals(0, tumor2.getNumValidationErrors());
+
+        // error on the patient itself
+        patient.addValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_BAD_LINE_LENGTH, 10, 20));
+        Assert.assertTrue(patient.hasAnyValidationErrors());
+        Assert.assertEquals(1, patient.getNumValidationErrors());
+        Assert.assertEquals(patient.hasAnyValidationErrors(), !patient.getAllValidationErrors().isEmpty());
+    }
+
+    @Test
+    public void testCompactItemStorage() {
+        ItemSlotIndex index = new ItemSlotIndex(Arrays.asList("primarySite", "laterality", "dateOfDiagnosis"), Arrays.asList(400, 410, 390));
+
+        Tumor tumor = new Tumor();
+        tumor.useCompactItemStorage(index);
+        Assert.assertTrue(tumor.isUsingCompactItemStorage());
+        tumor.addItem(new Item("laterality", 410, "1", 5));
+        tumor.addItem("primarySite", 400, "C123", null);
+        Assert.assertEquals("1", tumor.getItemValue("laterality"));
+        Assert.assertEquals("C123", tumor.getItemValue("primarySite"));
+        Assert.assertNull(tumor.getItemValue("dateOfDiagnosis"));
+        Assert.assertNull(tumor.getItemValue("unknown"));
+        Assert.assertNull(tumor.getItem("dateOfDiagnosis"));
+        Assert.assertTrue(tumor.getAllValidationErrors().isEmpty());
+        Assert.assertThrows(DuplicateItemException.class, () -> tumor.addItem("laterality", 410, "2", null));
+        Assert.assertTrue(tumor.isUsingCompactItemStorage());
+
+        // the collections of the regular storage should not have been created
+        Assert.assertNull(tumor._items);
+        Assert.assertNull(tumor._cachedById);
+        Assert.assertNull(tumor._errors);
+        Assert.assertTrue(tumor.getValidationErrors().isEmpty());
+
+        // requesting the items switches back to the regular storage, keeping the order of the items
+        Assert.assertEquals(2, tumor.getItems().size());
+        Assert.assertFalse(tumor.isUsingCompactItemStorage());
+        Assert.assertEquals("laterality", tumor.getItems().get(0).getNaaccrId());
+        Assert.assertEquals(410, tumor.getItems().get(0).getNaaccrNum().intValue());
+        Assert.assertEquals(5, tumor.getItems().get(0).getStartLineNumber().intValue());
+        Assert.assertEquals("primarySite", tumor.getItems().get(1).getNaaccrId());
+        Assert.assertNull(tumor.getItems().get(1).getStartLineNumber());
+        tumor.getItem("primarySite").setValue("C456");
+        Assert.assertEquals("C456", tumor.getItemValue("primarySite"));
+        Assert.assertThrows(DuplicateItemException.class, () -> tumor.addItem("laterality", 410, "2", null));
+
+        // items that can't be stored in a compact way switch back to the regular storage
+        Tumor tumor2 = new Tumor();
+        tumor2.useCompactItemStorage(index);
+        tumor2.addItem(new Item("primarySite", 400, "C123", null));
+        tumor2.addItem(new Item("unknown", "X"));
+        Assert.assertFalse(tumor2.isUsingCompactItemStorage());
+        Assert.assertEquals("C123", tumor2.getItemValue("primarySite"));
+        Assert.assertEquals("X", tumor2.getItemValue("unknown"));
+        Tumor tumor3 = new Tumor();
+        tumor3.useCompactItemStorage(index);
+        Item item = new Item("primarySite", 400, "C123", null);
+        item.setValidationError(new NaaccrValidationError(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, "alpha"));
+        tumor3.addItem(item);
+        Assert.assertFalse(tumor3.isUsingCompactItemStorage());
+        Assert.assertEquals(1, tumor3.getAllValidationErrors().size());
+        Tumor tumor4 = new Tumor();
+        tumor4.useCompactItemStorage(index);
+        tumor4.addItem(new Item("primarySite", "C123"));
+        Assert.assertFalse(tumor4.isUsingCompactItemStorage());
+
+        // removing an item also switches back to the regular storage
+        Tumor tumor5 = new Tumor();
+        tumor5.useCompactItemStorage(index);
+        tumor5.addItem("primarySite", 400, "C123", null);
+        Assert.assertTrue(tumor5.removeItem("primarySite"));
+        Assert.assertNull(tumor5.getItemValue("primarySite"));
+
+        // compact storage can't be requested once items have been added
+        Assert.assertThrows(IllegalStateException.class, () -> tumor.useCompactItemStorage(index));
+        Tumor tumor6 = new Tumor();
+        tumor6.addItem(new Item("primarySite", "C123"));
+        Assert.assertThrows(IllegalStateException.class, () -> tumor6.useCompactItemStorage(index));
+
+        Assert.assertThrows(IllegalStateException.class, () -> new ItemSlotIndex(Arrays.asList("primarySite", "primarySite"), Arrays.asList(400, 400)));
+    }
 }
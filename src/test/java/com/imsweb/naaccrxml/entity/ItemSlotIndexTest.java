@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
+
+public class ItemSlotIndexTest {
+
+    @Test
+    public void testGetSlot() {
+        List<String> ids = new ArrayList<>();
+        List<Integer> nums = new ArrayList<>();
+        for (NaaccrDictionaryItem item : NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_220).getItems()) {
+            ids.add(item.getNaaccrId());
+            nums.add(item.getNaaccrNum());
+        }
+        ItemSlotIndex index = new ItemSlotIndex(ids, nums);
+        Assert.assertEquals(ids.size(), index.getNumSlots());
+        for (int i = 0; i < ids.size(); i++) {
+            Assert.assertEquals(i, index.getSlot(ids.get(i)));
+            Assert.assertEquals(i, index.getSlot(new String(ids.get(i).toCharArray())));
+            Assert.assertEquals(ids.get(i), index.getNaaccrId(i));
+            Assert.assertEquals(nums.get(i), index.getNaaccrNum(i));
+        }
+        Assert.assertEquals(-1, index.getSlot("unknown"));
+        Assert.assertEquals(-1, index.getSlot(""));
+        Assert.assertEquals(-1, index.getSlot(null));
+
+        // strings with the same hash code should not be confused
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        index = new ItemSlotIndex(Arrays.asList("Aa", "BB"), Arrays.asList(1, null));
+        Assert.assertEquals(0, index.getSlot("Aa"));
+        Assert.assertEquals(1, index.getSlot("BB"));
+        Assert.assertEquals(-1, index.getSlot("AaBB"));
+
+        index = new ItemSlotIndex(Collections.emptyList(), Collections.emptyList());
+        Assert.assertEquals(-1, index.getSlot("primarySite"));
+
+        Assert.assertThrows(IllegalStateException.class, () -> new ItemSlotIndex(Arrays.asList("Aa", "Aa"), Arrays.asList(1, 2)));
+        Assert.assertThrows(IllegalStateException.class, () -> new ItemSlotIndex(Collections.singletonList("Aa"), Collections.emptyList()));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DoubleBufferedOutputStreamTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+
+        for (int chunkSize : new int[] {1, 7, 1024, DoubleBufferedOutputStream.DEFAULT_CHUNK_SIZE}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DoubleBufferedOutputStream os = new DoubleBufferedOutputStream(out, chunkSize)) {
+                // mix single bytes, small and large arrays, and flushes
+                int pos = 0;
+                while (pos < data.length) {
+                    if (pos % 3 == 0)
+                        os.write(data[pos++]);
+                    else {
+                        int len = Math.min(data.length - pos, pos % 5000);
+                        os.write(data, pos, len);
+                        pos += len;
+                    }
+                    if (pos % 7 == 0) {
+                        os.flush();
+                        Assert.assertEquals(pos, out.size());
+                    }
+                }
+            }
+            Assert.assertArrayEquals(data, out.toByteArray());
+        }
+
+        // compressing on the background thread should result in the same data
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = new DoubleBufferedOutputStream(new GZIPOutputStream(out), 1024)) {
+            os.write(data);
+        }
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertArrayEquals(data, IOUtils.toByteArray(is));
+        }
+
+        Assert.assertThrows(IllegalStateException.class, () -> new DoubleBufferedOutputStream(out, 0));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        FailingOutputStream failing = new FailingOutputStream();
+        DoubleBufferedOutputStream os = new DoubleBufferedOutputStream(failing, 16);
+        os.write(new byte[8]);
+        os.flush();
+
+        // the failure should be thrown by one of the next calls, and again by the following ones
+        failing._fail = true;
+        IOException ex = Assert.assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 100; i++)
+                os.write(new byte[8]);
+        });
+        Assert.assertEquals("Disk full", ex.getMessage());
+        Assert.assertSame(ex, Assert.assertThrows(IOException.class, () -> os.write(1)));
+        Assert.assertSame(ex, Assert.assertThrows(IOException.class, os::close));
+        Assert.assertTrue(failing._closed);
+
+        // a closed stream can't be used anymore, but can be closed again
+        os.close();
+        Assert.assertThrows(IOException.class, () -> os.write(1));
+    }
+
+    // an output stream that fails on demand
+    private static final class FailingOutputStream extends OutputStream {
+
+        private volatile boolean _fail;
+
+        private boolean _closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (_fail)
+                throw new IOException("Disk full");
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (_fail)
+                throw new IOException("Disk full");
+        }
+
+        @Override
+        public void close() {
+            _closed = true;
+        }
+    }
+}
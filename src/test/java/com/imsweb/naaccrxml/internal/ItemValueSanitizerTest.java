@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.imsweb.naaccrxml.internal.ItemValueSanitizer.CONTROL_CHARACTERS_KEEP;
+import static com.imsweb.naaccrxml.internal.ItemValueSanitizer.CONTROL_CHARACTERS_REJECT;
+import static com.imsweb.naaccrxml.internal.ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE;
+
+public class ItemValueSanitizerTest {
+
+    // the patterns that were used before the sanitizer was introduced
+    private static final Pattern _CARRIAGE_RETURN_PATTERN = Pattern.compile("\r\n|\r(?!\n)|(?<!\r)\n");
+    private static final Pattern _CONTROL_CHARACTERS_PATTERN = Pattern.compile("[\\x00-\\x08\\x0B\\x0C\\x0E-\\x1F\\x7F]");
+    private static final Pattern _NEW_LINES_PATTERN = Pattern.compile("(\r\n|\n|\r)");
+
+    @Test
+    public void testSanitize() {
+        Assert.assertEquals("", ItemValueSanitizer.sanitize("", '\n', CONTROL_CHARACTERS_REJECT));
+        Assert.assertEquals("A\nB\nC\nD\n\nE", ItemValueSanitizer.sanitize("A\r\nB\rC\nD\r\r\nE", '\n', CONTROL_CHARACTERS_REJECT));
+        Assert.assertEquals("A B C D  E", ItemValueSanitizer.sanitize("A\r\nB\rC\nD\r\r\nE", ' ', CONTROL_CHARACTERS_KEEP));
+        Assert.assertEquals("\tAé", ItemValueSanitizer.sanitize("\tAé", '\n', CONTROL_CHARACTERS_REJECT));
+        Assert.assertNull(ItemValueSanitizer.sanitize("A\u0000", '\n', CONTROL_CHARACTERS_REJECT));
+        Assert.assertNull(ItemValueSanitizer.sanitize("\r\nA\u007F", '\n', CONTROL_CHARACTERS_REJECT));
+        Assert.assertEquals("A\nB", ItemValueSanitizer.sanitize("\u0001A\r\u001FB\u007F", '\n', CONTROL_CHARACTERS_REMOVE));
+        Assert.assertEquals("\u0001A B\u007F", ItemValueSanitizer.sanitize("\u0001A\rB\u007F", ' ', CONTROL_CHARACTERS_KEEP));
+
+        // values that don't need to be changed should be returned as-is
+        String value = "C123 \té\n";
+        Assert.assertSame(value, ItemValueSanitizer.sanitize(value, '\n', CONTROL_CHARACTERS_REJECT));
+        Assert.assertSame(value, ItemValueSanitizer.sanitize(value, '\n', CONTROL_CHARACTERS_REMOVE));
+        value = "C123 \té\u0001";
+        Assert.assertSame(value, ItemValueSanitizer.sanitize(value, ' ', CONTROL_CHARACTERS_KEEP));
+
+        Assert.assertTrue(ItemValueSanitizer.isControlCharacter('\u0000'));
+        Assert.assertTrue(ItemValueSanitizer.isControlCharacter('\u007F'));
+        Assert.assertFalse(ItemValueSanitizer.isControlCharacter('\t'));
+        Assert.assertFalse(ItemValueSanitizer.isControlCharacter('\r'));
+        Assert.assertFalse(ItemValueSanitizer.isControlCharacter('\n'));
+        Assert.assertFalse(ItemValueSanitizer.isControlCharacter(' '));
+    }
+
+    @Test
+    public void testSanitizeAgainstPatterns() {
+        char[] alphabet = {'A', '1', ' ', '\r', '\n', '\t', '\u0000', '\u000B', '\u001F', '\u007F', 'é'};
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            String value = new String(chars);
+
+            // XML writer
+            String expected = _CARRIAGE_RETURN_PATTERN.matcher(value).replaceAll("\n");
+            boolean hasControlCharacters = _CONTROL_CHARACTERS_PATTERN.matcher(expected).find();
+            Assert.assertEquals(hasControlCharacters ? null : expected, ItemValueSanitizer.sanitize(value, '\n', CONTROL_CHARACTERS_REJECT));
+            Assert.assertEquals(_CONTROL_CHARACTERS_PATTERN.matcher(expected).replaceAll(""), ItemValueSanitizer.sanitize(value, '\n', CONTROL_CHARACTERS_REMOVE));
+
+            // flat writer
+            Assert.assertEquals(_NEW_LINES_PATTERN.matcher(value).replaceAll(" "), ItemValueSanitizer.sanitize(value, ' ', CONTROL_CHARACTERS_KEEP));
+        }
+    }
+}
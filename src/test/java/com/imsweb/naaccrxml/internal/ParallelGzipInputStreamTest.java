@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelGzipInputStreamTest {
+
+    @Test
+    public void testDecompression() throws IOException {
+        byte[] data = createData();
+
+        // members created by the parallel stream
+        for (int blockSize : new int[] {1000, 65536, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE}) {
+            byte[] compressed = compressParallel(data, blockSize);
+            for (int numThreads : new int[] {1, 4})
+                Assert.assertArrayEquals(data, uncompress(compressed, numThreads));
+        }
+
+        // single member created by the JDK stream
+        byte[] compressed = compressSingle(data);
+        Assert.assertArrayEquals(data, uncompress(compressed, 2));
+
+        // a mix of both
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(compressParallel(Arrays.copyOfRange(data, 0, 100000), 10000));
+        out.write(compressSingle(Arrays.copyOfRange(data, 100000, 200000)));
+        out.write(compressParallel(Arrays.copyOfRange(data, 200000, data.length), 10000));
+        Assert.assertArrayEquals(data, uncompress(out.toByteArray(), 2));
+
+        // the data following the last member should be ignored if it's not a member (like for the JDK stream)
+        out = new ByteArrayOutputStream();
+        out.write(compressParallel(data, 10000));
+        out.write(new byte[100]);
+        Assert.assertArrayEquals(data, uncompress(out.toByteArray(), 2));
+
+        // a member size that is too big shouldn't be trusted, the members should be decompressed as they are read instead
+        for (int size : new int[] {Integer.MAX_VALUE, -1, 4 * ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE + 1}) {
+            byte[] compressed2 = compressParallel(data, 10000);
+            for (int i = 0; i < 4; i++)
+                compressed2[16 + i] = (byte)(size >>> (8 * i));
+            Assert.assertArrayEquals(data, uncompress(compressed2, 2));
+        }
+
+        // no data at all
+        Assert.assertEquals(0, uncompress(compressParallel(new byte[0], 1000), 2).length);
+        Assert.assertEquals(0, uncompress(compressSingle(new byte[0]), 2).length);
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        Assert.assertThrows(ZipException.class, () -> new ParallelGzipInputStream(new ByteArrayInputStream("not compressed".getBytes(StandardCharsets.UTF_8))));
+        Assert.assertThrows(EOFException.class, () -> new ParallelGzipInputStream(new ByteArrayInputStream(new byte[0])));
+        Assert.assertThrows(IllegalStateException.class, () -> new ParallelGzipInputStream(new ByteArrayInputStream(compressSingle(new byte[0])), 0));
+
+        byte[] data = createData();
+        for (byte[] compressed : new byte[][] {compressParallel(data, 10000), compressSingle(data)}) {
+
+            // corrupted data
+            byte[] corrupted = compressed.clone();
+            for (int i = corrupted.length / 2; i < corrupted.length / 2 + 10; i++)
+                corrupted[i] = (byte)~corrupted[i];
+            Assert.assertThrows(IOException.class, () -> uncompress(corrupted, 2));
+
+            // truncated data
+            byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+            Assert.assertThrows(IOException.class, () -> uncompress(truncated, 2));
+
+            // closing the stream before the end of the data
+            InputStream is = new ParallelGzipInputStream(new ByteArrayInputStream(compressed), 2);
+            Assert.assertEquals(data[0], (byte)is.read());
+            is.close();
+            Assert.assertThrows(IOException.class, is::read);
+            is.close();
+        }
+    }
+
+    private static byte[] createData() {
+        Random random = new Random(42);
+        StringBuilder buf = new StringBuilder();
+        while (buf.length() < 1_000_000)
+            buf.append("I").append(random.nextInt(100000)).append(" C").append(random.nextInt(1000)).append(" some text that compresses well\n");
+        return buf.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compressParallel(byte[] data, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = new ParallelGzipOutputStream(out, 2, -1, blockSize)) {
+            os.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] compressSingle(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(out)) {
+            os.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] uncompress(byte[] compressed, int numThreads) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = new ParallelGzipInputStream(new ByteArrayInputStream(compressed), numThreads)) {
+            // mix single bytes and arrays of different sizes
+            byte[] buffer = new byte[7919];
+            int count = 0;
+            while (true) {
+                if (count++ % 3 == 0) {
+                    int b = is.read();
+                    if (b == -1)
+                        break;
+                    out.write(b);
+                }
+                else {
+                    int n = is.read(buffer, 0, count % buffer.length + 1);
+                    if (n == -1)
+                        break;
+                    out.write(buffer, 0, n);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void testCompression() throws IOException {
+        byte[] data = createData();
+
+        for (int numThreads : new int[] {1, 4}) {
+            for (int level : new int[] {-1, 0, 1, 9}) {
+                for (int blockSize : new int[] {1000, 65536, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE}) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (OutputStream os = new ParallelGzipOutputStream(out, numThreads, level, blockSize)) {
+                        int pos = 0;
+                        while (pos < data.length) {
+                            if (pos % 5 == 0)
+                                os.write(data[pos++]);
+                            else {
+                                int len = Math.min(data.length - pos, pos % 7919);
+                                os.write(data, pos, len);
+                                pos += len;
+                            }
+                        }
+                    }
+                    byte[] compressed = out.toByteArray();
+                    Assert.assertArrayEquals(data, uncompress(compressed));
+
+                    // the members should be found using their sizes
+                    int numMembers = 0;
+                    int offset = 0;
+                    while (offset < compressed.length) {
+                        Assert.assertEquals((byte)0x1f, compressed[offset]);
+                        Assert.assertEquals((byte)0x8b, compressed[offset + 1]);
+                        Assert.assertEquals(ParallelGzipOutputStream.MEMBER_SIZE_SUBFIELD_ID[0], compressed[offset + 12]);
+                        Assert.assertEquals(ParallelGzipOutputStream.MEMBER_SIZE_SUBFIELD_ID[1], compressed[offset + 13]);
+                        offset += (compressed[offset + 16] & 0xff) | (compressed[offset + 17] & 0xff) << 8 | (compressed[offset + 18] & 0xff) << 16 | (compressed[offset + 19] & 0xff) << 24;
+                        numMembers++;
+                    }
+                    Assert.assertEquals(compressed.length, offset);
+                    Assert.assertEquals((data.length + blockSize - 1) / blockSize, numMembers);
+                }
+            }
+        }
+
+        // the compression ratio should be close to the one of the JDK stream
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(expected)) {
+            os.write(data);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = new ParallelGzipOutputStream(out, 2, -1, 256 * 1024)) {
+            os.write(data);
+        }
+        Assert.assertTrue(out.size() < expected.size() * 1.05);
+    }
+
+    @Test
+    public void testFlushAndClose() throws IOException {
+
+        // flushing should write all the data written so far
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream os = new ParallelGzipOutputStream(out, 2, -1);
+        os.write("ABC".getBytes(StandardCharsets.UTF_8));
+        os.flush();
+        Assert.assertEquals("ABC", new String(uncompress(out.toByteArray()), StandardCharsets.UTF_8));
+        os.write("DEF".getBytes(StandardCharsets.UTF_8));
+        os.close();
+        Assert.assertEquals("ABCDEF", new String(uncompress(out.toByteArray()), StandardCharsets.UTF_8));
+        Assert.assertThrows(IOException.class, () -> os.write(1));
+        os.close();
+
+        // an empty stream should result in a valid GZIP data
+        out = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(out, 2, -1).close();
+        Assert.assertEquals(0, uncompress(out.toByteArray()).length);
+
+        Assert.assertThrows(IllegalStateException.class, () -> new ParallelGzipOutputStream(new ByteArrayOutputStream(), 0, -1));
+        Assert.assertThrows(IllegalStateException.class, () -> new ParallelGzipOutputStream(new ByteArrayOutputStream(), 1, 10));
+        Assert.assertThrows(IllegalStateException.class, () -> new ParallelGzipOutputStream(new ByteArrayOutputStream(), 1, -1, 0));
+    }
+
+    private static byte[] createData() {
+        Random random = new Random(42);
+        StringBuilder buf = new StringBuilder();
+        while (buf.length() < 3_000_000)
+            buf.append("I").append(random.nextInt(100000)).append(" C").append(random.nextInt(1000)).append(" some text that compresses well\n");
+        return buf.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] uncompress(byte[] compressed) throws IOException {
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+}
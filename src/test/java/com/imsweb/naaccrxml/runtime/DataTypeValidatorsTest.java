@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+
+public class DataTypeValidatorsTest {
+
+    private static final List<String> _DATA_TYPES = Arrays.asList(NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_ALPHA, NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DIGITS,
+            NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_MIXED, NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_NUMERIC, NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DATE,
+            NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DATE_TIME);
+
+    // the characters used to create the random values (anything that has a meaning in one of the patterns, plus a few other characters)
+    private static final String _CHARACTERS = "0123456789012345678901234567890123456789ABCXYZTZaz.-+: \n\u0660";
+
+    @Test
+    public void testGetValidator() {
+        for (String type : _DATA_TYPES)
+            Assert.assertNotNull(type, DataTypeValidators.getValidator(type));
+        Assert.assertNull(DataTypeValidators.getValidator(NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_TEXT));
+        Assert.assertNull(DataTypeValidators.getValidator(null));
+        Assert.assertNull(DataTypeValidators.getValidator("unknown"));
+    }
+
+    @Test
+    public void testSameResultAsPatterns() {
+
+        // values that were problematic when writing the validators
+        List<String> values = Arrays.asList("", "0", "0000", "0001", "1799", "1800", "2099", "2100", "180001", "180013", "18000100", "18000132", "18000131", "2010.", ".1", "1.1.1",
+                "2010-06", "2010-00", "2010-13", "2010-06-", "2010-06+", "2010-06Z", "2010-06-15", "2010-06-00", "2010-06-32", "2010-06-15Z", "2010-06-15-", "2010-06-05:00",
+                "2010-06-14:00", "2010-06-14:01", "2010-06-15T13:45:30", "2010-06-15T13:45:60Z", "2010-06-15T13:45:61Z", "2010-06-15T24:00:00Z", "2010-06-15T13:45:30+14:00",
+                "2010-06-15T13:45:30+14:01", "2010-06-15T13:45:30+13:59", "2010-06-15T13:45:30-15:00", "2010-06-15T13:45:30+5:00", "2010-06-15T13:45:30+05:00Z", "2010\n");
+        for (String value : values)
+            assertSameResult(value);
+
+        // random values
+        Random random = new Random(20260101L);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder buf = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++)
+                buf.append(_CHARACTERS.charAt(random.nextInt(_CHARACTERS.length())));
+            assertSameResult(buf.toString());
+        }
+
+        // random (mostly valid) dates and date-times, with a random character replaced or removed
+        for (int i = 0; i < 200_000; i++) {
+            String value;
+            if (random.nextBoolean())
+                value = String.format("%d%02d%02d", 1790 + random.nextInt(320), random.nextInt(14), random.nextInt(33)).substring(0, 4 + 2 * random.nextInt(3));
+            else {
+                value = String.format("%04d-%02d-%02dT%02d:%02d:%02d", random.nextInt(10000), random.nextInt(14), random.nextInt(33), random.nextInt(25), random.nextInt(61),
+                        random.nextInt(62)).substring(0, new int[] {4, 7, 10, 19}[random.nextInt(4)]);
+                switch (random.nextInt(4)) {
+                    case 0 -> value += "Z";
+                    case 1 -> value += (random.nextBoolean() ? "+" : "-") + String.format("%02d:%02d", random.nextInt(16), random.nextInt(61));
+                    case 2 -> value += random.nextBoolean() ? "+" : "-";
+                    default -> {
+                        // no time zone
+                    }
+                }
+            }
+            assertSameResult(value);
+            if (!value.isEmpty()) {
+                int idx = random.nextInt(value.length());
+                assertSameResult(value.substring(0, idx) + _CHARACTERS.charAt(random.nextInt(_CHARACTERS.length())) + value.substring(idx + 1));
+                assertSameResult(value.substring(0, idx) + value.substring(idx + 1));
+            }
+        }
+
+        // all the 4 and 6 digits values
+        for (int i = 0; i < 1_000_000; i++) {
+            assertSameResult(String.format("%06d", i));
+            if (i < 10_000)
+                assertSameResult(String.format("%04d", i));
+        }
+    }
+
+    private static void assertSameResult(String value) {
+        for (String type : _DATA_TYPES) {
+            Pattern pattern = NaaccrXmlDictionaryUtils.getDataTypePattern(type);
+            if (pattern.matcher(value).matches() != DataTypeValidators.getValidator(type).isValid(value))
+                Assert.fail("Different result for type '" + type + "' and value '" + value + "'; pattern returned " + pattern.matcher(value).matches());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
+
+public class FlatValueValidatorTest {
+
+    @Test
+    public void testValidate() {
+        NaaccrDictionaryItem item = new NaaccrDictionaryItem();
+        item.setNaaccrId("myVariable");
+        item.setLength(3);
+        item.setDataType(NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DIGITS);
+        item.setRegexValidation("^(001|002)$");
+        RuntimeNaaccrDictionaryItem def = new RuntimeNaaccrDictionaryItem(item);
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        Assert.assertNull(FlatValueValidator.validate(def, "001", options));
+        Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_TOO_SHORT, FlatValueValidator.validate(def, "1", options));
+        Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_DATA_TYPE, FlatValueValidator.validate(def, "00A", options));
+        Assert.assertNull(FlatValueValidator.validate(def, "003", options));
+
+        // the regular expression is only enforced if requested
+        options.setEnforceRegexValidation(true);
+        Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_REGEX, FlatValueValidator.validate(def, "003", options));
+        Assert.assertNull(FlatValueValidator.validate(def, "002", options));
+
+        // nothing is validated if the values don't need to be validated
+        options.setValidateReadValues(false);
+        Assert.assertNull(FlatValueValidator.validate(def, "1", options));
+    }
+
+    @Test
+    public void testGetMessageValues() {
+        NaaccrDictionaryItem item = new NaaccrDictionaryItem();
+        item.setNaaccrId("myVariable");
+        item.setLength(3);
+        item.setDataType(NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DIGITS);
+        item.setRegexValidation("^(001|002)$");
+        RuntimeNaaccrDictionaryItem def = new RuntimeNaaccrDictionaryItem(item);
+
+        Assert.assertArrayEquals(new Object[] {3, 1}, FlatValueValidator.getMessageValues(def, "1", NaaccrErrorUtils.CODE_VAL_TOO_SHORT));
+        Assert.assertArrayEquals(new Object[] {NaaccrXmlDictionaryUtils.NAACCR_DATA_TYPE_DIGITS}, FlatValueValidator.getMessageValues(def, "00A", NaaccrErrorUtils.CODE_VAL_DATA_TYPE));
+        Assert.assertArrayEquals(new Object[] {"^(001|002)$"}, FlatValueValidator.getMessageValues(def, "003", NaaccrErrorUtils.CODE_VAL_REGEX));
+    }
+}
@@ -6,9 +6,14 @@ package com.imsweb.naaccrxml.runtime;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.entity.Tumor;
+import com.imsweb.naaccrxml.internal.ItemValueSanitizer;
+
 public class NaaccrPatientConverterTest {
 
     @Test
+    @SuppressWarnings("deprecation")
     public void testCarriageReturnPattern() {
         Assert.assertEquals("", NaaccrPatientConverter._CARRIAGE_RETURN_PATTERN.matcher("").replaceAll("?"));
         Assert.assertEquals("?", NaaccrPatientConverter._CARRIAGE_RETURN_PATTERN.matcher("\n").replaceAll("?"));
@@ -19,10 +24,46 @@ public class NaaccrPatientConverterTest {
     }
 
     @Test
+    @SuppressWarnings("deprecation")
     public void testControlCharactersPattern() {
         Assert.assertEquals("", NaaccrPatientConverter._CONTROL_CHARACTERS_PATTERN.matcher("").replaceAll("?"));
         Assert.assertEquals("abc123", NaaccrPatientConverter._CONTROL_CHARACTERS_PATTERN.matcher("abc123").replaceAll("?"));
         Assert.assertEquals("??", NaaccrPatientConverter._CONTROL_CHARACTERS_PATTERN.matcher("\u0000\u001F").replaceAll("?"));
         Assert.assertEquals("\t", NaaccrPatientConverter._CONTROL_CHARACTERS_PATTERN.matcher("\u0009").replaceAll("?"));
     }
+
+    // the converter uses the sanitizer to replace the new lines and remove the control characters of the values it writes
+
+    @Test
+    public void testCarriageReturns() {
+        Assert.assertEquals("", ItemValueSanitizer.sanitize("", '?', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+        Assert.assertEquals("?", ItemValueSanitizer.sanitize("\n", '?', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+        Assert.assertEquals("?", ItemValueSanitizer.sanitize("\r", '?', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+        Assert.assertEquals("?", ItemValueSanitizer.sanitize("\r\n", '?', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+        Assert.assertEquals("????", ItemValueSanitizer.sanitize("\r\n\r\r\r\n", '?', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+        Assert.assertEquals("???", ItemValueSanitizer.sanitize("\n\r\r", '?', ItemValueSanitizer.CONTROL_CHARACTERS_KEEP));
+    }
+
+    @Test
+    public void testControlCharacters() {
+        Assert.assertEquals("", ItemValueSanitizer.sanitize("", '\n', ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE));
+        Assert.assertEquals("abc123", ItemValueSanitizer.sanitize("abc123", '\n', ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE));
+        Assert.assertEquals("", ItemValueSanitizer.sanitize("\u0000\u001F", '\n', ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE));
+        Assert.assertEquals("\t", ItemValueSanitizer.sanitize("\u0009", '\n', ItemValueSanitizer.CONTROL_CHARACTERS_REMOVE));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedErrorPath() {
+        NaaccrPatientConverter converter = new NaaccrPatientConverter();
+        converter.setContext(new NaaccrStreamContext());
+
+        // the path given to the deprecated method should be the one computed by the error
+        for (String path : new String[] {"/Patient/Tumor[2]/Item[15]", "/Patient/Item[3]", "/NaaccrData/Item[1]", "/Patient/Tumor[1]", "/Patient"}) {
+            Tumor tumor = new Tumor();
+            converter.reportError(tumor, 5, path, null, "X", NaaccrErrorUtils.CODE_VAL_TOO_LONG, 1, 2);
+            Assert.assertEquals(path, tumor.getValidationErrors().get(0).getPath());
+            Assert.assertEquals(5, tumor.getValidationErrors().get(0).getLineNumber().intValue());
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegexValidatorsTest {
+
+    // the characters used to create the random values (anything that has a meaning in one of the expressions, plus a few other characters)
+    private static final String _CHARACTERS = "0123456789ABCXYZaz_-.$^ \t\n\r\u0085\u2028\u00e9";
+
+    // the expressions that are tested (simple ones that get optimized, and a few that need the regex engine)
+    private static final List<String> _EXPRESSIONS = Arrays.asList("", "^$", "^(01|02|99)$", "(?:A|BC|)", "0[0-8]", "^0[0-8]$", "A|B|C", "\\.|\\$", "^[0-9]{3}[A-Z]?$", "\\d+",
+            "[^0-9]*", "[A-Z0-9]{2,4}", "[-AZ]{1,}", "[AZ-]+", "[a-z_\\-]{0,3}X", ".", ".{2,5}", "\\w*\\s?\\w*", "[^\\d\\s]+", "[0-9]*0", "A{0}B", "[0-9]{1,}[0-9]{2}",
+            "^.*$", "\\$\\^", "(A|B)+", "^[0-9]{2}$|^99[A-Z]$", "(?i)abc", "[0-9]+?", "[0-9]*+0", "[[0-9]A]", "[0-9&&[^5]]", "[\\p{L}]+", "\\b[0-9]\\b", "[\u00e9]");
+
+    @Test
+    public void testCompile() {
+        Assert.assertTrue(RegexValidators.compile("^(01|02|99)$") instanceof RegexValidators.CodesValidator);
+        Assert.assertTrue(RegexValidators.compile("0[0-8]") instanceof RegexValidators.CharClassesValidator);
+        Assert.assertTrue(RegexValidators.compile("^[0-9]{3}[A-Z]?$") instanceof RegexValidators.CharClassesValidator);
+        Assert.assertTrue(RegexValidators.compile("(A|B)+") instanceof RegexValidators.PatternValidator);
+        Assert.assertTrue(RegexValidators.compile("[0-9]*+0") instanceof RegexValidators.PatternValidator);
+        Assert.assertTrue(RegexValidators.compile(Pattern.compile("ABC", Pattern.CASE_INSENSITIVE)) instanceof RegexValidators.PatternValidator);
+
+        Assert.assertTrue(RegexValidators.compile("^(01|02|99)$").isValid("02"));
+        Assert.assertFalse(RegexValidators.compile("^(01|02|99)$").isValid("03"));
+        Assert.assertTrue(RegexValidators.compile("^[0-9]{3}[A-Z]?$").isValid("123X"));
+        Assert.assertFalse(RegexValidators.compile("^[0-9]{3}[A-Z]?$").isValid("12X"));
+    }
+
+    @Test
+    public void testSameResultAsPatterns() {
+        Random random = new Random(20260201L);
+        for (String regex : _EXPRESSIONS) {
+            Pattern pattern = Pattern.compile(regex);
+            DataTypeValidator validator = RegexValidators.compile(pattern);
+
+            for (String value : Arrays.asList("", "0", "00", "08", "09", "01", "99", "A", "BC", "123", "123X", "X\n", "\n", "\u0085", "\u2028", "\u00e9", "\ud83d\ude00", "a\ud83d\ude00",
+                    "0000000000000000000000000000000000000000000000000000000000000000000000"))
+                assertSameResult(pattern, validator, value);
+
+            for (int i = 0; i < 20_000; i++) {
+                StringBuilder buf = new StringBuilder();
+                int length = random.nextInt(8);
+                for (int j = 0; j < length; j++)
+                    buf.append(_CHARACTERS.charAt(random.nextInt(_CHARACTERS.length())));
+                assertSameResult(pattern, validator, buf.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testThreadSafety() throws Exception {
+        DataTypeValidator validator = RegexValidators.compile("(A|B)+[0-9]");
+        ExecutorService service = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int idx = i;
+            results.add(service.submit(() -> {
+                boolean allGood = true;
+                for (int j = 0; j < 10_000; j++) {
+                    allGood &= validator.isValid("AB".repeat(idx + 1) + (j % 10));
+                    allGood &= !validator.isValid("AB".repeat(idx + 1));
+                }
+                return allGood;
+            }));
+        }
+        service.shutdown();
+        Assert.assertTrue(service.awaitTermination(1, TimeUnit.MINUTES));
+        for (Future<Boolean> result : results)
+            Assert.assertTrue(result.get());
+    }
+
+    private static void assertSameResult(Pattern pattern, DataTypeValidator validator, String value) {
+        boolean expected = pattern.matcher(value).matches();
+        if (expected != validator.isValid(value))
+            Assert.fail("Different result for expression '" + pattern.pattern() + "' and value '" + value + "'; pattern returned " + expected);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrContext;
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrValidationError;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+import com.imsweb.naaccrxml.PatientFlatReader;
+import com.imsweb.naaccrxml.PatientFlatWriter;
+import com.imsweb.naaccrxml.TestingUtils;
+import com.imsweb.naaccrxml.entity.AbstractEntity;
+import com.imsweb.naaccrxml.entity.Item;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+
+public class RuntimeFlatCodecTest {
+
+    @Test
+    public void testLineToPatient() throws IOException {
+        List<String> lines = readLines(500);
+
+        NaaccrOptions mismatchOptions = NaaccrOptions.getDefault();
+        mismatchOptions.setReportLevelMismatch(true);
+        mismatchOptions.setItemsToExclude(Arrays.asList("registryId", "patientIdNumber", "primarySite"));
+        NaaccrOptions noValidationOptions = NaaccrOptions.getDefault();
+        noValidationOptions.setValidateReadValues(false);
+        NaaccrOptions compactOptions = NaaccrOptions.getDefault();
+        compactOptions.setUseCompactItemStorage(true);
+
+        for (NaaccrOptions options : Arrays.asList(null, NaaccrOptions.getDefault(), mismatchOptions, noValidationOptions, compactOptions)) {
+            NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_14_INCIDENCE, null, options);
+            for (String line : lines)
+                assertSamePatient(readWithReader(line, context), context.getFlatCodec().lineToPatient(line));
+        }
+
+        // values that don't pass the validation
+        NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_14_INCIDENCE);
+        RuntimeNaaccrDictionary dictionary = context.getStreamConfiguration().getCachedDictionary();
+        StringBuilder line = new StringBuilder(lines.get(0));
+        replaceValue(line, dictionary.getItemByNaaccrId("sequenceNumberCentral"), "A");
+        replaceValue(line, dictionary.getItemByNaaccrId("primarySite"), "C1");
+        replaceValue(line, dictionary.getItemByNaaccrId("dateOfDiagnosis"), "2010AB");
+        assertSamePatient(readWithReader(line.toString(), context), context.getFlatCodec().lineToPatient(line.toString()));
+        Assert.assertFalse(context.getFlatCodec().lineToPatient(line.toString()).getAllValidationErrors().isEmpty());
+
+        // record type and NAACCR version always come from the format
+        line = new StringBuilder(lines.get(0));
+        line.replace(0, 1, " ");
+        line.replace(16, 19, "   ");
+        Patient patient = context.getFlatCodec().lineToPatient(line.toString());
+        Assert.assertEquals(1, patient.getTumors().size());
+        assertSamePatient(context.getFlatCodec().lineToPatient(lines.get(0)), patient);
+
+        // bad lines
+        assertFailure(() -> context.getFlatCodec().lineToPatient(""), "Expected line length");
+        assertFailure(() -> context.getFlatCodec().lineToPatient(lines.get(0) + " "), "Expected line length");
+        assertFailure(() -> context.getFlatCodec().lineToPatient("\n" + lines.get(0).substring(1)), "first line is empty");
+        assertFailure(() -> context.getFlatCodec().lineToPatient(lines.get(0).substring(0, 100) + "\r\n" + lines.get(0).substring(102)), "expected 3339 but got 100");
+        assertFailure(() -> new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_25_INCIDENCE).getFlatCodec().lineToPatient(lines.get(0)), "Expected line length to be -1");
+    }
+
+    @Test
+    public void testPatientToLine() throws IOException {
+        List<Patient> patients = new ArrayList<>();
+        NaaccrContext readingContext = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_14_INCIDENCE);
+        for (String line : readLines(500))
+            patients.add(readingContext.getFlatCodec().lineToPatient(line));
+
+        NaaccrOptions zeroPaddingOptions = NaaccrOptions.getDefault();
+        zeroPaddingOptions.setApplyZeroPaddingRules(true);
+        NaaccrOptions excludeOptions = NaaccrOptions.getDefault();
+        excludeOptions.setItemsToExclude(Arrays.asList("patientIdNumber", "primarySite"));
+
+        for (NaaccrOptions options : Arrays.asList(null, NaaccrOptions.getDefault(), zeroPaddingOptions, excludeOptions)) {
+            NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_14_INCIDENCE, null, options);
+            for (Patient patient : patients)
+                Assert.assertEquals(writeWithWriter(patient, context), context.getFlatCodec().patientToLine(patient));
+        }
+
+        // padding, new lines and values too long
+        Patient patient = new Patient();
+        patient.addItem(new Item("patientIdNumber", "1"));
+        Tumor tumor = new Tumor();
+        tumor.addItem(new Item("primarySite", "C4"));
+        tumor.addItem(new Item("sequenceNumberCentral", "1"));
+        tumor.addItem(new Item("dateOfDiagnosis", "2010"));
+        tumor.addItem(new Item("ageAtDiagnosis", "1\r\n2"));
+        tumor.addItem(new Item("tumorSizeSummary", "\n1"));
+        tumor.addItem(new Item("behaviorCodeIcdO3", "12"));
+        tumor.addItem(new Item("textDxProcPe", "SOME\r\nTEXT\rWITH\nNEW LINES"));
+        patient.addTumor(tumor);
+        NaaccrOptions tooLongOptions = NaaccrOptions.getDefault();
+        tooLongOptions.setReportValuesTooLong(true);
+        NaaccrOptions tooLongZeroPaddingOptions = NaaccrOptions.getDefault();
+        tooLongZeroPaddingOptions.setReportValuesTooLong(true);
+        tooLongZeroPaddingOptions.setApplyZeroPaddingRules(true);
+        for (NaaccrOptions options : Arrays.asList(tooLongOptions, tooLongZeroPaddingOptions)) {
+            NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_14_ABSTRACT, null, options);
+
+            Patient expectedPatient = copyPatient(patient);
+            String expected = writeWithWriter(expectedPatient, context);
+            Patient actualPatient = copyPatient(patient);
+            String actual = context.getFlatCodec().patientToLine(actualPatient);
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(NaaccrFormat.getInstance(NaaccrFormat.NAACCR_FORMAT_14_ABSTRACT).getLineLength(), actual.length());
+            assertSameErrors(expectedPatient.getTumors().get(0), actualPatient.getTumors().get(0));
+            Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_TOO_LONG, actualPatient.getTumors().get(0).getValidationErrors().get(0).getCode());
+        }
+
+        // patient without any tumor, patient with user-defined items
+        NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_16_ABSTRACT, Collections.singletonList(TestingUtils.createUserDictionary()));
+        patient = new Patient();
+        patient.addItem(new Item("patientIdNumber", "00000001"));
+        Assert.assertEquals(writeWithWriter(patient, context), context.getFlatCodec().patientToLine(patient));
+        tumor = new Tumor();
+        tumor.addItem(new Item("myVariable", "00"));
+        patient.addTumor(tumor);
+        String line = context.getFlatCodec().patientToLine(patient);
+        Assert.assertEquals(writeWithWriter(patient, context), line);
+        Assert.assertEquals("A", line.substring(0, 1));
+        Assert.assertEquals("160", line.substring(16, 19));
+        Assert.assertEquals("00000001", line.substring(41, 49));
+        Assert.assertEquals("00", line.substring(2339, 2341));
+
+        // bad patients
+        Patient twoTumors = new Patient();
+        twoTumors.addTumor(new Tumor());
+        twoTumors.addTumor(new Tumor());
+        assertFailure(() -> context.getFlatCodec().patientToLine(twoTumors), "0 or 1 tumor");
+        assertFailure(() -> new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_25_INCIDENCE).getFlatCodec().patientToLine(new Patient()), "does not support start columns");
+    }
+
+    @Test
+    public void testThreadSafety() throws Exception {
+        List<String> lines = readLines(200);
+        NaaccrContext context = new NaaccrContext(NaaccrFormat.NAACCR_FORMAT_14_INCIDENCE);
+        List<String> expected = new ArrayList<>();
+        for (String line : lines)
+            expected.add(NaaccrXmlUtils.patientToLine(NaaccrXmlUtils.lineToPatient(line, context), context));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    List<String> result = new ArrayList<>();
+                    for (String line : lines)
+                        result.add(NaaccrXmlUtils.patientToLine(NaaccrXmlUtils.lineToPatient(line, context), context));
+                    return result;
+                }));
+            }
+            for (Future<List<String>> future : futures)
+                Assert.assertEquals(expected, future.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> readLines(int numLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(NaaccrXmlUtils.createReader(TestingUtils.getDataFile("fake-naaccr14inc-10000-rec.txt.gz")))) {
+            String line = reader.readLine();
+            while (line != null && lines.size() < numLines) {
+                lines.add(line);
+                line = reader.readLine();
+            }
+        }
+        return lines;
+    }
+
+    private static void replaceValue(StringBuilder line, RuntimeNaaccrDictionaryItem def, String value) {
+        int start = def.getStartColumn() - 1;
+        line.replace(start, start + def.getLength(), String.format("%-" + def.getLength() + "s", value));
+    }
+
+    private static Patient readWithReader(String line, NaaccrContext context) throws NaaccrIOException {
+        try (PatientFlatReader reader = new PatientFlatReader(new StringReader(line), context.getOptions(), context.getUserDictionaries(), context.getStreamConfiguration())) {
+            return reader.readPatient();
+        }
+    }
+
+    private static String writeWithWriter(Patient patient, NaaccrContext context) throws NaaccrIOException {
+        StringWriter buf = new StringWriter();
+        NaaccrOptions options = context.getOptions() == null ? NaaccrOptions.getDefault() : context.getOptions();
+        options.setNewLine(NaaccrOptions.NEW_LINE_LF);
+        try (PatientFlatWriter writer = new PatientFlatWriter(buf, new NaaccrData(context.getFormat()), options, context.getUserDictionaries(), context.getStreamConfiguration())) {
+            writer.writePatient(patient);
+        }
+        return buf.toString().substring(0, buf.toString().length() - 1);
+    }
+
+    private static Patient copyPatient(Patient patient) {
+        Patient copy = new Patient();
+        for (Item item : patient.getItems())
+            copy.addItem(new Item(item.getNaaccrId(), item.getValue()));
+        for (Tumor tumor : patient.getTumors()) {
+            Tumor tumorCopy = new Tumor();
+            for (Item item : tumor.getItems())
+                tumorCopy.addItem(new Item(item.getNaaccrId(), item.getValue()));
+            copy.addTumor(tumorCopy);
+        }
+        return copy;
+    }
+
+    private static void assertSamePatient(Patient expected, Patient actual) {
+        assertSameEntity(expected, actual);
+        Assert.assertEquals(expected.getTumors().size(), actual.getTumors().size());
+        for (int i = 0; i < expected.getTumors().size(); i++)
+            assertSameEntity(expected.getTumors().get(i), actual.getTumors().get(i));
+    }
+
+    private static void assertSameEntity(AbstractEntity expected, AbstractEntity actual) {
+        Assert.assertEquals(expected.getStartLineNumber(), actual.getStartLineNumber());
+        Assert.assertEquals(expected.getEndLineNumber(), actual.getEndLineNumber());
+        Assert.assertEquals(expected.isUsingCompactItemStorage(), actual.isUsingCompactItemStorage());
+        Assert.assertEquals(expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            Item expectedItem = expected.getItems().get(i);
+            Item actualItem = actual.getItems().get(i);
+            Assert.assertEquals(expectedItem.getNaaccrId(), actualItem.getNaaccrId());
+            Assert.assertEquals(expectedItem.getNaaccrNum(), actualItem.getNaaccrNum());
+            Assert.assertEquals(expectedItem.getValue(), actualItem.getValue());
+            Assert.assertEquals(expectedItem.getStartLineNumber(), actualItem.getStartLineNumber());
+        }
+        assertSameErrors(expected, actual);
+    }
+
+    private static void assertSameErrors(AbstractEntity expected, AbstractEntity actual) {
+        Assert.assertEquals(expected.getValidationErrors().size(), actual.getValidationErrors().size());
+        for (int i = 0; i < expected.getValidationErrors().size(); i++) {
+            NaaccrValidationError expectedError = expected.getValidationErrors().get(i);
+            NaaccrValidationError actualError = actual.getValidationErrors().get(i);
+            Assert.assertEquals(expectedError.getCode(), actualError.getCode());
+            Assert.assertEquals(expectedError.getMessage(), actualError.getMessage());
+            Assert.assertEquals(expectedError.getLineNumber(), actualError.getLineNumber());
+            Assert.assertEquals(expectedError.getNaaccrId(), actualError.getNaaccrId());
+            Assert.assertEquals(expectedError.getNaaccrNum(), actualError.getNaaccrNum());
+            Assert.assertEquals(expectedError.getValue(), actualError.getValue());
+        }
+    }
+
+    private static void assertFailure(FailingCall call, String expectedMessage) {
+        try {
+            call.run();
+            Assert.fail("Was expecting a failure");
+        }
+        catch (NaaccrIOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+        }
+    }
+
+    private interface FailingCall {
+
+        void run() throws NaaccrIOException;
+    }
+}
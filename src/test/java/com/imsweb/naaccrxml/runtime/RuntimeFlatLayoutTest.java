@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+import com.imsweb.naaccrxml.SpecificationVersion;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionaryItem;
+
+public class RuntimeFlatLayoutTest {
+
+    @Test
+    public void testLayout() throws NaaccrIOException {
+        RuntimeNaaccrDictionary dictionary = new RuntimeNaaccrDictionary("I", NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160), null);
+
+        // by default, root items are not part of the layout
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        RuntimeFlatLayout layout = dictionary.getFlatLayout(options);
+        List<String> ids = getIds(layout);
+        Assert.assertFalse(ids.contains("registryId"));
+        Assert.assertTrue(ids.contains("patientIdNumber"));
+        Assert.assertTrue(ids.contains("primarySite"));
+        for (int i = 0; i < layout.getNumItems(); i++) {
+            Assert.assertNotEquals(RuntimeFlatLayout.LEVEL_ROOT, layout.getLevel(i));
+            Assert.assertTrue(layout.isProcessed(i));
+            Assert.assertEquals(layout.getItem(i).getStartColumn() - 1, layout.getStart(i));
+            Assert.assertEquals(layout.getItem(i).getLength().intValue(), layout.getEnd(i) - layout.getStart(i));
+        }
+
+        // same options should return the cached layout
+        Assert.assertSame(layout, dictionary.getFlatLayout(NaaccrOptions.getDefault()));
+
+        // reporting level mismatch requires the root items
+        options.setReportLevelMismatch(true);
+        Assert.assertNotSame(layout, dictionary.getFlatLayout(options));
+        layout = dictionary.getFlatLayout(options);
+        ids = getIds(layout);
+        Assert.assertEquals(RuntimeFlatLayout.LEVEL_ROOT, layout.getLevel(ids.indexOf("registryId")));
+        Assert.assertEquals(RuntimeFlatLayout.LEVEL_PATIENT, layout.getLevel(ids.indexOf("patientIdNumber")));
+        Assert.assertEquals(RuntimeFlatLayout.LEVEL_TUMOR, layout.getLevel(ids.indexOf("primarySite")));
+
+        // excluded patient items are kept (for the mismatch) but not processed, excluded tumor items are dropped
+        options.setItemsToExclude(Arrays.asList("patientIdNumber", "primarySite"));
+        layout = dictionary.getFlatLayout(options);
+        ids = getIds(layout);
+        Assert.assertFalse(layout.isProcessed(ids.indexOf("patientIdNumber")));
+        Assert.assertFalse(ids.contains("primarySite"));
+        options.setReportLevelMismatch(false);
+        layout = dictionary.getFlatLayout(options);
+        ids = getIds(layout);
+        Assert.assertFalse(ids.contains("patientIdNumber"));
+        Assert.assertFalse(ids.contains("primarySite"));
+
+        // only the included items should be part of the layout
+        options = NaaccrOptions.getDefault();
+        options.setItemsToInclude(new ArrayList<>(Collections.singletonList("primarySite")));
+        layout = dictionary.getFlatLayout(options);
+        Assert.assertEquals(Collections.singletonList("primarySite"), getIds(layout));
+
+        // changing the options after the layout was compiled should be detected
+        options.getItemsToInclude().add("patientIdNumber");
+        Assert.assertNotSame(layout, dictionary.getFlatLayout(options));
+        Assert.assertEquals(2, dictionary.getFlatLayout(options).getNumItems());
+
+        // switching between options should re-use the layouts compiled for each of them
+        NaaccrOptions options1 = NaaccrOptions.getDefault();
+        options1.setItemsToInclude(Collections.singletonList("primarySite"));
+        NaaccrOptions options2 = NaaccrOptions.getDefault();
+        options2.setItemsToExclude(Collections.singletonList("primarySite"));
+        RuntimeFlatLayout layout1 = dictionary.getFlatLayout(options1);
+        RuntimeFlatLayout layout2 = dictionary.getFlatLayout(options2);
+        Assert.assertNotSame(layout1, layout2);
+        Assert.assertSame(layout1, dictionary.getFlatLayout(options1));
+        Assert.assertSame(layout2, dictionary.getFlatLayout(options2));
+        Assert.assertEquals(Collections.singletonList("primarySite"), getIds(layout1));
+        Assert.assertFalse(getIds(layout2).contains("primarySite"));
+    }
+
+    @Test
+    public void testExtractValue() throws NaaccrIOException {
+        RuntimeNaaccrDictionary dictionary = new RuntimeNaaccrDictionary("I", NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160), null);
+        RuntimeFlatLayout layout = dictionary.getFlatLayout(NaaccrOptions.getDefault());
+        int idx = getIds(layout).indexOf("patientIdNumber");
+        int start = layout.getStart(idx);
+
+        String line = StringUtils.rightPad("", start) + "  1234  " + StringUtils.rightPad("", 100);
+        Assert.assertEquals("1234", layout.extractValue(line, idx));
+        Assert.assertNull(layout.extractValue(StringUtils.rightPad("", start + 100), idx));
+        Assert.assertNull(layout.extractValue(StringUtils.rightPad("", start + 7, 'X'), idx));
+        Assert.assertEquals("XXXXXXXX", layout.extractValue(StringUtils.rightPad("", start + 8, 'X'), idx));
+
+        // an item that doesn't trim its values should only have blank values ignored
+        NaaccrDictionary userDictionary = new NaaccrDictionary();
+        userDictionary.setNaaccrVersion(NaaccrFormat.NAACCR_VERSION_160);
+        userDictionary.setDictionaryUri("user-dictionary");
+        userDictionary.setSpecificationVersion(SpecificationVersion.SPEC_1_6); // trimming rules have been retired in 1.7
+        NaaccrDictionaryItem item = new NaaccrDictionaryItem();
+        item.setNaaccrId("myVariable");
+        item.setNaaccrName("My Variable");
+        item.setParentXmlElement(NaaccrXmlUtils.NAACCR_XML_TAG_TUMOR);
+        item.setNaaccrNum(10000);
+        item.setStartColumn(2340);
+        item.setLength(8);
+        item.setTrim(NaaccrXmlDictionaryUtils.NAACCR_TRIM_NONE);
+        userDictionary.addItem(item);
+        dictionary = new RuntimeNaaccrDictionary("I", NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160), Collections.singletonList(userDictionary));
+        layout = dictionary.getFlatLayout(NaaccrOptions.getDefault());
+        idx = getIds(layout).indexOf("myVariable");
+        Assert.assertFalse(layout.isTrimAll(idx));
+        Assert.assertEquals(RuntimeFlatLayout.LEVEL_TUMOR, layout.getLevel(idx));
+        Assert.assertEquals("  1234  ", layout.extractValue(StringUtils.rightPad("", 2339) + "  1234  ", idx));
+        Assert.assertNull(layout.extractValue(StringUtils.rightPad("", 2347), idx));
+    }
+
+    private static List<String> getIds(RuntimeFlatLayout layout) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < layout.getNumItems(); i++)
+            ids.add(layout.getItem(i).getNaaccrId());
+        return ids;
+    }
+}
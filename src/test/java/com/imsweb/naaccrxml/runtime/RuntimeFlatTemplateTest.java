@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrErrorUtils;
+import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrOptions;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.entity.Item;
+import com.imsweb.naaccrxml.entity.NaaccrData;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.Tumor;
+
+public class RuntimeFlatTemplateTest {
+
+    @Test
+    public void testTemplate() throws NaaccrIOException {
+        RuntimeNaaccrDictionary dictionary = new RuntimeNaaccrDictionary("I", NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160), null);
+
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        RuntimeFlatTemplate template = dictionary.getFlatTemplate(options);
+        Assert.assertEquals(dictionary.getLineLength().intValue(), template.getLineLength());
+        Assert.assertEquals(template.getLineLength(), template.createLineBuffer().length);
+
+        // same options should return the cached template
+        Assert.assertSame(template, dictionary.getFlatTemplate(NaaccrOptions.getDefault()));
+        options.setItemsToExclude(Arrays.asList("primarySite"));
+        Assert.assertNotSame(template, dictionary.getFlatTemplate(options));
+
+        // switching back to the previous options should re-use the template compiled for them
+        Assert.assertSame(template, dictionary.getFlatTemplate(NaaccrOptions.getDefault()));
+        Assert.assertSame(dictionary.getFlatTemplate(options), dictionary.getFlatTemplate(options));
+
+        // an empty patient should result in a blank line with only the record type and NAACCR version
+        char[] line = template.createLineBuffer();
+        template.writeLine(line, new NaaccrData(), new Patient(), new Tumor(), NaaccrOptions.getDefault());
+        String expected = StringUtils.rightPad("I" + StringUtils.rightPad("", 15) + "160", template.getLineLength());
+        Assert.assertEquals(expected, new String(line));
+
+        // the buffer should be fully overridden each time
+        Arrays.fill(line, 'X');
+        template.writeLine(line, new NaaccrData(), new Patient(), new Tumor(), NaaccrOptions.getDefault());
+        Assert.assertEquals(expected, new String(line));
+    }
+
+    @Test
+    public void testWriteLine() throws NaaccrIOException {
+        RuntimeNaaccrDictionary dictionary = new RuntimeNaaccrDictionary("I", NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160), null);
+        NaaccrOptions options = NaaccrOptions.getDefault();
+        RuntimeFlatTemplate template = dictionary.getFlatTemplate(options);
+        char[] line = template.createLineBuffer();
+
+        NaaccrData root = new NaaccrData();
+        root.addItem(new Item("registryId", "0000000001"));
+        root.addItem(new Item("recordType", "A"));
+        Patient patient = new Patient();
+        patient.addItem(new Item("patientIdNumber", "00000001"));
+        Tumor tumor = new Tumor();
+        tumor.addItem(new Item("primarySite", "C1\n2"));
+        tumor.addItem(new Item("ageAtDiagnosis", "5"));
+        template.writeLine(line, root, patient, tumor, options);
+        String result = new String(line);
+        Assert.assertEquals("I", result.substring(0, 1)); // always written from the format
+        Assert.assertEquals("0000000001", result.substring(29, 39));
+        Assert.assertEquals("00000001", result.substring(41, 49));
+        Assert.assertEquals("C1 2", result.substring(539, 543));
+        Assert.assertEquals("5  ", result.substring(192, 195));
+
+        // the root items are left blank if there is no root data
+        template.writeLine(line, null, patient, tumor, options);
+        Assert.assertEquals(StringUtils.rightPad("", 10), new String(line).substring(29, 39));
+
+        // the tumor items are left blank if there is no tumor
+        template.writeLine(line, root, patient, null, options);
+        Assert.assertEquals("00000001", new String(line).substring(41, 49));
+        Assert.assertEquals("    ", new String(line).substring(539, 543));
+
+        // a single value can be formatted the same way it's written in the line
+        RuntimeNaaccrDictionaryItem ageItem = dictionary.getItemByNaaccrId("ageAtDiagnosis");
+        Assert.assertEquals("5", RuntimeFlatTemplate.formatValue(ageItem, tumor, false, false));
+        Assert.assertEquals("005", RuntimeFlatTemplate.formatValue(ageItem, tumor, true, false));
+        Assert.assertEquals("C1 2", RuntimeFlatTemplate.formatValue(dictionary.getItemByNaaccrId("primarySite"), tumor, false, false));
+        Assert.assertNull(RuntimeFlatTemplate.formatValue(ageItem, new Tumor(), false, false));
+
+        // zero padding
+        options.setApplyZeroPaddingRules(true);
+        template.writeLine(line, root, patient, tumor, options);
+        Assert.assertEquals("005", new String(line).substring(192, 195));
+
+        // values too long are truncated, and reported if requested (even for the format items that are never written)
+        tumor.getItem("ageAtDiagnosis").setValue("12345");
+        root.getItem("recordType").setValue("AB");
+        template.writeLine(line, root, patient, tumor, options);
+        Assert.assertEquals("123", new String(line).substring(192, 195));
+        Assert.assertTrue(tumor.getValidationErrors().isEmpty());
+        Assert.assertTrue(root.getValidationErrors().isEmpty());
+        options.setReportValuesTooLong(true);
+        template.writeLine(line, root, patient, tumor, options);
+        Assert.assertEquals("123", new String(line).substring(192, 195));
+        Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_TOO_LONG, tumor.getValidationErrors().get(0).getCode());
+        Assert.assertEquals("ageAtDiagnosis", tumor.getValidationErrors().get(0).getNaaccrId());
+        Assert.assertEquals(NaaccrErrorUtils.CODE_VAL_TOO_LONG, root.getValidationErrors().get(0).getCode());
+        Assert.assertEquals("recordType", root.getValidationErrors().get(0).getNaaccrId());
+        Assert.assertEquals("I", new String(line).substring(0, 1));
+
+        // excluded items are not written
+        options = NaaccrOptions.getDefault();
+        options.setItemsToExclude(Arrays.asList("primarySite", "recordType"));
+        template = dictionary.getFlatTemplate(options);
+        template.writeLine(line, root, patient, tumor, options);
+        Assert.assertEquals("    ", new String(line).substring(539, 543));
+        Assert.assertEquals("I", new String(line).substring(0, 1));
+    }
+}
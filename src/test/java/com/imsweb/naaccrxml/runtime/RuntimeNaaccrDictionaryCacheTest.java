@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package com.imsweb.naaccrxml.runtime;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.imsweb.naaccrxml.NaaccrFormat;
+import com.imsweb.naaccrxml.NaaccrIOException;
+import com.imsweb.naaccrxml.NaaccrXmlDictionaryUtils;
+import com.imsweb.naaccrxml.PatientFlatReader;
+import com.imsweb.naaccrxml.PatientXmlReader;
+import com.imsweb.naaccrxml.TestingUtils;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+
+public class RuntimeNaaccrDictionaryCacheTest {
+
+    @Test
+    public void testCache() throws IOException {
+        RuntimeNaaccrDictionaryCache.clear();
+        int maxSize = RuntimeNaaccrDictionaryCache.getMaxSize();
+        try {
+            NaaccrDictionary baseDictionary = NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160);
+
+            RuntimeNaaccrDictionary dictionary = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null);
+            Assert.assertEquals(0, RuntimeNaaccrDictionaryCache.getHitCount());
+            Assert.assertEquals(1, RuntimeNaaccrDictionaryCache.getMissCount());
+            Assert.assertSame(dictionary, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null));
+            Assert.assertSame(dictionary, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.emptyList()));
+            Assert.assertEquals(2, RuntimeNaaccrDictionaryCache.getHitCount());
+            Assert.assertEquals(1, RuntimeNaaccrDictionaryCache.getMissCount());
+            Assert.assertNotSame(dictionary, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("A", baseDictionary, null));
+            Assert.assertEquals(2, RuntimeNaaccrDictionaryCache.getSize());
+            Assert.assertThrows(UnsupportedOperationException.class, () -> dictionary.getItems().clear());
+
+            // two user dictionary instances with the same URI should not share the same runtime dictionary
+            NaaccrDictionary userDictionary1 = TestingUtils.createUserDictionary();
+            NaaccrDictionary userDictionary2 = TestingUtils.createUserDictionary();
+            RuntimeNaaccrDictionary userRuntime = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(userDictionary1));
+            Assert.assertSame(userRuntime, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(userDictionary1)));
+            RuntimeNaaccrDictionary otherUserRuntime = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(userDictionary2));
+            Assert.assertNotSame(userRuntime, otherUserRuntime);
+            Assert.assertEquals(userRuntime.getId(), otherUserRuntime.getId());
+            Assert.assertSame(otherUserRuntime, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(userDictionary2)));
+
+            // invalid dictionaries should never be cached
+            int size = RuntimeNaaccrDictionaryCache.getSize();
+            NaaccrDictionary invalidUserDictionary = TestingUtils.createUserDictionary();
+            invalidUserDictionary.getItems().get(0).setNaaccrId(baseDictionary.getItems().get(0).getNaaccrId());
+            for (int i = 0; i < 2; i++)
+                Assert.assertThrows(NaaccrIOException.class, () -> RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(invalidUserDictionary)));
+            Assert.assertEquals(size, RuntimeNaaccrDictionaryCache.getSize());
+            Assert.assertThrows(NaaccrIOException.class, () -> RuntimeNaaccrDictionaryCache.getRuntimeDictionary(null, baseDictionary, null));
+
+            // the least recently used dictionaries should be evicted
+            RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null);
+            RuntimeNaaccrDictionaryCache.setMaxSize(1);
+            Assert.assertEquals(1, RuntimeNaaccrDictionaryCache.getSize());
+            Assert.assertEquals(size - 1, RuntimeNaaccrDictionaryCache.getEvictionCount());
+            Assert.assertSame(dictionary, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null));
+            RuntimeNaaccrDictionaryCache.getRuntimeDictionary("A", baseDictionary, null);
+            Assert.assertEquals(size, RuntimeNaaccrDictionaryCache.getEvictionCount());
+            Assert.assertNotSame(dictionary, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null));
+            Assert.assertThrows(IllegalStateException.class, () -> RuntimeNaaccrDictionaryCache.setMaxSize(-1));
+
+            // the readers should share the same runtime dictionary
+            RuntimeNaaccrDictionaryCache.setMaxSize(maxSize);
+            RuntimeNaaccrDictionaryCache.clear();
+            File xmlFile = TestingUtils.getDataFile("standard-file.xml");
+            for (int i = 0; i < 5; i++)
+                try (PatientXmlReader reader = new PatientXmlReader(new FileReader(xmlFile))) {
+                    Assert.assertNotNull(reader.readPatient());
+                }
+            File flatFile = TestingUtils.getDataFile("fake-naaccr14inc-1-rec.txt");
+            for (int i = 0; i < 5; i++)
+                try (PatientFlatReader reader = new PatientFlatReader(new FileReader(flatFile))) {
+                    Assert.assertNotNull(reader.readPatient());
+                }
+            Assert.assertEquals(2, RuntimeNaaccrDictionaryCache.getMissCount());
+            Assert.assertEquals(8, RuntimeNaaccrDictionaryCache.getHitCount());
+        }
+        finally {
+            RuntimeNaaccrDictionaryCache.setMaxSize(maxSize);
+        }
+    }
+
+    @Test
+    public void testIdentityComparison() throws IOException {
+        RuntimeNaaccrDictionaryCache.clear();
+        NaaccrDictionary baseDictionary = NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(NaaccrFormat.NAACCR_VERSION_160);
+        RuntimeNaaccrDictionary dictionary = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null);
+
+        // a different instance of the base dictionary should not share the same runtime dictionary
+        NaaccrDictionary baseDictionaryCopy;
+        try (Reader reader = new InputStreamReader(Thread.currentThread().getContextClassLoader().getResourceAsStream("naaccr-dictionary-160.xml"), StandardCharsets.UTF_8)) {
+            baseDictionaryCopy = NaaccrXmlDictionaryUtils.readDictionary(reader);
+        }
+        RuntimeNaaccrDictionary copyRuntime = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionaryCopy, null);
+        Assert.assertNotSame(dictionary, copyRuntime);
+        Assert.assertEquals(dictionary.getId(), copyRuntime.getId());
+        Assert.assertSame(copyRuntime, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionaryCopy, null));
+
+        // the null user dictionaries are ignored, but the number and order of the other ones matter
+        NaaccrDictionary userDictionary = TestingUtils.createUserDictionary();
+        RuntimeNaaccrDictionary userRuntime = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(userDictionary));
+        Assert.assertSame(userRuntime, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Arrays.asList(null, userDictionary)));
+        Assert.assertNotSame(userRuntime, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, null));
+        Assert.assertNotSame(userRuntime, RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", baseDictionary, Collections.singletonList(TestingUtils.createUserDictionary())));
+        RuntimeNaaccrDictionaryCache.clear();
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        RuntimeNaaccrDictionaryCache.clear();
+        List<String> versions = NaaccrFormat.getSupportedVersions().stream().sorted().toList();
+        RuntimeNaaccrDictionary[][] results = new RuntimeNaaccrDictionary[4][versions.size()];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            int threadIdx = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < versions.size(); j++) {
+                    try {
+                        results[threadIdx][j] = RuntimeNaaccrDictionaryCache.getRuntimeDictionary("I", NaaccrXmlDictionaryUtils.getBaseDictionaryByVersion(versions.get(j)), null);
+                    }
+                    catch (NaaccrIOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        for (int j = 0; j < versions.size(); j++) {
+            RuntimeNaaccrDictionary expected = results[0][j];
+            Assert.assertNotNull(expected);
+            for (RuntimeNaaccrDictionary[] result : results)
+                Assert.assertSame(expected, result[j]);
+        }
+        Assert.assertEquals(versions.size(), RuntimeNaaccrDictionaryCache.getSize());
+        Assert.assertEquals(versions.size() * (long)results.length, RuntimeNaaccrDictionaryCache.getHitCount() + RuntimeNaaccrDictionaryCache.getMissCount());
+    }
+}
@@ -3,12 +3,18 @@
  */
 package com.imsweb.naaccrxml.sas;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -126,4 +132,52 @@ public class SasUtilsTest {
         Assert.assertEquals("X  ", SasUtils.rightPadWithSpaces("X", 3));
         Assert.assertEquals("X", SasUtils.rightPadWithSpaces("XYZ", 1));
     }
+
+    @Test
+    public void testCreateWriter() throws IOException {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 50000; i++)
+            buf.append("line ").append(i).append('\n');
+
+        // the GZIP files should be the same once uncompressed, whatever the number of threads and level
+        for (int numThreads : new int[] {1, 3}) {
+            for (int level : new int[] {-1, 1}) {
+                File file = TestingUtils.createFile("sas-writer.txt.gz");
+                try (BufferedWriter writer = SasUtils.createWriter(file, numThreads, level)) {
+                    writer.write(buf.toString());
+                }
+                try (BufferedReader reader = SasUtils.createReader(file)) {
+                    Assert.assertEquals(buf.toString(), reader.lines().map(line -> line + "\n").collect(Collectors.joining()));
+                }
+            }
+        }
+
+        // a file without any data should still be a valid GZIP file
+        File file = TestingUtils.createFile("sas-writer-empty.txt.gz");
+        SasUtils.createWriter(file).close();
+        try (BufferedReader reader = SasUtils.createReader(file)) {
+            Assert.assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    public void testParallelGzipStreamsInSync() throws IOException {
+        // the SAS library can't use the parallel GZIP streams of the main library, so it contains Java 8 compatible copies of them; the copies
+        // should be identical to the original classes once their package, names, threads names and notes about each other are normalized
+        for (String name : new String[] {"ParallelGzipInputStream", "ParallelGzipOutputStream"}) {
+            String original = readSource("internal/" + name + ".java");
+            String copy = readSource("sas/Sas" + name + ".java")
+                    .replace("package com.imsweb.naaccrxml.sas;", "package com.imsweb.naaccrxml.internal;")
+                    .replace("SasParallelGzip", "ParallelGzip")
+                    .replace("\"naaccr-xml-sas-", "\"naaccr-xml-");
+            Assert.assertEquals(name, original, copy);
+        }
+    }
+
+    // returns the source of a class of the library, without the last paragraph of the class comment (which refers to the other copy of the class)
+    private static String readSource(String path) throws IOException {
+        String source = new String(Files.readAllBytes(Paths.get(TestingUtils.getWorkingDirectory(), "src/main/java/com/imsweb/naaccrxml", path)), StandardCharsets.UTF_8);
+        int classIdx = source.indexOf(" */\npublic class");
+        return source.substring(0, source.lastIndexOf(" * <br/><br/>", classIdx)) + source.substring(classIdx);
+    }
 }
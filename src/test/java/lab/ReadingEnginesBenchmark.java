@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 Information Management Services, Inc.
+ */
+package lab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+
+import com.imsweb.datagenerator.naaccr.NaaccrXmlDataGenerator;
+import com.imsweb.layout.LayoutFactory;
+import com.imsweb.naaccrxml.NaaccrXmlUtils;
+import com.imsweb.naaccrxml.PatientXmlReader;
+import com.imsweb.naaccrxml.entity.Patient;
+import com.imsweb.naaccrxml.entity.dictionary.NaaccrDictionary;
+import com.imsweb.naaccrxml.runtime.NaaccrStreamConfiguration;
+
+/**
+ * Compares the XStream reading engine with the pull parser one on a large generated file.
+ */
+public class ReadingEnginesBenchmark {
+
+    private static final int _NUM_PATIENTS = 25000;
+
+    private static final int _NUM_RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        File file = new File(System.getProperty("java.io.tmpdir"), "reading-engines-benchmark.xml");
+        if (!file.exists())
+            new NaaccrXmlDataGenerator(LayoutFactory.LAYOUT_ID_NAACCR_XML_25_ABSTRACT).generateFile(file, _NUM_PATIENTS);
+        System.out.println("Reading " + file.getPath() + " (" + file.length() / 1024 / 1024 + " MB)");
+
+        // warm-up
+        readFile(file, NaaccrStreamConfiguration.READING_ENGINE_XSTREAM);
+        readFile(file, NaaccrStreamConfiguration.READING_ENGINE_PULL_PARSER);
+
+        for (String engine : new String[] {NaaccrStreamConfiguration.READING_ENGINE_XSTREAM, NaaccrStreamConfiguration.READING_ENGINE_PULL_PARSER}) {
+            long total = 0;
+            int count = 0;
+            for (int i = 0; i < _NUM_RUNS; i++) {
+                long start = System.currentTimeMillis();
+                count = readFile(file, engine);
+                total += System.currentTimeMillis() - start;
+            }
+            System.out.println(engine + ": read " + count + " patients in " + (total / _NUM_RUNS) + "ms (average of " + _NUM_RUNS + " runs)");
+        }
+    }
+
+    private static int readFile(File file, String engine) throws IOException {
+        NaaccrStreamConfiguration conf = new NaaccrStreamConfiguration();
+        conf.setReadingEngine(engine);
+
+        int count = 0;
+        try (Reader reader = NaaccrXmlUtils.createReader(file); PatientXmlReader xmlReader = new PatientXmlReader(reader, null, (NaaccrDictionary)null, conf)) {
+            Patient patient = xmlReader.readPatient();
+            while (patient != null) {
+                count++;
+                patient = xmlReader.readPatient();
+            }
+        }
+        return count;
+    }
+}